@@ -0,0 +1,203 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.widget.TextView;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.android.material.textfield.TextInputEditText;
+import com.google.android.material.textfield.TextInputLayout;
+
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScaleType;
+import ru.sergeipavlov.armmetrolog.core.NumberInput;
+import ru.sergeipavlov.armmetrolog.core.ScaleFit;
+import ru.sergeipavlov.armmetrolog.core.ScaleFitter;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * As-found section of the current-loop screen: fits the scale types and low-order polynomials to
+ * measured points against the current range, either typed in or, for many instruments at once,
+ * imported from CSV.
+ * <p>
+ * Create it in {@code onCreate}, as it registers for the document picker result.
+ */
+final class AsFoundSection {
+
+    // Candidates listed after a fit.
+    private static final int LISTED_FITS = 3;
+    private static final String[] POINTS_MIME_TYPES = {
+            "text/csv", "text/comma-separated-values", "text/tab-separated-values", "text/plain"
+    };
+
+    private final AppCompatActivity activity;
+    private final CurrentLoopHost host;
+    private final Executor ioExecutor;
+    private final TextInputLayout layout;
+    private final TextInputEditText input;
+    private final TextView resultText;
+    private final NumberInput numberInput = new NumberInput();
+    private final DecimalFormat format = InputFields.newValueFormat();
+    // A handful of points: fitted on the main thread.
+    private final ScaleFitter fitter = new ScaleFitter.Builder().parallelism(1).build();
+    // Hundreds of instruments from a file: fitted on all cores.
+    private final ScaleFitter fileFitter = new ScaleFitter.Builder().build();
+    private final ActivityResultLauncher<String[]> openDocument;
+
+    AsFoundSection(@NonNull AppCompatActivity activity, @NonNull CurrentLoopHost host,
+                   @NonNull Executor ioExecutor) {
+        this.activity = activity;
+        this.host = host;
+        this.ioExecutor = ioExecutor;
+        layout = activity.findViewById(R.id.as_found_layout);
+        input = activity.findViewById(R.id.as_found_input);
+        resultText = activity.findViewById(R.id.as_found_result_text);
+        activity.findViewById(R.id.as_found_fit_button).setOnClickListener(view -> fit());
+        openDocument = activity.registerForActivityResult(
+                new ActivityResultContracts.OpenDocument(), this::onDocumentSelected);
+        activity.findViewById(R.id.as_found_file_button).setOnClickListener(
+                view -> openDocument.launch(POINTS_MIME_TYPES));
+    }
+
+    /**
+     * Lists the best candidates and the deviations of the best scale type, and selects it.
+     */
+    private void fit() {
+        double[][] points = InputFields.parsePoints(numberInput, InputFields.getText(input));
+        List<ScaleFit> fits = null;
+        if (points != null) {
+            try {
+                fits = fitter.fit(host.readRange(), points[0], points[1]);
+            } catch (IllegalArgumentException exception) {
+                // Too few points or no physical range.
+            }
+        }
+        if (fits == null) {
+            layout.setError(activity.getString(R.string.current_loop_as_found_error));
+            resultText.setText(null);
+            return;
+        }
+        layout.setError(null);
+
+        String[] typeNames = activity.getResources().getStringArray(R.array.current_loop_scale_types);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < Math.min(LISTED_FITS, fits.size()); i++) {
+            ScaleFit fit = fits.get(i);
+            CurrentLoopScaleType type = fit.getScaleType();
+            String name = type != null ? typeNames[type.ordinal()]
+                    : activity.getString(R.string.current_loop_as_found_polynomial, fit.getPolynomialDegree());
+            text.append(activity.getString(R.string.current_loop_as_found_candidate, i + 1, name,
+                    format(fit.getStandardError()))).append('\n');
+        }
+        ScaleFit best = null;
+        for (ScaleFit fit : fits) {
+            if (fit.getScaleType() != null) {
+                best = fit;
+                break;
+            }
+        }
+        if (best != null) {
+            double[] deviations = best.getDeviations();
+            text.append('\n').append(activity.getString(R.string.current_loop_as_found_deviations,
+                    typeNames[best.getScaleType().ordinal()], format(best.getMaxAbsDeviation())));
+            for (int i = 0; i < deviations.length; i++) {
+                text.append('\n').append(activity.getString(R.string.current_loop_as_found_point,
+                        format(points[0][i]), format(points[1][i]), format(deviations[i])));
+            }
+            host.selectScaleType(best.getScaleType());
+        }
+        resultText.setText(text);
+    }
+
+    /**
+     * Fits every instrument of the file against the current range and lists the best candidate of
+     * each; the selected scale is left as it is.
+     */
+    private void onDocumentSelected(@Nullable Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        ContentResolver resolver = activity.getContentResolver();
+        CurrentLoopRange range = host.readRange();
+        String[] typeNames = activity.getResources().getStringArray(R.array.current_loop_scale_types);
+        ioExecutor.execute(() -> {
+            String text;
+            try {
+                InputStream input = resolver.openInputStream(uri);
+                if (input == null) {
+                    throw new FileNotFoundException(uri.toString());
+                }
+                Map<String, ScaleFitter.Measurements> instruments;
+                try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+                    instruments = ScaleFitter.readCsv(reader, range);
+                }
+                List<List<ScaleFit>> results = fileFitter.fitAll(new ArrayList<>(instruments.values()));
+                text = formatFileResults(new ArrayList<>(instruments.keySet()), results, typeNames);
+            } catch (IOException | IllegalArgumentException exception) {
+                // Unreadable file, too few points for an instrument, or no physical range.
+                text = null;
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            String shown = text;
+            activity.runOnUiThread(() -> onFileFitted(shown));
+        });
+    }
+
+    /**
+     * Runs on the I/O thread, so it formats with its own DecimalFormat.
+     */
+    @NonNull
+    private String formatFileResults(@NonNull List<String> tags, @NonNull List<List<ScaleFit>> results,
+                                     @NonNull String[] typeNames) {
+        DecimalFormat fileFormat = InputFields.newValueFormat();
+        StringBuilder text = new StringBuilder(activity.getString(R.string.current_loop_as_found_file_header,
+                tags.size()));
+        for (int i = 0; i < tags.size(); i++) {
+            ScaleFit best = results.get(i).get(0);
+            CurrentLoopScaleType type = best.getScaleType();
+            String name = type != null ? typeNames[type.ordinal()]
+                    : activity.getString(R.string.current_loop_as_found_polynomial, best.getPolynomialDegree());
+            String error = InputFields.formatRounded(fileFormat, best.getStandardError());
+            text.append('\n').append(activity.getString(R.string.current_loop_as_found_file_result, tags.get(i),
+                    name, error != null ? error : "—"));
+        }
+        return text.toString();
+    }
+
+    private void onFileFitted(@Nullable String text) {
+        if (activity.isDestroyed()) {
+            return;
+        }
+        if (text == null) {
+            layout.setError(activity.getString(R.string.current_loop_as_found_file_failed));
+            resultText.setText(null);
+            return;
+        }
+        layout.setError(null);
+        resultText.setText(text);
+    }
+
+    @NonNull
+    private String format(double value) {
+        String formatted = InputFields.formatRounded(format, value);
+        return formatted != null ? formatted : "—";
+    }
+}
@@ -0,0 +1,243 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.StringRes;
+import androidx.appcompat.app.AlertDialog;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.SimpleItemAnimator;
+
+import com.google.android.material.appbar.MaterialToolbar;
+
+import ru.sergeipavlov.armmetrolog.core.FixedPointFormatter;
+import ru.sergeipavlov.armmetrolog.core.HistoryEntry;
+import ru.sergeipavlov.armmetrolog.core.NumberInput;
+import ru.sergeipavlov.armmetrolog.core.Quantity;
+import ru.sergeipavlov.armmetrolog.core.RecalculationPipeline;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit converter screen for one {@link Quantity}. Subclasses only describe the rows; the list is
+ * built from the unit registry, so a quantity with many units inflates just the visible rows.
+ */
+public abstract class ConverterActivity extends AppCompatActivity implements ConverterAdapter.Listener {
+
+    private static final String PREF_EXACT_MODE = "exact_mode";
+    private static final MathContext EXACT_CONTEXT = MathContext.DECIMAL128;
+    // Keeps toPlainString() of exact results to a sane length.
+    private static final int MAX_EXACT_SCALE = 100;
+    private static final int MIN_FRACTION_DIGITS = 3;
+    // Bounds the digits shown for input such as "1e-300".
+    private static final int MAX_SCALED_FRACTION_DIGITS = 30;
+
+    private final Quantity quantity;
+    @StringRes
+    private final int titleRes;
+    private final String initialUnitKey;
+    private final boolean signed;
+    private final List<ConverterRow> rows;
+
+    private ConverterAdapter adapter;
+    private boolean exactMode;
+    private int lastSourceUnit;
+    private RecalculationPipeline recalculationPipeline;
+    private HistoryRecorder historyRecorder;
+    private final NumberInput numberInput = new NumberInput();
+
+    // Used by formatValues(), which runs on the recalculation worker once the screen is set up.
+    private final double[] values;
+    private final StringBuilder formatBuffer = new StringBuilder(32);
+    private final BigDecimal[] exactValues;
+
+    /**
+     * @param signed whether negative values can be typed
+     */
+    protected ConverterActivity(@NonNull Quantity quantity, @StringRes int titleRes, @NonNull String initialUnitKey,
+                                boolean signed, @NonNull List<ConverterRow> rows) {
+        this.quantity = quantity;
+        this.titleRes = titleRes;
+        this.initialUnitKey = initialUnitKey;
+        this.signed = signed;
+        this.rows = rows;
+        values = new double[quantity.size()];
+        exactValues = new BigDecimal[quantity.size()];
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_converter);
+
+        MaterialToolbar toolbar = findViewById(R.id.converter_toolbar);
+        toolbar.setTitle(titleRes);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+        toolbar.setNavigationIcon(R.drawable.ic_arrow_back);
+        toolbar.setNavigationOnClickListener(view -> getOnBackPressedDispatcher().onBackPressed());
+
+        recalculationPipeline = new RecalculationPipeline(getMainExecutor());
+        historyRecorder = new HistoryRecorder(this);
+
+        adapter = new ConverterAdapter(quantity, rows, signed, this);
+        exactMode = getPreferences(MODE_PRIVATE).getBoolean(PREF_EXACT_MODE, false);
+        int initialUnit = quantity.indexOf(initialUnitKey);
+        lastSourceUnit = initialUnit;
+        adapter.applyTexts(initialUnit, formatValues(initialUnit, 0.0, MIN_FRACTION_DIGITS), null, -1, -1);
+
+        RecyclerView recyclerView = findViewById(R.id.converter_recycler_view);
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        // A crossfade per keystroke would flicker every row and steal the focused holder.
+        RecyclerView.ItemAnimator animator = recyclerView.getItemAnimator();
+        if (animator instanceof SimpleItemAnimator) {
+            ((SimpleItemAnimator) animator).setSupportsChangeAnimations(false);
+        }
+        recyclerView.setAdapter(adapter);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_converter, menu);
+        menu.findItem(R.id.action_exact_mode).setChecked(exactMode);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        if (item.getItemId() == R.id.action_exact_mode) {
+            exactMode = !item.isChecked();
+            item.setChecked(exactMode);
+            getPreferences(MODE_PRIVATE).edit().putBoolean(PREF_EXACT_MODE, exactMode).apply();
+            recalculate(lastSourceUnit, adapter.getText(lastSourceUnit), -1, -1);
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    @Override
+    protected void onPause() {
+        historyRecorder.commitNow();
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        recalculationPipeline.shutdown();
+        super.onDestroy();
+    }
+
+    @Override
+    public void onValueEdited(int unit, @NonNull CharSequence text, int selectionStart, int selectionEnd) {
+        recalculate(unit, text, selectionStart, selectionEnd);
+    }
+
+    @Override
+    public void onSymbolClicked(@NonNull ConverterRow row) {
+        new AlertDialog.Builder(this)
+                .setTitle(row.titleRes)
+                .setMessage(row.descriptionRes)
+                .setPositiveButton(android.R.string.ok, null)
+                .show();
+    }
+
+    private void recalculate(int unit, @NonNull CharSequence text, int selectionStart, int selectionEnd) {
+        lastSourceUnit = unit;
+
+        NumberInput.Status status = numberInput.parse(text);
+        if (status == NumberInput.Status.INCOMPLETE || status == NumberInput.Status.INVALID) {
+            return;
+        }
+
+        boolean treatAsZero = status == NumberInput.Status.EMPTY;
+        int fractionDigits = treatAsZero ? MIN_FRACTION_DIGITS : getTypedFractionDigits();
+        // Reformatting "1e3" as it is typed would stop the user from typing "1e30".
+        String sourceTextOverride = treatAsZero || !numberInput.isPlain() ? text.toString() : null;
+
+        RecalculationPipeline.Task<String[]> task;
+        if (exactMode) {
+            BigDecimal parsedValue = treatAsZero ? BigDecimal.ZERO : numberInput.toBigDecimal();
+            if (Math.abs(parsedValue.scale()) > MAX_EXACT_SCALE) {
+                return;
+            }
+            task = () -> formatExactValues(unit, parsedValue, fractionDigits);
+        } else {
+            double parsedValue = treatAsZero ? 0.0 : numberInput.getValue();
+            task = () -> formatValues(unit, parsedValue, fractionDigits);
+        }
+
+        recalculationPipeline.submit(
+                task,
+                texts -> {
+                    adapter.applyTexts(unit, texts, sourceTextOverride, selectionStart, selectionEnd);
+                    if (!treatAsZero) {
+                        recordHistory(unit, texts);
+                    }
+                });
+    }
+
+    /**
+     * Fraction digits matching the resolution of the parsed input: {@code "250µ"} is shown to six
+     * places, {@code "4,5k"} to the minimum.
+     */
+    private int getTypedFractionDigits() {
+        int typedDigits = numberInput.getFractionDigits() - numberInput.getScaleExponent();
+        if (!numberInput.isPlain()) {
+            typedDigits = Math.min(typedDigits, MAX_SCALED_FRACTION_DIGITS);
+        }
+        return Math.max(typedDigits, MIN_FRACTION_DIGITS);
+    }
+
+    private void recordHistory(int sourceUnit, @NonNull String[] texts) {
+        Map<String, String> inputs = Collections.singletonMap(quantity.getUnit(sourceUnit).getKey(), texts[sourceUnit]);
+        Map<String, String> outputs = new LinkedHashMap<>();
+        for (int i = 0; i < texts.length; i++) {
+            if (i != sourceUnit) {
+                outputs.put(quantity.getUnit(i).getKey(), texts[i]);
+            }
+        }
+        historyRecorder.schedule(new HistoryEntry(0, quantity.getKey(), "", System.currentTimeMillis(), null,
+                inputs, outputs));
+    }
+
+    @NonNull
+    private String[] formatValues(int sourceUnit, double value, int fractionDigits) {
+        quantity.convertAll(sourceUnit, value, values);
+        FixedPointFormatter formatter = FixedPointFormatter.forFractionDigits(fractionDigits);
+        String[] texts = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            texts[i] = formatter.format(values[i], formatBuffer).toString();
+        }
+        return texts;
+    }
+
+    /**
+     * Exact-mode counterpart of {@link #formatValues}: results are shown in full, with at least
+     * {@code fractionDigits} decimals.
+     */
+    @NonNull
+    private String[] formatExactValues(int sourceUnit, @NonNull BigDecimal value, int fractionDigits) {
+        quantity.convertAllExact(sourceUnit, value, EXACT_CONTEXT, exactValues);
+        String[] texts = new String[exactValues.length];
+        for (int i = 0; i < exactValues.length; i++) {
+            BigDecimal result = exactValues[i].stripTrailingZeros();
+            if (result.scale() < fractionDigits) {
+                result = result.setScale(fractionDigits, RoundingMode.UNNECESSARY);
+            }
+            texts[i] = result.toPlainString();
+        }
+        return texts;
+    }
+}
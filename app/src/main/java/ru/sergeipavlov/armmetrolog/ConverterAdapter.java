@@ -0,0 +1,246 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.text.Editable;
+import android.text.InputType;
+import android.text.TextUtils;
+import android.text.TextWatcher;
+import android.text.method.DigitsKeyListener;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.material.textfield.TextInputEditText;
+import com.google.android.material.textfield.TextInputLayout;
+
+import ru.sergeipavlov.armmetrolog.core.NumberInput;
+import ru.sergeipavlov.armmetrolog.core.Quantity;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rows of a converter screen: section headers and one input per unit of the quantity.
+ * <p>
+ * The adapter owns the displayed text of every unit, so rows can be recycled freely. Edits made
+ * by the user are reported through {@link Listener#onValueEdited}; recalculated values come back
+ * through {@link #applyTexts}, which rebinds only the rows whose text changed with a
+ * {@link #PAYLOAD_TEXT} partial bind that leaves the hint, symbol and focus alone.
+ */
+final class ConverterAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    static final Object PAYLOAD_TEXT = new Object();
+
+    private static final int TYPE_SECTION = 0;
+    private static final int TYPE_UNIT = 1;
+
+    interface Listener {
+        /**
+         * @param text the field's live text; read it before returning
+         */
+        void onValueEdited(int unit, @NonNull CharSequence text, int selectionStart, int selectionEnd);
+
+        void onSymbolClicked(@NonNull ConverterRow row);
+    }
+
+    private final ConverterRow[] rows;
+    private final int[] unitAtPosition;
+    private final int[] positionOfUnit;
+    private final String[] texts;
+    private final int inputType;
+    private final Listener listener;
+
+    // Selection to restore in the source row when its text is rebound.
+    private int selectionUnit = -1;
+    private int selectionStart;
+    private int selectionEnd;
+
+    /**
+     * @param rows every unit of {@code quantity} exactly once, in display order, with optional
+     *             section headers between them
+     */
+    ConverterAdapter(@NonNull Quantity quantity, @NonNull List<ConverterRow> rows, boolean signed,
+                     @NonNull Listener listener) {
+        this.rows = rows.toArray(new ConverterRow[0]);
+        this.listener = listener;
+        unitAtPosition = new int[this.rows.length];
+        positionOfUnit = new int[quantity.size()];
+        Arrays.fill(positionOfUnit, -1);
+        for (int position = 0; position < this.rows.length; position++) {
+            ConverterRow row = this.rows[position];
+            if (row.isSection()) {
+                unitAtPosition[position] = -1;
+                continue;
+            }
+            int unit = quantity.indexOf(row.unitKey);
+            if (positionOfUnit[unit] >= 0) {
+                throw new IllegalArgumentException("Duplicate row for " + row.unitKey);
+            }
+            unitAtPosition[position] = unit;
+            positionOfUnit[unit] = position;
+        }
+        for (int unit = 0; unit < positionOfUnit.length; unit++) {
+            if (positionOfUnit[unit] < 0) {
+                throw new IllegalArgumentException("No row for " + quantity.getUnit(unit).getKey());
+            }
+        }
+        texts = new String[quantity.size()];
+        Arrays.fill(texts, "");
+        inputType = signed
+                ? InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL | InputType.TYPE_NUMBER_FLAG_SIGNED
+                : InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL;
+        setHasStableIds(true);
+    }
+
+    @NonNull
+    String getText(int unit) {
+        return texts[unit];
+    }
+
+    /**
+     * Shows recalculated values. The source row keeps {@code sourceTextOverride} when given, and
+     * its selection is clamped to the new text; a negative selection puts the cursor at the end.
+     */
+    void applyTexts(int sourceUnit, @NonNull String[] newTexts, @Nullable String sourceTextOverride,
+                    int selectionStart, int selectionEnd) {
+        for (int unit = 0; unit < texts.length; unit++) {
+            String text = unit == sourceUnit && sourceTextOverride != null ? sourceTextOverride : newTexts[unit];
+            if (text.equals(texts[unit])) {
+                continue;
+            }
+            texts[unit] = text;
+            if (unit == sourceUnit) {
+                selectionUnit = sourceUnit;
+                this.selectionStart = selectionStart;
+                this.selectionEnd = selectionEnd;
+            }
+            notifyItemChanged(positionOfUnit[unit], PAYLOAD_TEXT);
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return rows.length;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return rows[position].isSection() ? TYPE_SECTION : TYPE_UNIT;
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        if (viewType == TYPE_SECTION) {
+            return new SectionViewHolder(inflater.inflate(R.layout.item_converter_section, parent, false));
+        }
+        return new UnitViewHolder(inflater.inflate(R.layout.item_converter_unit, parent, false));
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        ConverterRow row = rows[position];
+        if (holder instanceof SectionViewHolder) {
+            ((SectionViewHolder) holder).titleView.setText(row.titleRes);
+            return;
+        }
+        UnitViewHolder unitHolder = (UnitViewHolder) holder;
+        unitHolder.unit = unitAtPosition[position];
+        unitHolder.inputLayout.setHint(row.titleRes);
+        unitHolder.symbolView.setText(row.symbolRes);
+        unitHolder.symbolView.setClickable(row.descriptionRes != 0);
+        unitHolder.bindText();
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !(holder instanceof UnitViewHolder)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        ((UnitViewHolder) holder).bindText();
+    }
+
+    static class SectionViewHolder extends RecyclerView.ViewHolder {
+
+        final TextView titleView;
+
+        SectionViewHolder(@NonNull View itemView) {
+            super(itemView);
+            titleView = itemView.findViewById(R.id.converter_section_title);
+        }
+    }
+
+    final class UnitViewHolder extends RecyclerView.ViewHolder implements TextWatcher {
+
+        final TextInputLayout inputLayout;
+        final TextInputEditText input;
+        final TextView symbolView;
+
+        int unit = -1;
+        // Set while the adapter writes into the field, so the write is not reported as an edit.
+        private boolean binding;
+
+        UnitViewHolder(@NonNull View itemView) {
+            super(itemView);
+            inputLayout = itemView.findViewById(R.id.converter_unit_layout);
+            input = itemView.findViewById(R.id.converter_unit_input);
+            symbolView = itemView.findViewById(R.id.converter_unit_symbol);
+            // The numeric keyboard stays, while the key filter lets exponents and SI prefixes through.
+            input.setKeyListener(DigitsKeyListener.getInstance(NumberInput.ACCEPTED_CHARACTERS));
+            input.setRawInputType(inputType);
+            input.addTextChangedListener(this);
+            symbolView.setOnClickListener(view -> {
+                int position = getBindingAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    listener.onSymbolClicked(rows[position]);
+                }
+            });
+        }
+
+        void bindText() {
+            binding = true;
+            String text = texts[unit];
+            if (!TextUtils.equals(input.getText(), text)) {
+                input.setText(text);
+            }
+            if (unit == selectionUnit) {
+                int length = text.length();
+                int start = selectionStart < 0 ? length : Math.min(selectionStart, length);
+                int end = selectionEnd < 0 ? start : Math.min(selectionEnd, length);
+                input.setSelection(start, end);
+                selectionUnit = -1;
+            }
+            binding = false;
+        }
+
+        @Override
+        public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            // no-op
+        }
+
+        @Override
+        public void onTextChanged(CharSequence s, int start, int before, int count) {
+            // no-op
+        }
+
+        @Override
+        public void afterTextChanged(Editable editable) {
+            if (binding || unit < 0) {
+                return;
+            }
+            texts[unit] = editable.toString();
+            listener.onValueEdited(unit, editable, input.getSelectionStart(), input.getSelectionEnd());
+        }
+    }
+}
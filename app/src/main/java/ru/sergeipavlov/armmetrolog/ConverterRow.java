@@ -0,0 +1,49 @@
+package ru.sergeipavlov.armmetrolog;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StringRes;
+
+/**
+ * One entry of a converter screen: a section header or a unit of the screen's
+ * {@link ru.sergeipavlov.armmetrolog.core.Quantity}, referenced by its registry key.
+ */
+final class ConverterRow {
+
+    @Nullable
+    final String unitKey;
+    @StringRes
+    final int titleRes;
+    @StringRes
+    final int symbolRes;
+    /** Shown when the symbol is tapped; {@code 0} if the unit has no description. */
+    @StringRes
+    final int descriptionRes;
+
+    private ConverterRow(@Nullable String unitKey, int titleRes, int symbolRes, int descriptionRes) {
+        this.unitKey = unitKey;
+        this.titleRes = titleRes;
+        this.symbolRes = symbolRes;
+        this.descriptionRes = descriptionRes;
+    }
+
+    @NonNull
+    static ConverterRow section(@StringRes int titleRes) {
+        return new ConverterRow(null, titleRes, 0, 0);
+    }
+
+    @NonNull
+    static ConverterRow unit(@NonNull String unitKey, @StringRes int titleRes, @StringRes int symbolRes) {
+        return new ConverterRow(unitKey, titleRes, symbolRes, 0);
+    }
+
+    @NonNull
+    static ConverterRow unit(@NonNull String unitKey, @StringRes int titleRes, @StringRes int symbolRes,
+                             @StringRes int descriptionRes) {
+        return new ConverterRow(unitKey, titleRes, symbolRes, descriptionRes);
+    }
+
+    boolean isSection() {
+        return unitKey == null;
+    }
+}
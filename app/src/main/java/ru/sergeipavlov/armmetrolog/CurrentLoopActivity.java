@@ -15,11 +15,53 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.textfield.TextInputEditText;
 
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScale;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScaleType;
+import ru.sergeipavlov.armmetrolog.core.FormulaScale;
+import ru.sergeipavlov.armmetrolog.core.HistoryEntry;
+import ru.sergeipavlov.armmetrolog.core.NumberInput;
+import ru.sergeipavlov.armmetrolog.core.Quantities;
+import ru.sergeipavlov.armmetrolog.core.Quantity;
+import ru.sergeipavlov.armmetrolog.core.RecalculationPipeline;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
 import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.util.Locale;
-
-public class CurrentLoopActivity extends AppCompatActivity {
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Current-loop calculator: converts between the signal and the physical value for a range and a
+ * scale, records the calculations in history and hosts the sections that work on the same range and
+ * scale, each in its own class.
+ */
+public class CurrentLoopActivity extends AppCompatActivity implements CurrentLoopHost {
+
+    // History names of the user-defined scales, next to the CurrentLoopScaleType names.
+    private static final String CUSTOM_SCALE_NAME = "PIECEWISE";
+    private static final String FORMULA_SCALE_NAME = "FORMULA";
+    // Spinner positions after the built-in scale types.
+    private static final int CUSTOM_SCALE_POSITION = CurrentLoopScaleType.values().length;
+    private static final int FORMULA_SCALE_POSITION = CUSTOM_SCALE_POSITION + 1;
+    // Quantity of the physical unit choice, and the digits kept when the range is converted.
+    private static final Quantity PHYSICAL_QUANTITY = Quantities.PRESSURE;
+    private static final MathContext PHYSICAL_UNIT_CONTEXT = new MathContext(9);
+
+    // History field keys.
+    static final String FIELD_PHYSICAL_START = "physical_start";
+    static final String FIELD_PHYSICAL_END = "physical_end";
+    static final String FIELD_SIGNAL_START = "signal_start";
+    static final String FIELD_SIGNAL_END = "signal_end";
+    static final String FIELD_PHYSICAL_VALUE = "physical_value";
+    static final String FIELD_SIGNAL_VALUE = "signal_value";
+    static final String FIELD_PHYSICAL_UNIT = "physical_unit";
 
     private TextInputEditText physicalStartInput;
     private TextInputEditText physicalEndInput;
@@ -28,17 +70,36 @@ public class CurrentLoopActivity extends AppCompatActivity {
     private TextInputEditText signalEndInput;
     private TextInputEditText signalValueInput;
     private Spinner scaleTypeSpinner;
+    private Spinner physicalUnitSpinner;
+    private TextInputEditText tagInput;
+
+    private SweepExportSection sweepExportSection;
+    private CustomScaleSection customScaleSection;
+    private FormulaScaleSection formulaScaleSection;
+    private AsFoundSection asFoundSection;
+    private StrappingSection strappingSection;
+    private LiveMonitorController liveMonitorController;
+    private UncertaintySection uncertaintySection;
 
     private boolean isUpdating;
-    private CurrentLoopScaleType currentScaleType = CurrentLoopScaleType.LINEAR;
+    // Unit of the physical fields in PHYSICAL_QUANTITY, -1 for plain numbers.
+    private int physicalUnit = -1;
+    // PHYSICAL_QUANTITY unit of each physical unit spinner position.
+    private final List<Integer> physicalUnits = new ArrayList<>();
+    // Set by the first edit, so that defaults and restored values are not recorded as new calculations.
+    private boolean historyArmed;
+    private HistoryRecorder historyRecorder;
+    // Null while a user-defined scale is selected but not defined yet.
+    @Nullable
+    private CurrentLoopScale currentScale = CurrentLoopScaleType.LINEAR;
+    private RecalculationPipeline recalculationPipeline;
+    // Main thread only, see getInputValue().
+    private final NumberInput numberInput = new NumberInput();
 
-    private final DecimalFormat valueFormatter;
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
 
-    public CurrentLoopActivity() {
-        DecimalFormatSymbols symbols = new DecimalFormatSymbols(Locale.US);
-        valueFormatter = new DecimalFormat("0.###", symbols);
-        valueFormatter.setGroupingUsed(false);
-    }
+    // Not thread-safe: after initializeDefaultValues() it is only used on the recalculation worker.
+    private final DecimalFormat valueFormatter = InputFields.newValueFormat();
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -53,11 +114,52 @@ public class CurrentLoopActivity extends AppCompatActivity {
         toolbar.setNavigationIcon(R.drawable.ic_arrow_back);
         toolbar.setNavigationOnClickListener(view -> getOnBackPressedDispatcher().onBackPressed());
 
+        recalculationPipeline = new RecalculationPipeline(getMainExecutor());
+        historyRecorder = new HistoryRecorder(this);
+
         bindViews();
+        sweepExportSection = new SweepExportSection(this, this, ioExecutor);
+        sweepExportSection.restoreState(savedInstanceState);
+        customScaleSection = new CustomScaleSection(this, this, ioExecutor);
+        formulaScaleSection = new FormulaScaleSection(this, this, ioExecutor);
+        asFoundSection = new AsFoundSection(this, this, ioExecutor);
+        strappingSection = new StrappingSection(this, ioExecutor);
+        liveMonitorController = new LiveMonitorController(this, this, ioExecutor);
+        uncertaintySection = new UncertaintySection(this, this);
         setupSpinner();
+        setupPhysicalUnitSpinner();
         initializeDefaultValues();
         setupTextWatchers();
         recalculatePhysicalFromSignal();
+        // Queued first, so that a restored calculation on a user-defined scale finds it loaded.
+        customScaleSection.load();
+        formulaScaleSection.load();
+        strappingSection.load();
+        if (savedInstanceState == null) {
+            restoreLastCalculation();
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        sweepExportSection.saveState(outState);
+    }
+
+    @Override
+    protected void onPause() {
+        liveMonitorController.stop();
+        uncertaintySection.stop();
+        historyRecorder.commitNow();
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        recalculationPipeline.shutdown();
+        uncertaintySection.shutdown();
+        ioExecutor.shutdown();
+        super.onDestroy();
     }
 
     private void bindViews() {
@@ -68,13 +170,22 @@ public class CurrentLoopActivity extends AppCompatActivity {
         signalEndInput = findViewById(R.id.signal_end_input);
         signalValueInput = findViewById(R.id.signal_value_input);
         scaleTypeSpinner = findViewById(R.id.scale_type_spinner);
+        physicalUnitSpinner = findViewById(R.id.physical_unit_spinner);
+        tagInput = findViewById(R.id.instrument_tag_input);
+        InputFields.acceptNumbers(physicalStartInput, physicalEndInput, physicalValueInput,
+                signalStartInput, signalEndInput, signalValueInput);
     }
 
     private void setupSpinner() {
-        ArrayAdapter<CharSequence> adapter = ArrayAdapter.createFromResource(
+        // The built-in scale types in enum order, then the custom table and the formula.
+        List<CharSequence> items = new ArrayList<>(Arrays.asList(
+                getResources().getTextArray(R.array.current_loop_scale_types)));
+        items.add(getText(R.string.current_loop_scale_custom));
+        items.add(getText(R.string.current_loop_scale_formula));
+        ArrayAdapter<CharSequence> adapter = new ArrayAdapter<>(
                 this,
-                R.array.current_loop_scale_types,
-                android.R.layout.simple_spinner_item
+                android.R.layout.simple_spinner_item,
+                items
         );
         adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         scaleTypeSpinner.setAdapter(adapter);
@@ -82,7 +193,20 @@ public class CurrentLoopActivity extends AppCompatActivity {
         scaleTypeSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                currentScaleType = CurrentLoopScaleType.values()[position];
+                CurrentLoopScale selected;
+                if (position == CUSTOM_SCALE_POSITION) {
+                    selected = customScaleSection.getScale();
+                } else if (position == FORMULA_SCALE_POSITION) {
+                    selected = formulaScaleSection.getScale();
+                } else {
+                    selected = CurrentLoopScaleType.values()[position];
+                }
+                if (selected != currentScale) {
+                    historyArmed = true;
+                }
+                currentScale = selected;
+                customScaleSection.setVisible(position == CUSTOM_SCALE_POSITION);
+                formulaScaleSection.setVisible(position == FORMULA_SCALE_POSITION);
                 recalculatePhysicalFromSignal();
             }
 
@@ -93,6 +217,81 @@ public class CurrentLoopActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Offers the pressure units for the physical fields, listed as on the pressure screen; the
+     * first entry leaves them as plain numbers.
+     */
+    private void setupPhysicalUnitSpinner() {
+        List<CharSequence> items = new ArrayList<>();
+        items.add(getText(R.string.current_loop_physical_unit_none));
+        physicalUnits.add(-1);
+        for (ConverterRow row : PressureActivity.ROWS) {
+            if (!row.isSection()) {
+                items.add(getText(row.symbolRes));
+                physicalUnits.add(PHYSICAL_QUANTITY.indexOf(row.unitKey));
+            }
+        }
+        ArrayAdapter<CharSequence> adapter = new ArrayAdapter<>(
+                this,
+                android.R.layout.simple_spinner_item,
+                items
+        );
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        physicalUnitSpinner.setAdapter(adapter);
+        physicalUnitSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                int unit = physicalUnits.get(position);
+                if (unit == physicalUnit) {
+                    return;
+                }
+                if (physicalUnit >= 0 && unit >= 0) {
+                    convertPhysicalFields(physicalUnit, unit);
+                }
+                physicalUnit = unit;
+                historyArmed = true;
+                recalculatePhysicalFromSignal();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+                // No-op
+            }
+        });
+    }
+
+    /**
+     * Re-expresses the range and the physical value in another unit. The conversion is affine, so
+     * the signal stays where it was for every scale type.
+     */
+    private void convertPhysicalFields(int fromUnit, int toUnit) {
+        isUpdating = true;
+        for (TextInputEditText input : new TextInputEditText[]{physicalStartInput, physicalEndInput,
+                physicalValueInput}) {
+            double value = getInputValue(input, Double.NaN);
+            if (Double.isFinite(value)) {
+                double converted = PHYSICAL_QUANTITY.convert(value, fromUnit, toUnit);
+                input.setText(new BigDecimal(converted).round(PHYSICAL_UNIT_CONTEXT)
+                        .stripTrailingZeros().toPlainString());
+            }
+        }
+        isUpdating = false;
+    }
+
+    private void selectPhysicalUnit(@Nullable String unitKey) {
+        int unit = -1;
+        if (unitKey != null) {
+            try {
+                unit = PHYSICAL_QUANTITY.indexOf(unitKey);
+            } catch (IllegalArgumentException exception) {
+                // Entry from a unit that no longer exists; leave the fields as plain numbers.
+            }
+        }
+        // Set first, so that the selection callback does not convert the restored fields.
+        physicalUnit = unit;
+        physicalUnitSpinner.setSelection(physicalUnits.indexOf(unit));
+    }
+
     private void initializeDefaultValues() {
         isUpdating = true;
         physicalStartInput.setText(formatValue(0));
@@ -111,6 +310,7 @@ public class CurrentLoopActivity extends AppCompatActivity {
                 if (isUpdating) {
                     return;
                 }
+                historyArmed = true;
                 recalculateSignalFromPhysical();
             }
         };
@@ -122,6 +322,7 @@ public class CurrentLoopActivity extends AppCompatActivity {
                 if (isUpdating) {
                     return;
                 }
+                historyArmed = true;
                 recalculatePhysicalFromSignal();
             }
         };
@@ -133,39 +334,193 @@ public class CurrentLoopActivity extends AppCompatActivity {
     }
 
     private void recalculateSignalFromPhysical() {
-        Double scv = getInputValue(physicalValueInput, null);
-        if (scv == null) {
+        double scv = getInputValue(physicalValueInput, Double.NaN);
+        if (Double.isNaN(scv)) {
             return;
         }
-        double scs = getInputValue(physicalStartInput, 0.0);
-        double sce = getInputValue(physicalEndInput, 100.0);
-        double sgs = getInputValue(signalStartInput, 0.0);
-        double sge = getInputValue(signalEndInput, 20.0);
-
-        double result = currentScaleType.toSignal(scv, scs, sce, sgs, sge);
-        applyResult(signalValueInput, result);
+        CurrentLoopScale scale = currentScale;
+        if (scale == null) {
+            return;
+        }
+        CurrentLoopRange range = readRange();
+        recalculationPipeline.submit(
+                () -> formatResult(scale.toSignal(scv, range)),
+                formatted -> {
+                    applyResult(signalValueInput, formatted);
+                    if (formatted != null) {
+                        recordHistory(false);
+                    }
+                    updateTankVolume();
+                });
     }
 
     private void recalculatePhysicalFromSignal() {
-        Double sgv = getInputValue(signalValueInput, null);
-        if (sgv == null) {
+        double sgv = getInputValue(signalValueInput, Double.NaN);
+        if (Double.isNaN(sgv)) {
+            return;
+        }
+        CurrentLoopScale scale = currentScale;
+        if (scale == null) {
+            return;
+        }
+        CurrentLoopRange range = readRange();
+        recalculationPipeline.submit(
+                () -> formatResult(scale.toPhysical(sgv, range)),
+                formatted -> {
+                    applyResult(physicalValueInput, formatted);
+                    if (formatted != null) {
+                        recordHistory(true);
+                    }
+                    updateTankVolume();
+                });
+    }
+
+    private void recordHistory(boolean physicalFromSignal) {
+        if (!historyArmed) {
+            return;
+        }
+        Map<String, String> inputs = new LinkedHashMap<>();
+        inputs.put(FIELD_PHYSICAL_START, InputFields.getText(physicalStartInput));
+        inputs.put(FIELD_PHYSICAL_END, InputFields.getText(physicalEndInput));
+        inputs.put(FIELD_SIGNAL_START, InputFields.getText(signalStartInput));
+        inputs.put(FIELD_SIGNAL_END, InputFields.getText(signalEndInput));
+        if (physicalUnit >= 0) {
+            inputs.put(FIELD_PHYSICAL_UNIT, PHYSICAL_QUANTITY.getUnit(physicalUnit).getKey());
+        }
+        Map<String, String> outputs;
+        if (physicalFromSignal) {
+            inputs.put(FIELD_SIGNAL_VALUE, InputFields.getText(signalValueInput));
+            outputs = Collections.singletonMap(FIELD_PHYSICAL_VALUE, InputFields.getText(physicalValueInput));
+        } else {
+            inputs.put(FIELD_PHYSICAL_VALUE, InputFields.getText(physicalValueInput));
+            outputs = Collections.singletonMap(FIELD_SIGNAL_VALUE, InputFields.getText(signalValueInput));
+        }
+        historyRecorder.schedule(new HistoryEntry(0, HistoryStore.SCREEN_CURRENT_LOOP,
+                getInstrumentTag(), System.currentTimeMillis(), getScaleName(), inputs, outputs));
+    }
+
+    private void restoreLastCalculation() {
+        HistoryStore store = HistoryStore.getInstance(this);
+        ioExecutor.execute(() -> {
+            HistoryEntry entry = store.loadLatest(HistoryStore.SCREEN_CURRENT_LOOP);
+            if (entry != null) {
+                runOnUiThread(() -> applyRestoredCalculation(entry));
+            }
+        });
+    }
+
+    private void applyRestoredCalculation(@NonNull HistoryEntry entry) {
+        if (historyArmed || isDestroyed()) {
+            return;
+        }
+        Map<String, String> values = new LinkedHashMap<>(entry.getInputs());
+        values.putAll(entry.getOutputs());
+        isUpdating = true;
+        tagInput.setText(entry.getTag());
+        restoreText(physicalStartInput, values.get(FIELD_PHYSICAL_START));
+        restoreText(physicalEndInput, values.get(FIELD_PHYSICAL_END));
+        restoreText(signalStartInput, values.get(FIELD_SIGNAL_START));
+        restoreText(signalEndInput, values.get(FIELD_SIGNAL_END));
+        restoreText(physicalValueInput, values.get(FIELD_PHYSICAL_VALUE));
+        restoreText(signalValueInput, values.get(FIELD_SIGNAL_VALUE));
+        isUpdating = false;
+        selectPhysicalUnit(values.get(FIELD_PHYSICAL_UNIT));
+        if (CUSTOM_SCALE_NAME.equals(entry.getScaleType())) {
+            if (customScaleSection.getScale() != null) {
+                currentScale = customScaleSection.getScale();
+                scaleTypeSpinner.setSelection(CUSTOM_SCALE_POSITION);
+            }
+        } else if (FORMULA_SCALE_NAME.equals(entry.getScaleType())) {
+            if (formulaScaleSection.getScale() != null) {
+                currentScale = formulaScaleSection.getScale();
+                scaleTypeSpinner.setSelection(FORMULA_SCALE_POSITION);
+            }
+        } else if (entry.getScaleType() != null) {
+            try {
+                CurrentLoopScaleType scaleType = CurrentLoopScaleType.valueOf(entry.getScaleType());
+                currentScale = scaleType;
+                scaleTypeSpinner.setSelection(scaleType.ordinal());
+            } catch (IllegalArgumentException exception) {
+                // Entry from a scale type that no longer exists; keep the current one.
+            }
+        }
+    }
+
+    private void restoreText(@NonNull TextInputEditText editText, @Nullable String text) {
+        if (text != null) {
+            editText.setText(text);
+        }
+    }
+
+    @NonNull
+    @Override
+    public String getInstrumentTag() {
+        return InputFields.getText(tagInput).trim();
+    }
+
+    @NonNull
+    @Override
+    public String getScaleName() {
+        CurrentLoopScale scale = currentScale;
+        if (scale instanceof CurrentLoopScaleType) {
+            return ((CurrentLoopScaleType) scale).name();
+        }
+        return scale instanceof FormulaScale ? FORMULA_SCALE_NAME : CUSTOM_SCALE_NAME;
+    }
+
+    @Nullable
+    @Override
+    public CurrentLoopScale getCurrentScale() {
+        return currentScale;
+    }
+
+    @Override
+    public void selectScaleType(@NonNull CurrentLoopScaleType scaleType) {
+        scaleTypeSpinner.setSelection(scaleType.ordinal());
+    }
+
+    @Override
+    public void onUserScaleChanged(@NonNull CurrentLoopScale scale, boolean edited) {
+        int position = scale instanceof FormulaScale ? FORMULA_SCALE_POSITION : CUSTOM_SCALE_POSITION;
+        if (scaleTypeSpinner.getSelectedItemPosition() != position) {
             return;
         }
-        double scs = getInputValue(physicalStartInput, 0.0);
-        double sce = getInputValue(physicalEndInput, 100.0);
-        double sgs = getInputValue(signalStartInput, 0.0);
-        double sge = getInputValue(signalEndInput, 20.0);
+        currentScale = scale;
+        if (edited) {
+            historyArmed = true;
+        }
+        recalculatePhysicalFromSignal();
+    }
 
-        double result = currentScaleType.toPhysical(sgv, scs, sce, sgs, sge);
-        applyResult(physicalValueInput, result);
+    @Override
+    public void showValues(@Nullable String signal, @Nullable String physical) {
+        applyResult(signalValueInput, signal);
+        applyResult(physicalValueInput, physical);
     }
 
-    private void applyResult(@NonNull TextInputEditText target, double value) {
-        if (Double.isNaN(value) || Double.isInfinite(value)) {
+    @NonNull
+    @Override
+    public CurrentLoopRange readRange() {
+        return new CurrentLoopRange(
+                getInputValue(physicalStartInput, 0.0),
+                getInputValue(physicalEndInput, 100.0),
+                getInputValue(signalStartInput, 0.0),
+                getInputValue(signalEndInput, 20.0));
+    }
+
+    private void updateTankVolume() {
+        strappingSection.setLevel(getInputValue(physicalValueInput, Double.NaN));
+    }
+
+    @Nullable
+    private String formatResult(double value) {
+        return InputFields.formatRounded(valueFormatter, value);
+    }
+
+    private void applyResult(@NonNull TextInputEditText target, @Nullable String formatted) {
+        if (formatted == null) {
             return;
         }
-        double rounded = Math.round(value * 1000d) / 1000d;
-        String formatted = formatValue(rounded);
         Editable current = target.getText();
         if (current != null && formatted.equals(current.toString())) {
             return;
@@ -180,24 +535,12 @@ public class CurrentLoopActivity extends AppCompatActivity {
         return valueFormatter.format(value);
     }
 
-    @Nullable
-    private Double getInputValue(@NonNull TextInputEditText editText, @Nullable Double defaultValue) {
-        Editable text = editText.getText();
-        if (text == null) {
-            return defaultValue;
-        }
-        String raw = text.toString().trim();
-        if (raw.isEmpty()) {
-            return defaultValue;
-        }
-        if (raw.equals("-") || raw.equals(".") || raw.equals("-.") || raw.equals(",") || raw.equals("-,")) {
-            return null;
-        }
-        try {
-            return Double.parseDouble(raw.replace(',', '.'));
-        } catch (NumberFormatException ex) {
-            return null;
-        }
+    /**
+     * @return the field's value, {@code defaultValue} if it is blank, or {@link Double#NaN} while
+     * it holds an incomplete or invalid number
+     */
+    private double getInputValue(@NonNull TextInputEditText editText, double defaultValue) {
+        return InputFields.getValue(numberInput, editText, defaultValue);
     }
 
     private abstract static class SimpleTextWatcher implements TextWatcher {
@@ -209,149 +552,4 @@ public class CurrentLoopActivity extends AppCompatActivity {
         public void onTextChanged(CharSequence s, int start, int before, int count) {
         }
     }
-
-    private enum CurrentLoopScaleType {
-        LINEAR {
-            @Override
-            double toSignal(double scv, double scs, double sce, double sgs, double sge) {
-                double denominator = sce - scs;
-                if (denominator == 0) {
-                    return Double.NaN;
-                }
-                double ratio = (scv - scs) / denominator;
-                return ratio * (sge - sgs) + sgs;
-            }
-
-            @Override
-            double toPhysical(double sgv, double scs, double sce, double sgs, double sge) {
-                double denominator = sge - sgs;
-                if (denominator == 0) {
-                    return Double.NaN;
-                }
-                double ratio = (sgv - sgs) / denominator;
-                return ratio * (sce - scs) + scs;
-            }
-        },
-        LINEAR_DESCENDING {
-            @Override
-            double toSignal(double scv, double scs, double sce, double sgs, double sge) {
-                double denominator = sce - scs;
-                if (denominator == 0) {
-                    return Double.NaN;
-                }
-                double ratio = (scv - scs) / denominator;
-                return ratio * (sgs - sge) + sge;
-            }
-
-            @Override
-            double toPhysical(double sgv, double scs, double sce, double sgs, double sge) {
-                double denominator = sgs - sge;
-                if (denominator == 0) {
-                    return Double.NaN;
-                }
-                double ratio = (sgv - sge) / denominator;
-                return ratio * (sce - scs) + scs;
-            }
-        },
-        QUADRATIC {
-            @Override
-            double toSignal(double scv, double scs, double sce, double sgs, double sge) {
-                double denominator = sce - scs;
-                if (denominator == 0) {
-                    return Double.NaN;
-                }
-                double ratio = (scv - scs) / denominator;
-                return Math.pow(ratio, 2) * (sge - sgs) + sgs;
-            }
-
-            @Override
-            double toPhysical(double sgv, double scs, double sce, double sgs, double sge) {
-                double denominator = sge - sgs;
-                if (denominator == 0) {
-                    return Double.NaN;
-                }
-                double ratio = (sgv - sgs) / denominator;
-                if (ratio < 0) {
-                    return Double.NaN;
-                }
-                return Math.sqrt(ratio) * (sce - scs) + scs;
-            }
-        },
-        QUADRATIC_DESCENDING {
-            @Override
-            double toSignal(double scv, double scs, double sce, double sgs, double sge) {
-                double denominator = sce - scs;
-                if (denominator == 0) {
-                    return Double.NaN;
-                }
-                double ratio = (scv - scs) / denominator;
-                return Math.pow(ratio, 2) * (sgs - sge) + sge;
-            }
-
-            @Override
-            double toPhysical(double sgv, double scs, double sce, double sgs, double sge) {
-                double denominator = sgs - sge;
-                if (denominator == 0) {
-                    return Double.NaN;
-                }
-                double ratio = (sgv - sge) / denominator;
-                if (ratio < 0) {
-                    return Double.NaN;
-                }
-                return Math.sqrt(ratio) * (sce - scs) + scs;
-            }
-        },
-        ROOT {
-            @Override
-            double toSignal(double scv, double scs, double sce, double sgs, double sge) {
-                double denominator = sce - scs;
-                if (denominator == 0) {
-                    return Double.NaN;
-                }
-                double ratio = (scv - scs) / denominator;
-                if (ratio < 0) {
-                    return Double.NaN;
-                }
-                return Math.sqrt(ratio) * (sge - sgs) + sgs;
-            }
-
-            @Override
-            double toPhysical(double sgv, double scs, double sce, double sgs, double sge) {
-                double denominator = sge - sgs;
-                if (denominator == 0) {
-                    return Double.NaN;
-                }
-                double ratio = (sgv - sgs) / denominator;
-                return Math.pow(ratio, 2) * (sce - scs) + scs;
-            }
-        },
-        ROOT_DESCENDING {
-            @Override
-            double toSignal(double scv, double scs, double sce, double sgs, double sge) {
-                double denominator = sce - scs;
-                if (denominator == 0) {
-                    return Double.NaN;
-                }
-                double ratio = (scv - scs) / denominator;
-                if (ratio < 0) {
-                    return Double.NaN;
-                }
-                return Math.sqrt(ratio) * (sgs - sge) + sge;
-            }
-
-            @Override
-            double toPhysical(double sgv, double scs, double sce, double sgs, double sge) {
-                double denominator = sgs - sge;
-                if (denominator == 0) {
-                    return Double.NaN;
-                }
-                double ratio = (sgv - sge) / denominator;
-                return Math.pow(ratio, 2) * (sce - scs) + scs;
-            }
-        };
-
-        abstract double toSignal(double scv, double scs, double sce, double sgs, double sge);
-
-        abstract double toPhysical(double sgv, double scs, double sce, double sgs, double sge);
-    }
 }
@@ -0,0 +1,50 @@
+package ru.sergeipavlov.armmetrolog;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScale;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScaleType;
+
+/**
+ * What the sections of the current-loop screen read from it and report back. Main thread only.
+ */
+interface CurrentLoopHost {
+
+    /**
+     * The range in the range fields, blank fields taking their defaults.
+     */
+    @NonNull
+    CurrentLoopRange readRange();
+
+    /**
+     * The selected scale, or {@code null} while a user-defined scale is selected but not defined yet.
+     */
+    @Nullable
+    CurrentLoopScale getCurrentScale();
+
+    /**
+     * The instrument tag field, trimmed, as stored in history.
+     */
+    @NonNull
+    String getInstrumentTag();
+
+    /**
+     * Name of the selected scale as stored in history and used in file names.
+     */
+    @NonNull
+    String getScaleName();
+
+    void selectScaleType(@NonNull CurrentLoopScaleType scaleType);
+
+    /**
+     * A user-defined scale was loaded, or defined anew when {@code edited}.
+     */
+    void onUserScaleChanged(@NonNull CurrentLoopScale scale, boolean edited);
+
+    /**
+     * Shows a live reading in the value fields; {@code null} leaves a field as it is.
+     */
+    void showValues(@Nullable String signal, @Nullable String physical);
+}
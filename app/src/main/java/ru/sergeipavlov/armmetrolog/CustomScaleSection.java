@@ -0,0 +1,165 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.util.AtomicFile;
+import android.view.View;
+import android.widget.CheckBox;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.android.material.textfield.TextInputEditText;
+import com.google.android.material.textfield.TextInputLayout;
+
+import ru.sergeipavlov.armmetrolog.core.NumberInput;
+import ru.sergeipavlov.armmetrolog.core.PiecewiseScale;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/**
+ * Custom table section of the current-loop screen: a piecewise scale typed as physical and signal
+ * percent of the range, one point per line, kept in binary form for the next start.
+ */
+final class CustomScaleSection {
+
+    private static final String CUSTOM_SCALE_FILE = "custom_scale.bin";
+
+    private final AppCompatActivity activity;
+    private final CurrentLoopHost host;
+    private final Executor ioExecutor;
+    private final View section;
+    private final TextInputLayout layout;
+    private final TextInputEditText input;
+    private final CheckBox cubicCheck;
+    private final NumberInput numberInput = new NumberInput();
+
+    @Nullable
+    private PiecewiseScale scale;
+
+    CustomScaleSection(@NonNull AppCompatActivity activity, @NonNull CurrentLoopHost host,
+                       @NonNull Executor ioExecutor) {
+        this.activity = activity;
+        this.host = host;
+        this.ioExecutor = ioExecutor;
+        section = activity.findViewById(R.id.custom_scale_section);
+        layout = activity.findViewById(R.id.custom_scale_layout);
+        input = activity.findViewById(R.id.custom_scale_input);
+        cubicCheck = activity.findViewById(R.id.custom_scale_cubic_check);
+        activity.findViewById(R.id.custom_scale_apply_button).setOnClickListener(view -> apply());
+    }
+
+    /**
+     * @return the defined table, or {@code null} until one is applied or loaded
+     */
+    @Nullable
+    PiecewiseScale getScale() {
+        return scale;
+    }
+
+    void setVisible(boolean visible) {
+        section.setVisibility(visible ? View.VISIBLE : View.GONE);
+    }
+
+    /**
+     * Builds the scale from the table field and saves it for the next start.
+     */
+    private void apply() {
+        PiecewiseScale parsed = parse(InputFields.getText(input), cubicCheck.isChecked());
+        if (parsed == null) {
+            layout.setError(activity.getString(R.string.current_loop_custom_scale_error));
+            return;
+        }
+        layout.setError(null);
+        scale = parsed;
+        host.onUserScaleChanged(parsed, true);
+        AtomicFile file = new AtomicFile(new File(activity.getFilesDir(), CUSTOM_SCALE_FILE));
+        ioExecutor.execute(() -> save(file, parsed));
+    }
+
+    @Nullable
+    private PiecewiseScale parse(@NonNull String text, boolean cubic) {
+        double[][] points = InputFields.parsePoints(numberInput, text);
+        if (points == null) {
+            return null;
+        }
+        double[] physical = points[0];
+        double[] signal = points[1];
+        for (int i = 0; i < physical.length; i++) {
+            physical[i] /= 100;
+            signal[i] /= 100;
+        }
+        try {
+            return PiecewiseScale.of(cubic ? PiecewiseScale.Interpolation.MONOTONE_CUBIC : PiecewiseScale.Interpolation.LINEAR,
+                    physical, signal);
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+    private static void save(@NonNull AtomicFile file, @NonNull PiecewiseScale scale) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            scale.writeTo(out);
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException exception) {
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    /**
+     * Reads the table saved by an earlier start, unless one is applied meanwhile.
+     */
+    void load() {
+        AtomicFile file = new AtomicFile(new File(activity.getFilesDir(), CUSTOM_SCALE_FILE));
+        ioExecutor.execute(() -> {
+            PiecewiseScale loaded;
+            try (FileInputStream stream = file.openRead()) {
+                loaded = PiecewiseScale.readFrom(new DataInputStream(new BufferedInputStream(stream)));
+            } catch (IOException exception) {
+                // No table saved yet, or an unreadable one: start without.
+                return;
+            }
+            String text = format(loaded);
+            activity.runOnUiThread(() -> onLoaded(loaded, text));
+        });
+    }
+
+    @NonNull
+    private static String format(@NonNull PiecewiseScale scale) {
+        DecimalFormat format = new DecimalFormat("0.######", new DecimalFormatSymbols(Locale.US));
+        double[] physical = scale.getPhysicalRatios();
+        double[] signal = scale.getSignalRatios();
+        StringBuilder text = new StringBuilder(physical.length * 16);
+        for (int i = 0; i < physical.length; i++) {
+            text.append(format.format(physical[i] * 100)).append("; ")
+                    .append(format.format(signal[i] * 100)).append('\n');
+        }
+        return text.toString();
+    }
+
+    private void onLoaded(@NonNull PiecewiseScale loaded, @NonNull String text) {
+        if (activity.isDestroyed() || scale != null) {
+            return;
+        }
+        scale = loaded;
+        input.setText(text);
+        cubicCheck.setChecked(loaded.getInterpolation() == PiecewiseScale.Interpolation.MONOTONE_CUBIC);
+        host.onUserScaleChanged(loaded, false);
+    }
+}
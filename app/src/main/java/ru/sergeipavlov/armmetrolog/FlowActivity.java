@@ -0,0 +1,170 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.os.Bundle;
+import android.text.Editable;
+import android.widget.ArrayAdapter;
+import android.widget.CheckBox;
+import android.widget.Spinner;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.android.material.appbar.MaterialToolbar;
+import com.google.android.material.textfield.TextInputEditText;
+import com.google.android.material.textfield.TextInputLayout;
+
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScaleType;
+import ru.sergeipavlov.armmetrolog.core.NumberInput;
+import ru.sergeipavlov.armmetrolog.core.OrificeFlowMeter;
+
+import java.util.Locale;
+
+/**
+ * Flow table of an orifice plate with a differential-pressure transmitter: signal, differential
+ * pressure, mass and volume flow per ISO 5167-2.
+ */
+public class FlowActivity extends AppCompatActivity {
+
+    private static final int MAX_TABLE_POINTS = 1001;
+
+    private TextInputEditText pipeDiameterInput;
+    private TextInputEditText boreDiameterInput;
+    private Spinner tappingSpinner;
+    private TextInputEditText densityInput;
+    private TextInputEditText viscosityInput;
+    private TextInputEditText isentropicExponentInput;
+    private TextInputEditText upstreamPressureInput;
+    private TextInputEditText differentialPressureInput;
+    private TextInputLayout pointsLayout;
+    private TextInputEditText pointsInput;
+    private CheckBox rootCheck;
+    private TextView resultText;
+
+    private final NumberInput numberInput = new NumberInput();
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_flow);
+
+        MaterialToolbar toolbar = findViewById(R.id.flow_toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+        toolbar.setNavigationIcon(R.drawable.ic_arrow_back);
+        toolbar.setNavigationOnClickListener(view -> getOnBackPressedDispatcher().onBackPressed());
+
+        pipeDiameterInput = findViewById(R.id.flow_pipe_diameter_input);
+        boreDiameterInput = findViewById(R.id.flow_bore_diameter_input);
+        tappingSpinner = findViewById(R.id.flow_tapping_spinner);
+        densityInput = findViewById(R.id.flow_density_input);
+        viscosityInput = findViewById(R.id.flow_viscosity_input);
+        isentropicExponentInput = findViewById(R.id.flow_isentropic_exponent_input);
+        upstreamPressureInput = findViewById(R.id.flow_upstream_pressure_input);
+        differentialPressureInput = findViewById(R.id.flow_differential_pressure_input);
+        pointsLayout = findViewById(R.id.flow_points_layout);
+        pointsInput = findViewById(R.id.flow_points_input);
+        rootCheck = findViewById(R.id.flow_root_check);
+        resultText = findViewById(R.id.flow_result_text);
+
+        // In OrificeFlowMeter.Tapping order.
+        ArrayAdapter<CharSequence> adapter = ArrayAdapter.createFromResource(
+                this, R.array.flow_tappings, android.R.layout.simple_spinner_item);
+        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        tappingSpinner.setAdapter(adapter);
+        tappingSpinner.setSelection(OrificeFlowMeter.Tapping.FLANGE.ordinal());
+
+        findViewById(R.id.flow_calculate_button).setOnClickListener(view -> calculate());
+    }
+
+    private void calculate() {
+        double points = readValue(pointsInput);
+        if (!(points >= 2 && points <= MAX_TABLE_POINTS && points == Math.rint(points))) {
+            pointsLayout.setError(getString(R.string.flow_points_error, MAX_TABLE_POINTS));
+            return;
+        }
+        pointsLayout.setError(null);
+        int count = (int) points;
+
+        double density = readValue(densityInput);
+        double differentialPressure = readValue(differentialPressureInput) * 1000;
+        OrificeFlowMeter meter;
+        try {
+            OrificeFlowMeter.Builder builder = new OrificeFlowMeter.Builder()
+                    .pipeDiameter(readValue(pipeDiameterInput) / 1000)
+                    .boreDiameter(readValue(boreDiameterInput) / 1000)
+                    .tapping(OrificeFlowMeter.Tapping.values()[tappingSpinner.getSelectedItemPosition()])
+                    .density(density)
+                    .viscosity(readValue(viscosityInput) / 1000);
+            double isentropicExponent = readValue(isentropicExponentInput);
+            if (!Double.isNaN(isentropicExponent)) {
+                builder.gas(isentropicExponent, readValue(upstreamPressureInput) * 1000);
+            }
+            meter = builder.build();
+        } catch (IllegalArgumentException exception) {
+            resultText.setText(R.string.flow_invalid);
+            return;
+        }
+        if (!(differentialPressure > 0 && differentialPressure < Double.POSITIVE_INFINITY)) {
+            resultText.setText(R.string.flow_invalid);
+            return;
+        }
+        if (differentialPressure > meter.getMaximumDifferentialPressure()) {
+            // p2/p1 below 0.75 at the top of the range: the expansibility equation does not hold.
+            resultText.setText(getString(R.string.flow_pressure_ratio_error,
+                    meter.getMaximumDifferentialPressure() / 1000));
+            return;
+        }
+
+        CurrentLoopScaleType scale = rootCheck.isChecked() ? CurrentLoopScaleType.ROOT : CurrentLoopScaleType.LINEAR;
+        CurrentLoopRange range = new CurrentLoopRange(0, differentialPressure, 4, 20);
+        double[] signal = new double[count];
+        for (int i = 0; i < count; i++) {
+            signal[i] = 4 + 16.0 * i / (count - 1);
+        }
+        double[] pressure = new double[count];
+        double[] flow = new double[count];
+        scale.toPhysical(range, signal, pressure);
+        meter.massFlow(pressure, flow);
+
+        StringBuilder text = new StringBuilder((count + 3) * 48);
+        text.append(String.format(Locale.US, getString(R.string.flow_table_header), meter.getBeta())).append('\n');
+        boolean belowLimit = false;
+        boolean unsolved = false;
+        for (int i = 0; i < count; i++) {
+            // kg/s to t/h and m³/h.
+            double massFlow = flow[i] * 3.6;
+            double volumeFlow = flow[i] / density * 3600;
+            boolean below = flow[i] > 0 && meter.reynoldsNumber(flow[i]) < meter.getMinimumReynolds();
+            belowLimit |= below;
+            unsolved |= Double.isNaN(flow[i]);
+            text.append(String.format(Locale.US, "%6.2f %10.4f %10.4f %10.4f%s%n",
+                    signal[i], pressure[i] / 1000, massFlow, volumeFlow, below ? " *" : ""));
+        }
+        if (belowLimit) {
+            text.append(getString(R.string.flow_reynolds_note, meter.getMinimumReynolds()));
+        }
+        if (unsolved) {
+            if (belowLimit) {
+                text.append('\n');
+            }
+            text.append(getString(R.string.flow_unsolved_note));
+        }
+        resultText.setText(text);
+    }
+
+    /**
+     * @return the field's value, or {@link Double#NaN} if it is blank or not a number
+     */
+    private double readValue(@NonNull TextInputEditText editText) {
+        Editable text = editText.getText();
+        if (text == null || numberInput.parse(text) != NumberInput.Status.VALID) {
+            return Double.NaN;
+        }
+        return numberInput.getValue();
+    }
+}
@@ -0,0 +1,117 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.util.AtomicFile;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.android.material.textfield.TextInputEditText;
+import com.google.android.material.textfield.TextInputLayout;
+
+import ru.sergeipavlov.armmetrolog.core.FormulaScale;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+
+/**
+ * Formula section of the current-loop screen: a scale compiled once from the typed formula, whose
+ * text is kept for the next start.
+ */
+final class FormulaScaleSection {
+
+    private static final String FORMULA_SCALE_FILE = "formula_scale.txt";
+
+    private final AppCompatActivity activity;
+    private final CurrentLoopHost host;
+    private final Executor ioExecutor;
+    private final View section;
+    private final TextInputLayout layout;
+    private final TextInputEditText input;
+
+    @Nullable
+    private FormulaScale scale;
+
+    FormulaScaleSection(@NonNull AppCompatActivity activity, @NonNull CurrentLoopHost host,
+                        @NonNull Executor ioExecutor) {
+        this.activity = activity;
+        this.host = host;
+        this.ioExecutor = ioExecutor;
+        section = activity.findViewById(R.id.formula_scale_section);
+        layout = activity.findViewById(R.id.formula_scale_layout);
+        input = activity.findViewById(R.id.formula_scale_input);
+        activity.findViewById(R.id.formula_scale_apply_button).setOnClickListener(view -> apply());
+    }
+
+    /**
+     * @return the compiled formula, or {@code null} until one is applied or loaded
+     */
+    @Nullable
+    FormulaScale getScale() {
+        return scale;
+    }
+
+    void setVisible(boolean visible) {
+        section.setVisibility(visible ? View.VISIBLE : View.GONE);
+    }
+
+    /**
+     * Compiles the formula field and saves its text for the next start.
+     */
+    private void apply() {
+        String formula = InputFields.getText(input).trim();
+        FormulaScale compiled;
+        try {
+            compiled = FormulaScale.compile(formula);
+        } catch (IllegalArgumentException exception) {
+            layout.setError(activity.getString(R.string.current_loop_formula_scale_error));
+            return;
+        }
+        layout.setError(null);
+        scale = compiled;
+        host.onUserScaleChanged(compiled, true);
+        AtomicFile file = new AtomicFile(new File(activity.getFilesDir(), FORMULA_SCALE_FILE));
+        ioExecutor.execute(() -> {
+            FileOutputStream stream = null;
+            try {
+                stream = file.startWrite();
+                stream.write(formula.getBytes(StandardCharsets.UTF_8));
+                file.finishWrite(stream);
+            } catch (IOException exception) {
+                if (stream != null) {
+                    file.failWrite(stream);
+                }
+            }
+        });
+    }
+
+    /**
+     * Compiles the formula saved by an earlier start, unless one is applied meanwhile.
+     */
+    void load() {
+        AtomicFile file = new AtomicFile(new File(activity.getFilesDir(), FORMULA_SCALE_FILE));
+        ioExecutor.execute(() -> {
+            FormulaScale loaded;
+            try {
+                loaded = FormulaScale.compile(new String(file.readFully(), StandardCharsets.UTF_8));
+            } catch (IOException | IllegalArgumentException exception) {
+                // No formula saved yet, or one this version no longer accepts: start without.
+                return;
+            }
+            activity.runOnUiThread(() -> onLoaded(loaded));
+        });
+    }
+
+    private void onLoaded(@NonNull FormulaScale loaded) {
+        if (activity.isDestroyed() || scale != null) {
+            return;
+        }
+        scale = loaded;
+        input.setText(loaded.getFormula());
+        host.onUserScaleChanged(loaded, false);
+    }
+}
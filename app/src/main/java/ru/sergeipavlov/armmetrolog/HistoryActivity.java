@@ -0,0 +1,180 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.os.Bundle;
+import android.text.Editable;
+import android.view.View;
+import android.view.inputmethod.EditorInfo;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.material.appbar.MaterialToolbar;
+import com.google.android.material.textfield.TextInputEditText;
+
+import ru.sergeipavlov.armmetrolog.core.HistoryEntry;
+import ru.sergeipavlov.armmetrolog.core.Quantities;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Stored calculations, newest first, optionally filtered by instrument tag. Pages are loaded on a
+ * background thread as the list approaches its end.
+ */
+public class HistoryActivity extends AppCompatActivity {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int PREFETCH_DISTANCE = 30;
+
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor();
+
+    private HistoryStore store;
+    private HistoryAdapter adapter;
+    private LinearLayoutManager layoutManager;
+    private View emptyView;
+
+    @Nullable
+    private String tagFilter;
+    private int generation;
+    private boolean loading;
+    private boolean endReached;
+    private long lastTimestamp = Long.MAX_VALUE;
+    private long lastId = Long.MAX_VALUE;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_history);
+
+        MaterialToolbar toolbar = findViewById(R.id.history_toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+        toolbar.setNavigationIcon(R.drawable.ic_arrow_back);
+        toolbar.setNavigationOnClickListener(view -> getOnBackPressedDispatcher().onBackPressed());
+
+        store = HistoryStore.getInstance(this);
+        emptyView = findViewById(R.id.history_empty);
+
+        RecyclerView recyclerView = findViewById(R.id.history_recycler);
+        layoutManager = new LinearLayoutManager(this);
+        adapter = new HistoryAdapter(createScreenNames(), createFieldLabels());
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setHasFixedSize(true);
+        recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView view, int dx, int dy) {
+                if (layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
+
+        TextInputEditText tagInput = findViewById(R.id.history_tag_input);
+        tagInput.setOnEditorActionListener((view, actionId, event) -> {
+            if (actionId == EditorInfo.IME_ACTION_SEARCH) {
+                Editable text = tagInput.getText();
+                String tag = text != null ? text.toString().trim() : "";
+                applyFilter(tag.isEmpty() ? null : tag);
+                return true;
+            }
+            return false;
+        });
+
+        loadNextPage();
+    }
+
+    @Override
+    protected void onDestroy() {
+        loadExecutor.shutdownNow();
+        super.onDestroy();
+    }
+
+    private void applyFilter(@Nullable String tag) {
+        tagFilter = tag;
+        generation++;
+        loading = false;
+        endReached = false;
+        lastTimestamp = Long.MAX_VALUE;
+        lastId = Long.MAX_VALUE;
+        adapter.clear();
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (loading || endReached) {
+            return;
+        }
+        loading = true;
+        int requestGeneration = generation;
+        String tag = tagFilter;
+        long beforeTimestamp = lastTimestamp;
+        long beforeId = lastId;
+        loadExecutor.execute(() -> {
+            List<HistoryEntry> page = store.loadPage(tag, beforeTimestamp, beforeId, PAGE_SIZE);
+            runOnUiThread(() -> onPageLoaded(requestGeneration, page));
+        });
+    }
+
+    private void onPageLoaded(int requestGeneration, @NonNull List<HistoryEntry> page) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        loading = false;
+        endReached = page.size() < PAGE_SIZE;
+        if (!page.isEmpty()) {
+            HistoryEntry last = page.get(page.size() - 1);
+            lastTimestamp = last.getTimestamp();
+            lastId = last.getId();
+            adapter.appendPage(page);
+        }
+        emptyView.setVisibility(adapter.getItemCount() == 0 ? View.VISIBLE : View.GONE);
+    }
+
+    @NonNull
+    private Map<String, String> createScreenNames() {
+        Map<String, String> names = new HashMap<>();
+        names.put(HistoryStore.SCREEN_CURRENT_LOOP, getString(R.string.current_loop_title));
+        names.put(Quantities.TEMPERATURE.getKey(), getString(R.string.temperature_title));
+        names.put(Quantities.TIME.getKey(), getString(R.string.time_title));
+        names.put(Quantities.SPEED.getKey(), getString(R.string.speed_title));
+        names.put(Quantities.PRESSURE.getKey(), getString(R.string.pressure_title));
+        return names;
+    }
+
+    @NonNull
+    private Map<String, String> createFieldLabels() {
+        Map<String, String> labels = new HashMap<>();
+        labels.put(CurrentLoopActivity.FIELD_PHYSICAL_START, getString(R.string.history_physical_start));
+        labels.put(CurrentLoopActivity.FIELD_PHYSICAL_END, getString(R.string.history_physical_end));
+        labels.put(CurrentLoopActivity.FIELD_SIGNAL_START, getString(R.string.history_signal_start));
+        labels.put(CurrentLoopActivity.FIELD_SIGNAL_END, getString(R.string.history_signal_end));
+        labels.put(CurrentLoopActivity.FIELD_PHYSICAL_VALUE, getString(R.string.current_loop_physical_value));
+        labels.put(CurrentLoopActivity.FIELD_SIGNAL_VALUE, getString(R.string.current_loop_signal_value));
+        labels.put(CurrentLoopActivity.FIELD_PHYSICAL_UNIT, getString(R.string.history_physical_unit));
+        putUnitLabels(labels, TemperatureActivity.ROWS);
+        putUnitLabels(labels, TimeActivity.ROWS);
+        putUnitLabels(labels, SpeedActivity.ROWS);
+        putUnitLabels(labels, PressureActivity.ROWS);
+        return labels;
+    }
+
+    /**
+     * Labels the units of a converter screen with the symbols it shows.
+     */
+    private void putUnitLabels(@NonNull Map<String, String> labels, @NonNull List<ConverterRow> rows) {
+        for (ConverterRow row : rows) {
+            if (!row.isSection()) {
+                labels.put(row.unitKey, getString(row.symbolRes));
+            }
+        }
+    }
+}
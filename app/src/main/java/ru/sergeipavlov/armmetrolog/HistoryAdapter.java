@@ -0,0 +1,107 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import ru.sergeipavlov.armmetrolog.core.HistoryEntry;
+
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+public class HistoryAdapter extends RecyclerView.Adapter<HistoryAdapter.HistoryViewHolder> {
+
+    private final List<HistoryEntry> items = new ArrayList<>();
+    private final Map<String, String> screenNames;
+    private final Map<String, String> fieldLabels;
+    private final DateFormat dateFormat = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.MEDIUM);
+    private final Date date = new Date();
+    private final StringBuilder bodyBuffer = new StringBuilder(128);
+
+    public HistoryAdapter(@NonNull Map<String, String> screenNames, @NonNull Map<String, String> fieldLabels) {
+        this.screenNames = screenNames;
+        this.fieldLabels = fieldLabels;
+    }
+
+    public void appendPage(@NonNull List<HistoryEntry> page) {
+        int start = items.size();
+        items.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+    }
+
+    public void clear() {
+        int size = items.size();
+        items.clear();
+        notifyItemRangeRemoved(0, size);
+    }
+
+    @NonNull
+    public HistoryEntry getItem(int position) {
+        return items.get(position);
+    }
+
+    @NonNull
+    @Override
+    public HistoryViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        View itemView = inflater.inflate(R.layout.item_history, parent, false);
+        return new HistoryViewHolder(itemView);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull HistoryViewHolder holder, int position) {
+        HistoryEntry entry = items.get(position);
+        String screen = screenNames.get(entry.getScreen());
+        date.setTime(entry.getTimestamp());
+        holder.titleView.setText(screen != null ? screen : entry.getScreen());
+        holder.tagView.setText(entry.getTag());
+        holder.tagView.setVisibility(entry.getTag().isEmpty() ? View.GONE : View.VISIBLE);
+        holder.timeView.setText(dateFormat.format(date));
+
+        bodyBuffer.setLength(0);
+        appendValues(entry.getInputs());
+        bodyBuffer.append("\n→ ");
+        appendValues(entry.getOutputs());
+        holder.bodyView.setText(bodyBuffer.toString());
+    }
+
+    private void appendValues(@NonNull Map<String, String> values) {
+        boolean first = true;
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            if (!first) {
+                bodyBuffer.append("; ");
+            }
+            first = false;
+            String label = fieldLabels.get(value.getKey());
+            bodyBuffer.append(label != null ? label : value.getKey()).append(": ").append(value.getValue());
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return items.size();
+    }
+
+    static class HistoryViewHolder extends RecyclerView.ViewHolder {
+
+        final TextView titleView;
+        final TextView tagView;
+        final TextView timeView;
+        final TextView bodyView;
+
+        HistoryViewHolder(@NonNull View itemView) {
+            super(itemView);
+            titleView = itemView.findViewById(R.id.history_item_title);
+            tagView = itemView.findViewById(R.id.history_item_tag);
+            timeView = itemView.findViewById(R.id.history_item_time);
+            bodyView = itemView.findViewById(R.id.history_item_body);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import ru.sergeipavlov.armmetrolog.core.HistoryEntry;
+
+/**
+ * Decides when a screen's calculation is committed to {@link HistoryStore}: after the values
+ * have stayed unchanged for {@link #COMMIT_DELAY_MILLIS}, or when the screen is paused. Repeats of
+ * the last committed calculation are skipped. Main thread only.
+ */
+final class HistoryRecorder {
+
+    private static final long COMMIT_DELAY_MILLIS = 2000;
+
+    private final HistoryStore store;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable commitRunnable = this::commit;
+
+    @Nullable
+    private HistoryEntry pending;
+    @Nullable
+    private HistoryEntry lastCommitted;
+
+    HistoryRecorder(@NonNull Context context) {
+        store = HistoryStore.getInstance(context);
+    }
+
+    void schedule(@NonNull HistoryEntry entry) {
+        pending = entry;
+        handler.removeCallbacks(commitRunnable);
+        handler.postDelayed(commitRunnable, COMMIT_DELAY_MILLIS);
+    }
+
+    void commitNow() {
+        handler.removeCallbacks(commitRunnable);
+        commit();
+        store.flush();
+    }
+
+    private void commit() {
+        HistoryEntry entry = pending;
+        pending = null;
+        if (entry == null || (lastCommitted != null && entry.sameValues(lastCommitted))) {
+            return;
+        }
+        store.append(entry);
+        lastCommitted = entry;
+    }
+}
@@ -0,0 +1,190 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import ru.sergeipavlov.armmetrolog.core.BatchedAppender;
+import ru.sergeipavlov.armmetrolog.core.HistoryEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-device calculation history.
+ * <p>
+ * Entries are appended from the UI thread and written by a {@link BatchedAppender} in one
+ * transaction per batch. Reads page newest-first by {@code (timestamp, _id)} keyset, which the
+ * indexes on {@code (tag, timestamp)} and {@code timestamp} answer without sorting, so the cost of
+ * a page does not grow with the table.
+ */
+public final class HistoryStore extends SQLiteOpenHelper {
+
+    public static final String SCREEN_CURRENT_LOOP = "current_loop";
+
+    private static final String DATABASE_NAME = "history.db";
+    private static final int DATABASE_VERSION = 1;
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long FLUSH_DELAY_MILLIS = 1000;
+
+    private static final String TABLE = "history";
+    private static final String COLUMN_ID = "_id";
+    private static final String COLUMN_SCREEN = "screen";
+    private static final String COLUMN_TAG = "tag";
+    private static final String COLUMN_TIMESTAMP = "timestamp";
+    private static final String COLUMN_SCALE_TYPE = "scale_type";
+    private static final String COLUMN_INPUTS = "inputs";
+    private static final String COLUMN_OUTPUTS = "outputs";
+    private static final String[] COLUMNS = {
+            COLUMN_ID, COLUMN_SCREEN, COLUMN_TAG, COLUMN_TIMESTAMP, COLUMN_SCALE_TYPE, COLUMN_INPUTS, COLUMN_OUTPUTS
+    };
+    private static final String ORDER_NEWEST_FIRST = COLUMN_TIMESTAMP + " DESC, " + COLUMN_ID + " DESC";
+
+    private static volatile HistoryStore instance;
+
+    private final BatchedAppender<HistoryEntry> appender;
+
+    private HistoryStore(@NonNull Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+        appender = new BatchedAppender<>("history-writer", this::insert, MAX_BATCH_SIZE, FLUSH_DELAY_MILLIS);
+    }
+
+    @NonNull
+    public static HistoryStore getInstance(@NonNull Context context) {
+        HistoryStore store = instance;
+        if (store == null) {
+            synchronized (HistoryStore.class) {
+                store = instance;
+                if (store == null) {
+                    store = new HistoryStore(context.getApplicationContext());
+                    instance = store;
+                }
+            }
+        }
+        return store;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY, "
+                + COLUMN_SCREEN + " TEXT NOT NULL, "
+                + COLUMN_TAG + " TEXT NOT NULL, "
+                + COLUMN_TIMESTAMP + " INTEGER NOT NULL, "
+                + COLUMN_SCALE_TYPE + " TEXT, "
+                + COLUMN_INPUTS + " TEXT NOT NULL, "
+                + COLUMN_OUTPUTS + " TEXT NOT NULL)");
+        db.execSQL("CREATE INDEX history_tag_time ON " + TABLE + " (" + COLUMN_TAG + ", " + COLUMN_TIMESTAMP + ")");
+        db.execSQL("CREATE INDEX history_time ON " + TABLE + " (" + COLUMN_TIMESTAMP + ")");
+        db.execSQL("CREATE INDEX history_screen_time ON " + TABLE + " (" + COLUMN_SCREEN + ", " + COLUMN_TIMESTAMP + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // First version of the schema.
+    }
+
+    /**
+     * Queues an entry; it reaches the database within {@code FLUSH_DELAY_MILLIS}.
+     */
+    public void append(@NonNull HistoryEntry entry) {
+        appender.append(entry);
+    }
+
+    /**
+     * Writes queued entries now, for example when a screen goes to the background.
+     */
+    public void flush() {
+        appender.flush();
+    }
+
+    private void insert(@NonNull List<HistoryEntry> batch) {
+        SQLiteDatabase db = getWritableDatabase();
+        try (SQLiteStatement statement = db.compileStatement("INSERT INTO " + TABLE + " ("
+                + COLUMN_SCREEN + ", " + COLUMN_TAG + ", " + COLUMN_TIMESTAMP + ", " + COLUMN_SCALE_TYPE + ", "
+                + COLUMN_INPUTS + ", " + COLUMN_OUTPUTS + ") VALUES (?, ?, ?, ?, ?, ?)")) {
+            db.beginTransaction();
+            try {
+                for (HistoryEntry entry : batch) {
+                    statement.clearBindings();
+                    statement.bindString(1, entry.getScreen());
+                    statement.bindString(2, entry.getTag());
+                    statement.bindLong(3, entry.getTimestamp());
+                    if (entry.getScaleType() != null) {
+                        statement.bindString(4, entry.getScaleType());
+                    }
+                    statement.bindString(5, HistoryEntry.encodeValues(entry.getInputs()));
+                    statement.bindString(6, HistoryEntry.encodeValues(entry.getOutputs()));
+                    statement.executeInsert();
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+    }
+
+    /**
+     * Entries older than the given position, newest first. Pass {@link Long#MAX_VALUE} for both
+     * for the first page, then the timestamp and id of the last entry received.
+     *
+     * @param tag exact instrument tag, or {@code null} for all
+     */
+    @WorkerThread
+    @NonNull
+    public List<HistoryEntry> loadPage(@Nullable String tag, long beforeTimestamp, long beforeId, int limit) {
+        String selection = "(" + COLUMN_TIMESTAMP + " < ? OR (" + COLUMN_TIMESTAMP + " = ? AND " + COLUMN_ID + " < ?))";
+        String timestamp = Long.toString(beforeTimestamp);
+        String[] selectionArgs;
+        if (tag != null) {
+            selection = COLUMN_TAG + " = ? AND " + selection;
+            selectionArgs = new String[]{tag, timestamp, timestamp, Long.toString(beforeId)};
+        } else {
+            selectionArgs = new String[]{timestamp, timestamp, Long.toString(beforeId)};
+        }
+        try (Cursor cursor = getReadableDatabase().query(TABLE, COLUMNS, selection, selectionArgs,
+                null, null, ORDER_NEWEST_FIRST, Integer.toString(limit))) {
+            return readEntries(cursor);
+        }
+    }
+
+    @WorkerThread
+    @Nullable
+    public HistoryEntry loadLatest(@NonNull String screen) {
+        try (Cursor cursor = getReadableDatabase().query(TABLE, COLUMNS, COLUMN_SCREEN + " = ?",
+                new String[]{screen}, null, null, ORDER_NEWEST_FIRST, "1")) {
+            List<HistoryEntry> entries = readEntries(cursor);
+            return entries.isEmpty() ? null : entries.get(0);
+        }
+    }
+
+    @NonNull
+    private static List<HistoryEntry> readEntries(@NonNull Cursor cursor) {
+        int id = cursor.getColumnIndexOrThrow(COLUMN_ID);
+        int screen = cursor.getColumnIndexOrThrow(COLUMN_SCREEN);
+        int tag = cursor.getColumnIndexOrThrow(COLUMN_TAG);
+        int timestamp = cursor.getColumnIndexOrThrow(COLUMN_TIMESTAMP);
+        int scaleType = cursor.getColumnIndexOrThrow(COLUMN_SCALE_TYPE);
+        int inputs = cursor.getColumnIndexOrThrow(COLUMN_INPUTS);
+        int outputs = cursor.getColumnIndexOrThrow(COLUMN_OUTPUTS);
+        List<HistoryEntry> entries = new ArrayList<>(cursor.getCount());
+        while (cursor.moveToNext()) {
+            entries.add(new HistoryEntry(
+                    cursor.getLong(id),
+                    cursor.getString(screen),
+                    cursor.getString(tag),
+                    cursor.getLong(timestamp),
+                    cursor.isNull(scaleType) ? null : cursor.getString(scaleType),
+                    HistoryEntry.decodeValues(cursor.getString(inputs)),
+                    HistoryEntry.decodeValues(cursor.getString(outputs))));
+        }
+        return entries;
+    }
+}
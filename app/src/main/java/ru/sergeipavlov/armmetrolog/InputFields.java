@@ -0,0 +1,112 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.text.Editable;
+import android.text.InputType;
+import android.text.method.DigitsKeyListener;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.material.textfield.TextInputEditText;
+
+import ru.sergeipavlov.armmetrolog.core.NumberInput;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Reading and formatting the number fields of the current-loop screen and its sections.
+ */
+final class InputFields {
+
+    private InputFields() {
+    }
+
+    /**
+     * Keeps the numeric keyboard while the key filter lets exponents and SI prefixes through.
+     */
+    static void acceptNumbers(@NonNull TextInputEditText... inputs) {
+        for (TextInputEditText input : inputs) {
+            input.setKeyListener(DigitsKeyListener.getInstance(NumberInput.ACCEPTED_CHARACTERS));
+            input.setRawInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL
+                    | InputType.TYPE_NUMBER_FLAG_SIGNED);
+        }
+    }
+
+    @NonNull
+    static String getText(@NonNull TextInputEditText editText) {
+        Editable text = editText.getText();
+        return text != null ? text.toString() : "";
+    }
+
+    /**
+     * @return the field's value, {@code defaultValue} if it is blank, or {@link Double#NaN} while
+     * it holds an incomplete or invalid number
+     */
+    static double getValue(@NonNull NumberInput parser, @NonNull TextInputEditText editText, double defaultValue) {
+        Editable text = editText.getText();
+        if (text == null || parser.parse(text) == NumberInput.Status.EMPTY) {
+            return defaultValue;
+        }
+        return parser.getValue();
+    }
+
+    /**
+     * Parses one pair of numbers per line, separated by a semicolon, tab or blanks.
+     *
+     * @return the first and the second column, or {@code null} if a line is not a pair of numbers
+     */
+    @Nullable
+    static double[][] parsePoints(@NonNull NumberInput parser, @NonNull String text) {
+        double[] first = new double[16];
+        double[] second = new double[16];
+        int count = 0;
+        for (String line : text.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            String[] columns = trimmed.split("[;\\t ]+");
+            if (columns.length != 2 || parser.parse(columns[0]) != NumberInput.Status.VALID) {
+                return null;
+            }
+            double value = parser.getValue();
+            if (parser.parse(columns[1]) != NumberInput.Status.VALID) {
+                return null;
+            }
+            if (count == first.length) {
+                first = Arrays.copyOf(first, count * 2);
+                second = Arrays.copyOf(second, count * 2);
+            }
+            first[count] = value;
+            second[count++] = parser.getValue();
+        }
+        return new double[][]{Arrays.copyOf(first, count), Arrays.copyOf(second, count)};
+    }
+
+    /**
+     * Up to three fraction digits, no grouping. Not thread-safe: one per thread.
+     */
+    @NonNull
+    static DecimalFormat newValueFormat() {
+        DecimalFormat format = new DecimalFormat("0.###", new DecimalFormatSymbols(Locale.US));
+        format.setGroupingUsed(false);
+        return format;
+    }
+
+    /**
+     * @return the value rounded half up to three fraction digits, or {@code null} if it is not finite
+     */
+    @Nullable
+    static String formatRounded(@NonNull DecimalFormat format, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return null;
+        }
+        // Math.round(value * 1000) saturates at Long.MAX_VALUE for values beyond ~9.2e15.
+        return format.format(BigDecimal.valueOf(value).setScale(3, RoundingMode.HALF_UP));
+    }
+}
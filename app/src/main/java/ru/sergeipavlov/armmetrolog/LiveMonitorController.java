@@ -0,0 +1,273 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.view.Choreographer;
+import android.widget.CheckBox;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.android.material.button.MaterialButton;
+import com.google.android.material.textfield.TextInputEditText;
+
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScale;
+import ru.sergeipavlov.armmetrolog.core.HistoryEntry;
+import ru.sergeipavlov.armmetrolog.core.ModbusPoller;
+import ru.sergeipavlov.armmetrolog.core.ModbusTcpClient;
+import ru.sergeipavlov.armmetrolog.core.NumberInput;
+import ru.sergeipavlov.armmetrolog.core.SampleRing;
+import ru.sergeipavlov.armmetrolog.core.TrendSeries;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live mode of the current-loop screen: the poller thread fills a ring from a Modbus TCP register,
+ * and each display frame drains it, converts the block with the current range and scale, shows the
+ * newest reading and appends the block to the trend.
+ * <p>
+ * While live mode is off, the trend can instead show the physical values recorded in history for
+ * the instrument tag.
+ */
+final class LiveMonitorController {
+
+    private static final long POLL_INTERVAL_MICROS = 1000;
+    // A few seconds of samples at the poll rate, in case frames stall.
+    private static final int RING_CAPACITY = 1 << 12;
+    private static final int BLOCK_SIZE = 256;
+    // About two minutes of samples at the poll rate.
+    private static final int TREND_CAPACITY = 1 << 17;
+    private static final double LIVE_WINDOW_SECONDS = 10;
+    private static final int HISTORY_PAGE_SIZE = 500;
+
+    private final AppCompatActivity activity;
+    private final CurrentLoopHost host;
+    private final Executor ioExecutor;
+    private final TextInputEditText hostInput;
+    private final TextInputEditText portInput;
+    private final TextInputEditText registerInput;
+    private final TextInputEditText scaleInput;
+    private final MaterialButton toggleButton;
+    private final TextView statusText;
+    private final TrendChartView trendChart;
+    private final NumberInput numberInput = new NumberInput();
+    private final DecimalFormat format = InputFields.newValueFormat();
+
+    @Nullable
+    private ModbusPoller poller;
+    @Nullable
+    private SampleRing ring;
+    private final long[] times = new long[BLOCK_SIZE];
+    private final double[] signals = new double[BLOCK_SIZE];
+    private final double[] physicals = new double[BLOCK_SIZE];
+    // Physical values against seconds since the live mode was started.
+    private final TrendSeries trend = new TrendSeries(TREND_CAPACITY);
+    private final double[] trendTimes = new double[BLOCK_SIZE];
+    private long startNanos;
+    private final Choreographer.FrameCallback frameCallback = this::onFrame;
+
+    LiveMonitorController(@NonNull AppCompatActivity activity, @NonNull CurrentLoopHost host,
+                          @NonNull Executor ioExecutor) {
+        this.activity = activity;
+        this.host = host;
+        this.ioExecutor = ioExecutor;
+        hostInput = activity.findViewById(R.id.live_host_input);
+        portInput = activity.findViewById(R.id.live_port_input);
+        registerInput = activity.findViewById(R.id.live_register_input);
+        scaleInput = activity.findViewById(R.id.live_scale_input);
+        toggleButton = activity.findViewById(R.id.live_toggle_button);
+        statusText = activity.findViewById(R.id.live_status_text);
+        trendChart = activity.findViewById(R.id.live_trend_chart);
+        trendChart.setSeries(trend);
+        toggleButton.setOnClickListener(view -> {
+            if (poller != null) {
+                stop();
+            } else {
+                start();
+            }
+        });
+        CheckBox lttbCheck = activity.findViewById(R.id.live_lttb_check);
+        lttbCheck.setOnCheckedChangeListener((view, checked) -> trendChart.setDecimation(
+                checked ? TrendSeries.Decimation.LTTB : TrendSeries.Decimation.MIN_MAX));
+        activity.findViewById(R.id.live_history_button).setOnClickListener(view -> showHistory());
+    }
+
+    private void start() {
+        String address = InputFields.getText(hostInput).trim();
+        double port = InputFields.getValue(numberInput, portInput, ModbusTcpClient.DEFAULT_PORT);
+        double register = InputFields.getValue(numberInput, registerInput, Double.NaN);
+        double scale = InputFields.getValue(numberInput, scaleInput, 1.0);
+        if (address.isEmpty() || !isInteger(port, 1, 0xFFFF) || !isInteger(register, 0, 0xFFFF)
+                || !Double.isFinite(scale) || scale == 0) {
+            statusText.setText(R.string.current_loop_live_invalid);
+            return;
+        }
+        ModbusPoller started = new ModbusPoller.Builder(address)
+                .port((int) port)
+                .register(ModbusPoller.Area.INPUT_REGISTERS, (int) register, ModbusPoller.Format.UINT16)
+                .scaling(scale, 0)
+                .interval(POLL_INTERVAL_MICROS, TimeUnit.MICROSECONDS)
+                .build();
+        SampleRing samples = new SampleRing(RING_CAPACITY);
+        poller = started;
+        ring = samples;
+        trend.clear();
+        startNanos = System.nanoTime();
+        trendChart.setSeries(trend);
+        trendChart.setWindow(LIVE_WINDOW_SECONDS);
+        started.start(samples, (connected, error) -> activity.runOnUiThread(
+                () -> onConnectionChanged(started, connected, error)));
+        toggleButton.setText(R.string.current_loop_live_stop);
+        statusText.setText(R.string.current_loop_live_connecting);
+        Choreographer.getInstance().postFrameCallback(frameCallback);
+    }
+
+    /**
+     * Stops polling, if running; the trend stays on screen.
+     */
+    void stop() {
+        ModbusPoller stopped = poller;
+        if (stopped == null) {
+            return;
+        }
+        poller = null;
+        ring = null;
+        Choreographer.getInstance().removeFrameCallback(frameCallback);
+        // Closing joins the polling thread, which may be waiting for a connect timeout: on its own
+        // thread, so that it holds up neither the UI nor the file work on the I/O executor.
+        Thread closing = new Thread(stopped::close, "modbus-close");
+        closing.setDaemon(true);
+        closing.start();
+        toggleButton.setText(R.string.current_loop_live_start);
+        statusText.setText(null);
+    }
+
+    /**
+     * Stops live mode and plots the physical values recorded for the instrument tag against the
+     * seconds since the first of them. Only values in the unit of the newest entry are plotted.
+     */
+    private void showHistory() {
+        stop();
+        String tag = host.getInstrumentTag();
+        HistoryStore store = HistoryStore.getInstance(activity);
+        ioExecutor.execute(() -> {
+            TrendSeries loaded = loadHistory(store, tag);
+            activity.runOnUiThread(() -> onHistoryLoaded(loaded));
+        });
+    }
+
+    @NonNull
+    private static TrendSeries loadHistory(@NonNull HistoryStore store, @NonNull String tag) {
+        NumberInput parser = new NumberInput();
+        double[] times = new double[HISTORY_PAGE_SIZE];
+        double[] values = new double[HISTORY_PAGE_SIZE];
+        int count = 0;
+        boolean unitKnown = false;
+        String unit = null;
+        long beforeTimestamp = Long.MAX_VALUE;
+        long beforeId = Long.MAX_VALUE;
+        List<HistoryEntry> page;
+        // Newest first, so the values are collected backwards in time.
+        while (count < TREND_CAPACITY
+                && !(page = store.loadPage(tag, beforeTimestamp, beforeId, HISTORY_PAGE_SIZE)).isEmpty()) {
+            for (HistoryEntry entry : page) {
+                beforeTimestamp = entry.getTimestamp();
+                beforeId = entry.getId();
+                if (!HistoryStore.SCREEN_CURRENT_LOOP.equals(entry.getScreen())) {
+                    continue;
+                }
+                String entryUnit = entry.getInputs().get(CurrentLoopActivity.FIELD_PHYSICAL_UNIT);
+                if (!unitKnown) {
+                    unit = entryUnit;
+                    unitKnown = true;
+                } else if (!Objects.equals(unit, entryUnit)) {
+                    continue;
+                }
+                String text = entry.getOutputs().get(CurrentLoopActivity.FIELD_PHYSICAL_VALUE);
+                if (text == null) {
+                    text = entry.getInputs().get(CurrentLoopActivity.FIELD_PHYSICAL_VALUE);
+                }
+                if (text == null || parser.parse(text) != NumberInput.Status.VALID || count == TREND_CAPACITY) {
+                    continue;
+                }
+                if (count == times.length) {
+                    times = Arrays.copyOf(times, count * 2);
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                times[count] = entry.getTimestamp() * 1e-3;
+                values[count++] = parser.getValue();
+            }
+        }
+        TrendSeries series = new TrendSeries(Math.max(count, 1));
+        for (int i = count - 1; i >= 0; i--) {
+            series.append(times[i] - times[count - 1], values[i]);
+        }
+        return series;
+    }
+
+    private void onHistoryLoaded(@NonNull TrendSeries loaded) {
+        if (activity.isDestroyed() || poller != null) {
+            return;
+        }
+        if (loaded.size() == 0) {
+            statusText.setText(R.string.current_loop_trend_history_empty);
+            return;
+        }
+        trendChart.setSeries(loaded);
+        trendChart.setWindow(Math.max(loaded.getLastTime(), LIVE_WINDOW_SECONDS));
+        statusText.setText(activity.getString(R.string.current_loop_trend_history_shown, loaded.size()));
+    }
+
+    private void onConnectionChanged(@NonNull ModbusPoller source, boolean connected, @Nullable IOException error) {
+        if (source != poller) {
+            return;
+        }
+        if (connected) {
+            statusText.setText(R.string.current_loop_live_connected);
+        } else {
+            statusText.setText(activity.getString(R.string.current_loop_live_failed,
+                    error != null ? error.getMessage() : ""));
+        }
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        SampleRing samples = ring;
+        if (samples == null) {
+            return;
+        }
+        CurrentLoopRange range = host.readRange();
+        CurrentLoopScale scale = host.getCurrentScale();
+        double signal = Double.NaN;
+        double physical = Double.NaN;
+        int count;
+        while ((count = samples.drain(times, signals, 0, BLOCK_SIZE)) > 0) {
+            if (scale != null) {
+                scale.toPhysical(range, signals, 0, physicals, 0, count);
+            } else {
+                Arrays.fill(physicals, 0, count, Double.NaN);
+            }
+            for (int i = 0; i < count; i++) {
+                trendTimes[i] = (times[i] - startNanos) * 1e-9;
+            }
+            trend.append(trendTimes, physicals, 0, count);
+            signal = signals[count - 1];
+            physical = physicals[count - 1];
+        }
+        if (!Double.isNaN(signal)) {
+            host.showValues(InputFields.formatRounded(format, signal), InputFields.formatRounded(format, physical));
+            trendChart.onSeriesChanged();
+        }
+        Choreographer.getInstance().postFrameCallback(frameCallback);
+    }
+
+    private static boolean isInteger(double value, int min, int max) {
+        return value == Math.rint(value) && value >= min && value <= max;
+    }
+}
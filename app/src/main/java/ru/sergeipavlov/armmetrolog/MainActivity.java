@@ -67,7 +67,10 @@ public class MainActivity extends AppCompatActivity {
     private List<String> getMainMenuItems() {
         return Arrays.asList(
                 getString(R.string.menu_units),
-                getString(R.string.menu_current_loop)
+                getString(R.string.menu_current_loop),
+                getString(R.string.menu_flow),
+                getString(R.string.menu_import),
+                getString(R.string.menu_history)
         );
     }
 
@@ -78,6 +81,15 @@ public class MainActivity extends AppCompatActivity {
         } else if (position == 1) {
             Intent intent = new Intent(this, CurrentLoopActivity.class);
             startActivity(intent);
+        } else if (position == 2) {
+            Intent intent = new Intent(this, FlowActivity.class);
+            startActivity(intent);
+        } else if (position == 3) {
+            Intent intent = new Intent(this, MeasurementImportActivity.class);
+            startActivity(intent);
+        } else if (position == 4) {
+            Intent intent = new Intent(this, HistoryActivity.class);
+            startActivity(intent);
         }
     }
 
@@ -0,0 +1,436 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Bundle;
+import android.provider.OpenableColumns;
+import android.text.Editable;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.Spinner;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
+
+import com.google.android.material.appbar.MaterialToolbar;
+import com.google.android.material.button.MaterialButton;
+import com.google.android.material.progressindicator.LinearProgressIndicator;
+import com.google.android.material.textfield.TextInputEditText;
+import com.google.android.material.textfield.TextInputLayout;
+import com.google.android.material.textview.MaterialTextView;
+
+import ru.sergeipavlov.armmetrolog.core.ColumnConversion;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScaleType;
+import ru.sergeipavlov.armmetrolog.core.MeasurementFileConverter;
+import ru.sergeipavlov.armmetrolog.core.NumberInput;
+import ru.sergeipavlov.armmetrolog.core.Quantities;
+import ru.sergeipavlov.armmetrolog.core.Quantity;
+import ru.sergeipavlov.armmetrolog.core.ResistanceThermometer;
+import ru.sergeipavlov.armmetrolog.core.Thermocouple;
+
+/**
+ * Converts one column of a logger export (CSV, semicolon separated or TSV) picked through the
+ * Storage Access Framework and writes the result to a new document.
+ * <p>
+ * The settings taken when the user starts and the picked source are kept in the instance state
+ * while the two pickers are open; the conversion itself runs in {@link MeasurementImportViewModel}.
+ */
+public class MeasurementImportActivity extends AppCompatActivity {
+
+    private static final String[] SOURCE_MIME_TYPES = {
+            "text/csv", "text/comma-separated-values", "text/tab-separated-values", "text/plain"
+    };
+    private static final int CONVERSION_TEMPERATURE = 0;
+    private static final int CONVERSION_CURRENT_LOOP = 1;
+    // EMF in millivolts to degrees Celsius and back.
+    private static final int CONVERSION_THERMOCOUPLE_TEMPERATURE = 2;
+    private static final int CONVERSION_THERMOCOUPLE_EMF = 3;
+    // Resistance in ohms to degrees Celsius and back.
+    private static final int CONVERSION_RTD_TEMPERATURE = 4;
+    private static final int CONVERSION_RTD_RESISTANCE = 5;
+
+    private static final String STATE_SETTINGS = "import_settings";
+    private static final String STATE_SOURCE = "import_source";
+    // Keys of the settings bundle.
+    private static final String SETTING_COLUMN = "column";
+    private static final String SETTING_CONVERSION = "conversion";
+    private static final String SETTING_FROM_UNIT = "from_unit";
+    private static final String SETTING_TO_UNIT = "to_unit";
+    private static final String SETTING_SCALE_TYPE = "scale_type";
+    private static final String SETTING_RANGE = "range";
+    private static final String SETTING_THERMOCOUPLE = "thermocouple";
+    private static final String SETTING_COLD_JUNCTION = "cold_junction";
+    private static final String SETTING_THERMOMETER = "thermometer";
+
+    private static final String[] TEMPERATURE_UNIT_KEYS = {
+            "kelvin", "celsius", "fahrenheit", "rankine", "reaumur"
+    };
+    private static final int[] TEMPERATURE_UNIT_NAMES = {
+            R.string.temperature_kelvin,
+            R.string.temperature_celsius,
+            R.string.temperature_fahrenheit,
+            R.string.temperature_rankine,
+            R.string.temperature_reaumur
+    };
+
+    // In the order of R.array.import_thermometers.
+    private static final ResistanceThermometer[] THERMOMETERS = {
+            ResistanceThermometer.PT100,
+            ResistanceThermometer.PT500,
+            ResistanceThermometer.PT1000,
+            ResistanceThermometer.P50,
+            ResistanceThermometer.P100,
+            ResistanceThermometer.CU50,
+            ResistanceThermometer.CU100
+    };
+
+    private final Quantity temperature = Quantities.TEMPERATURE;
+    private final NumberInput numberInput = new NumberInput();
+
+    private Spinner conversionSpinner;
+    private Spinner fromUnitSpinner;
+    private Spinner toUnitSpinner;
+    private Spinner scaleTypeSpinner;
+    private Spinner thermocoupleSpinner;
+    private Spinner thermometerSpinner;
+    private View temperatureGroup;
+    private View currentLoopGroup;
+    private View thermocoupleGroup;
+    private View thermometerGroup;
+    private TextInputLayout columnLayout;
+    private TextInputEditText columnInput;
+    private TextInputEditText physicalStartInput;
+    private TextInputEditText physicalEndInput;
+    private TextInputEditText signalStartInput;
+    private TextInputEditText signalEndInput;
+    private TextInputEditText coldJunctionInput;
+    private MaterialButton startButton;
+    private LinearProgressIndicator progressIndicator;
+    private MaterialTextView statusText;
+    private MeasurementImportViewModel importModel;
+
+    // Settings of the import waiting for the pickers, as taken from the form; see readSettings().
+    @Nullable
+    private Bundle pendingSettings;
+    @Nullable
+    private Uri sourceUri;
+
+    private final ActivityResultLauncher<String[]> openSourceDocument = registerForActivityResult(
+            new ActivityResultContracts.OpenDocument(), this::onSourceSelected);
+    private final ActivityResultLauncher<String> createTargetDocument = registerForActivityResult(
+            new ActivityResultContracts.CreateDocument("text/csv"), this::onTargetCreated);
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_measurement_import);
+
+        MaterialToolbar toolbar = findViewById(R.id.import_toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+        toolbar.setNavigationOnClickListener(view -> getOnBackPressedDispatcher().onBackPressed());
+
+        conversionSpinner = findViewById(R.id.import_conversion_spinner);
+        fromUnitSpinner = findViewById(R.id.import_from_unit_spinner);
+        toUnitSpinner = findViewById(R.id.import_to_unit_spinner);
+        scaleTypeSpinner = findViewById(R.id.import_scale_type_spinner);
+        thermocoupleSpinner = findViewById(R.id.import_thermocouple_spinner);
+        thermometerSpinner = findViewById(R.id.import_thermometer_spinner);
+        temperatureGroup = findViewById(R.id.import_temperature_group);
+        currentLoopGroup = findViewById(R.id.import_current_loop_group);
+        thermocoupleGroup = findViewById(R.id.import_thermocouple_group);
+        thermometerGroup = findViewById(R.id.import_thermometer_group);
+        columnLayout = findViewById(R.id.import_column_layout);
+        columnInput = findViewById(R.id.import_column_input);
+        physicalStartInput = findViewById(R.id.import_physical_start_input);
+        physicalEndInput = findViewById(R.id.import_physical_end_input);
+        signalStartInput = findViewById(R.id.import_signal_start_input);
+        signalEndInput = findViewById(R.id.import_signal_end_input);
+        coldJunctionInput = findViewById(R.id.import_cold_junction_input);
+        startButton = findViewById(R.id.import_start_button);
+        progressIndicator = findViewById(R.id.import_progress);
+        statusText = findViewById(R.id.import_status);
+
+        setupSpinners();
+        physicalStartInput.setText("0");
+        physicalEndInput.setText("100");
+        signalStartInput.setText("4");
+        signalEndInput.setText("20");
+        coldJunctionInput.setText("0");
+        startButton.setOnClickListener(view -> startImport());
+
+        if (savedInstanceState != null) {
+            pendingSettings = savedInstanceState.getBundle(STATE_SETTINGS);
+            String source = savedInstanceState.getString(STATE_SOURCE);
+            sourceUri = source != null ? Uri.parse(source) : null;
+        }
+        importModel = new ViewModelProvider(this).get(MeasurementImportViewModel.class);
+        importModel.setListener(this::showImport);
+        showImport(importModel);
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putBundle(STATE_SETTINGS, pendingSettings);
+        if (sourceUri != null) {
+            outState.putString(STATE_SOURCE, sourceUri.toString());
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        importModel.setListener(null);
+        if (isFinishing()) {
+            // Stops the conversion after the current block and deletes the partial document.
+            importModel.cancel();
+        }
+        super.onDestroy();
+    }
+
+    private void setupSpinners() {
+        ArrayAdapter<CharSequence> conversionAdapter = ArrayAdapter.createFromResource(
+                this,
+                R.array.import_conversions,
+                android.R.layout.simple_spinner_item
+        );
+        conversionAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        conversionSpinner.setAdapter(conversionAdapter);
+        conversionSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                temperatureGroup.setVisibility(position == CONVERSION_TEMPERATURE ? View.VISIBLE : View.GONE);
+                currentLoopGroup.setVisibility(position == CONVERSION_CURRENT_LOOP ? View.VISIBLE : View.GONE);
+                thermocoupleGroup.setVisibility(isThermocouple(position) ? View.VISIBLE : View.GONE);
+                thermometerGroup.setVisibility(isThermometer(position) ? View.VISIBLE : View.GONE);
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+                // No-op
+            }
+        });
+
+        String[] unitNames = new String[TEMPERATURE_UNIT_NAMES.length];
+        for (int i = 0; i < unitNames.length; i++) {
+            unitNames[i] = getString(TEMPERATURE_UNIT_NAMES[i]);
+        }
+        ArrayAdapter<String> unitAdapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, unitNames);
+        unitAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        fromUnitSpinner.setAdapter(unitAdapter);
+        toUnitSpinner.setAdapter(unitAdapter);
+        fromUnitSpinner.setSelection(2);
+        toUnitSpinner.setSelection(1);
+
+        ArrayAdapter<CharSequence> scaleAdapter = ArrayAdapter.createFromResource(
+                this,
+                R.array.current_loop_scale_types,
+                android.R.layout.simple_spinner_item
+        );
+        scaleAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        scaleTypeSpinner.setAdapter(scaleAdapter);
+        scaleTypeSpinner.setSelection(CurrentLoopScaleType.LINEAR.ordinal());
+
+        Thermocouple[] thermocouples = Thermocouple.values();
+        String[] thermocoupleNames = new String[thermocouples.length];
+        for (int i = 0; i < thermocouples.length; i++) {
+            thermocoupleNames[i] = getString(R.string.import_thermocouple_type, thermocouples[i].name());
+        }
+        ArrayAdapter<String> thermocoupleAdapter = new ArrayAdapter<>(this,
+                android.R.layout.simple_spinner_item, thermocoupleNames);
+        thermocoupleAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        thermocoupleSpinner.setAdapter(thermocoupleAdapter);
+        thermocoupleSpinner.setSelection(Thermocouple.K.ordinal());
+
+        ArrayAdapter<CharSequence> thermometerAdapter = ArrayAdapter.createFromResource(
+                this,
+                R.array.import_thermometers,
+                android.R.layout.simple_spinner_item
+        );
+        thermometerAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+        thermometerSpinner.setAdapter(thermometerAdapter);
+    }
+
+    private void startImport() {
+        double column = getInputValue(columnInput, Double.NaN);
+        if (Double.isNaN(column) || column != Math.rint(column) || column < 1 || column > Integer.MAX_VALUE) {
+            columnLayout.setError(getString(R.string.import_column_error));
+            return;
+        }
+        columnLayout.setError(null);
+
+        pendingSettings = readSettings((int) column - 1);
+        openSourceDocument.launch(SOURCE_MIME_TYPES);
+    }
+
+    /**
+     * Takes the form as plain values, so that the converter can be built again after the activity
+     * is recreated while a picker is open, before the views have restored their state.
+     */
+    @NonNull
+    private Bundle readSettings(int column) {
+        Bundle settings = new Bundle();
+        settings.putInt(SETTING_COLUMN, column);
+        int conversion = conversionSpinner.getSelectedItemPosition();
+        settings.putInt(SETTING_CONVERSION, conversion);
+        if (conversion == CONVERSION_CURRENT_LOOP) {
+            settings.putString(SETTING_SCALE_TYPE,
+                    CurrentLoopScaleType.values()[scaleTypeSpinner.getSelectedItemPosition()].name());
+            settings.putDoubleArray(SETTING_RANGE, new double[]{
+                    getInputValue(physicalStartInput, 0.0),
+                    getInputValue(physicalEndInput, 100.0),
+                    getInputValue(signalStartInput, 4.0),
+                    getInputValue(signalEndInput, 20.0)});
+        } else if (isThermocouple(conversion)) {
+            settings.putString(SETTING_THERMOCOUPLE,
+                    Thermocouple.values()[thermocoupleSpinner.getSelectedItemPosition()].name());
+            settings.putDouble(SETTING_COLD_JUNCTION, getInputValue(coldJunctionInput, 0.0));
+        } else if (isThermometer(conversion)) {
+            settings.putInt(SETTING_THERMOMETER, thermometerSpinner.getSelectedItemPosition());
+        } else {
+            settings.putString(SETTING_FROM_UNIT, TEMPERATURE_UNIT_KEYS[fromUnitSpinner.getSelectedItemPosition()]);
+            settings.putString(SETTING_TO_UNIT, TEMPERATURE_UNIT_KEYS[toUnitSpinner.getSelectedItemPosition()]);
+        }
+        return settings;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the settings name a scale type or unit that does not exist
+     */
+    @NonNull
+    private MeasurementFileConverter createConverter(@NonNull Bundle settings) {
+        return new MeasurementFileConverter.Builder()
+                .column(settings.getInt(SETTING_COLUMN), createConversion(settings))
+                .build();
+    }
+
+    @NonNull
+    private ColumnConversion createConversion(@NonNull Bundle settings) {
+        int conversion = settings.getInt(SETTING_CONVERSION);
+        if (isThermocouple(conversion)) {
+            Thermocouple type = Thermocouple.valueOf(settings.getString(SETTING_THERMOCOUPLE));
+            double coldJunction = settings.getDouble(SETTING_COLD_JUNCTION, 0.0);
+            return conversion == CONVERSION_THERMOCOUPLE_TEMPERATURE
+                    ? ColumnConversion.thermocoupleToTemperature(type, coldJunction)
+                    : ColumnConversion.thermocoupleToEmf(type, coldJunction);
+        }
+        if (isThermometer(conversion)) {
+            int thermometer = settings.getInt(SETTING_THERMOMETER);
+            if (thermometer < 0 || thermometer >= THERMOMETERS.length) {
+                throw new IllegalArgumentException("No thermometer " + thermometer);
+            }
+            return conversion == CONVERSION_RTD_TEMPERATURE
+                    ? ColumnConversion.resistanceToTemperature(THERMOMETERS[thermometer])
+                    : ColumnConversion.temperatureToResistance(THERMOMETERS[thermometer]);
+        }
+        if (conversion == CONVERSION_CURRENT_LOOP) {
+            CurrentLoopScaleType scaleType = CurrentLoopScaleType.valueOf(settings.getString(SETTING_SCALE_TYPE));
+            double[] range = settings.getDoubleArray(SETTING_RANGE);
+            if (range == null || range.length != 4) {
+                throw new IllegalArgumentException("No current loop range");
+            }
+            return ColumnConversion.toPhysical(scaleType, new CurrentLoopRange(range[0], range[1], range[2], range[3]));
+        }
+        int fromUnit = temperature.indexOf(settings.getString(SETTING_FROM_UNIT));
+        int toUnit = temperature.indexOf(settings.getString(SETTING_TO_UNIT));
+        return ColumnConversion.units(temperature, fromUnit, toUnit);
+    }
+
+    private static boolean isThermocouple(int conversion) {
+        return conversion == CONVERSION_THERMOCOUPLE_TEMPERATURE || conversion == CONVERSION_THERMOCOUPLE_EMF;
+    }
+
+    private static boolean isThermometer(int conversion) {
+        return conversion == CONVERSION_RTD_TEMPERATURE || conversion == CONVERSION_RTD_RESISTANCE;
+    }
+
+    private void onSourceSelected(@Nullable Uri uri) {
+        if (uri == null) {
+            pendingSettings = null;
+            return;
+        }
+        sourceUri = uri;
+        String name = queryDisplayName(uri);
+        int extension = name.lastIndexOf('.');
+        createTargetDocument.launch((extension > 0 ? name.substring(0, extension) : name) + "_converted.csv");
+    }
+
+    private void onTargetCreated(@Nullable Uri uri) {
+        Bundle settings = pendingSettings;
+        Uri source = sourceUri;
+        pendingSettings = null;
+        sourceUri = null;
+        if (uri == null || settings == null || source == null) {
+            return;
+        }
+        MeasurementFileConverter converter;
+        try {
+            converter = createConverter(settings);
+        } catch (IllegalArgumentException | NullPointerException exception) {
+            // Settings saved by a version with other units or scale types.
+            statusText.setText(R.string.import_failed);
+            return;
+        }
+        importModel.start(this, source, uri, converter);
+    }
+
+    private void showImport(@NonNull MeasurementImportViewModel model) {
+        MeasurementImportViewModel.State state = model.getState();
+        boolean running = state == MeasurementImportViewModel.State.RUNNING;
+        startButton.setEnabled(!running);
+        progressIndicator.setVisibility(running ? View.VISIBLE : View.INVISIBLE);
+        switch (state) {
+            case RUNNING:
+                progressIndicator.setIndeterminate(model.getPercent() < 0);
+                if (model.getPercent() >= 0) {
+                    progressIndicator.setProgressCompat(model.getPercent(), true);
+                }
+                statusText.setText(getString(R.string.import_progress, model.getRows()));
+                break;
+            case DONE:
+                MeasurementFileConverter.Result result = model.getResult();
+                if (result != null) {
+                    statusText.setText(getString(R.string.import_done, result.getRowCount(),
+                            result.getConvertedCount(), result.getSkippedCount()));
+                }
+                break;
+            case FAILED:
+                String failure = model.getFailure();
+                if (failure != null) {
+                    statusText.setText(getString(R.string.import_failed_reason, failure));
+                } else {
+                    statusText.setText(R.string.import_failed);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    @NonNull
+    private String queryDisplayName(@NonNull Uri uri) {
+        try (Cursor cursor = getContentResolver().query(uri,
+                new String[]{OpenableColumns.DISPLAY_NAME}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getString(0);
+            }
+        }
+        return "measurements";
+    }
+
+    private double getInputValue(@NonNull TextInputEditText editText, double defaultValue) {
+        Editable text = editText.getText();
+        if (text == null || numberInput.parse(text) != NumberInput.Status.VALID) {
+            return defaultValue;
+        }
+        return numberInput.getValue();
+    }
+}
@@ -0,0 +1,281 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.DocumentsContract;
+import android.provider.OpenableColumns;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.ViewModel;
+
+import ru.sergeipavlov.armmetrolog.core.MeasurementFileConverter;
+
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the conversion of {@link MeasurementImportActivity} on its own thread, so that it outlives a
+ * recreated activity, and keeps its progress for whichever activity shows it. The conversion is
+ * cancelled only when the screen is closed for good; the partly written document is then deleted.
+ * State is read and changed on the main thread only.
+ */
+public class MeasurementImportViewModel extends ViewModel {
+
+    enum State {
+        IDLE,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    /**
+     * Called on the main thread whenever the state or the progress changes.
+     */
+    interface Listener {
+        void onImportChanged(@NonNull MeasurementImportViewModel model);
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private State state = State.IDLE;
+    private long rows;
+    // Percent of the source read, -1 while its size is unknown.
+    private int percent = -1;
+    @Nullable
+    private MeasurementFileConverter.Result result;
+    @Nullable
+    private String failure;
+    @Nullable
+    private Listener listener;
+    @Nullable
+    private Future<?> task;
+    // Set before the worker is interrupted, so that it tells a cancel from a failure.
+    private volatile boolean cancelled;
+
+    @NonNull
+    State getState() {
+        return state;
+    }
+
+    long getRows() {
+        return rows;
+    }
+
+    int getPercent() {
+        return percent;
+    }
+
+    /**
+     * @return the counts of the last finished conversion, or {@code null} unless {@link State#DONE}
+     */
+    @Nullable
+    MeasurementFileConverter.Result getResult() {
+        return result;
+    }
+
+    /**
+     * @return why the last conversion failed, or {@code null} unless {@link State#FAILED} by an error
+     */
+    @Nullable
+    String getFailure() {
+        return failure;
+    }
+
+    void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Converts {@code source} into {@code target}; ignored while a conversion is running.
+     */
+    void start(@NonNull Context context, @NonNull Uri source, @NonNull Uri target,
+               @NonNull MeasurementFileConverter converter) {
+        if (state == State.RUNNING) {
+            return;
+        }
+        Context application = context.getApplicationContext();
+        state = State.RUNNING;
+        rows = 0;
+        percent = -1;
+        result = null;
+        failure = null;
+        cancelled = false;
+        notifyListener();
+        task = executor.submit(() -> run(application, source, target, converter));
+    }
+
+    /**
+     * Stops a running conversion after the current block and deletes the partial document.
+     */
+    void cancel() {
+        Future<?> running = task;
+        if (running != null && state == State.RUNNING) {
+            cancelled = true;
+            running.cancel(true);
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        cancel();
+        // Not shutdownNow(): the worker still deletes the partial document.
+        executor.shutdown();
+    }
+
+    private void run(@NonNull Context context, @NonNull Uri source, @NonNull Uri target,
+                     @NonNull MeasurementFileConverter converter) {
+        ContentResolver resolver = context.getContentResolver();
+        MeasurementFileConverter.Result converted = null;
+        String error = null;
+        try {
+            converted = convert(resolver, source, target, converter, querySize(resolver, source));
+        } catch (IOException | RuntimeException exception) {
+            // A provider or a converter bug must not leave the screen running forever.
+            error = exception.getMessage() != null ? exception.getMessage() : exception.toString();
+        }
+        if (converted != null && !cancelled) {
+            MeasurementFileConverter.Result done = converted;
+            mainHandler.post(() -> finish(State.DONE, done, null));
+            return;
+        }
+        // Clear the interrupt, so that it does not break the delete call.
+        Thread.interrupted();
+        boolean deleted = deletePartial(resolver, target);
+        if (cancelled) {
+            mainHandler.post(() -> {
+                Toast.makeText(context, deleted ? R.string.import_cancelled : R.string.import_cancelled_kept,
+                        Toast.LENGTH_LONG).show();
+                finish(State.FAILED, null, null);
+            });
+        } else {
+            String message = error;
+            mainHandler.post(() -> finish(State.FAILED, null, message));
+        }
+    }
+
+    private void finish(@NonNull State finalState, @Nullable MeasurementFileConverter.Result finalResult,
+                        @Nullable String finalFailure) {
+        state = finalState;
+        result = finalResult;
+        failure = finalFailure;
+        task = null;
+        notifyListener();
+    }
+
+    private void notifyListener() {
+        Listener current = listener;
+        if (current != null) {
+            current.onImportChanged(this);
+        }
+    }
+
+    @NonNull
+    private MeasurementFileConverter.Result convert(@NonNull ContentResolver resolver, @NonNull Uri source,
+                                                    @NonNull Uri target, @NonNull MeasurementFileConverter converter,
+                                                    long size) throws IOException {
+        InputStream input = resolver.openInputStream(source);
+        if (input == null) {
+            throw new FileNotFoundException(source.toString());
+        }
+        CountingInputStream counting = new CountingInputStream(input);
+        try (Reader reader = new InputStreamReader(counting, StandardCharsets.UTF_8)) {
+            OutputStream output = resolver.openOutputStream(target);
+            if (output == null) {
+                throw new FileNotFoundException(target.toString());
+            }
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+                int[] lastPercent = {-1};
+                return converter.convert(reader, writer, converted -> {
+                    int read = size > 0 ? (int) Math.min(100, counting.getCount() * 100 / size) : -1;
+                    if (read != lastPercent[0] || size <= 0) {
+                        lastPercent[0] = read;
+                        mainHandler.post(() -> {
+                            if (state == State.RUNNING) {
+                                rows = converted;
+                                percent = read;
+                                notifyListener();
+                            }
+                        });
+                    }
+                });
+            }
+        }
+    }
+
+    private static boolean deletePartial(@NonNull ContentResolver resolver, @NonNull Uri target) {
+        try {
+            return DocumentsContract.deleteDocument(resolver, target);
+        } catch (FileNotFoundException | SecurityException | UnsupportedOperationException exception) {
+            return false;
+        }
+    }
+
+    private static long querySize(@NonNull ContentResolver resolver, @NonNull Uri uri) {
+        try (Cursor cursor = resolver.query(uri, new String[]{OpenableColumns.SIZE}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts bytes read so that progress can be shown against the document size.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ru.sergeipavlov.armmetrolog;
+
+import ru.sergeipavlov.armmetrolog.core.Quantities;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class PressureActivity extends ConverterActivity {
+
+    // Also the physical units of the current-loop screen.
+    static final List<ConverterRow> ROWS = Arrays.asList(
+            ConverterRow.section(R.string.pressure_section_si),
+            ConverterRow.unit("pascal", R.string.pressure_pascal, R.string.pressure_symbol_pascal),
+            ConverterRow.unit("kilopascal", R.string.pressure_kilopascal, R.string.pressure_symbol_kilopascal),
+            ConverterRow.unit("megapascal", R.string.pressure_megapascal, R.string.pressure_symbol_megapascal),
+            ConverterRow.section(R.string.pressure_section_other),
+            ConverterRow.unit("bar", R.string.pressure_bar, R.string.pressure_symbol_bar),
+            ConverterRow.unit("millibar", R.string.pressure_millibar, R.string.pressure_symbol_millibar),
+            ConverterRow.unit("kgf_per_square_centimetre", R.string.pressure_kgf_per_square_centimetre,
+                    R.string.pressure_symbol_kgf_per_square_centimetre,
+                    R.string.pressure_kgf_per_square_centimetre_description),
+            ConverterRow.unit("millimetre_of_mercury", R.string.pressure_millimetre_of_mercury,
+                    R.string.pressure_symbol_millimetre_of_mercury,
+                    R.string.pressure_millimetre_of_mercury_description),
+            ConverterRow.unit("millimetre_of_water", R.string.pressure_millimetre_of_water,
+                    R.string.pressure_symbol_millimetre_of_water,
+                    R.string.pressure_millimetre_of_water_description),
+            ConverterRow.unit("inch_of_water", R.string.pressure_inch_of_water, R.string.pressure_symbol_inch_of_water,
+                    R.string.pressure_inch_of_water_description),
+            ConverterRow.unit("psi", R.string.pressure_psi, R.string.pressure_symbol_psi),
+            ConverterRow.unit("atmosphere", R.string.pressure_atmosphere, R.string.pressure_symbol_atmosphere,
+                    R.string.pressure_atmosphere_description),
+            ConverterRow.unit("torr", R.string.pressure_torr, R.string.pressure_symbol_torr,
+                    R.string.pressure_torr_description),
+            ConverterRow.section(R.string.pressure_section_gauge),
+            ConverterRow.unit("kilopascal_gauge", R.string.pressure_kilopascal_gauge,
+                    R.string.pressure_symbol_kilopascal_gauge,
+                    R.string.pressure_gauge_description),
+            ConverterRow.unit("megapascal_gauge", R.string.pressure_megapascal_gauge,
+                    R.string.pressure_symbol_megapascal_gauge,
+                    R.string.pressure_gauge_description),
+            ConverterRow.unit("bar_gauge", R.string.pressure_bar_gauge, R.string.pressure_symbol_bar_gauge,
+                    R.string.pressure_gauge_description),
+            ConverterRow.unit("kgf_per_square_centimetre_gauge", R.string.pressure_kgf_per_square_centimetre_gauge,
+                    R.string.pressure_symbol_kgf_per_square_centimetre_gauge,
+                    R.string.pressure_gauge_description),
+            ConverterRow.unit("psi_gauge", R.string.pressure_psi_gauge, R.string.pressure_symbol_psi_gauge,
+                    R.string.pressure_gauge_description)
+    );
+
+    public PressureActivity() {
+        super(Quantities.PRESSURE, R.string.pressure_title, "kilopascal", true, ROWS);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.sergeipavlov.armmetrolog;
+
+import ru.sergeipavlov.armmetrolog.core.Quantities;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class SpeedActivity extends ConverterActivity {
+
+    static final List<ConverterRow> ROWS = Arrays.asList(
+            ConverterRow.section(R.string.speed_section_si),
+            ConverterRow.unit("metre_per_second", R.string.speed_metre_per_second,
+                    R.string.speed_symbol_metre_per_second),
+            ConverterRow.section(R.string.speed_section_metric),
+            ConverterRow.unit("kilometre_per_hour", R.string.speed_kilometre_per_hour,
+                    R.string.speed_symbol_kilometre_per_hour),
+            ConverterRow.unit("kilometre_per_second", R.string.speed_kilometre_per_second,
+                    R.string.speed_symbol_kilometre_per_second),
+            ConverterRow.unit("metre_per_minute", R.string.speed_metre_per_minute,
+                    R.string.speed_symbol_metre_per_minute),
+            ConverterRow.unit("centimetre_per_second", R.string.speed_centimetre_per_second,
+                    R.string.speed_symbol_centimetre_per_second),
+            ConverterRow.unit("millimetre_per_second", R.string.speed_millimetre_per_second,
+                    R.string.speed_symbol_millimetre_per_second),
+            ConverterRow.section(R.string.speed_section_other),
+            ConverterRow.unit("knot", R.string.speed_knot, R.string.speed_symbol_knot),
+            ConverterRow.unit("mile_per_hour", R.string.speed_mile_per_hour, R.string.speed_symbol_mile_per_hour),
+            ConverterRow.unit("foot_per_second", R.string.speed_foot_per_second,
+                    R.string.speed_symbol_foot_per_second),
+            ConverterRow.unit("foot_per_minute", R.string.speed_foot_per_minute,
+                    R.string.speed_symbol_foot_per_minute),
+            ConverterRow.unit("inch_per_second", R.string.speed_inch_per_second,
+                    R.string.speed_symbol_inch_per_second)
+    );
+
+    public SpeedActivity() {
+        super(Quantities.SPEED, R.string.speed_title, "metre_per_second", true, ROWS);
+    }
+}
@@ -0,0 +1,150 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.util.AtomicFile;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+
+import ru.sergeipavlov.armmetrolog.core.StrappingTable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.util.concurrent.Executor;
+
+/**
+ * Tank section of the current-loop screen: the volume for the physical value read as the level,
+ * from a strapping table imported from CSV.
+ * <p>
+ * Create it in {@code onCreate}, as it registers for the document picker result.
+ */
+final class StrappingSection {
+
+    // Binary cache of the imported table, mapped on later starts instead of parsing the CSV.
+    private static final String STRAPPING_TABLE_FILE = "strapping_table.bin";
+    private static final String[] STRAPPING_TABLE_MIME_TYPES = {
+            "text/csv", "text/comma-separated-values", "text/tab-separated-values", "text/plain"
+    };
+
+    private final AppCompatActivity activity;
+    private final Executor ioExecutor;
+    private final TextView statusText;
+    private final TextView volumeText;
+    private final DecimalFormat format = InputFields.newValueFormat();
+    private final ActivityResultLauncher<String[]> openDocument;
+
+    // Level to volume of the tank; null until imported.
+    @Nullable
+    private StrappingTable table;
+    private double level = Double.NaN;
+
+    StrappingSection(@NonNull AppCompatActivity activity, @NonNull Executor ioExecutor) {
+        this.activity = activity;
+        this.ioExecutor = ioExecutor;
+        statusText = activity.findViewById(R.id.tank_status_text);
+        volumeText = activity.findViewById(R.id.tank_volume_text);
+        openDocument = activity.registerForActivityResult(
+                new ActivityResultContracts.OpenDocument(), this::onDocumentSelected);
+        activity.findViewById(R.id.tank_load_button).setOnClickListener(
+                view -> openDocument.launch(STRAPPING_TABLE_MIME_TYPES));
+    }
+
+    /**
+     * Shows the tank volume at a level in the units of the table.
+     */
+    void setLevel(double level) {
+        this.level = level;
+        StrappingTable current = table;
+        if (current == null) {
+            return;
+        }
+        double volume = current.volume(level);
+        volumeText.setText(Double.isNaN(volume) ? activity.getString(R.string.current_loop_tank_out_of_range)
+                : activity.getString(R.string.current_loop_tank_volume, format.format(volume)));
+    }
+
+    private void onDocumentSelected(@Nullable Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        ContentResolver resolver = activity.getContentResolver();
+        AtomicFile file = new AtomicFile(new File(activity.getFilesDir(), STRAPPING_TABLE_FILE));
+        ioExecutor.execute(() -> {
+            StrappingTable imported;
+            try {
+                InputStream input = resolver.openInputStream(uri);
+                if (input == null) {
+                    throw new FileNotFoundException(uri.toString());
+                }
+                try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+                    imported = StrappingTable.readCsv(reader);
+                }
+            } catch (IOException | IllegalArgumentException exception) {
+                activity.runOnUiThread(() -> Toast.makeText(activity, R.string.current_loop_tank_failed,
+                        Toast.LENGTH_SHORT).show());
+                return;
+            }
+            save(file, imported);
+            activity.runOnUiThread(() -> onLoaded(imported));
+        });
+    }
+
+    private static void save(@NonNull AtomicFile file, @NonNull StrappingTable table) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            table.writeTo(out);
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException exception) {
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    /**
+     * Maps the table cached by an earlier import.
+     */
+    void load() {
+        AtomicFile file = new AtomicFile(new File(activity.getFilesDir(), STRAPPING_TABLE_FILE));
+        ioExecutor.execute(() -> {
+            StrappingTable cached;
+            try (FileInputStream stream = file.openRead()) {
+                cached = StrappingTable.map(stream.getChannel());
+            } catch (IOException exception) {
+                // No table imported yet, or an unreadable cache: start without.
+                return;
+            }
+            activity.runOnUiThread(() -> onLoaded(cached));
+        });
+    }
+
+    private void onLoaded(@NonNull StrappingTable loaded) {
+        if (activity.isDestroyed()) {
+            return;
+        }
+        table = loaded;
+        statusText.setText(activity.getString(R.string.current_loop_tank_loaded, loaded.getRowCount(),
+                format.format(loaded.getMinLevel()), format.format(loaded.getMaxLevel()),
+                format.format(loaded.getMaxVolume())));
+        setLevel(level);
+    }
+}
@@ -0,0 +1,225 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.Bundle;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.android.material.textfield.TextInputEditText;
+import com.google.android.material.textfield.TextInputLayout;
+
+import ru.sergeipavlov.armmetrolog.core.CalibrationSweep;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScale;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScaleType;
+import ru.sergeipavlov.armmetrolog.core.FormulaScale;
+import ru.sergeipavlov.armmetrolog.core.NumberInput;
+import ru.sergeipavlov.armmetrolog.core.PiecewiseScale;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/**
+ * Calibration sweep section of the current-loop screen: writes the sweep of the current range and
+ * scale, with tolerance columns for an accuracy class, to a CSV document the user picks.
+ * <p>
+ * Create it in {@code onCreate}, as it registers for the document picker result. The sweep
+ * parameters are kept while the picker is open, and across recreation through
+ * {@link #saveState(Bundle)} and {@link #restoreState(Bundle)}; the sweep itself is built once the
+ * document is chosen.
+ */
+final class SweepExportSection {
+
+    private static final char SWEEP_DELIMITER = ',';
+    private static final int SWEEP_FRACTION_DIGITS = 6;
+    private static final String STATE_POINT_COUNT = "sweep_point_count";
+    private static final String STATE_RANGE = "sweep_range";
+    private static final String STATE_ACCURACY_CLASS = "sweep_accuracy_class";
+    // One of these holds the scale, depending on its kind.
+    private static final String STATE_SCALE_TYPE = "sweep_scale_type";
+    private static final String STATE_FORMULA = "sweep_formula";
+    private static final String STATE_PIECEWISE = "sweep_piecewise";
+
+    private final AppCompatActivity activity;
+    private final CurrentLoopHost host;
+    private final Executor ioExecutor;
+    private final TextInputLayout pointsLayout;
+    private final TextInputEditText pointsInput;
+    private final TextInputLayout accuracyLayout;
+    private final TextInputEditText accuracyInput;
+    private final NumberInput numberInput = new NumberInput();
+    private final ActivityResultLauncher<String> createDocument;
+
+    // Parameters of the sweep waiting for the document picker; the scale is null when none waits.
+    @Nullable
+    private CurrentLoopScale pendingScale;
+    @Nullable
+    private CurrentLoopRange pendingRange;
+    private int pendingPointCount;
+    // NaN for a table without tolerance columns.
+    private double pendingAccuracyClass = Double.NaN;
+
+    SweepExportSection(@NonNull AppCompatActivity activity, @NonNull CurrentLoopHost host,
+                       @NonNull Executor ioExecutor) {
+        this.activity = activity;
+        this.host = host;
+        this.ioExecutor = ioExecutor;
+        pointsLayout = activity.findViewById(R.id.sweep_points_layout);
+        pointsInput = activity.findViewById(R.id.sweep_points_input);
+        accuracyLayout = activity.findViewById(R.id.sweep_accuracy_layout);
+        accuracyInput = activity.findViewById(R.id.sweep_accuracy_input);
+        InputFields.acceptNumbers(accuracyInput);
+        createDocument = activity.registerForActivityResult(
+                new ActivityResultContracts.CreateDocument("text/csv"), this::onDocumentCreated);
+        activity.findViewById(R.id.sweep_export_button).setOnClickListener(view -> export());
+    }
+
+    private void export() {
+        double points = InputFields.getValue(numberInput, pointsInput, Double.NaN);
+        if (Double.isNaN(points) || points != Math.rint(points)
+                || points < CalibrationSweep.MIN_POINTS || points > CalibrationSweep.MAX_POINTS) {
+            pointsLayout.setError(activity.getString(R.string.current_loop_sweep_points_error));
+            return;
+        }
+        pointsLayout.setError(null);
+        double accuracyClass = InputFields.getValue(numberInput, accuracyInput, Double.POSITIVE_INFINITY);
+        if (!(accuracyClass > 0)) {
+            accuracyLayout.setError(activity.getString(R.string.current_loop_sweep_accuracy_error));
+            return;
+        }
+        accuracyLayout.setError(null);
+
+        CurrentLoopScale scale = host.getCurrentScale();
+        if (scale == null) {
+            Toast.makeText(activity, R.string.current_loop_scale_undefined, Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        int pointCount = (int) points;
+        pendingScale = scale;
+        pendingRange = host.readRange();
+        pendingPointCount = pointCount;
+        // A blank field exports the table without tolerance columns.
+        pendingAccuracyClass = Double.isInfinite(accuracyClass) ? Double.NaN : accuracyClass;
+        createDocument.launch("sweep_" + host.getScaleName().toLowerCase(Locale.ROOT)
+                + "_" + pointCount + ".csv");
+    }
+
+    void saveState(@NonNull Bundle outState) {
+        CurrentLoopScale scale = pendingScale;
+        CurrentLoopRange range = pendingRange;
+        if (scale == null || range == null) {
+            return;
+        }
+        if (scale instanceof CurrentLoopScaleType) {
+            outState.putString(STATE_SCALE_TYPE, ((CurrentLoopScaleType) scale).name());
+        } else if (scale instanceof FormulaScale) {
+            outState.putString(STATE_FORMULA, ((FormulaScale) scale).getFormula());
+        } else {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try {
+                ((PiecewiseScale) scale).writeTo(new DataOutputStream(bytes));
+            } catch (IOException exception) {
+                throw new AssertionError(exception);
+            }
+            outState.putByteArray(STATE_PIECEWISE, bytes.toByteArray());
+        }
+        outState.putInt(STATE_POINT_COUNT, pendingPointCount);
+        outState.putDoubleArray(STATE_RANGE, new double[]{range.getPhysicalStart(), range.getPhysicalEnd(),
+                range.getSignalStart(), range.getSignalEnd()});
+        outState.putDouble(STATE_ACCURACY_CLASS, pendingAccuracyClass);
+    }
+
+    /**
+     * Takes back the parameters of a sweep whose document was being picked when the screen was
+     * recreated; call it before the picker result is delivered, in {@code onCreate}.
+     */
+    void restoreState(@Nullable Bundle savedState) {
+        if (savedState == null || !savedState.containsKey(STATE_POINT_COUNT)) {
+            return;
+        }
+        double[] range = savedState.getDoubleArray(STATE_RANGE);
+        CurrentLoopScale scale = readScale(savedState);
+        if (range == null || range.length != 4 || scale == null) {
+            return;
+        }
+        pendingScale = scale;
+        pendingRange = new CurrentLoopRange(range[0], range[1], range[2], range[3]);
+        pendingPointCount = savedState.getInt(STATE_POINT_COUNT);
+        pendingAccuracyClass = savedState.getDouble(STATE_ACCURACY_CLASS, Double.NaN);
+    }
+
+    @Nullable
+    private static CurrentLoopScale readScale(@NonNull Bundle savedState) {
+        try {
+            String scaleType = savedState.getString(STATE_SCALE_TYPE);
+            if (scaleType != null) {
+                return CurrentLoopScaleType.valueOf(scaleType);
+            }
+            String formula = savedState.getString(STATE_FORMULA);
+            if (formula != null) {
+                return FormulaScale.compile(formula);
+            }
+            byte[] piecewise = savedState.getByteArray(STATE_PIECEWISE);
+            if (piecewise != null) {
+                return PiecewiseScale.readFrom(new DataInputStream(new ByteArrayInputStream(piecewise)));
+            }
+        } catch (IllegalArgumentException | IOException exception) {
+            // Saved by a version that wrote the scale differently: the export is dropped.
+        }
+        return null;
+    }
+
+    private void onDocumentCreated(@Nullable Uri uri) {
+        CurrentLoopScale scale = pendingScale;
+        CurrentLoopRange range = pendingRange;
+        int pointCount = pendingPointCount;
+        double accuracyClass = pendingAccuracyClass;
+        pendingScale = null;
+        pendingRange = null;
+        if (uri == null || scale == null || range == null) {
+            return;
+        }
+        CalibrationSweep sweep = CalibrationSweep.ofPointCount(scale, range, pointCount);
+        ContentResolver resolver = activity.getContentResolver();
+        ioExecutor.execute(() -> {
+            boolean saved = writeSweep(resolver, uri, sweep, accuracyClass);
+            activity.runOnUiThread(() -> Toast.makeText(activity,
+                    saved ? R.string.current_loop_sweep_saved : R.string.current_loop_sweep_failed,
+                    Toast.LENGTH_SHORT).show());
+        });
+    }
+
+    private static boolean writeSweep(@NonNull ContentResolver resolver, @NonNull Uri uri,
+                                      @NonNull CalibrationSweep sweep, double accuracyClass) {
+        try {
+            OutputStream stream = resolver.openOutputStream(uri);
+            if (stream == null) {
+                throw new FileNotFoundException(uri.toString());
+            }
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8))) {
+                sweep.writeCsv(writer, SWEEP_DELIMITER, SWEEP_FRACTION_DIGITS, accuracyClass);
+            }
+            return true;
+        } catch (IOException exception) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.material.color.MaterialColors;
+
+import ru.sergeipavlov.armmetrolog.core.FixedPointFormatter;
+import ru.sergeipavlov.armmetrolog.core.TrendSeries;
+
+/**
+ * Line chart of a {@link TrendSeries} over a time window, in seconds.
+ * <p>
+ * Every frame the visible window is decimated to about two points per pixel column, so the cost of
+ * drawing does not depend on how many points the series holds. The decimated points, the path and
+ * the paints are reused; the points are only recomputed when the series or the window changed.
+ * While following, the window ends at the newest point; dragging pans back in time, pinching zooms,
+ * and a double tap returns to following.
+ */
+public class TrendChartView extends View {
+
+    private static final double MIN_WINDOW_SECONDS = 0.05;
+    private static final double MAX_WINDOW_SECONDS = 24 * 60 * 60;
+    private static final double DEFAULT_WINDOW_SECONDS = 10;
+
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint framePaint = new Paint();
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path path = new Path();
+    private final FixedPointFormatter labelFormatter = FixedPointFormatter.forFractionDigits(3);
+    private final StringBuilder label = new StringBuilder();
+    private final ScaleGestureDetector scaleDetector;
+    private final GestureDetector gestureDetector;
+
+    @Nullable
+    private TrendSeries series;
+    private TrendSeries.Decimation decimation = TrendSeries.Decimation.MIN_MAX;
+    private double window = DEFAULT_WINDOW_SECONDS;
+    private boolean following = true;
+    // Right edge of the window while not following.
+    private double windowEnd;
+
+    private double[] pointTimes = new double[0];
+    private double[] pointValues = new double[0];
+    private int pointCount;
+    // What the decimated points were computed for.
+    private long pointsVersion = -1;
+    private double pointsFrom;
+    private double pointsTo;
+    private int pointsColumns;
+
+    public TrendChartView(@NonNull Context context) {
+        this(context, null);
+    }
+
+    public TrendChartView(@NonNull Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(1.5f * density);
+        linePaint.setStrokeJoin(Paint.Join.ROUND);
+        linePaint.setColor(MaterialColors.getColor(this, com.google.android.material.R.attr.colorPrimary));
+        framePaint.setStyle(Paint.Style.STROKE);
+        framePaint.setStrokeWidth(density);
+        framePaint.setColor(MaterialColors.getColor(this, com.google.android.material.R.attr.colorOutline));
+        labelPaint.setTextSize(11 * getResources().getDisplayMetrics().scaledDensity);
+        labelPaint.setColor(MaterialColors.getColor(this, com.google.android.material.R.attr.colorOnSurface));
+
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector detector) {
+                setWindow(window / detector.getScaleFactor());
+                return true;
+            }
+        });
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float distanceX, float distanceY) {
+                pan(distanceX);
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(@NonNull MotionEvent e) {
+                following = true;
+                postInvalidateOnAnimation();
+                return true;
+            }
+        });
+    }
+
+    public void setSeries(@Nullable TrendSeries series) {
+        this.series = series;
+        pointsVersion = -1;
+        following = true;
+        postInvalidateOnAnimation();
+    }
+
+    public void setDecimation(@NonNull TrendSeries.Decimation decimation) {
+        this.decimation = decimation;
+        pointsVersion = -1;
+        postInvalidateOnAnimation();
+    }
+
+    /**
+     * Width of the visible window in seconds.
+     */
+    public void setWindow(double seconds) {
+        window = Math.max(MIN_WINDOW_SECONDS, Math.min(seconds, MAX_WINDOW_SECONDS));
+        postInvalidateOnAnimation();
+    }
+
+    /**
+     * Called after appending to the series; redraws on the next frame if the new points are visible.
+     */
+    public void onSeriesChanged() {
+        if (following) {
+            postInvalidateOnAnimation();
+        }
+    }
+
+    private void pan(float distancePixels) {
+        TrendSeries current = series;
+        int width = getWidth() - getPaddingLeft() - getPaddingRight();
+        if (current == null || current.size() == 0 || width <= 0) {
+            return;
+        }
+        double end = following ? current.getLastTime() : windowEnd;
+        end += distancePixels * window / width;
+        following = end >= current.getLastTime();
+        windowEnd = Math.max(end, current.getFirstTime() + window / 2);
+        postInvalidateOnAnimation();
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = scaleDetector.onTouchEvent(event);
+        if (!scaleDetector.isInProgress()) {
+            handled |= gestureDetector.onTouchEvent(event);
+        }
+        if (handled) {
+            getParent().requestDisallowInterceptTouchEvent(true);
+        }
+        return handled || super.onTouchEvent(event);
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        float left = getPaddingLeft();
+        float top = getPaddingTop();
+        float right = getWidth() - getPaddingRight();
+        float bottom = getHeight() - getPaddingBottom();
+        canvas.drawRect(left, top, right, bottom, framePaint);
+
+        TrendSeries current = series;
+        int columns = (int) (right - left);
+        if (current == null || current.size() == 0 || columns <= 0 || bottom <= top) {
+            return;
+        }
+        double to = following ? current.getLastTime() : windowEnd;
+        double from = to - window;
+        decimate(current, from, to, columns);
+        if (pointCount == 0) {
+            return;
+        }
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < pointCount; i++) {
+            double value = pointValues[i];
+            if (pointTimes[i] >= from && pointTimes[i] <= to) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        if (min > max) {
+            min = pointValues[0];
+            max = min;
+        }
+        double margin = max > min ? (max - min) * 0.05 : Math.max(Math.abs(max) * 0.01, 1e-3);
+        min -= margin;
+        max += margin;
+
+        double xScale = (right - left) / window;
+        double yScale = (bottom - top) / (max - min);
+        path.rewind();
+        for (int i = 0; i < pointCount; i++) {
+            float x = (float) (left + (pointTimes[i] - from) * xScale);
+            float y = (float) (bottom - (pointValues[i] - min) * yScale);
+            if (i == 0) {
+                path.moveTo(x, y);
+            } else {
+                path.lineTo(x, y);
+            }
+        }
+        canvas.save();
+        canvas.clipRect(left, top, right, bottom);
+        canvas.drawPath(path, linePaint);
+        canvas.restore();
+
+        float inset = labelPaint.getTextSize() / 2;
+        drawLabel(canvas, max, left + inset, top + inset - labelPaint.ascent());
+        drawLabel(canvas, min, left + inset, bottom - inset - labelPaint.descent());
+    }
+
+    private void decimate(@NonNull TrendSeries current, double from, double to, int columns) {
+        if (current.getVersion() == pointsVersion && from == pointsFrom && to == pointsTo
+                && columns == pointsColumns) {
+            return;
+        }
+        int room = 2 * columns + 4;
+        if (pointTimes.length < room) {
+            pointTimes = new double[room];
+            pointValues = new double[room];
+        }
+        pointCount = current.decimate(decimation, from, to, columns, pointTimes, pointValues);
+        pointsVersion = current.getVersion();
+        pointsFrom = from;
+        pointsTo = to;
+        pointsColumns = columns;
+    }
+
+    private void drawLabel(@NonNull Canvas canvas, double value, float x, float y) {
+        label.setLength(0);
+        labelFormatter.append(value, label);
+        canvas.drawText(label, 0, label.length(), x, y, labelPaint);
+    }
+}
@@ -0,0 +1,187 @@
+package ru.sergeipavlov.armmetrolog;
+
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.google.android.material.button.MaterialButton;
+import com.google.android.material.textfield.TextInputEditText;
+import com.google.android.material.textfield.TextInputLayout;
+
+import ru.sergeipavlov.armmetrolog.core.ColumnConversion;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScale;
+import ru.sergeipavlov.armmetrolog.core.InputDistribution;
+import ru.sergeipavlov.armmetrolog.core.MonteCarloUncertainty;
+import ru.sergeipavlov.armmetrolog.core.NumberInput;
+
+import java.text.DecimalFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Uncertainty section of the current-loop screen: propagates a normally distributed signal through
+ * the current range and scale by the Monte Carlo method, which also holds for non-linear scales.
+ * <p>
+ * An evaluation takes seconds, so it runs on the section's own thread rather than on the screen's
+ * I/O executor; {@link #stop()} interrupts it and {@link #shutdown()} releases the thread.
+ */
+final class UncertaintySection {
+
+    // The 10^6 trials GUM Supplement 1 suggests for a 95 % coverage interval.
+    private static final long TRIALS = 1_000_000;
+    // A fixed seed gives the same interval for the same inputs.
+    private static final long SEED = 0;
+    private static final double COVERAGE = 0.95;
+
+    private final AppCompatActivity activity;
+    private final CurrentLoopHost host;
+    private final TextInputLayout signalLayout;
+    private final TextInputEditText signalInput;
+    private final TextInputLayout deviationLayout;
+    private final TextInputEditText deviationInput;
+    private final MaterialButton toggleButton;
+    private final TextView resultText;
+    private final NumberInput numberInput = new NumberInput();
+    private final DecimalFormat format = InputFields.newValueFormat();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Nullable
+    private Future<?> task;
+    // Identifies the running evaluation, so that a stopped one cannot show its results.
+    private int generation;
+
+    UncertaintySection(@NonNull AppCompatActivity activity, @NonNull CurrentLoopHost host) {
+        this.activity = activity;
+        this.host = host;
+        signalLayout = activity.findViewById(R.id.uncertainty_signal_layout);
+        signalInput = activity.findViewById(R.id.uncertainty_signal_input);
+        deviationLayout = activity.findViewById(R.id.uncertainty_deviation_layout);
+        deviationInput = activity.findViewById(R.id.uncertainty_deviation_input);
+        toggleButton = activity.findViewById(R.id.uncertainty_button);
+        resultText = activity.findViewById(R.id.uncertainty_result_text);
+        InputFields.acceptNumbers(signalInput, deviationInput);
+        toggleButton.setOnClickListener(view -> {
+            if (task != null) {
+                stop();
+            } else {
+                start();
+            }
+        });
+    }
+
+    private void start() {
+        double signal = InputFields.getValue(numberInput, signalInput, Double.NaN);
+        if (!Double.isFinite(signal)) {
+            signalLayout.setError(activity.getString(R.string.current_loop_uncertainty_value_error));
+            return;
+        }
+        signalLayout.setError(null);
+        double deviation = InputFields.getValue(numberInput, deviationInput, Double.NaN);
+        if (!(deviation > 0) || Double.isInfinite(deviation)) {
+            deviationLayout.setError(activity.getString(R.string.current_loop_uncertainty_deviation_error));
+            return;
+        }
+        deviationLayout.setError(null);
+
+        CurrentLoopScale scale = host.getCurrentScale();
+        if (scale == null) {
+            resultText.setText(R.string.current_loop_scale_undefined);
+            return;
+        }
+        ColumnConversion conversion = ColumnConversion.toPhysical(scale, host.readRange());
+        int run = ++generation;
+        toggleButton.setText(R.string.current_loop_uncertainty_stop);
+        resultText.setText(activity.getString(R.string.current_loop_uncertainty_progress, 0));
+        task = executor.submit(() -> evaluate(run, conversion, signal, deviation));
+    }
+
+    /**
+     * Interrupts a running evaluation, if any; its result is dropped.
+     */
+    void stop() {
+        Future<?> running = task;
+        if (running == null) {
+            return;
+        }
+        generation++;
+        task = null;
+        running.cancel(true);
+        toggleButton.setText(R.string.current_loop_uncertainty_start);
+        resultText.setText(null);
+    }
+
+    /**
+     * Stops a running evaluation and ends the section's thread; call it from {@code onDestroy}.
+     */
+    void shutdown() {
+        stop();
+        executor.shutdownNow();
+    }
+
+    private void evaluate(int run, @NonNull ColumnConversion conversion, double signal, double deviation) {
+        try {
+            MonteCarloUncertainty.Result result = new MonteCarloUncertainty.Builder(
+                    MonteCarloUncertainty.Model.of(conversion))
+                    .input(InputDistribution.normal(signal, deviation))
+                    .build()
+                    .evaluate(TRIALS, SEED, (completed, total) -> {
+                        int percent = (int) (completed * 100 / total);
+                        activity.runOnUiThread(() -> showProgress(run, percent));
+                    });
+            activity.runOnUiThread(() -> showResult(run, result));
+        } catch (InterruptedException exception) {
+            // Stopped: stop() has reset the section already.
+        } catch (RuntimeException exception) {
+            String message = exception.getMessage() != null ? exception.getMessage() : exception.toString();
+            activity.runOnUiThread(() -> showFailure(run, message));
+        } finally {
+            activity.runOnUiThread(() -> finish(run));
+        }
+    }
+
+    private void showProgress(int run, int percent) {
+        if (run == generation && task != null) {
+            resultText.setText(activity.getString(R.string.current_loop_uncertainty_progress, percent));
+        }
+    }
+
+    private void showResult(int run, @NonNull MonteCarloUncertainty.Result result) {
+        if (run != generation) {
+            return;
+        }
+        if (result.getValidCount() == 0) {
+            resultText.setText(R.string.current_loop_uncertainty_undefined);
+            return;
+        }
+        double[] interval = result.coverageInterval(COVERAGE);
+        resultText.setText(activity.getString(R.string.current_loop_uncertainty_result,
+                format(result.getMean()), format(result.getStandardUncertainty()),
+                format(interval[0]), format(interval[1]), result.getTrialCount() - result.getValidCount()));
+    }
+
+    private void showFailure(int run, @NonNull String message) {
+        if (run == generation) {
+            resultText.setText(activity.getString(R.string.current_loop_uncertainty_failed, message));
+        }
+    }
+
+    /**
+     * Returns the section to idle after an evaluation that ended by itself, whatever the outcome.
+     */
+    private void finish(int run) {
+        if (run != generation || task == null) {
+            return;
+        }
+        task = null;
+        toggleButton.setText(R.string.current_loop_uncertainty_start);
+    }
+
+    @NonNull
+    private String format(double value) {
+        String formatted = InputFields.formatRounded(format, value);
+        return formatted != null ? formatted : "—";
+    }
+}
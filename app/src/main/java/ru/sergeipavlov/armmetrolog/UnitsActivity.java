@@ -38,7 +38,8 @@ public class UnitsActivity extends AppCompatActivity {
         return Arrays.asList(
                 getString(R.string.units_temperature),
                 getString(R.string.units_time),
-                getString(R.string.units_speed)
+                getString(R.string.units_speed),
+                getString(R.string.units_pressure)
         );
     }
     private void onUnitSelected(@NonNull String unit) {
@@ -46,6 +47,10 @@ public class UnitsActivity extends AppCompatActivity {
             startActivity(new Intent(this, TemperatureActivity.class));
         } else if (unit.equals(getString(R.string.units_time))) {
             startActivity(new Intent(this, TimeActivity.class));
+        } else if (unit.equals(getString(R.string.units_speed))) {
+            startActivity(new Intent(this, SpeedActivity.class));
+        } else if (unit.equals(getString(R.string.units_pressure))) {
+            startActivity(new Intent(this, PressureActivity.class));
         }
     }
 }
@@ -0,0 +1,85 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopLookupTable;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScaleType;
+
+@State(Scope.Thread)
+public class CurrentLoopScaleTypeBenchmark {
+
+    private static final int TABLE_SIZE = 1024;
+
+    @Param({"LINEAR", "LINEAR_DESCENDING", "QUADRATIC", "QUADRATIC_DESCENDING", "ROOT", "ROOT_DESCENDING"})
+    public CurrentLoopScaleType scaleType;
+
+    private double scs = 0;
+    private double sce = 100;
+    private double sgs = 4;
+    private double sge = 20;
+    private double physicalValue = 37.5;
+    private double signalValue = 10.0;
+
+    private CurrentLoopRange range;
+    private CurrentLoopLookupTable lookupTable;
+    private double[] physicalTable;
+    private double[] signalTable;
+    private double[] output;
+
+    @Setup
+    public void setUp() {
+        range = new CurrentLoopRange(scs, sce, sgs, sge);
+        lookupTable = scaleType.lookupTable(1e-6);
+        physicalTable = new double[TABLE_SIZE];
+        signalTable = new double[TABLE_SIZE];
+        output = new double[TABLE_SIZE];
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            physicalTable[i] = sce * i / (TABLE_SIZE - 1);
+            signalTable[i] = sgs + (sge - sgs) * i / (TABLE_SIZE - 1);
+        }
+    }
+
+    @Benchmark
+    public double toSignal() {
+        return scaleType.toSignal(physicalValue, scs, sce, sgs, sge);
+    }
+
+    @Benchmark
+    public double toPhysical() {
+        return scaleType.toPhysical(signalValue, scs, sce, sgs, sge);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TABLE_SIZE)
+    public double[] toSignalTable() {
+        scaleType.toSignal(range, physicalTable, output);
+        return output;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TABLE_SIZE)
+    public double[] toPhysicalTable() {
+        scaleType.toPhysical(range, signalTable, output);
+        return output;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TABLE_SIZE)
+    public double[] toSignalTableLookup() {
+        lookupTable.toSignal(range, physicalTable, output);
+        return output;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TABLE_SIZE)
+    public double[] toPhysicalTableLookup() {
+        lookupTable.toPhysical(range, signalTable, output);
+        return output;
+    }
+}
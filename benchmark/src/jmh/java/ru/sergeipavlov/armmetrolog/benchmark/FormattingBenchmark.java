@@ -0,0 +1,63 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.FixedPointFormatter;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formatting as done by the converter screens on every keystroke.
+ */
+@State(Scope.Thread)
+public class FormattingBenchmark {
+
+    @Param({"3", "6"})
+    public int fractionDigits;
+
+    private double value = 273.15123456;
+
+    private DecimalFormat valueFormatter;
+    private String formatPattern;
+    private final StringBuilder formatBuffer = new StringBuilder(32);
+
+    @Setup
+    public void setUp() {
+        DecimalFormatSymbols symbols = new DecimalFormatSymbols(Locale.US);
+        valueFormatter = new DecimalFormat("0.###", symbols);
+        valueFormatter.setGroupingUsed(false);
+        formatPattern = "%1$." + fractionDigits + "f";
+    }
+
+    /** {@code CurrentLoopActivity.applyResult} + {@code formatValue}. */
+    @Benchmark
+    public String decimalFormat() {
+        double rounded = Math.round(value * 1000d) / 1000d;
+        return valueFormatter.format(rounded);
+    }
+
+    /** Baseline: the former {@code setFormattedText} with the pattern already built. */
+    @Benchmark
+    public String stringFormat() {
+        return String.format(Locale.US, formatPattern, value);
+    }
+
+    /** Baseline: pattern concatenation plus one format call, as {@code updateTimes} used to do. */
+    @Benchmark
+    public String stringFormatWithPattern() {
+        String pattern = "%1$." + fractionDigits + "f";
+        return String.format(Locale.US, pattern, value);
+    }
+
+    /** Cached formatter writing into a reused buffer, as the screens do now. */
+    @Benchmark
+    public StringBuilder fixedPoint() {
+        return FixedPointFormatter.forFractionDigits(fractionDigits).format(value, formatBuffer);
+    }
+}
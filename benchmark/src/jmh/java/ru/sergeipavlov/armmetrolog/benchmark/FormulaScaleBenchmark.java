@@ -0,0 +1,57 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.FormulaScale;
+
+@State(Scope.Thread)
+public class FormulaScaleBenchmark {
+
+    private static final int SIZE = 100_000;
+
+    @Param({"x^1.5", "(exp(2 * x) - 1) / (exp(2) - 1)"})
+    public String formula;
+
+    private final CurrentLoopRange range = new CurrentLoopRange(0, 100, 4, 20);
+    private FormulaScale scale;
+    private double[] physical;
+    private double[] signal;
+    private double[] output;
+
+    @Setup
+    public void setUp() {
+        scale = FormulaScale.compile(formula);
+        physical = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            physical[i] = 100.0 * i / (SIZE - 1);
+        }
+        signal = new double[SIZE];
+        scale.toSignal(range, physical, signal);
+        output = new double[SIZE];
+    }
+
+    /**
+     * One keystroke: compile the formula and convert a single value.
+     */
+    @Benchmark
+    public double compileAndConvert() {
+        return FormulaScale.compile(formula).toPhysical(12, range);
+    }
+
+    @Benchmark
+    public double[] forwardSweep() {
+        scale.toSignal(range, physical, output);
+        return output;
+    }
+
+    @Benchmark
+    public double[] inverseSweep() {
+        scale.toPhysical(range, signal, output);
+        return output;
+    }
+}
@@ -0,0 +1,41 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.ColumnConversion;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScaleType;
+import ru.sergeipavlov.armmetrolog.core.InputDistribution;
+import ru.sergeipavlov.armmetrolog.core.MonteCarloUncertainty;
+
+@State(Scope.Thread)
+public class MonteCarloUncertaintyBenchmark {
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Param({"1000000"})
+    public long trials;
+
+    private MonteCarloUncertainty evaluation;
+
+    @Setup
+    public void setUp() {
+        // Square-root flow scale close to zero flow, where the output is strongly skewed.
+        MonteCarloUncertainty.Model model = MonteCarloUncertainty.Model.of(
+                ColumnConversion.toPhysical(CurrentLoopScaleType.ROOT, new CurrentLoopRange(0, 100, 4, 20)));
+        evaluation = new MonteCarloUncertainty.Builder(model)
+                .input(InputDistribution.normal(4.5, 0.05))
+                .parallelism(parallelism)
+                .build();
+    }
+
+    @Benchmark
+    public MonteCarloUncertainty.Result evaluate() throws InterruptedException {
+        return evaluation.evaluate(trials, 1, null);
+    }
+}
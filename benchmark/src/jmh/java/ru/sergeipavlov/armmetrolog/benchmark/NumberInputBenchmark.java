@@ -0,0 +1,44 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.NumberInput;
+
+@State(Scope.Thread)
+public class NumberInputBenchmark {
+
+    @Param({"12,5", "-273.150", "4,5k", "1.5e-3", "0.000123456789012"})
+    public String text;
+
+    private final NumberInput numberInput = new NumberInput();
+    // Stands in for the field's Editable.
+    private StringBuilder editable;
+
+    @Setup
+    public void setUp() {
+        editable = new StringBuilder(" ").append(text).append(' ');
+    }
+
+    @Benchmark
+    public double numberInput() {
+        numberInput.parse(editable);
+        return numberInput.getValue();
+    }
+
+    /**
+     * What the screens did before: copy, trim, replace and parse.
+     */
+    @Benchmark
+    public double parseDouble() {
+        String value = editable.toString().trim();
+        try {
+            return Double.parseDouble(value.replace(',', '.'));
+        } catch (NumberFormatException exception) {
+            return Double.NaN;
+        }
+    }
+}
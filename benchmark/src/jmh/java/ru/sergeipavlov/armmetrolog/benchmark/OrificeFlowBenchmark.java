@@ -0,0 +1,52 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScaleType;
+import ru.sergeipavlov.armmetrolog.core.OrificeFlowMeter;
+
+@State(Scope.Thread)
+public class OrificeFlowBenchmark {
+
+    @Param({"101", "10001"})
+    public int points;
+
+    private final CurrentLoopRange range = new CurrentLoopRange(0, 25_000, 4, 20);
+    private OrificeFlowMeter meter;
+    private double[] signal;
+    private double[] flow;
+
+    @Setup
+    public void setUp() {
+        meter = new OrificeFlowMeter.Builder()
+                .pipeDiameter(0.1)
+                .boreDiameter(0.05)
+                .density(998.2)
+                .viscosity(1.002e-3)
+                .build();
+        signal = new double[points];
+        for (int i = 0; i < points; i++) {
+            signal[i] = 4 + 16.0 * i / (points - 1);
+        }
+        flow = new double[points];
+    }
+
+    /**
+     * Full 4–20 mA to flow table of a root-extracting DP transmitter.
+     */
+    @Benchmark
+    public double[] rootSignalTable() {
+        meter.massFlowFromSignal(CurrentLoopScaleType.ROOT, range, signal, 0, flow, 0, points);
+        return flow;
+    }
+
+    @Benchmark
+    public double singlePoint() {
+        return meter.massFlow(12_345);
+    }
+}
@@ -0,0 +1,72 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.PiecewiseScale;
+
+import java.util.SplittableRandom;
+
+@State(Scope.Thread)
+public class PiecewiseScaleBenchmark {
+
+    private static final int SIZE = 4096;
+
+    @Param({"LINEAR", "MONOTONE_CUBIC"})
+    public PiecewiseScale.Interpolation interpolation;
+
+    @Param({"2000"})
+    public int points;
+
+    private final CurrentLoopRange range = new CurrentLoopRange(0, 100, 4, 20);
+    private PiecewiseScale scale;
+    private double[] sweep;
+    private double[] shuffled;
+    private double[] signals;
+    private double[] output;
+
+    @Setup
+    public void setUp() {
+        double[] x = new double[points];
+        double[] y = new double[points];
+        for (int i = 0; i < points; i++) {
+            x[i] = (double) i / (points - 1);
+            // Horizontal cylinder: volume fraction against level fraction.
+            double angle = 2 * Math.acos(1 - 2 * x[i]);
+            y[i] = (angle - Math.sin(angle)) / (2 * Math.PI);
+        }
+        scale = PiecewiseScale.of(interpolation, x, y);
+        SplittableRandom random = new SplittableRandom(42);
+        sweep = new double[SIZE];
+        shuffled = new double[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            sweep[i] = 100.0 * i / (SIZE - 1);
+            shuffled[i] = random.nextDouble() * 100;
+        }
+        signals = new double[SIZE];
+        scale.toSignal(range, sweep, signals);
+        output = new double[SIZE];
+    }
+
+    @Benchmark
+    public double[] forwardSweep() {
+        scale.toSignal(range, sweep, output);
+        return output;
+    }
+
+    @Benchmark
+    public double[] forwardShuffled() {
+        scale.toSignal(range, shuffled, output);
+        return output;
+    }
+
+    @Benchmark
+    public double[] inverseSweep() {
+        scale.toPhysical(range, signals, output);
+        return output;
+    }
+}
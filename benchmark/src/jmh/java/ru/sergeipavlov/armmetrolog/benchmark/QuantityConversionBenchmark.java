@@ -0,0 +1,59 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.Quantities;
+import ru.sergeipavlov.armmetrolog.core.Quantity;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Converter screen fan-out: one typed value converted into every unit of the quantity, on the
+ * double fast path and in exact decimal mode.
+ */
+@State(Scope.Thread)
+public class QuantityConversionBenchmark {
+
+    @Param({"temperature:kelvin", "temperature:fahrenheit", "time:second", "time:microsecond", "time:millennium",
+            "speed:kilometre_per_hour", "pressure:kilopascal", "pressure:bar_gauge"})
+    public String source;
+
+    private double value = 1234.567;
+    private BigDecimal exactValue = new BigDecimal("1234.567");
+
+    private Quantity quantity;
+    private int sourceUnit;
+    private double[] values;
+    private BigDecimal[] exactValues;
+
+    @Setup
+    public void setUp() {
+        int separator = source.indexOf(':');
+        quantity = Quantities.get(source.substring(0, separator));
+        sourceUnit = quantity.indexOf(source.substring(separator + 1));
+        values = new double[quantity.size()];
+        exactValues = new BigDecimal[quantity.size()];
+    }
+
+    @Benchmark
+    public double toBase() {
+        return quantity.toBase(sourceUnit, value);
+    }
+
+    @Benchmark
+    public double[] fanOut() {
+        quantity.convertAll(sourceUnit, value, values);
+        return values;
+    }
+
+    @Benchmark
+    public BigDecimal[] exactFanOut() {
+        quantity.convertAllExact(sourceUnit, exactValue, MathContext.DECIMAL128, exactValues);
+        return exactValues;
+    }
+}
@@ -0,0 +1,57 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.ResistanceThermometer;
+import ru.sergeipavlov.armmetrolog.core.RtdCharacteristic;
+
+@State(Scope.Thread)
+public class ResistanceThermometerBenchmark {
+
+    @Param({"PLATINUM_385", "COPPER_428"})
+    public RtdCharacteristic characteristic;
+
+    @Param({"1024", "1048576"})
+    public int size;
+
+    private ResistanceThermometer thermometer;
+    private double resistance;
+    private double[] resistances;
+    private double[] temperatures;
+
+    @Setup
+    public void setUp() {
+        thermometer = new ResistanceThermometer(characteristic, 100);
+        // Below 0 °C, where the inverse is iterative.
+        resistance = thermometer.toResistance(characteristic.getMinTemperature() / 2);
+        double min = thermometer.toResistance(characteristic.getMinTemperature());
+        double max = thermometer.toResistance(characteristic.getMaxTemperature());
+        resistances = new double[size];
+        for (int i = 0; i < size; i++) {
+            resistances[i] = min + (max - min) * i / size;
+        }
+        temperatures = new double[size];
+        thermometer.toTemperature(resistances, temperatures);
+    }
+
+    @Benchmark
+    public double toTemperature() {
+        return thermometer.toTemperature(resistance);
+    }
+
+    @Benchmark
+    public double[] toTemperatureArray() {
+        thermometer.toTemperature(resistances, temperatures);
+        return temperatures;
+    }
+
+    @Benchmark
+    public double[] toResistanceArray() {
+        thermometer.toResistance(temperatures, resistances);
+        return resistances;
+    }
+}
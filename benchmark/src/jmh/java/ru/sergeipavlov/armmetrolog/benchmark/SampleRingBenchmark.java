@@ -0,0 +1,43 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScaleType;
+import ru.sergeipavlov.armmetrolog.core.SampleRing;
+
+@State(Scope.Thread)
+public class SampleRingBenchmark {
+
+    private static final int FRAME_SAMPLES = 17;
+
+    private final CurrentLoopRange range = new CurrentLoopRange(0, 100, 4, 20);
+    private SampleRing ring;
+    private long[] times;
+    private double[] signals;
+    private double[] physicals;
+
+    @Setup
+    public void setUp() {
+        ring = new SampleRing(4096);
+        times = new long[256];
+        signals = new double[256];
+        physicals = new double[256];
+    }
+
+    /**
+     * One display frame at a 1 kHz poll rate: offer, drain and convert the block.
+     */
+    @Benchmark
+    public double[] frame() {
+        for (int i = 0; i < FRAME_SAMPLES; i++) {
+            ring.offer(i, 4 + i);
+        }
+        int count = ring.drain(times, signals, 0, times.length);
+        CurrentLoopScaleType.ROOT.toPhysical(range, signals, 0, physicals, 0, count);
+        return physicals;
+    }
+}
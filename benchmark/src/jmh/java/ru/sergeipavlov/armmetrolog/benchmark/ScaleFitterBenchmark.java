@@ -0,0 +1,61 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScaleType;
+import ru.sergeipavlov.armmetrolog.core.ScaleFit;
+import ru.sergeipavlov.armmetrolog.core.ScaleFitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+@State(Scope.Thread)
+public class ScaleFitterBenchmark {
+
+    private static final int INSTRUMENTS = 500;
+    private static final double[] PHYSICAL = {0, 25, 50, 75, 100, 75, 50, 25, 0};
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private final CurrentLoopRange range = new CurrentLoopRange(0, 100, 4, 20);
+    private ScaleFitter fitter;
+    private double[] signal;
+    private List<ScaleFitter.Measurements> instruments;
+
+    @Setup
+    public void setUp() {
+        fitter = new ScaleFitter.Builder().parallelism(parallelism).build();
+        CurrentLoopScaleType[] types = CurrentLoopScaleType.values();
+        Random random = new Random(42);
+        instruments = new ArrayList<>(INSTRUMENTS);
+        for (int i = 0; i < INSTRUMENTS; i++) {
+            double[] measured = new double[PHYSICAL.length];
+            for (int j = 0; j < measured.length; j++) {
+                measured[j] = types[i % types.length].toSignal(PHYSICAL[j], range) + 0.004 * random.nextGaussian();
+            }
+            instruments.add(new ScaleFitter.Measurements(range, PHYSICAL, measured));
+        }
+        signal = new double[PHYSICAL.length];
+        CurrentLoopScaleType.ROOT.toSignal(range, PHYSICAL, signal);
+    }
+
+    /**
+     * One as-found check of five points up and down.
+     */
+    @Benchmark
+    public List<ScaleFit> fitOne() {
+        return fitter.fit(range, PHYSICAL, signal);
+    }
+
+    @Benchmark
+    public List<List<ScaleFit>> fitFile() throws InterruptedException {
+        return fitter.fitAll(instruments);
+    }
+}
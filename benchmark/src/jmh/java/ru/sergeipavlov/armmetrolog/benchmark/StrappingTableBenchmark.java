@@ -0,0 +1,85 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopRange;
+import ru.sergeipavlov.armmetrolog.core.CurrentLoopScaleType;
+import ru.sergeipavlov.armmetrolog.core.StrappingTable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+@State(Scope.Thread)
+public class StrappingTableBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private static final int SIGNALS = 4096;
+
+    private final CurrentLoopRange range = new CurrentLoopRange(0, 12_000, 4, 20);
+    private StrappingTable table;
+    private byte[] cache;
+    private double[] signal;
+    private double[] volume;
+    private double[] randomLevel;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Horizontal cylinder, 12 m long and 12 000 mm across.
+        double[] levels = new double[rows];
+        double[] volumes = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            double h = 12.0 * i / (rows - 1);
+            double r = 6;
+            volumes[i] = 12 * (r * r * Math.acos((r - h) / r) - (r - h) * Math.sqrt(Math.max(0, 2 * r * h - h * h)));
+            levels[i] = h * 1000;
+        }
+        table = StrappingTable.of(levels, volumes);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        table.writeTo(new DataOutputStream(bytes));
+        cache = bytes.toByteArray();
+
+        signal = new double[SIGNALS];
+        randomLevel = new double[SIGNALS];
+        Random random = new Random(23);
+        for (int i = 0; i < SIGNALS; i++) {
+            signal[i] = 4 + 16.0 * i / (SIGNALS - 1);
+            randomLevel[i] = random.nextDouble() * 12_000;
+        }
+        volume = new double[SIGNALS];
+    }
+
+    /**
+     * Sorted 4–20 mA sweep, served by the segment hint.
+     */
+    @Benchmark
+    public double[] signalSweep() {
+        table.volumeFromSignal(CurrentLoopScaleType.LINEAR, range, signal, 0, volume, 0, SIGNALS);
+        return volume;
+    }
+
+    /**
+     * Unordered lookups, each a full binary search.
+     */
+    @Benchmark
+    public double randomLevel() {
+        double level = randomLevel[next];
+        next = (next + 1) & (SIGNALS - 1);
+        return table.volume(level);
+    }
+
+    @Benchmark
+    public StrappingTable readCache() throws IOException {
+        return StrappingTable.readFrom(new DataInputStream(new ByteArrayInputStream(cache)));
+    }
+}
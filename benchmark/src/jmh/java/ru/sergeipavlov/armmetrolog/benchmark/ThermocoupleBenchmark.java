@@ -0,0 +1,60 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.Thermocouple;
+
+@State(Scope.Thread)
+public class ThermocoupleBenchmark {
+
+    @Param({"B", "K", "S", "T"})
+    public Thermocouple type;
+
+    private double temperature;
+    private double emf;
+    private double[] temperatures;
+    private double[] emfs;
+    private double[] output;
+
+    @Setup
+    public void setUp() {
+        temperature = (type.getMinTemperature() + type.getMaxTemperature()) / 2;
+        emf = type.toEmf(temperature);
+        // Reference table: every 1 °C over the full range.
+        int first = (int) Math.ceil(type.getMinTemperature());
+        int last = (int) Math.floor(type.getMaxTemperature());
+        temperatures = new double[last - first + 1];
+        for (int i = 0; i < temperatures.length; i++) {
+            temperatures[i] = first + i;
+        }
+        emfs = new double[temperatures.length];
+        type.toEmf(0.0, temperatures, emfs);
+        output = new double[temperatures.length];
+    }
+
+    @Benchmark
+    public double toEmf() {
+        return type.toEmf(temperature);
+    }
+
+    @Benchmark
+    public double toTemperature() {
+        return type.toTemperature(emf);
+    }
+
+    @Benchmark
+    public double[] referenceTable() {
+        type.toEmf(0.0, temperatures, output);
+        return output;
+    }
+
+    @Benchmark
+    public double[] inverseTable() {
+        type.toTemperature(0.0, emfs, output);
+        return output;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.sergeipavlov.armmetrolog.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ru.sergeipavlov.armmetrolog.core.TrendSeries;
+
+import java.util.SplittableRandom;
+
+@State(Scope.Thread)
+public class TrendDecimationBenchmark {
+
+    private static final int COLUMNS = 1080;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"MIN_MAX", "LTTB"})
+    public TrendSeries.Decimation decimation;
+
+    private TrendSeries series;
+    private double[] outTimes;
+    private double[] outValues;
+
+    @Setup
+    public void setUp() {
+        series = new TrendSeries(size);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < size; i++) {
+            series.append(i * 1e-3, Math.sin(i * 1e-4) + 0.01 * random.nextDouble());
+        }
+        outTimes = new double[2 * COLUMNS + 4];
+        outValues = new double[2 * COLUMNS + 4];
+    }
+
+    /**
+     * One chart frame showing the whole series.
+     */
+    @Benchmark
+    public int wholeSeries() {
+        return series.decimate(decimation, series.getFirstTime(), series.getLastTime(), COLUMNS,
+                outTimes, outValues);
+    }
+}
@@ -0,0 +1,111 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects records appended from any thread and hands them to a {@link Sink} in batches on a
+ * single background thread.
+ * <p>
+ * A batch is written {@code flushDelayMillis} after the first pending record, or immediately once
+ * {@code maxBatchSize} records are pending, so callers never wait for storage and the storage sees
+ * few, large transactions. Records of a batch the sink fails to write are dropped and counted.
+ */
+public final class BatchedAppender<T> {
+
+    public interface Sink<T> {
+        void write(List<T> batch) throws IOException;
+    }
+
+    private final Sink<T> sink;
+    private final int maxBatchSize;
+    private final long flushDelayMillis;
+    private final ScheduledThreadPoolExecutor worker;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final Object lock = new Object();
+    private List<T> pending = new ArrayList<>();
+    private boolean scheduled;
+
+    public BatchedAppender(String threadName, Sink<T> sink, int maxBatchSize, long flushDelayMillis) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        this.sink = sink;
+        this.maxBatchSize = maxBatchSize;
+        this.flushDelayMillis = flushDelayMillis;
+        this.worker = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        // shutdown() drains explicitly; delayed flushes need not hold the thread alive.
+        worker.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    public void append(T record) {
+        synchronized (lock) {
+            pending.add(record);
+            boolean full = pending.size() == maxBatchSize;
+            if (!scheduled || full) {
+                scheduled = true;
+                worker.schedule(this::drain, full ? 0 : flushDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Writes pending records now, without waiting for the delay.
+     *
+     * @return completes once they have been handed to the sink
+     */
+    public Future<?> flush() {
+        return worker.submit(this::drain);
+    }
+
+    /**
+     * Writes pending records and stops the background thread; later appends are rejected.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            if (worker.isShutdown()) {
+                return;
+            }
+            worker.execute(this::drain);
+            worker.shutdown();
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return worker.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Number of records lost because the sink failed to write them.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private void drain() {
+        List<T> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new ArrayList<>();
+            scheduled = false;
+        }
+        for (int start = 0; start < batch.size(); start += maxBatchSize) {
+            List<T> chunk = batch.subList(start, Math.min(batch.size(), start + maxBatchSize));
+            try {
+                sink.write(chunk);
+            } catch (IOException | RuntimeException exception) {
+                droppedCount.addAndGet(chunk.size());
+            }
+        }
+    }
+}
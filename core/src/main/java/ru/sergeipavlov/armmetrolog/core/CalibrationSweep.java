@@ -0,0 +1,160 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Evenly spaced calibration table over a current-loop range.
+ * <p>
+ * The forward table sets physical values from start to end and computes the signal, the inverse
+ * table sets signal values and computes the physical value. Rows are generated in blocks through
+ * the batch API of {@link CurrentLoopScale} and written straight to a {@link Writer}, so
+ * memory use does not depend on the point count.
+ */
+public final class CalibrationSweep {
+
+    public static final int MIN_POINTS = 2;
+    public static final int MAX_POINTS = 10_000_000;
+
+    private static final int BLOCK_SIZE = 1024;
+
+    private final CurrentLoopScale scale;
+    private final CurrentLoopRange range;
+    private final int pointCount;
+
+    private CalibrationSweep(CurrentLoopScale scale, CurrentLoopRange range, int pointCount) {
+        if (pointCount < MIN_POINTS || pointCount > MAX_POINTS) {
+            throw new IllegalArgumentException("Point count out of range: " + pointCount);
+        }
+        this.scale = scale;
+        this.range = range;
+        this.pointCount = pointCount;
+    }
+
+    public static CalibrationSweep ofPointCount(CurrentLoopScale scale, CurrentLoopRange range,
+                                                int pointCount) {
+        return new CalibrationSweep(scale, range, pointCount);
+    }
+
+    /**
+     * Sweep with the given physical step. The step is rounded so that the last point falls
+     * exactly on the range end.
+     */
+    public static CalibrationSweep ofPhysicalStep(CurrentLoopScale scale, CurrentLoopRange range,
+                                                  double step) {
+        double span = Math.abs(range.getPhysicalEnd() - range.getPhysicalStart());
+        if (!(step > 0) || span == 0) {
+            throw new IllegalArgumentException("Invalid step " + step + " for span " + span);
+        }
+        double intervals = Math.rint(span / step);
+        if (intervals + 1 > MAX_POINTS) {
+            throw new IllegalArgumentException("Step " + step + " gives too many points");
+        }
+        return new CalibrationSweep(scale, range, (int) Math.max(1, intervals) + 1);
+    }
+
+    public CurrentLoopScale getScale() {
+        return scale;
+    }
+
+    public CurrentLoopRange getRange() {
+        return range;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public double physicalPoint(int index) {
+        return interpolate(range.getPhysicalStart(), range.getPhysicalEnd(), index);
+    }
+
+    public double signalPoint(int index) {
+        return interpolate(range.getSignalStart(), range.getSignalEnd(), index);
+    }
+
+    private double interpolate(double start, double end, int index) {
+        if (index == pointCount - 1) {
+            return end;
+        }
+        return start + (end - start) * index / (pointCount - 1);
+    }
+
+    /**
+     * Writes both tables as CSV: a {@code table,point,physical,signal} header, then one row per
+     * point of the forward table followed by the inverse table. The writer is neither buffered
+     * nor closed here.
+     *
+     * @param delimiter column separator; the decimal separator is always {@code '.'}
+     */
+    public void writeCsv(Writer writer, char delimiter, int fractionDigits) throws IOException {
+        writeCsv(writer, delimiter, fractionDigits, Double.NaN);
+    }
+
+    /**
+     * Like {@link #writeCsv(Writer, char, int)}, with {@code lower} and {@code upper} columns
+     * holding the tolerance band of every point for the given accuracy class: signal limits in the
+     * forward table, where the class applies to the physical span, and physical limits in the
+     * inverse table, where it applies to the signal span.
+     *
+     * @param accuracyClass permissible error in percent of the span; {@link Double#NaN} writes no
+     *                      tolerance columns
+     * @see CurrentLoopScale#signalLimits
+     */
+    public void writeCsv(Writer writer, char delimiter, int fractionDigits, double accuracyClass) throws IOException {
+        FixedPointFormatter formatter = FixedPointFormatter.forFractionDigits(fractionDigits);
+        boolean tolerance = !Double.isNaN(accuracyClass);
+        double[] setPoints = new double[BLOCK_SIZE];
+        double[] results = new double[BLOCK_SIZE];
+        double[] lower = tolerance ? new double[BLOCK_SIZE] : null;
+        double[] upper = tolerance ? new double[BLOCK_SIZE] : null;
+        StringBuilder rows = new StringBuilder(BLOCK_SIZE * (tolerance ? 80 : 48));
+        char[] chunk = new char[0];
+
+        rows.append("table").append(delimiter).append("point").append(delimiter)
+                .append("physical").append(delimiter).append("signal");
+        if (tolerance) {
+            rows.append(delimiter).append("lower").append(delimiter).append("upper");
+        }
+        rows.append('\n');
+        for (int pass = 0; pass < 2; pass++) {
+            boolean forward = pass == 0;
+            for (int blockStart = 0; blockStart < pointCount; blockStart += BLOCK_SIZE) {
+                int length = Math.min(BLOCK_SIZE, pointCount - blockStart);
+                for (int i = 0; i < length; i++) {
+                    setPoints[i] = forward ? physicalPoint(blockStart + i) : signalPoint(blockStart + i);
+                }
+                if (forward) {
+                    scale.toSignal(range, setPoints, 0, results, 0, length);
+                    if (tolerance) {
+                        scale.signalLimits(range, accuracyClass, setPoints, 0, lower, 0, upper, 0, length);
+                    }
+                } else {
+                    scale.toPhysical(range, setPoints, 0, results, 0, length);
+                    if (tolerance) {
+                        scale.physicalLimits(range, accuracyClass, setPoints, 0, lower, 0, upper, 0, length);
+                    }
+                }
+                for (int i = 0; i < length; i++) {
+                    double physical = forward ? setPoints[i] : results[i];
+                    double signal = forward ? results[i] : setPoints[i];
+                    rows.append(forward ? "forward" : "inverse").append(delimiter)
+                            .append(blockStart + i).append(delimiter);
+                    formatter.append(physical, rows).append(delimiter);
+                    formatter.append(signal, rows);
+                    if (tolerance) {
+                        formatter.append(lower[i], rows.append(delimiter));
+                        formatter.append(upper[i], rows.append(delimiter));
+                    }
+                    rows.append('\n');
+                }
+                if (chunk.length < rows.length()) {
+                    chunk = new char[rows.capacity()];
+                }
+                rows.getChars(0, rows.length(), chunk, 0);
+                writer.write(chunk, 0, rows.length());
+                rows.setLength(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+/**
+ * In-place conversion of a block of values from one column of a measurement file.
+ *
+ * @see MeasurementFileConverter
+ */
+public interface ColumnConversion {
+
+    void apply(double[] values, int offset, int length);
+
+    static ColumnConversion units(Quantity quantity, int fromUnit, int toUnit) {
+        return (values, offset, length) -> quantity.convert(fromUnit, toUnit, values, offset, length);
+    }
+
+    static ColumnConversion toSignal(CurrentLoopScale scale, CurrentLoopRange range) {
+        return (values, offset, length) -> scale.toSignal(range, values, offset, values, offset, length);
+    }
+
+    static ColumnConversion toPhysical(CurrentLoopScale scale, CurrentLoopRange range) {
+        return (values, offset, length) -> scale.toPhysical(range, values, offset, values, offset, length);
+    }
+
+    /**
+     * Thermocouple EMF in millivolts to degrees Celsius.
+     */
+    static ColumnConversion thermocoupleToTemperature(Thermocouple type, double coldJunction) {
+        return (values, offset, length) -> type.toTemperature(coldJunction, values, offset, values, offset, length);
+    }
+
+    static ColumnConversion thermocoupleToEmf(Thermocouple type, double coldJunction) {
+        return (values, offset, length) -> type.toEmf(coldJunction, values, offset, values, offset, length);
+    }
+
+    /**
+     * Resistance in ohms to degrees Celsius.
+     */
+    static ColumnConversion resistanceToTemperature(ResistanceThermometer thermometer) {
+        return (values, offset, length) -> thermometer.toTemperature(values, offset, values, offset, length);
+    }
+
+    static ColumnConversion temperatureToResistance(ResistanceThermometer thermometer) {
+        return (values, offset, length) -> thermometer.toResistance(values, offset, values, offset, length);
+    }
+}
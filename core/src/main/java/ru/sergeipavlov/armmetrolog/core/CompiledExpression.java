@@ -0,0 +1,419 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Arithmetic expression in one variable {@code x}, compiled once into a tree of closures.
+ * <p>
+ * Supported are numbers with a {@code '.'} decimal point and an optional exponent, the constants
+ * {@code pi} and {@code e}, the operators {@code + - * / ^} with the usual precedence ({@code ^}
+ * binds right to left and tighter than unary minus), parentheses and the functions {@code sqrt},
+ * {@code cbrt}, {@code abs}, {@code exp}, {@code ln}, {@code log10}, {@code sin}, {@code cos},
+ * {@code tan}, {@code asin}, {@code acos}, {@code atan}, {@code sinh}, {@code cosh}, {@code tanh},
+ * {@code pow(a, b)}, {@code min(a, b)} and {@code max(a, b)}. Names are case-insensitive.
+ * <p>
+ * Constant subexpressions are folded at compile time and small constant powers become
+ * multiplications, so evaluation neither parses nor allocates. Instances are immutable and
+ * thread-safe. Domain errors give {@link Double#NaN} as in {@link Math}.
+ */
+public final class CompiledExpression {
+
+    private final String source;
+    private final DoubleUnaryOperator function;
+
+    private CompiledExpression(String source, DoubleUnaryOperator function) {
+        this.source = source;
+        this.function = function;
+    }
+
+    /**
+     * @throws IllegalArgumentException with the offending position if the text is not a valid
+     *                                  expression
+     */
+    public static CompiledExpression compile(String source) {
+        Objects.requireNonNull(source, "source");
+        Parser parser = new Parser(source);
+        Node root = parser.parse();
+        return new CompiledExpression(source, root.function);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public double evaluate(double x) {
+        return function.applyAsDouble(x);
+    }
+
+    public void evaluate(double[] x, int xOffset, double[] result, int resultOffset, int length) {
+        Objects.checkFromIndexSize(xOffset, length, x.length);
+        Objects.checkFromIndexSize(resultOffset, length, result.length);
+        DoubleUnaryOperator f = function;
+        for (int i = 0; i < length; i++) {
+            result[resultOffset + i] = f.applyAsDouble(x[xOffset + i]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledExpression{" + source + '}';
+    }
+
+    /**
+     * Compile-time node: the closure and, for constant subtrees, their value.
+     */
+    private static final class Node {
+
+        private static final Node VARIABLE = new Node(x -> x, false, Double.NaN);
+
+        final DoubleUnaryOperator function;
+        final boolean constant;
+        final double value;
+
+        private Node(DoubleUnaryOperator function, boolean constant, double value) {
+            this.function = function;
+            this.constant = constant;
+            this.value = value;
+        }
+
+        static Node constant(double value) {
+            return new Node(x -> value, true, value);
+        }
+
+        static Node unary(DoubleUnaryOperator operator, Node operand) {
+            if (operand.constant) {
+                return constant(operator.applyAsDouble(operand.value));
+            }
+            DoubleUnaryOperator f = operand.function;
+            return new Node(x -> operator.applyAsDouble(f.applyAsDouble(x)), false, Double.NaN);
+        }
+
+        static Node binary(DoubleBinaryOperator operator, Node left, Node right) {
+            if (left.constant && right.constant) {
+                return constant(operator.applyAsDouble(left.value, right.value));
+            }
+            DoubleUnaryOperator l = left.function;
+            DoubleUnaryOperator r = right.function;
+            if (right.constant) {
+                double c = right.value;
+                return new Node(x -> operator.applyAsDouble(l.applyAsDouble(x), c), false, Double.NaN);
+            }
+            if (left.constant) {
+                double c = left.value;
+                return new Node(x -> operator.applyAsDouble(c, r.applyAsDouble(x)), false, Double.NaN);
+            }
+            return new Node(x -> operator.applyAsDouble(l.applyAsDouble(x), r.applyAsDouble(x)), false, Double.NaN);
+        }
+
+        static Node negate(Node operand) {
+            if (operand.constant) {
+                return constant(-operand.value);
+            }
+            DoubleUnaryOperator f = operand.function;
+            return new Node(x -> -f.applyAsDouble(x), false, Double.NaN);
+        }
+
+        static Node add(Node left, Node right) {
+            if (left.constant != right.constant) {
+                Node variable = left.constant ? right : left;
+                double c = left.constant ? left.value : right.value;
+                DoubleUnaryOperator f = variable.function;
+                return new Node(x -> f.applyAsDouble(x) + c, false, Double.NaN);
+            }
+            return binary(Double::sum, left, right);
+        }
+
+        static Node subtract(Node left, Node right) {
+            if (right.constant && !left.constant) {
+                return add(left, constant(-right.value));
+            }
+            return binary((a, b) -> a - b, left, right);
+        }
+
+        static Node multiply(Node left, Node right) {
+            if (left.constant != right.constant) {
+                Node variable = left.constant ? right : left;
+                double c = left.constant ? left.value : right.value;
+                DoubleUnaryOperator f = variable.function;
+                return new Node(x -> f.applyAsDouble(x) * c, false, Double.NaN);
+            }
+            if (!left.constant) {
+                DoubleUnaryOperator l = left.function;
+                DoubleUnaryOperator r = right.function;
+                return new Node(x -> l.applyAsDouble(x) * r.applyAsDouble(x), false, Double.NaN);
+            }
+            return binary((a, b) -> a * b, left, right);
+        }
+
+        static Node divide(Node left, Node right) {
+            return binary((a, b) -> a / b, left, right);
+        }
+
+        static Node power(Node base, Node exponent) {
+            if (exponent.constant && !base.constant) {
+                DoubleUnaryOperator f = base.function;
+                double c = exponent.value;
+                if (c == 1) {
+                    return base;
+                }
+                if (c == 2) {
+                    return new Node(x -> {
+                        double v = f.applyAsDouble(x);
+                        return v * v;
+                    }, false, Double.NaN);
+                }
+                if (c == 3) {
+                    return new Node(x -> {
+                        double v = f.applyAsDouble(x);
+                        return v * v * v;
+                    }, false, Double.NaN);
+                }
+                if (c == 0.5) {
+                    return new Node(x -> Math.sqrt(f.applyAsDouble(x)), false, Double.NaN);
+                }
+            }
+            return binary(Math::pow, base, exponent);
+        }
+    }
+
+    /**
+     * Recursive descent over {@code expression := term (('+' | '-') term)*},
+     * {@code term := unary (('*' | '/') unary)*}, {@code unary := ('-' | '+') unary | power},
+     * {@code power := primary ('^' unary)?}.
+     */
+    private static final class Parser {
+
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        Node parse() {
+            skipBlanks();
+            if (position == text.length()) {
+                throw new IllegalArgumentException("Empty expression");
+            }
+            Node node = expression();
+            if (position < text.length()) {
+                throw error("Unexpected '" + text.charAt(position) + "'");
+            }
+            return node;
+        }
+
+        private Node expression() {
+            Node node = term();
+            while (true) {
+                if (accept('+')) {
+                    node = Node.add(node, term());
+                } else if (accept('-')) {
+                    node = Node.subtract(node, term());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        private Node term() {
+            Node node = unary();
+            while (true) {
+                if (accept('*')) {
+                    node = Node.multiply(node, unary());
+                } else if (accept('/')) {
+                    node = Node.divide(node, unary());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        private Node unary() {
+            if (accept('-')) {
+                return Node.negate(unary());
+            }
+            if (accept('+')) {
+                return unary();
+            }
+            Node base = primary();
+            if (accept('^')) {
+                return Node.power(base, unary());
+            }
+            return base;
+        }
+
+        private Node primary() {
+            if (position == text.length()) {
+                throw error("Unexpected end");
+            }
+            char c = text.charAt(position);
+            if (accept('(')) {
+                Node node = expression();
+                expect(')');
+                return node;
+            }
+            if ((c >= '0' && c <= '9') || c == '.') {
+                return Node.constant(number());
+            }
+            if (isLetter(c)) {
+                int start = position;
+                String name = identifier();
+                switch (name) {
+                    case "x":
+                        return Node.VARIABLE;
+                    case "pi":
+                        return Node.constant(Math.PI);
+                    case "e":
+                        return Node.constant(Math.E);
+                    case "pow":
+                    case "min":
+                    case "max":
+                        return function2(name);
+                    default:
+                        DoubleUnaryOperator function = function(name);
+                        if (function == null) {
+                            position = start;
+                            throw error("Unknown name '" + name + "'");
+                        }
+                        expect('(');
+                        Node argument = expression();
+                        expect(')');
+                        return Node.unary(function, argument);
+                }
+            }
+            throw error("Unexpected '" + c + "'");
+        }
+
+        private Node function2(String name) {
+            expect('(');
+            Node first = expression();
+            expect(',');
+            Node second = expression();
+            expect(')');
+            switch (name) {
+                case "pow":
+                    return Node.power(first, second);
+                case "min":
+                    return Node.binary(Math::min, first, second);
+                default:
+                    return Node.binary(Math::max, first, second);
+            }
+        }
+
+        private static DoubleUnaryOperator function(String name) {
+            switch (name) {
+                case "sqrt":
+                    return Math::sqrt;
+                case "cbrt":
+                    return Math::cbrt;
+                case "abs":
+                    return Math::abs;
+                case "exp":
+                    return Math::exp;
+                case "ln":
+                    return Math::log;
+                case "log10":
+                    return Math::log10;
+                case "sin":
+                    return Math::sin;
+                case "cos":
+                    return Math::cos;
+                case "tan":
+                    return Math::tan;
+                case "asin":
+                    return Math::asin;
+                case "acos":
+                    return Math::acos;
+                case "atan":
+                    return Math::atan;
+                case "sinh":
+                    return Math::sinh;
+                case "cosh":
+                    return Math::cosh;
+                case "tanh":
+                    return Math::tanh;
+                default:
+                    return null;
+            }
+        }
+
+        private double number() {
+            int start = position;
+            while (position < text.length() && isDigitOrPoint(text.charAt(position))) {
+                position++;
+            }
+            if (position < text.length() && (text.charAt(position) == 'e' || text.charAt(position) == 'E')) {
+                int mark = position;
+                position++;
+                if (position < text.length() && (text.charAt(position) == '+' || text.charAt(position) == '-')) {
+                    position++;
+                }
+                if (position < text.length() && Character.isDigit(text.charAt(position))) {
+                    while (position < text.length() && Character.isDigit(text.charAt(position))) {
+                        position++;
+                    }
+                } else {
+                    // A bare "e" is not an exponent; leave it for the caller to reject.
+                    position = mark;
+                }
+            }
+            String literal = text.substring(start, position);
+            double value;
+            try {
+                value = Double.parseDouble(literal);
+            } catch (NumberFormatException e) {
+                position = start;
+                throw error("Invalid number '" + literal + "'");
+            }
+            skipBlanks();
+            return value;
+        }
+
+        private String identifier() {
+            int start = position;
+            while (position < text.length() && (isLetter(text.charAt(position))
+                    || Character.isDigit(text.charAt(position)))) {
+                position++;
+            }
+            String name = text.substring(start, position).toLowerCase(Locale.ROOT);
+            skipBlanks();
+            return name;
+        }
+
+        private boolean accept(char c) {
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                skipBlanks();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private void skipBlanks() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " in \"" + text + '"');
+        }
+
+        private static boolean isLetter(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+        }
+
+        private static boolean isDigitOrPoint(char c) {
+            return (c >= '0' && c <= '9') || c == '.';
+        }
+    }
+}
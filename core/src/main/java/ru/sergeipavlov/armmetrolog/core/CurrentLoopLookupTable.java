@@ -0,0 +1,276 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interpolating lookup table for a {@link CurrentLoopScaleType}, intended for sweeps and bulk
+ * conversion of nonlinear scales.
+ * <p>
+ * The normalized characteristic (and its inverse) is tabulated once on a uniform grid over the
+ * ratio range 0…1 and answered by linear interpolation. While building, the worst interpolation
+ * error of every segment is measured; segments exceeding the requested bound (the steep start of
+ * the root characteristic) and ratios outside 0…1 are evaluated exactly instead. The errors
+ * reported by {@link #getMaxForwardError()} and {@link #getMaxInverseError()} are the largest
+ * remaining ones, as a fraction of the output span.
+ * <p>
+ * Requested bounds are rounded down to a power of ten between {@code 1e-1} and {@code 1e-10}, so
+ * at most ten tables per scale are ever built and shared, and the grids of one table stay
+ * under a megabyte.
+ * <p>
+ * Linear scales are not tabulated and simply delegate to the exact functions.
+ */
+public final class CurrentLoopLookupTable {
+
+    private static final int MIN_SEGMENTS = 16;
+    private static final int MAX_SEGMENTS = 1 << 20;
+    private static final int SEARCH_ITERATIONS = 64;
+    private static final double[] ERROR_BOUNDS = {1e-1, 1e-2, 1e-3, 1e-4, 1e-5, 1e-6, 1e-7, 1e-8, 1e-9, 1e-10};
+
+    private static final ConcurrentHashMap<String, CurrentLoopLookupTable> CACHE = new ConcurrentHashMap<>();
+
+    private final CurrentLoopScaleType scaleType;
+    private final double errorBound;
+    private final Table forward;
+    private final Table inverse;
+
+    private CurrentLoopLookupTable(CurrentLoopScaleType scaleType, double errorBound) {
+        this.scaleType = scaleType;
+        this.errorBound = errorBound;
+        if (scaleType.isLinear()) {
+            forward = null;
+            inverse = null;
+        } else {
+            // Quadratic interpolation error is h²/4, which sizes the grid; the root side
+            // meets the same bound everywhere except near zero, where it falls back.
+            double step = 2 * Math.sqrt(errorBound);
+            int segments = (int) Math.min(MAX_SEGMENTS, Math.max(MIN_SEGMENTS, Math.ceil(1 / step)));
+            forward = new Table(scaleType, true, segments, errorBound);
+            inverse = new Table(scaleType, false, segments, errorBound);
+        }
+    }
+
+    static CurrentLoopLookupTable forScale(CurrentLoopScaleType scaleType, double maxError) {
+        if (!(maxError > 0) || Double.isInfinite(maxError)) {
+            throw new IllegalArgumentException("maxError must be positive: " + maxError);
+        }
+        int index = 0;
+        while (index < ERROR_BOUNDS.length - 1 && ERROR_BOUNDS[index] > maxError) {
+            index++;
+        }
+        double errorBound = ERROR_BOUNDS[index];
+        return CACHE.computeIfAbsent(scaleType.name() + '@' + index,
+                key -> new CurrentLoopLookupTable(scaleType, errorBound));
+    }
+
+    public CurrentLoopScaleType getScaleType() {
+        return scaleType;
+    }
+
+    /**
+     * The bound the table was built for: the requested one rounded down to a power of ten.
+     */
+    public double getErrorBound() {
+        return errorBound;
+    }
+
+    public int getSegmentCount() {
+        return forward == null ? 0 : forward.segments;
+    }
+
+    /**
+     * Largest physical→signal interpolation error as a fraction of the signal span.
+     */
+    public double getMaxForwardError() {
+        return forward == null ? 0 : forward.maxError;
+    }
+
+    /**
+     * Largest signal→physical interpolation error as a fraction of the physical span.
+     */
+    public double getMaxInverseError() {
+        return inverse == null ? 0 : inverse.maxError;
+    }
+
+    public double getMaxSignalError(CurrentLoopRange range) {
+        return getMaxForwardError() * Math.abs(range.getSignalEnd() - range.getSignalStart());
+    }
+
+    public double getMaxPhysicalError(CurrentLoopRange range) {
+        return getMaxInverseError() * Math.abs(range.getPhysicalEnd() - range.getPhysicalStart());
+    }
+
+    public double toSignal(double physical, CurrentLoopRange range) {
+        if (forward == null) {
+            return scaleType.toSignal(physical, range);
+        }
+        double start = range.getPhysicalStart();
+        double denominator = range.getPhysicalEnd() - start;
+        if (denominator == 0) {
+            return Double.NaN;
+        }
+        double low = scaleType.isDescending() ? range.getSignalEnd() : range.getSignalStart();
+        double span = (scaleType.isDescending() ? range.getSignalStart() : range.getSignalEnd()) - low;
+        return forward.evaluateAt((physical - start) * (forward.segments / denominator)) * span + low;
+    }
+
+    public double toPhysical(double signal, CurrentLoopRange range) {
+        if (inverse == null) {
+            return scaleType.toPhysical(signal, range);
+        }
+        double low = scaleType.isDescending() ? range.getSignalEnd() : range.getSignalStart();
+        double denominator = (scaleType.isDescending() ? range.getSignalStart() : range.getSignalEnd()) - low;
+        if (denominator == 0) {
+            return Double.NaN;
+        }
+        double start = range.getPhysicalStart();
+        return inverse.evaluateAt((signal - low) * (inverse.segments / denominator))
+                * (range.getPhysicalEnd() - start) + start;
+    }
+
+    public void toSignal(CurrentLoopRange range, double[] physical, double[] signal) {
+        toSignal(range, physical, 0, signal, 0, physical.length);
+    }
+
+    public void toSignal(CurrentLoopRange range, double[] physical, int physicalOffset,
+                         double[] signal, int signalOffset, int length) {
+        if (forward == null) {
+            scaleType.toSignal(range, physical, physicalOffset, signal, signalOffset, length);
+            return;
+        }
+        Objects.checkFromIndexSize(physicalOffset, length, physical.length);
+        Objects.checkFromIndexSize(signalOffset, length, signal.length);
+
+        double start = range.getPhysicalStart();
+        double denominator = range.getPhysicalEnd() - start;
+        double low = scaleType.isDescending() ? range.getSignalEnd() : range.getSignalStart();
+        double span = (scaleType.isDescending() ? range.getSignalStart() : range.getSignalEnd()) - low;
+        if (denominator == 0) {
+            Arrays.fill(signal, signalOffset, signalOffset + length, Double.NaN);
+            return;
+        }
+        Table table = forward;
+        double scale = table.segments / denominator;
+        for (int i = 0; i < length; i++) {
+            double position = (physical[physicalOffset + i] - start) * scale;
+            signal[signalOffset + i] = table.evaluateAt(position) * span + low;
+        }
+    }
+
+    public void toPhysical(CurrentLoopRange range, double[] signal, double[] physical) {
+        toPhysical(range, signal, 0, physical, 0, signal.length);
+    }
+
+    public void toPhysical(CurrentLoopRange range, double[] signal, int signalOffset,
+                           double[] physical, int physicalOffset, int length) {
+        if (inverse == null) {
+            scaleType.toPhysical(range, signal, signalOffset, physical, physicalOffset, length);
+            return;
+        }
+        Objects.checkFromIndexSize(signalOffset, length, signal.length);
+        Objects.checkFromIndexSize(physicalOffset, length, physical.length);
+
+        double start = range.getPhysicalStart();
+        double span = range.getPhysicalEnd() - start;
+        double low = scaleType.isDescending() ? range.getSignalEnd() : range.getSignalStart();
+        double denominator = (scaleType.isDescending() ? range.getSignalStart() : range.getSignalEnd()) - low;
+        if (denominator == 0) {
+            Arrays.fill(physical, physicalOffset, physicalOffset + length, Double.NaN);
+            return;
+        }
+        Table table = inverse;
+        double scale = table.segments / denominator;
+        for (int i = 0; i < length; i++) {
+            double position = (signal[signalOffset + i] - low) * scale;
+            physical[physicalOffset + i] = table.evaluateAt(position) * span + start;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CurrentLoopLookupTable{" + scaleType + ", segments=" + getSegmentCount()
+                + ", forwardError=" + getMaxForwardError() + ", inverseError=" + getMaxInverseError() + '}';
+    }
+
+    /**
+     * One direction of the normalized characteristic on a uniform grid over 0…1.
+     */
+    private static final class Table {
+
+        private final CurrentLoopScaleType scaleType;
+        private final boolean forward;
+        private final int segments;
+        private final double[] values;
+        private final boolean[] exact;
+        private final double maxError;
+
+        Table(CurrentLoopScaleType scaleType, boolean forward, int segments, double errorBound) {
+            this.scaleType = scaleType;
+            this.forward = forward;
+            this.segments = segments;
+            values = new double[segments + 1];
+            exact = new boolean[segments];
+            for (int i = 0; i <= segments; i++) {
+                values[i] = evaluateExact((double) i / segments);
+            }
+            double worst = 0;
+            for (int i = 0; i < segments; i++) {
+                double error = segmentError(i);
+                if (error > errorBound) {
+                    exact[i] = true;
+                } else if (error > worst) {
+                    worst = error;
+                }
+            }
+            maxError = worst;
+        }
+
+        /**
+         * @param position ratio multiplied by the segment count
+         */
+        double evaluateAt(double position) {
+            if (!(position >= 0 && position <= segments)) {
+                return evaluateExact(position / segments);
+            }
+            int index = Math.min((int) position, segments - 1);
+            if (exact[index]) {
+                return evaluateExact(position / segments);
+            }
+            double left = values[index];
+            return left + (values[index + 1] - left) * (position - index);
+        }
+
+        private double evaluateExact(double ratio) {
+            return forward ? scaleType.forwardRatio(ratio) : scaleType.inverseRatio(ratio);
+        }
+
+        /**
+         * Worst deviation of the chord from the characteristic on one segment. Every shape is
+         * convex or concave on 0…1, so the deviation is unimodal and a ternary search finds it.
+         */
+        private double segmentError(int index) {
+            double a = (double) index / segments;
+            double b = (double) (index + 1) / segments;
+            double lo = a;
+            double hi = b;
+            for (int iteration = 0; iteration < SEARCH_ITERATIONS; iteration++) {
+                double m1 = lo + (hi - lo) / 3;
+                double m2 = hi - (hi - lo) / 3;
+                if (deviation(index, m1) < deviation(index, m2)) {
+                    lo = m1;
+                } else {
+                    hi = m2;
+                }
+            }
+            return deviation(index, (lo + hi) / 2);
+        }
+
+        private double deviation(int index, double ratio) {
+            double left = values[index];
+            double t = ratio * segments - index;
+            double chord = left + (values[index + 1] - left) * t;
+            return Math.abs(evaluateExact(ratio) - chord);
+        }
+    }
+}
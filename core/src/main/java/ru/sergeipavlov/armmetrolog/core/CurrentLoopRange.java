@@ -0,0 +1,66 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+/**
+ * Immutable pair of ranges of a current loop: the physical scale (for example 0…100 %)
+ * and the unified signal (for example 4…20 mA).
+ */
+public final class CurrentLoopRange {
+
+    private final double physicalStart;
+    private final double physicalEnd;
+    private final double signalStart;
+    private final double signalEnd;
+
+    public CurrentLoopRange(double physicalStart, double physicalEnd, double signalStart, double signalEnd) {
+        this.physicalStart = physicalStart;
+        this.physicalEnd = physicalEnd;
+        this.signalStart = signalStart;
+        this.signalEnd = signalEnd;
+    }
+
+    public double getPhysicalStart() {
+        return physicalStart;
+    }
+
+    public double getPhysicalEnd() {
+        return physicalEnd;
+    }
+
+    public double getSignalStart() {
+        return signalStart;
+    }
+
+    public double getSignalEnd() {
+        return signalEnd;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CurrentLoopRange)) {
+            return false;
+        }
+        CurrentLoopRange other = (CurrentLoopRange) o;
+        return Double.compare(physicalStart, other.physicalStart) == 0
+                && Double.compare(physicalEnd, other.physicalEnd) == 0
+                && Double.compare(signalStart, other.signalStart) == 0
+                && Double.compare(signalEnd, other.signalEnd) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Double.hashCode(physicalStart);
+        result = 31 * result + Double.hashCode(physicalEnd);
+        result = 31 * result + Double.hashCode(signalStart);
+        result = 31 * result + Double.hashCode(signalEnd);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CurrentLoopRange{physical=" + physicalStart + ".." + physicalEnd
+                + ", signal=" + signalStart + ".." + signalEnd + '}';
+    }
+}
@@ -0,0 +1,46 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+/**
+ * Transfer function between a physical value and the unified current-loop signal over a
+ * {@link CurrentLoopRange}: one of the built-in {@link CurrentLoopScaleType shapes} or a
+ * user-defined {@link PiecewiseScale}.
+ * <p>
+ * Values outside the domain of the characteristic yield {@link Double#NaN}. The array methods
+ * convert whole tables without allocating; input and output may be the same array.
+ */
+public interface CurrentLoopScale {
+
+    double toSignal(double physical, CurrentLoopRange range);
+
+    double toPhysical(double signal, CurrentLoopRange range);
+
+    void toSignal(CurrentLoopRange range, double[] physical, int physicalOffset,
+                  double[] signal, int signalOffset, int length);
+
+    void toPhysical(CurrentLoopRange range, double[] signal, int signalOffset,
+                    double[] physical, int physicalOffset, int length);
+
+    /**
+     * Signal limits for physical set points whose permissible error is {@code accuracyClass} percent
+     * of the physical span: {@code lower[i] <= upper[i]}, or {@link Double#NaN} where the set point
+     * has no signal.
+     */
+    void signalLimits(CurrentLoopRange range, double accuracyClass, double[] physical, int physicalOffset,
+                      double[] lower, int lowerOffset, double[] upper, int upperOffset, int length);
+
+    /**
+     * Physical limits for signal set points whose permissible error is {@code accuracyClass} percent
+     * of the signal span: {@code lower[i] <= upper[i]}, or {@link Double#NaN} where the set point
+     * has no physical value.
+     */
+    void physicalLimits(CurrentLoopRange range, double accuracyClass, double[] signal, int signalOffset,
+                        double[] lower, int lowerOffset, double[] upper, int upperOffset, int length);
+
+    default void toSignal(CurrentLoopRange range, double[] physical, double[] signal) {
+        toSignal(range, physical, 0, signal, 0, physical.length);
+    }
+
+    default void toPhysical(CurrentLoopRange range, double[] signal, double[] physical) {
+        toPhysical(range, signal, 0, physical, 0, signal.length);
+    }
+}
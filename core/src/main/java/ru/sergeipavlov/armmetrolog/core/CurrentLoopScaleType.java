@@ -0,0 +1,391 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Transfer functions between a physical value and the unified current-loop signal.
+ * <p>
+ * Argument names follow the screen fields: {@code scv}/{@code scs}/{@code sce} are the physical
+ * value, start and end, {@code sgv}/{@code sgs}/{@code sge} are the signal value, start and end.
+ * Degenerate ranges and values outside the domain of the root shapes yield {@link Double#NaN}.
+ * <p>
+ * The array overloads convert whole tables against a pre-bound {@link CurrentLoopRange} without
+ * allocating; input and output may be the same array.
+ * <p>
+ * Tolerance bands map an accuracy class, the permissible error in percent of the span of one side
+ * of the loop, to limits on the other side. The band edges go through the characteristic itself
+ * rather than through its derivative, so they stay finite at the start of the root scales, where
+ * the derivative is infinite. Below the start of the range, where the quadratic and root shapes
+ * stop being monotonic or defined, band edges are cut off at the start.
+ */
+public enum CurrentLoopScaleType implements CurrentLoopScale {
+    LINEAR(Shape.LINEAR, false),
+    LINEAR_DESCENDING(Shape.LINEAR, true),
+    QUADRATIC(Shape.QUADRATIC, false),
+    QUADRATIC_DESCENDING(Shape.QUADRATIC, true),
+    ROOT(Shape.ROOT, false),
+    ROOT_DESCENDING(Shape.ROOT, true);
+
+    private final Shape shape;
+    private final boolean descending;
+
+    CurrentLoopScaleType(Shape shape, boolean descending) {
+        this.shape = shape;
+        this.descending = descending;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public boolean isLinear() {
+        return shape == Shape.LINEAR;
+    }
+
+    /**
+     * Normalized characteristic: signal ratio for a physical ratio, both 0…1 over their ranges.
+     */
+    double forwardRatio(double ratio) {
+        return shape.forward(ratio);
+    }
+
+    /**
+     * Inverse of {@link #forwardRatio(double)}.
+     */
+    double inverseRatio(double ratio) {
+        return shape.inverse(ratio);
+    }
+
+    /**
+     * Interpolating table for this scale, built once per error bound and shared.
+     *
+     * @see CurrentLoopLookupTable
+     */
+    public CurrentLoopLookupTable lookupTable(double maxError) {
+        return CurrentLoopLookupTable.forScale(this, maxError);
+    }
+
+    public double toSignal(double scv, double scs, double sce, double sgs, double sge) {
+        double denominator = sce - scs;
+        if (denominator == 0) {
+            return Double.NaN;
+        }
+        double ratio = (scv - scs) / denominator;
+        double low = descending ? sge : sgs;
+        double high = descending ? sgs : sge;
+        return shape.forward(ratio) * (high - low) + low;
+    }
+
+    public double toPhysical(double sgv, double scs, double sce, double sgs, double sge) {
+        double low = descending ? sge : sgs;
+        double high = descending ? sgs : sge;
+        double denominator = high - low;
+        if (denominator == 0) {
+            return Double.NaN;
+        }
+        double ratio = (sgv - low) / denominator;
+        return shape.inverse(ratio) * (sce - scs) + scs;
+    }
+
+    @Override
+    public double toSignal(double physical, CurrentLoopRange range) {
+        return toSignal(physical, range.getPhysicalStart(), range.getPhysicalEnd(),
+                range.getSignalStart(), range.getSignalEnd());
+    }
+
+    @Override
+    public double toPhysical(double signal, CurrentLoopRange range) {
+        return toPhysical(signal, range.getPhysicalStart(), range.getPhysicalEnd(),
+                range.getSignalStart(), range.getSignalEnd());
+    }
+
+    @Override
+    public void toSignal(CurrentLoopRange range, double[] physical, double[] signal) {
+        toSignal(range, physical, 0, signal, 0, physical.length);
+    }
+
+    @Override
+    public void toSignal(CurrentLoopRange range, double[] physical, int physicalOffset,
+                         double[] signal, int signalOffset, int length) {
+        Objects.checkFromIndexSize(physicalOffset, length, physical.length);
+        Objects.checkFromIndexSize(signalOffset, length, signal.length);
+
+        double start = range.getPhysicalStart();
+        double denominator = range.getPhysicalEnd() - start;
+        double low = descending ? range.getSignalEnd() : range.getSignalStart();
+        double span = (descending ? range.getSignalStart() : range.getSignalEnd()) - low;
+        if (denominator == 0) {
+            Arrays.fill(signal, signalOffset, signalOffset + length, Double.NaN);
+            return;
+        }
+
+        switch (shape) {
+            case LINEAR:
+                for (int i = 0; i < length; i++) {
+                    double ratio = (physical[physicalOffset + i] - start) / denominator;
+                    signal[signalOffset + i] = ratio * span + low;
+                }
+                break;
+            case QUADRATIC:
+                for (int i = 0; i < length; i++) {
+                    double ratio = (physical[physicalOffset + i] - start) / denominator;
+                    signal[signalOffset + i] = ratio * ratio * span + low;
+                }
+                break;
+            case ROOT:
+                for (int i = 0; i < length; i++) {
+                    double ratio = (physical[physicalOffset + i] - start) / denominator;
+                    signal[signalOffset + i] = ratio < 0 ? Double.NaN : Math.sqrt(ratio) * span + low;
+                }
+                break;
+        }
+    }
+
+    /**
+     * Sensitivity dSignal/dPhysical at a physical value: infinite at the start of the root scales.
+     */
+    public double signalDerivative(double physical, CurrentLoopRange range) {
+        double denominator = range.getPhysicalEnd() - range.getPhysicalStart();
+        double low = descending ? range.getSignalEnd() : range.getSignalStart();
+        double high = descending ? range.getSignalStart() : range.getSignalEnd();
+        if (denominator == 0) {
+            return Double.NaN;
+        }
+        double ratio = (physical - range.getPhysicalStart()) / denominator;
+        return shape.forwardSlope(ratio) * (high - low) / denominator;
+    }
+
+    /**
+     * Sensitivity dPhysical/dSignal at a signal value: infinite at the start of the quadratic scales.
+     */
+    public double physicalDerivative(double signal, CurrentLoopRange range) {
+        double low = descending ? range.getSignalEnd() : range.getSignalStart();
+        double denominator = (descending ? range.getSignalStart() : range.getSignalEnd()) - low;
+        if (denominator == 0) {
+            return Double.NaN;
+        }
+        double ratio = (signal - low) / denominator;
+        return shape.inverseSlope(ratio) * (range.getPhysicalEnd() - range.getPhysicalStart()) / denominator;
+    }
+
+    public void signalLimits(CurrentLoopRange range, double accuracyClass, double[] physical,
+                             double[] lower, double[] upper) {
+        signalLimits(range, accuracyClass, physical, 0, lower, 0, upper, 0, physical.length);
+    }
+
+    @Override
+    public void signalLimits(CurrentLoopRange range, double accuracyClass, double[] physical, int physicalOffset,
+                             double[] lower, int lowerOffset, double[] upper, int upperOffset, int length) {
+        Objects.checkFromIndexSize(physicalOffset, length, physical.length);
+        Objects.checkFromIndexSize(lowerOffset, length, lower.length);
+        Objects.checkFromIndexSize(upperOffset, length, upper.length);
+
+        double start = range.getPhysicalStart();
+        double denominator = range.getPhysicalEnd() - start;
+        double low = descending ? range.getSignalEnd() : range.getSignalStart();
+        double span = (descending ? range.getSignalStart() : range.getSignalEnd()) - low;
+        // In ratio units the tolerance is the same at every point.
+        double tolerance = Math.abs(accuracyClass) / 100;
+        if (denominator == 0 || !Double.isFinite(tolerance)) {
+            Arrays.fill(lower, lowerOffset, lowerOffset + length, Double.NaN);
+            Arrays.fill(upper, upperOffset, upperOffset + length, Double.NaN);
+            return;
+        }
+
+        boolean linear = shape == Shape.LINEAR;
+        for (int i = 0; i < length; i++) {
+            double ratio = (physical[physicalOffset + i] - start) / denominator;
+            double from = ratio - tolerance;
+            double to = ratio + tolerance;
+            if (!linear) {
+                if (ratio < 0 && shape == Shape.ROOT) {
+                    lower[lowerOffset + i] = Double.NaN;
+                    upper[upperOffset + i] = Double.NaN;
+                    continue;
+                }
+                from = Math.max(from, 0);
+                to = Math.max(to, 0);
+            }
+            double a = shape.forward(from) * span + low;
+            double b = shape.forward(to) * span + low;
+            lower[lowerOffset + i] = Math.min(a, b);
+            upper[upperOffset + i] = Math.max(a, b);
+        }
+    }
+
+    public void physicalLimits(CurrentLoopRange range, double accuracyClass, double[] signal,
+                               double[] lower, double[] upper) {
+        physicalLimits(range, accuracyClass, signal, 0, lower, 0, upper, 0, signal.length);
+    }
+
+    @Override
+    public void physicalLimits(CurrentLoopRange range, double accuracyClass, double[] signal, int signalOffset,
+                               double[] lower, int lowerOffset, double[] upper, int upperOffset, int length) {
+        Objects.checkFromIndexSize(signalOffset, length, signal.length);
+        Objects.checkFromIndexSize(lowerOffset, length, lower.length);
+        Objects.checkFromIndexSize(upperOffset, length, upper.length);
+
+        double start = range.getPhysicalStart();
+        double span = range.getPhysicalEnd() - start;
+        double low = descending ? range.getSignalEnd() : range.getSignalStart();
+        double denominator = (descending ? range.getSignalStart() : range.getSignalEnd()) - low;
+        double tolerance = Math.abs(accuracyClass) / 100;
+        if (denominator == 0 || !Double.isFinite(tolerance)) {
+            Arrays.fill(lower, lowerOffset, lowerOffset + length, Double.NaN);
+            Arrays.fill(upper, upperOffset, upperOffset + length, Double.NaN);
+            return;
+        }
+
+        boolean linear = shape == Shape.LINEAR;
+        for (int i = 0; i < length; i++) {
+            double ratio = (signal[signalOffset + i] - low) / denominator;
+            double from = ratio - tolerance;
+            double to = ratio + tolerance;
+            if (!linear) {
+                if (ratio < 0 && shape == Shape.QUADRATIC) {
+                    lower[lowerOffset + i] = Double.NaN;
+                    upper[upperOffset + i] = Double.NaN;
+                    continue;
+                }
+                from = Math.max(from, 0);
+                to = Math.max(to, 0);
+            }
+            double a = shape.inverse(from) * span + start;
+            double b = shape.inverse(to) * span + start;
+            lower[lowerOffset + i] = Math.min(a, b);
+            upper[upperOffset + i] = Math.max(a, b);
+        }
+    }
+
+    @Override
+    public void toPhysical(CurrentLoopRange range, double[] signal, double[] physical) {
+        toPhysical(range, signal, 0, physical, 0, signal.length);
+    }
+
+    @Override
+    public void toPhysical(CurrentLoopRange range, double[] signal, int signalOffset,
+                           double[] physical, int physicalOffset, int length) {
+        Objects.checkFromIndexSize(signalOffset, length, signal.length);
+        Objects.checkFromIndexSize(physicalOffset, length, physical.length);
+
+        double start = range.getPhysicalStart();
+        double span = range.getPhysicalEnd() - start;
+        double low = descending ? range.getSignalEnd() : range.getSignalStart();
+        double denominator = (descending ? range.getSignalStart() : range.getSignalEnd()) - low;
+        if (denominator == 0) {
+            Arrays.fill(physical, physicalOffset, physicalOffset + length, Double.NaN);
+            return;
+        }
+
+        switch (shape) {
+            case LINEAR:
+                for (int i = 0; i < length; i++) {
+                    double ratio = (signal[signalOffset + i] - low) / denominator;
+                    physical[physicalOffset + i] = ratio * span + start;
+                }
+                break;
+            case QUADRATIC:
+                for (int i = 0; i < length; i++) {
+                    double ratio = (signal[signalOffset + i] - low) / denominator;
+                    physical[physicalOffset + i] = ratio < 0 ? Double.NaN : Math.sqrt(ratio) * span + start;
+                }
+                break;
+            case ROOT:
+                for (int i = 0; i < length; i++) {
+                    double ratio = (signal[signalOffset + i] - low) / denominator;
+                    physical[physicalOffset + i] = ratio * ratio * span + start;
+                }
+                break;
+        }
+    }
+
+    /**
+     * Normalized characteristic: maps the physical ratio (0…1 over the range) to the signal ratio.
+     */
+    private enum Shape {
+        LINEAR {
+            @Override
+            double forward(double ratio) {
+                return ratio;
+            }
+
+            @Override
+            double inverse(double ratio) {
+                return ratio;
+            }
+
+            @Override
+            double forwardSlope(double ratio) {
+                return 1;
+            }
+
+            @Override
+            double inverseSlope(double ratio) {
+                return 1;
+            }
+        },
+        QUADRATIC {
+            @Override
+            double forward(double ratio) {
+                return ratio * ratio;
+            }
+
+            @Override
+            double inverse(double ratio) {
+                if (ratio < 0) {
+                    return Double.NaN;
+                }
+                return Math.sqrt(ratio);
+            }
+
+            @Override
+            double forwardSlope(double ratio) {
+                return 2 * ratio;
+            }
+
+            @Override
+            double inverseSlope(double ratio) {
+                if (ratio < 0) {
+                    return Double.NaN;
+                }
+                return 0.5 / Math.sqrt(ratio);
+            }
+        },
+        ROOT {
+            @Override
+            double forward(double ratio) {
+                if (ratio < 0) {
+                    return Double.NaN;
+                }
+                return Math.sqrt(ratio);
+            }
+
+            @Override
+            double inverse(double ratio) {
+                return ratio * ratio;
+            }
+
+            @Override
+            double forwardSlope(double ratio) {
+                if (ratio < 0) {
+                    return Double.NaN;
+                }
+                return 0.5 / Math.sqrt(ratio);
+            }
+
+            @Override
+            double inverseSlope(double ratio) {
+                return 2 * ratio;
+            }
+        };
+
+        abstract double forward(double ratio);
+
+        abstract double inverse(double ratio);
+
+        abstract double forwardSlope(double ratio);
+
+        abstract double inverseSlope(double ratio);
+    }
+}
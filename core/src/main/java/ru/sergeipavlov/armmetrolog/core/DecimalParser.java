@@ -0,0 +1,120 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.Objects;
+
+/**
+ * Decimal number parser working directly on characters, for bulk data.
+ * <p>
+ * Accepts what the converter screens accept: an optional sign, digits with either {@code '.'} or
+ * {@code ','} as the decimal separator and an optional exponent, surrounded by blanks. Values with
+ * at most 15–16 significant digits and a small exponent are assembled exactly from a long mantissa
+ * and a power of ten without allocating; longer ones fall back to {@link Double#parseDouble}, so
+ * results always equal what the screens compute.
+ */
+public final class DecimalParser {
+
+    static final long MAX_EXACT_MANTISSA = 1L << 53;
+    static final int MAX_EXPONENT = 100_000;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private DecimalParser() {
+    }
+
+    /**
+     * Parses {@code chars[start, end)}.
+     *
+     * @return the value, or {@link Double#NaN} if the range is blank or not a number
+     */
+    public static double parse(char[] chars, int start, int end) {
+        Objects.checkFromToIndex(start, end, chars.length);
+        while (start < end && chars[start] <= ' ') {
+            start++;
+        }
+        while (end > start && chars[end - 1] <= ' ') {
+            end--;
+        }
+        int i = start;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean exact = true;
+        boolean separator = false;
+        for (; i < end; i++) {
+            char c = chars[i];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                int digit = c - '0';
+                if (exact && mantissa <= (MAX_EXACT_MANTISSA - digit) / 10) {
+                    mantissa = mantissa * 10 + digit;
+                    if (separator) {
+                        scale--;
+                    }
+                } else {
+                    exact = false;
+                }
+            } else if ((c == '.' || c == ',') && !separator) {
+                separator = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+
+        int exponent = 0;
+        if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            int exponentStart = i;
+            for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+                if (exponent < MAX_EXPONENT) {
+                    exponent = exponent * 10 + (chars[i] - '0');
+                }
+            }
+            if (i == exponentStart) {
+                return Double.NaN;
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+        if (i != end) {
+            return Double.NaN;
+        }
+
+        double value = exact ? exactValue(mantissa, scale + exponent) : Double.NaN;
+        if (!Double.isNaN(value)) {
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(chars, start, end - start).replace(',', '.'));
+    }
+
+    /**
+     * {@code mantissa * 10^power} when it can be computed with a single correct rounding.
+     *
+     * @param mantissa at most 2<sup>53</sup>
+     * @return the value, or {@link Double#NaN} if {@code power} is out of the exact range
+     */
+    static double exactValue(long mantissa, int power) {
+        if (power >= -22 && power <= 22) {
+            // Both operands are exact, so the single rounding of the product or quotient is correct.
+            return power >= 0 ? mantissa * POWERS_OF_TEN[power] : mantissa / POWERS_OF_TEN[-power];
+        }
+        return mantissa == 0 ? 0.0 : Double.NaN;
+    }
+}
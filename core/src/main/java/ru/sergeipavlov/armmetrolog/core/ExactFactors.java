@@ -0,0 +1,73 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.List;
+
+/**
+ * Exact unit-to-unit coefficients of a {@link Quantity}.
+ * <p>
+ * For every pair of units the combined scale {@code num[s] * den[t] / (den[s] * num[t])} is
+ * reduced to an integer fraction {@code p / q}, and the target offset is premultiplied by
+ * {@code q}, so that a conversion is {@code ((value + offset[s]) * p - offset[t] * q) / q}: exact
+ * multiplications and additions followed by a single rounded division.
+ */
+final class ExactFactors {
+
+    private final int size;
+    private final BigDecimal[] offsets;
+    private final BigDecimal[] numerators;
+    private final BigDecimal[] denominators;
+    private final BigDecimal[] scaledTargetOffsets;
+
+    ExactFactors(List<UnitDefinition> units) {
+        size = units.size();
+        offsets = new BigDecimal[size];
+        numerators = new BigDecimal[size * size];
+        denominators = new BigDecimal[size * size];
+        scaledTargetOffsets = new BigDecimal[size * size];
+        for (int source = 0; source < size; source++) {
+            offsets[source] = units.get(source).getOffset();
+        }
+        for (int source = 0; source < size; source++) {
+            UnitDefinition from = units.get(source);
+            for (int target = 0; target < size; target++) {
+                UnitDefinition to = units.get(target);
+                BigInteger[] fraction = reduce(
+                        from.getNumerator().multiply(to.getDenominator()),
+                        from.getDenominator().multiply(to.getNumerator()));
+                int index = source * size + target;
+                numerators[index] = new BigDecimal(fraction[0]);
+                denominators[index] = new BigDecimal(fraction[1]);
+                scaledTargetOffsets[index] = to.getOffset().multiply(denominators[index]);
+            }
+        }
+    }
+
+    BigDecimal convert(BigDecimal value, int source, int target, MathContext context) {
+        int index = source * size + target;
+        BigDecimal numerator = value.add(offsets[source]).multiply(numerators[index])
+                .subtract(scaledTargetOffsets[index]);
+        BigDecimal denominator = denominators[index];
+        if (denominator.equals(BigDecimal.ONE)) {
+            return numerator.round(context);
+        }
+        return numerator.divide(denominator, context);
+    }
+
+    /**
+     * Reduces the decimal fraction {@code a / b} to coprime integers with a positive denominator.
+     */
+    private static BigInteger[] reduce(BigDecimal a, BigDecimal b) {
+        int scale = Math.max(0, Math.max(a.scale(), b.scale()));
+        BigInteger p = a.movePointRight(scale).toBigIntegerExact();
+        BigInteger q = b.movePointRight(scale).toBigIntegerExact();
+        if (q.signum() < 0) {
+            p = p.negate();
+            q = q.negate();
+        }
+        BigInteger gcd = p.gcd(q);
+        return new BigInteger[]{p.divide(gcd), q.divide(gcd)};
+    }
+}
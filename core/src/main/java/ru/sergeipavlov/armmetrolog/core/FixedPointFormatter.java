@@ -0,0 +1,108 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-precision decimal formatter producing the same text as
+ * {@code String.format(Locale.US, "%.Nf", value)} without parsing a pattern or allocating.
+ * <p>
+ * Instances are immutable and cached per fraction-digit count, see {@link #forFractionDigits(int)}.
+ * Values whose scaled magnitude does not fit the exact {@code long} range, and the rare values
+ * lying within a few ulps of a rounding tie, fall back to {@link BigDecimal}.
+ */
+public final class FixedPointFormatter {
+
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double MAX_FAST_SCALED = 1e14;
+    private static final int CACHE_SIZE = 32;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_FAST_DIGITS + 1];
+    private static final FixedPointFormatter[] CACHE = new FixedPointFormatter[CACHE_SIZE];
+
+    static {
+        long power = 1;
+        for (int i = 0; i <= MAX_FAST_DIGITS; i++) {
+            POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            CACHE[i] = new FixedPointFormatter(i);
+        }
+    }
+
+    private final int fractionDigits;
+
+    private FixedPointFormatter(int fractionDigits) {
+        this.fractionDigits = fractionDigits;
+    }
+
+    public static FixedPointFormatter forFractionDigits(int fractionDigits) {
+        if (fractionDigits < 0) {
+            throw new IllegalArgumentException("fractionDigits < 0: " + fractionDigits);
+        }
+        if (fractionDigits < CACHE_SIZE) {
+            return CACHE[fractionDigits];
+        }
+        return new FixedPointFormatter(fractionDigits);
+    }
+
+    public int getFractionDigits() {
+        return fractionDigits;
+    }
+
+    /**
+     * Clears {@code out} and writes the formatted value into it.
+     *
+     * @return {@code out}
+     */
+    public StringBuilder format(double value, StringBuilder out) {
+        out.setLength(0);
+        return append(value, out);
+    }
+
+    /**
+     * Appends the formatted value to {@code out}.
+     *
+     * @return {@code out}
+     */
+    public StringBuilder append(double value, StringBuilder out) {
+        if (Double.isNaN(value)) {
+            return out.append("NaN");
+        }
+        if (Double.doubleToRawLongBits(value) < 0) {
+            out.append('-');
+            value = -value;
+        }
+        if (Double.isInfinite(value)) {
+            return out.append("Infinity");
+        }
+        if (fractionDigits <= MAX_FAST_DIGITS) {
+            double scaled = value * POWERS_OF_TEN[fractionDigits];
+            if (scaled < MAX_FAST_SCALED) {
+                double fraction = scaled - Math.floor(scaled);
+                if (Math.abs(fraction - 0.5) > 4 * Math.ulp(scaled)) {
+                    appendScaled(Math.round(scaled), out);
+                    return out;
+                }
+            }
+        }
+        return out.append(new BigDecimal(Double.toString(value))
+                .setScale(fractionDigits, RoundingMode.HALF_UP)
+                .toPlainString());
+    }
+
+    private void appendScaled(long scaled, StringBuilder out) {
+        long divisor = POWERS_OF_TEN[fractionDigits];
+        out.append(scaled / divisor);
+        if (fractionDigits == 0) {
+            return;
+        }
+        out.append('.');
+        long fraction = scaled % divisor;
+        for (long digit = divisor / 10; digit > 0; digit /= 10) {
+            out.append((char) ('0' + fraction / digit));
+            fraction %= digit;
+        }
+    }
+}
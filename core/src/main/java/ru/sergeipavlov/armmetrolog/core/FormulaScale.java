@@ -0,0 +1,297 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * User-defined characteristic given by a formula: the signal ratio as a {@link CompiledExpression}
+ * of the physical ratio {@code x}, both 0…1 over their ranges like the normalized characteristic of
+ * {@link CurrentLoopScaleType}. For example {@code x^1.5} or {@code (exp(2*x) - 1) / (exp(2) - 1)}.
+ * <p>
+ * The formula is compiled once and sampled on a grid over 0…1, where it has to be finite and
+ * strictly monotonic. The inverse picks the grid cell holding the signal by binary search and
+ * solves the formula inside it by the Illinois variant of regula falsi, which keeps the root
+ * bracketed and converges superlinearly; beyond the grid the bracket is widened step by step.
+ */
+public final class FormulaScale implements CurrentLoopScale {
+
+    private static final int GRID_SEGMENTS = 64;
+    private static final int MAX_BRACKET_DOUBLINGS = 16;
+    private static final int MAX_ITERATIONS = 100;
+
+    private final CompiledExpression expression;
+    private final double direction;
+    // Formula at the grid points times direction, increasing.
+    private final double[] gridKeys;
+
+    private FormulaScale(CompiledExpression expression) {
+        this.expression = expression;
+        double first = expression.evaluate(0);
+        double last = expression.evaluate(1);
+        direction = last < first ? -1 : 1;
+        gridKeys = new double[GRID_SEGMENTS + 1];
+        for (int i = 0; i <= GRID_SEGMENTS; i++) {
+            double value = expression.evaluate((double) i / GRID_SEGMENTS);
+            if (!Double.isFinite(value)) {
+                throw new IllegalArgumentException("Formula is not finite at x = " + (double) i / GRID_SEGMENTS);
+            }
+            gridKeys[i] = value * direction;
+            if (i > 0 && !(gridKeys[i] > gridKeys[i - 1])) {
+                throw new IllegalArgumentException("Formula is not strictly monotonic near x = "
+                        + (double) i / GRID_SEGMENTS);
+            }
+        }
+    }
+
+    /**
+     * @param formula signal ratio in terms of the physical ratio {@code x}
+     * @throws IllegalArgumentException if the formula does not parse, or is not finite and strictly
+     *                                  monotonic over 0…1
+     */
+    public static FormulaScale compile(String formula) {
+        return new FormulaScale(CompiledExpression.compile(formula));
+    }
+
+    public String getFormula() {
+        return expression.getSource();
+    }
+
+    /**
+     * Normalized characteristic: signal ratio for a physical ratio.
+     */
+    public double forwardRatio(double ratio) {
+        return expression.evaluate(ratio);
+    }
+
+    /**
+     * Inverse of {@link #forwardRatio(double)}; {@link Double#NaN} if no bracket is found.
+     */
+    public double inverseRatio(double ratio) {
+        double key = ratio * direction;
+        if (!(key == key)) {
+            return Double.NaN;
+        }
+        int last = GRID_SEGMENTS;
+        if (key >= gridKeys[0] && key <= gridKeys[last]) {
+            int low = 0;
+            int high = last - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (gridKeys[middle] <= key) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return solve(key, (double) low / last, gridKeys[low], (double) (low + 1) / last, gridKeys[low + 1]);
+        }
+        // Beyond the grid: widen away from the nearer end until the signal is bracketed.
+        boolean below = key < gridKeys[0];
+        double inner = below ? 0 : 1;
+        double innerKey = below ? gridKeys[0] : gridKeys[last];
+        double width = 1;
+        for (int i = 0; i < MAX_BRACKET_DOUBLINGS; i++, width *= 2) {
+            double outer = below ? -width : 1 + width;
+            double outerKey = expression.evaluate(outer) * direction;
+            if (!(outerKey == outerKey)) {
+                return Double.NaN;
+            }
+            if (below ? outerKey <= key : outerKey >= key) {
+                return below ? solve(key, outer, outerKey, inner, innerKey)
+                        : solve(key, inner, innerKey, outer, outerKey);
+            }
+            inner = outer;
+            innerKey = outerKey;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Root of {@code key(x) = target} in {@code [a, b]}, where {@code keyA <= target <= keyB}.
+     */
+    private double solve(double target, double a, double keyA, double b, double keyB) {
+        double fa = keyA - target;
+        double fb = keyB - target;
+        if (fa == 0) {
+            return a;
+        }
+        if (fb == 0) {
+            return b;
+        }
+        int side = 0;
+        double c = a;
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            double previous = c;
+            c = (a * fb - b * fa) / (fb - fa);
+            if (!(c > a && c < b)) {
+                c = 0.5 * (a + b);
+            }
+            double fc = expression.evaluate(c) * direction - target;
+            if (!(fc == fc)) {
+                return Double.NaN;
+            }
+            // Converged once the estimate stops moving, which is cheaper than closing the bracket.
+            if (fc == 0 || b - a <= 2 * Math.ulp(c) || Math.abs(c - previous) <= 2 * Math.ulp(c)) {
+                return c;
+            }
+            if (fc > 0) {
+                b = c;
+                fb = fc;
+                if (side == -1) {
+                    // Same end kept twice: halve its weight so that it moves too.
+                    fa *= 0.5;
+                }
+                side = -1;
+            } else {
+                a = c;
+                fa = fc;
+                if (side == 1) {
+                    fb *= 0.5;
+                }
+                side = 1;
+            }
+        }
+        return c;
+    }
+
+    @Override
+    public double toSignal(double physical, CurrentLoopRange range) {
+        double denominator = range.getPhysicalEnd() - range.getPhysicalStart();
+        if (denominator == 0) {
+            return Double.NaN;
+        }
+        double ratio = forwardRatio((physical - range.getPhysicalStart()) / denominator);
+        return ratio * (range.getSignalEnd() - range.getSignalStart()) + range.getSignalStart();
+    }
+
+    @Override
+    public double toPhysical(double signal, CurrentLoopRange range) {
+        double denominator = range.getSignalEnd() - range.getSignalStart();
+        if (denominator == 0) {
+            return Double.NaN;
+        }
+        double ratio = inverseRatio((signal - range.getSignalStart()) / denominator);
+        return ratio * (range.getPhysicalEnd() - range.getPhysicalStart()) + range.getPhysicalStart();
+    }
+
+    @Override
+    public void toSignal(CurrentLoopRange range, double[] physical, int physicalOffset,
+                         double[] signal, int signalOffset, int length) {
+        Objects.checkFromIndexSize(physicalOffset, length, physical.length);
+        Objects.checkFromIndexSize(signalOffset, length, signal.length);
+
+        double start = range.getPhysicalStart();
+        double denominator = range.getPhysicalEnd() - start;
+        double low = range.getSignalStart();
+        double span = range.getSignalEnd() - low;
+        if (denominator == 0) {
+            Arrays.fill(signal, signalOffset, signalOffset + length, Double.NaN);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            double ratio = (physical[physicalOffset + i] - start) / denominator;
+            signal[signalOffset + i] = expression.evaluate(ratio) * span + low;
+        }
+    }
+
+    @Override
+    public void toPhysical(CurrentLoopRange range, double[] signal, int signalOffset,
+                           double[] physical, int physicalOffset, int length) {
+        Objects.checkFromIndexSize(signalOffset, length, signal.length);
+        Objects.checkFromIndexSize(physicalOffset, length, physical.length);
+
+        double start = range.getPhysicalStart();
+        double span = range.getPhysicalEnd() - start;
+        double low = range.getSignalStart();
+        double denominator = range.getSignalEnd() - low;
+        if (denominator == 0) {
+            Arrays.fill(physical, physicalOffset, physicalOffset + length, Double.NaN);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            double ratio = (signal[signalOffset + i] - low) / denominator;
+            physical[physicalOffset + i] = inverseRatio(ratio) * span + start;
+        }
+    }
+
+    @Override
+    public void signalLimits(CurrentLoopRange range, double accuracyClass, double[] physical, int physicalOffset,
+                             double[] lower, int lowerOffset, double[] upper, int upperOffset, int length) {
+        Objects.checkFromIndexSize(physicalOffset, length, physical.length);
+        Objects.checkFromIndexSize(lowerOffset, length, lower.length);
+        Objects.checkFromIndexSize(upperOffset, length, upper.length);
+
+        double start = range.getPhysicalStart();
+        double denominator = range.getPhysicalEnd() - start;
+        double low = range.getSignalStart();
+        double span = range.getSignalEnd() - low;
+        double tolerance = Math.abs(accuracyClass) / 100;
+        if (denominator == 0 || !Double.isFinite(tolerance)) {
+            Arrays.fill(lower, lowerOffset, lowerOffset + length, Double.NaN);
+            Arrays.fill(upper, upperOffset, upperOffset + length, Double.NaN);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            double ratio = (physical[physicalOffset + i] - start) / denominator;
+            if (ratio < 0 && Double.isNaN(expression.evaluate(ratio))) {
+                // Like the root scale type, no limits where the formula has no value.
+                lower[lowerOffset + i] = Double.NaN;
+                upper[upperOffset + i] = Double.NaN;
+                continue;
+            }
+            // The formula is only checked over 0…1: the band is cut at the start of the range, as
+            // for the non-linear scale types, rather than evaluated below it.
+            double a = expression.evaluate(Math.max(ratio - tolerance, 0)) * span + low;
+            double b = expression.evaluate(Math.max(ratio + tolerance, 0)) * span + low;
+            lower[lowerOffset + i] = Math.min(a, b);
+            upper[upperOffset + i] = Math.max(a, b);
+        }
+    }
+
+    @Override
+    public void physicalLimits(CurrentLoopRange range, double accuracyClass, double[] signal, int signalOffset,
+                               double[] lower, int lowerOffset, double[] upper, int upperOffset, int length) {
+        Objects.checkFromIndexSize(signalOffset, length, signal.length);
+        Objects.checkFromIndexSize(lowerOffset, length, lower.length);
+        Objects.checkFromIndexSize(upperOffset, length, upper.length);
+
+        double start = range.getPhysicalStart();
+        double span = range.getPhysicalEnd() - start;
+        double low = range.getSignalStart();
+        double denominator = range.getSignalEnd() - low;
+        double tolerance = Math.abs(accuracyClass) / 100;
+        if (denominator == 0 || !Double.isFinite(tolerance)) {
+            Arrays.fill(lower, lowerOffset, lowerOffset + length, Double.NaN);
+            Arrays.fill(upper, upperOffset, upperOffset + length, Double.NaN);
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            double ratio = (signal[signalOffset + i] - low) / denominator;
+            double a = inverseRatio(ratio - tolerance) * span + start;
+            double b = inverseRatio(ratio + tolerance) * span + start;
+            lower[lowerOffset + i] = Math.min(a, b);
+            upper[upperOffset + i] = Math.max(a, b);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FormulaScale)) {
+            return false;
+        }
+        return getFormula().equals(((FormulaScale) o).getFormula());
+    }
+
+    @Override
+    public int hashCode() {
+        return getFormula().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "FormulaScale{" + getFormula() + '}';
+    }
+}
@@ -0,0 +1,115 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One committed calculation: the screen it was made on, the instrument tag it was made for and
+ * the entered and computed values by field key.
+ * <p>
+ * Values are kept as the text shown on screen. {@link #encodeValues(Map)} and
+ * {@link #decodeValues(String)} convert them to the one-string form used by storage.
+ */
+public final class HistoryEntry {
+
+    private final long id;
+    private final String screen;
+    private final String tag;
+    private final long timestamp;
+    private final String scaleType;
+    private final Map<String, String> inputs;
+    private final Map<String, String> outputs;
+
+    /**
+     * @param id        storage id, 0 for an entry that has not been stored yet
+     * @param tag       instrument tag, empty if none
+     * @param scaleType current-loop scale type name, or {@code null} for other screens
+     */
+    public HistoryEntry(long id, String screen, String tag, long timestamp, String scaleType,
+                        Map<String, String> inputs, Map<String, String> outputs) {
+        this.id = id;
+        this.screen = screen;
+        this.tag = tag;
+        this.timestamp = timestamp;
+        this.scaleType = scaleType;
+        this.inputs = Collections.unmodifiableMap(new LinkedHashMap<>(inputs));
+        this.outputs = Collections.unmodifiableMap(new LinkedHashMap<>(outputs));
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getScreen() {
+        return screen;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getScaleType() {
+        return scaleType;
+    }
+
+    public Map<String, String> getInputs() {
+        return inputs;
+    }
+
+    public Map<String, String> getOutputs() {
+        return outputs;
+    }
+
+    /**
+     * Same calculation, ignoring id and time; used to skip recording unchanged results.
+     */
+    public boolean sameValues(HistoryEntry other) {
+        return screen.equals(other.screen)
+                && tag.equals(other.tag)
+                && (scaleType == null ? other.scaleType == null : scaleType.equals(other.scaleType))
+                && inputs.equals(other.inputs)
+                && outputs.equals(other.outputs);
+    }
+
+    /**
+     * Encodes values as {@code key=value} lines. Line breaks inside values are replaced by spaces.
+     */
+    public static String encodeValues(Map<String, String> values) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(entry.getKey()).append('=').append(entry.getValue().replace('\n', ' '));
+        }
+        return builder.toString();
+    }
+
+    public static Map<String, String> decodeValues(String encoded) {
+        Map<String, String> values = new LinkedHashMap<>();
+        int start = 0;
+        while (start < encoded.length()) {
+            int end = encoded.indexOf('\n', start);
+            if (end < 0) {
+                end = encoded.length();
+            }
+            int separator = encoded.indexOf('=', start);
+            if (separator >= 0 && separator < end) {
+                values.put(encoded.substring(start, separator), encoded.substring(separator + 1, end));
+            }
+            start = end + 1;
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "HistoryEntry{" + screen + ", tag=" + tag + ", time=" + timestamp + ", inputs=" + inputs
+                + ", outputs=" + outputs + '}';
+    }
+}
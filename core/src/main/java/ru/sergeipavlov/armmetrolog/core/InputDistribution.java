@@ -0,0 +1,128 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * Immutable probability distribution of an input quantity for {@link MonteCarloUncertainty}.
+ * <p>
+ * Following GUM Supplement 1, a normal distribution is given by its standard uncertainty, the
+ * rectangular and the symmetric triangular ones by the half-width of the interval they cover.
+ */
+public final class InputDistribution {
+
+    public enum Shape {
+        NORMAL,
+        RECTANGULAR,
+        TRIANGULAR
+    }
+
+    private static final double SQRT_3 = Math.sqrt(3);
+    private static final double SQRT_6 = Math.sqrt(6);
+
+    private final Shape shape;
+    private final double mean;
+    private final double width;
+
+    private InputDistribution(Shape shape, double mean, double width) {
+        if (!Double.isFinite(mean) || !(width >= 0) || Double.isInfinite(width)) {
+            throw new IllegalArgumentException("Invalid " + shape + " distribution: mean " + mean + ", width " + width);
+        }
+        this.shape = shape;
+        this.mean = mean;
+        this.width = width;
+    }
+
+    public static InputDistribution normal(double mean, double standardUncertainty) {
+        return new InputDistribution(Shape.NORMAL, mean, standardUncertainty);
+    }
+
+    public static InputDistribution rectangular(double mean, double halfWidth) {
+        return new InputDistribution(Shape.RECTANGULAR, mean, halfWidth);
+    }
+
+    public static InputDistribution triangular(double mean, double halfWidth) {
+        return new InputDistribution(Shape.TRIANGULAR, mean, halfWidth);
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStandardUncertainty() {
+        switch (shape) {
+            case RECTANGULAR:
+                return width / SQRT_3;
+            case TRIANGULAR:
+                return width / SQRT_6;
+            default:
+                return width;
+        }
+    }
+
+    /**
+     * Fills {@code out[0, length)} with independent draws.
+     */
+    void sample(SplittableRandom random, double[] out, int length) {
+        switch (shape) {
+            case NORMAL:
+                // Marsaglia's polar method, two draws per accepted pair.
+                for (int i = 0; i < length; i += 2) {
+                    double u;
+                    double v;
+                    double s;
+                    do {
+                        u = 2 * random.nextDouble() - 1;
+                        v = 2 * random.nextDouble() - 1;
+                        s = u * u + v * v;
+                    } while (s >= 1 || s == 0);
+                    double factor = width * Math.sqrt(-2 * Math.log(s) / s);
+                    out[i] = mean + u * factor;
+                    if (i + 1 < length) {
+                        out[i + 1] = mean + v * factor;
+                    }
+                }
+                break;
+            case RECTANGULAR:
+                for (int i = 0; i < length; i++) {
+                    out[i] = mean + width * (2 * random.nextDouble() - 1);
+                }
+                break;
+            case TRIANGULAR:
+                for (int i = 0; i < length; i++) {
+                    out[i] = mean + width * (random.nextDouble() + random.nextDouble() - 1);
+                }
+                break;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InputDistribution)) {
+            return false;
+        }
+        InputDistribution other = (InputDistribution) o;
+        return shape == other.shape
+                && Double.compare(mean, other.mean) == 0
+                && Double.compare(width, other.width) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = shape.hashCode();
+        result = 31 * result + Double.hashCode(mean);
+        result = 31 * result + Double.hashCode(width);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "InputDistribution{" + shape + ", mean=" + mean + ", u=" + getStandardUncertainty() + '}';
+    }
+}
@@ -0,0 +1,354 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming conversion of delimited measurement files (CSV, semicolon separated or TSV).
+ * <p>
+ * The input is read into a reusable character buffer and split into lines and fields in place.
+ * Lines are processed in blocks: each configured column is parsed with {@link DecimalParser} into
+ * a primitive array, converted as a whole with its {@link ColumnConversion}, and the block is
+ * written out before the next one is read. Memory use therefore depends on the block size and the
+ * longest line, not on the file size.
+ * <p>
+ * Cells of converted columns are replaced by the result; cells that are not numbers (headers,
+ * comments, blanks) and all other columns are copied unchanged. Double quotes around a field are
+ * honoured when splitting, and a quoted number is converted like an unquoted one.
+ */
+public final class MeasurementFileConverter {
+
+    public static final int DEFAULT_FRACTION_DIGITS = 6;
+
+    private static final int BLOCK_ROWS = 1024;
+    private static final int INITIAL_BUFFER = 1 << 16;
+
+    public interface ProgressListener {
+        /**
+         * Called on the converting thread after every written block.
+         */
+        void onProgress(long rows);
+    }
+
+    private final ColumnConversion[] conversions;
+    private final char delimiter;
+    private final int fractionDigits;
+
+    private MeasurementFileConverter(Builder builder) {
+        conversions = builder.conversions.toArray(new ColumnConversion[0]);
+        delimiter = builder.delimiter;
+        fractionDigits = builder.fractionDigits;
+    }
+
+    /**
+     * Converts {@code reader} into {@code writer}. Neither is closed here. The output uses the
+     * input delimiter, {@code '.'} as the decimal separator and {@code '\n'} line ends.
+     *
+     * @param listener may be {@code null}
+     * @throws InterruptedIOException if the thread is interrupted between blocks
+     */
+    public Result convert(Reader reader, Writer writer, ProgressListener listener) throws IOException {
+        return new Pass(writer, listener).run(reader);
+    }
+
+    public static final class Result {
+
+        private final long rowCount;
+        private final long convertedCount;
+        private final long skippedCount;
+
+        Result(long rowCount, long convertedCount, long skippedCount) {
+            this.rowCount = rowCount;
+            this.convertedCount = convertedCount;
+            this.skippedCount = skippedCount;
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Number of cells that were parsed and converted.
+         */
+        public long getConvertedCount() {
+            return convertedCount;
+        }
+
+        /**
+         * Number of non-blank cells in converted columns that were not numbers and were copied.
+         */
+        public long getSkippedCount() {
+            return skippedCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{rows=" + rowCount + ", converted=" + convertedCount + ", skipped=" + skippedCount + '}';
+        }
+    }
+
+    public static final class Builder {
+
+        private final List<ColumnConversion> conversions = new ArrayList<>();
+        private char delimiter;
+        private int fractionDigits = DEFAULT_FRACTION_DIGITS;
+
+        /**
+         * @param column zero-based column index
+         */
+        public Builder column(int column, ColumnConversion conversion) {
+            if (column < 0) {
+                throw new IllegalArgumentException("Negative column " + column);
+            }
+            while (conversions.size() <= column) {
+                conversions.add(null);
+            }
+            if (conversions.get(column) != null) {
+                throw new IllegalArgumentException("Duplicate column " + column);
+            }
+            conversions.set(column, conversion);
+            return this;
+        }
+
+        /**
+         * Fixes the field delimiter. By default it is detected from the first non-empty line:
+         * tab if present, otherwise semicolon if present, otherwise comma.
+         */
+        public Builder delimiter(char delimiter) {
+            this.delimiter = delimiter;
+            return this;
+        }
+
+        public Builder fractionDigits(int fractionDigits) {
+            FixedPointFormatter.forFractionDigits(fractionDigits);
+            this.fractionDigits = fractionDigits;
+            return this;
+        }
+
+        public MeasurementFileConverter build() {
+            if (conversions.isEmpty()) {
+                throw new IllegalStateException("No columns to convert");
+            }
+            return new MeasurementFileConverter(this);
+        }
+    }
+
+    /**
+     * Buffers of one conversion run.
+     */
+    private final class Pass {
+
+        private final Writer writer;
+        private final ProgressListener listener;
+        private final FixedPointFormatter formatter = FixedPointFormatter.forFractionDigits(fractionDigits);
+        private final double[][] values = new double[conversions.length][];
+        private final boolean[][] parsed = new boolean[conversions.length][];
+        private final int[] rowFields = new int[BLOCK_ROWS + 1];
+        private final StringBuilder output = new StringBuilder(BLOCK_ROWS * 64);
+
+        private char[] buffer = new char[INITIAL_BUFFER];
+        private int[] fieldStarts = new int[BLOCK_ROWS * 4];
+        private int[] fieldEnds = new int[BLOCK_ROWS * 4];
+        private char[] chunk = new char[0];
+        private char separator = delimiter;
+        private long rows;
+        private long converted;
+        private long skipped;
+
+        Pass(Writer writer, ProgressListener listener) {
+            this.writer = writer;
+            this.listener = listener;
+            for (int column = 0; column < conversions.length; column++) {
+                if (conversions[column] != null) {
+                    values[column] = new double[BLOCK_ROWS];
+                    parsed[column] = new boolean[BLOCK_ROWS];
+                }
+            }
+        }
+
+        Result run(Reader reader) throws IOException {
+            int length = 0;
+            boolean endOfInput = false;
+            while (true) {
+                if (!endOfInput) {
+                    int read = reader.read(buffer, length, buffer.length - length);
+                    if (read < 0) {
+                        endOfInput = true;
+                    } else {
+                        length += read;
+                    }
+                }
+                int consumed = processLines(length, endOfInput);
+                System.arraycopy(buffer, consumed, buffer, 0, length - consumed);
+                length -= consumed;
+                if (endOfInput) {
+                    break;
+                }
+                if (length == buffer.length) {
+                    // A single line longer than the buffer.
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            return new Result(rows, converted, skipped);
+        }
+
+        /**
+         * Splits and writes every complete line, and the trailing partial one at the end of input.
+         *
+         * @return number of characters consumed
+         */
+        private int processLines(int length, boolean endOfInput) throws IOException {
+            int position = 0;
+            int blockRows = 0;
+            while (position < length) {
+                int newline = position;
+                while (newline < length && buffer[newline] != '\n') {
+                    newline++;
+                }
+                if (newline == length && !endOfInput) {
+                    break;
+                }
+                int lineEnd = newline;
+                if (lineEnd > position && buffer[lineEnd - 1] == '\r') {
+                    lineEnd--;
+                }
+                if (separator == 0 && lineEnd > position) {
+                    separator = detectSeparator(position, lineEnd);
+                }
+                rowFields[blockRows + 1] = split(position, lineEnd, rowFields[blockRows]);
+                blockRows++;
+                position = Math.min(newline + 1, length);
+                if (blockRows == BLOCK_ROWS) {
+                    writeBlock(blockRows);
+                    blockRows = 0;
+                }
+            }
+            if (blockRows > 0) {
+                writeBlock(blockRows);
+            }
+            return position;
+        }
+
+        private char detectSeparator(int start, int end) {
+            char detected = ',';
+            for (int i = start; i < end; i++) {
+                if (buffer[i] == '\t') {
+                    return '\t';
+                }
+                if (buffer[i] == ';') {
+                    detected = ';';
+                }
+            }
+            return detected;
+        }
+
+        /**
+         * Records the fields of one line after {@code fieldCount} already recorded ones.
+         *
+         * @return the new field count
+         */
+        private int split(int start, int end, int fieldCount) {
+            boolean quoted = false;
+            int fieldStart = start;
+            for (int i = start; i < end; i++) {
+                char c = buffer[i];
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (c == separator && !quoted) {
+                    addField(fieldCount++, fieldStart, i);
+                    fieldStart = i + 1;
+                }
+            }
+            addField(fieldCount++, fieldStart, end);
+            return fieldCount;
+        }
+
+        private void addField(int index, int start, int end) {
+            if (index == fieldStarts.length) {
+                fieldStarts = Arrays.copyOf(fieldStarts, index * 2);
+                fieldEnds = Arrays.copyOf(fieldEnds, index * 2);
+            }
+            fieldStarts[index] = start;
+            fieldEnds[index] = end;
+        }
+
+        private void writeBlock(int blockRows) throws IOException {
+            for (int column = 0; column < conversions.length; column++) {
+                if (conversions[column] != null) {
+                    parseColumn(column, blockRows);
+                    conversions[column].apply(values[column], 0, blockRows);
+                }
+            }
+
+            for (int row = 0; row < blockRows; row++) {
+                int first = rowFields[row];
+                for (int field = first, last = rowFields[row + 1]; field < last; field++) {
+                    if (field > first) {
+                        output.append(separator);
+                    }
+                    int column = field - first;
+                    if (column < conversions.length && conversions[column] != null) {
+                        if (parsed[column][row]) {
+                            formatter.append(values[column][row], output);
+                            converted++;
+                            continue;
+                        }
+                        if (!isBlank(fieldStarts[field], fieldEnds[field])) {
+                            skipped++;
+                        }
+                    }
+                    output.append(buffer, fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+                }
+                output.append('\n');
+            }
+            rows += blockRows;
+
+            if (chunk.length < output.length()) {
+                chunk = new char[output.capacity()];
+            }
+            output.getChars(0, output.length(), chunk, 0);
+            writer.write(chunk, 0, output.length());
+            output.setLength(0);
+            if (listener != null) {
+                listener.onProgress(rows);
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Conversion interrupted after " + rows + " rows");
+            }
+        }
+
+        private void parseColumn(int column, int blockRows) {
+            double[] columnValues = values[column];
+            boolean[] columnParsed = parsed[column];
+            for (int row = 0; row < blockRows; row++) {
+                int field = rowFields[row] + column;
+                double value = Double.NaN;
+                if (field < rowFields[row + 1]) {
+                    int start = fieldStarts[field];
+                    int end = fieldEnds[field];
+                    if (end - start >= 2 && buffer[start] == '"' && buffer[end - 1] == '"') {
+                        start++;
+                        end--;
+                    }
+                    value = DecimalParser.parse(buffer, start, end);
+                }
+                columnValues[row] = value;
+                columnParsed[row] = !Double.isNaN(value);
+            }
+        }
+
+        private boolean isBlank(int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (buffer[i] > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.io.IOException;
+
+/**
+ * Exception response from a Modbus server, such as an illegal data address.
+ */
+public final class ModbusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int exceptionCode;
+
+    public ModbusException(int functionCode, int exceptionCode) {
+        super("Modbus function " + functionCode + " failed with exception code " + exceptionCode);
+        this.exceptionCode = exceptionCode;
+    }
+
+    /**
+     * Code from the exception response: 1 illegal function, 2 illegal data address, 3 illegal data
+     * value, 4 server device failure and so on.
+     */
+    public int getExceptionCode() {
+        return exceptionCode;
+    }
+}
@@ -0,0 +1,293 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Polls one current-loop signal from a Modbus TCP device on a dedicated thread.
+ * <p>
+ * Every poll reads the configured register, decodes it in place from the client's response buffer,
+ * scales it to the signal unit as {@code raw * scale + offset} and offers it with a
+ * {@link System#nanoTime()} timestamp to a {@link SampleRing}, the poller being its only producer.
+ * The consumer drains the ring at its own pace, typically once per display frame, so neither side
+ * waits for the other. Polls are paced at a fixed interval without catching up on missed ones.
+ * After a connection failure the poller waits and reconnects until it is closed.
+ */
+public final class ModbusPoller implements Closeable {
+
+    public enum Area {
+        INPUT_REGISTERS,
+        HOLDING_REGISTERS
+    }
+
+    public enum Format {
+        INT16(1),
+        UINT16(1),
+        /** IEEE 754 single precision, high word first. */
+        FLOAT32(2);
+
+        private final int registers;
+
+        Format(int registers) {
+            this.registers = registers;
+        }
+
+        public int getRegisters() {
+            return registers;
+        }
+
+        double decode(ByteBuffer data) {
+            int position = data.position();
+            switch (this) {
+                case INT16:
+                    return data.getShort(position);
+                case UINT16:
+                    return data.getShort(position) & 0xFFFF;
+                default:
+                    return data.getFloat(position);
+            }
+        }
+    }
+
+    public interface Listener {
+        /**
+         * Called on the polling thread when the connection is established or lost.
+         *
+         * @param error why the connection was lost, or {@code null} when connected
+         */
+        void onConnectionChanged(boolean connected, IOException error);
+    }
+
+    private final String host;
+    private final int port;
+    private final int unitId;
+    private final int address;
+    private final Area area;
+    private final Format format;
+    private final double scale;
+    private final double offset;
+    private final long intervalNanos;
+    private final int timeoutMillis;
+    private final long reconnectDelayNanos;
+
+    private volatile boolean running;
+    private volatile ModbusTcpClient client;
+    private Thread thread;
+
+    private ModbusPoller(Builder builder) {
+        host = builder.host;
+        port = builder.port;
+        unitId = builder.unitId;
+        address = builder.address;
+        area = builder.area;
+        format = builder.format;
+        scale = builder.scale;
+        offset = builder.offset;
+        intervalNanos = builder.intervalNanos;
+        timeoutMillis = builder.timeoutMillis;
+        reconnectDelayNanos = TimeUnit.MILLISECONDS.toNanos(builder.reconnectDelayMillis);
+    }
+
+    /**
+     * Starts polling into {@code ring}. A poller runs once.
+     *
+     * @param listener may be {@code null}
+     */
+    public synchronized void start(SampleRing ring, Listener listener) {
+        Objects.requireNonNull(ring, "ring");
+        if (thread != null) {
+            throw new IllegalStateException("Already started");
+        }
+        running = true;
+        thread = new Thread(() -> run(ring, listener), "modbus-poller");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops polling and waits for the polling thread to finish.
+     */
+    @Override
+    public void close() {
+        Thread pollingThread;
+        synchronized (this) {
+            running = false;
+            pollingThread = thread;
+        }
+        if (pollingThread == null) {
+            return;
+        }
+        // Unblocks a pending read.
+        closeQuietly(client);
+        pollingThread.interrupt();
+        boolean interrupted = false;
+        while (pollingThread.isAlive()) {
+            try {
+                pollingThread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run(SampleRing ring, Listener listener) {
+        while (running) {
+            IOException error;
+            try (ModbusTcpClient connection = ModbusTcpClient.connect(host, port, timeoutMillis)) {
+                client = connection;
+                if (!running) {
+                    break;
+                }
+                if (listener != null) {
+                    listener.onConnectionChanged(true, null);
+                }
+                poll(connection, ring);
+                break;
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                client = null;
+            }
+            if (!running) {
+                break;
+            }
+            if (listener != null) {
+                listener.onConnectionChanged(false, error);
+            }
+            LockSupport.parkNanos(reconnectDelayNanos);
+        }
+    }
+
+    private void poll(ModbusTcpClient connection, SampleRing ring) throws IOException {
+        int count = format.getRegisters();
+        long deadline = System.nanoTime();
+        while (running) {
+            ByteBuffer data = area == Area.INPUT_REGISTERS
+                    ? connection.readInputRegisters(unitId, address, count)
+                    : connection.readHoldingRegisters(unitId, address, count);
+            long now = System.nanoTime();
+            ring.offer(now, format.decode(data) * scale + offset);
+
+            deadline += intervalNanos;
+            long wait = deadline - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else {
+                // Slower than the interval: keep pace from now on instead of bursting.
+                deadline = System.nanoTime();
+            }
+        }
+    }
+
+    private static void closeQuietly(ModbusTcpClient connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (IOException e) {
+            // Closing only to wake the polling thread.
+        }
+    }
+
+    public static final class Builder {
+
+        private final String host;
+        private int port = ModbusTcpClient.DEFAULT_PORT;
+        private int unitId = 1;
+        private int address;
+        private Area area = Area.INPUT_REGISTERS;
+        private Format format = Format.UINT16;
+        private double scale = 1;
+        private double offset;
+        private long intervalNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        private int timeoutMillis = 1000;
+        private long reconnectDelayMillis = 1000;
+
+        public Builder(String host) {
+            this.host = Objects.requireNonNull(host, "host");
+        }
+
+        public Builder port(int port) {
+            if (port < 1 || port > 0xFFFF) {
+                throw new IllegalArgumentException("Invalid port " + port);
+            }
+            this.port = port;
+            return this;
+        }
+
+        public Builder unitId(int unitId) {
+            if (unitId < 0 || unitId > 255) {
+                throw new IllegalArgumentException("Invalid unit id " + unitId);
+            }
+            this.unitId = unitId;
+            return this;
+        }
+
+        /**
+         * Zero-based register address, as sent in the request.
+         */
+        public Builder register(Area area, int address, Format format) {
+            if (address < 0 || address + format.getRegisters() > 0x10000) {
+                throw new IllegalArgumentException("Invalid register address " + address);
+            }
+            this.area = Objects.requireNonNull(area, "area");
+            this.address = address;
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * Signal value per raw count and at a raw value of zero, for example {@code 0.001} and
+         * {@code 0} for a register in microamperes.
+         */
+        public Builder scaling(double scale, double offset) {
+            if (!Double.isFinite(scale) || !Double.isFinite(offset)) {
+                throw new IllegalArgumentException("Invalid scaling " + scale + ", " + offset);
+            }
+            this.scale = scale;
+            this.offset = offset;
+            return this;
+        }
+
+        public Builder interval(long interval, TimeUnit unit) {
+            long nanos = unit.toNanos(interval);
+            if (nanos < 0) {
+                throw new IllegalArgumentException("Negative interval " + interval);
+            }
+            this.intervalNanos = nanos;
+            return this;
+        }
+
+        public Builder timeoutMillis(int timeoutMillis) {
+            if (timeoutMillis < 1) {
+                throw new IllegalArgumentException("Timeout must be positive: " + timeoutMillis);
+            }
+            this.timeoutMillis = timeoutMillis;
+            return this;
+        }
+
+        public Builder reconnectDelayMillis(long reconnectDelayMillis) {
+            if (reconnectDelayMillis < 0) {
+                throw new IllegalArgumentException("Negative reconnect delay " + reconnectDelayMillis);
+            }
+            this.reconnectDelayMillis = reconnectDelayMillis;
+            return this;
+        }
+
+        public ModbusPoller build() {
+            return new ModbusPoller(this);
+        }
+    }
+}
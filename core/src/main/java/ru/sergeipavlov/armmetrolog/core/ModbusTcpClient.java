@@ -0,0 +1,136 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * Minimal blocking Modbus TCP client for reading registers.
+ * <p>
+ * Requests and responses go through two buffers allocated once per connection. A read returns the
+ * response buffer itself, positioned at the first register byte with the limit after the last, so
+ * registers are decoded in place with absolute big-endian gets and nothing is copied or allocated
+ * per poll. The returned buffer is only valid until the next request. One thread at a time.
+ */
+public final class ModbusTcpClient implements Closeable {
+
+    public static final int DEFAULT_PORT = 502;
+    public static final int MAX_REGISTERS = 125;
+
+    static final int FUNCTION_READ_HOLDING_REGISTERS = 3;
+    static final int FUNCTION_READ_INPUT_REGISTERS = 4;
+
+    // MBAP header: transaction id, protocol id, length, unit id.
+    private static final int HEADER_LENGTH = 7;
+    private static final int MAX_STALE_RESPONSES = 8;
+
+    private final Socket socket;
+    private final InputStream input;
+    private final OutputStream output;
+    private final ByteBuffer request = ByteBuffer.allocate(HEADER_LENGTH + 5);
+    private final ByteBuffer response = ByteBuffer.allocate(HEADER_LENGTH + 2 + 2 * MAX_REGISTERS);
+    private int transactionId;
+
+    private ModbusTcpClient(Socket socket) throws IOException {
+        this.socket = socket;
+        input = socket.getInputStream();
+        output = socket.getOutputStream();
+    }
+
+    /**
+     * @param timeoutMillis limit for connecting and for every response
+     */
+    public static ModbusTcpClient connect(String host, int port, int timeoutMillis) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(timeoutMillis);
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            return new ModbusTcpClient(socket);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Function 4. The result holds {@code 2 * count} bytes of register data.
+     */
+    public ByteBuffer readInputRegisters(int unitId, int address, int count) throws IOException {
+        return readRegisters(FUNCTION_READ_INPUT_REGISTERS, unitId, address, count);
+    }
+
+    /**
+     * Function 3. The result holds {@code 2 * count} bytes of register data.
+     */
+    public ByteBuffer readHoldingRegisters(int unitId, int address, int count) throws IOException {
+        return readRegisters(FUNCTION_READ_HOLDING_REGISTERS, unitId, address, count);
+    }
+
+    private ByteBuffer readRegisters(int function, int unitId, int address, int count) throws IOException {
+        if (unitId < 0 || unitId > 255 || address < 0 || address > 0xFFFF
+                || count < 1 || count > MAX_REGISTERS || address + count > 0x10000) {
+            throw new IllegalArgumentException("Invalid request: unit " + unitId + ", address " + address
+                    + ", count " + count);
+        }
+        transactionId = (transactionId + 1) & 0xFFFF;
+        request.clear();
+        request.putShort((short) transactionId)
+                .putShort((short) 0)
+                .putShort((short) 6)
+                .put((byte) unitId)
+                .put((byte) function)
+                .putShort((short) address)
+                .putShort((short) count);
+        output.write(request.array(), 0, request.position());
+
+        for (int attempt = 0; attempt < MAX_STALE_RESPONSES; attempt++) {
+            response.clear();
+            byte[] bytes = response.array();
+            readFully(bytes, 0, HEADER_LENGTH);
+            int length = response.getShort(4) & 0xFFFF;
+            if (response.getShort(2) != 0 || length < 2 || HEADER_LENGTH - 1 + length > bytes.length) {
+                throw new IOException("Malformed Modbus frame header, length " + length);
+            }
+            readFully(bytes, HEADER_LENGTH, length - 1);
+            if ((response.getShort(0) & 0xFFFF) != transactionId) {
+                // Late answer to a request that timed out earlier.
+                continue;
+            }
+            int responseFunction = response.get(HEADER_LENGTH) & 0xFF;
+            if (responseFunction == (function | 0x80)) {
+                throw new ModbusException(function, length > 2 ? response.get(HEADER_LENGTH + 1) & 0xFF : 0);
+            }
+            int byteCount = response.get(HEADER_LENGTH + 1) & 0xFF;
+            if (responseFunction != function || (response.get(6) & 0xFF) != unitId
+                    || byteCount != 2 * count || length != 3 + byteCount) {
+                throw new IOException("Unexpected Modbus response to function " + function);
+            }
+            response.limit(HEADER_LENGTH + 2 + byteCount);
+            response.position(HEADER_LENGTH + 2);
+            return response;
+        }
+        throw new IOException("No Modbus response for transaction " + transactionId);
+    }
+
+    private void readFully(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            int read = input.read(bytes, offset, length);
+            if (read < 0) {
+                throw new EOFException("Modbus connection closed");
+            }
+            offset += read;
+            length -= read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
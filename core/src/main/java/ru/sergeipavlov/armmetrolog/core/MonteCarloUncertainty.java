@@ -0,0 +1,516 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Propagation of distributions through a measurement model by the Monte Carlo method of
+ * GUM Supplement 1 (JCGM 101), for models such as {@link CurrentLoopScaleType#ROOT} where the
+ * linear law of propagation of uncertainty is not adequate.
+ * <p>
+ * Trials are split into fixed chunks of {@value #CHUNK_TRIALS}. Every chunk draws from its own
+ * {@link SplittableRandom} stream, split off the seed in chunk order, and its mean and variance
+ * are merged in chunk order, while the histogram holds integer counts. The result therefore
+ * depends on the seed and the trial count only, not on the number of threads or on scheduling.
+ * <p>
+ * The output is not stored per trial. A pilot run fixes the histogram range, a pass over all trials
+ * fills {@value #HISTOGRAM_BINS} bins plus counts below and above, and quantiles and coverage
+ * intervals are interpolated from the bins. Their resolution is about 1/10000 of the spread of the
+ * output. Trials for which the model gives a non-finite value are counted and left out.
+ */
+public final class MonteCarloUncertainty {
+
+    public static final long MAX_TRIALS = 1L << 31;
+
+    static final int CHUNK_TRIALS = 1 << 16;
+    static final int HISTOGRAM_BINS = 1 << 15;
+
+    private static final int BLOCK_SIZE = 1024;
+    private static final int PILOT_TRIALS = 1 << 14;
+
+    /**
+     * Measurement model evaluated on blocks of trials.
+     */
+    public interface Model {
+        /**
+         * @param inputs one array per input distribution, in the order they were added
+         * @param output receives the output quantity of each trial in {@code [0, length)}
+         */
+        void evaluate(double[][] inputs, double[] output, int length);
+
+        /**
+         * Model with a single input, such as {@link ColumnConversion#toPhysical}.
+         */
+        static Model of(ColumnConversion conversion) {
+            return (inputs, output, length) -> {
+                System.arraycopy(inputs[0], 0, output, 0, length);
+                conversion.apply(output, 0, length);
+            };
+        }
+    }
+
+    public interface ProgressListener {
+        /**
+         * Called after every finished chunk, on whichever thread ran it.
+         */
+        void onProgress(long completedTrials, long totalTrials);
+    }
+
+    private final Model model;
+    private final InputDistribution[] inputs;
+    private final Executor executor;
+    private final int parallelism;
+
+    private MonteCarloUncertainty(Builder builder) {
+        model = builder.model;
+        inputs = builder.inputs.toArray(new InputDistribution[0]);
+        executor = builder.executor;
+        parallelism = builder.parallelism;
+    }
+
+    /**
+     * Runs {@code trials} trials. The calling thread takes part and waits for the helpers; interrupting
+     * it stops all of them at the next block of {@value #BLOCK_SIZE} trials.
+     *
+     * @param listener may be {@code null}
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public Result evaluate(long trials, long seed, ProgressListener listener) throws InterruptedException {
+        if (trials < 1 || trials > MAX_TRIALS) {
+            throw new IllegalArgumentException("Trial count out of range: " + trials);
+        }
+        SplittableRandom root = new SplittableRandom(seed);
+        double[] limits = pilot(root.split());
+        int chunkCount = (int) ((trials + CHUNK_TRIALS - 1) / CHUNK_TRIALS);
+        SplittableRandom[] streams = new SplittableRandom[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            streams[i] = root.split();
+        }
+        Run run = new Run(trials, streams, limits[0], limits[1], listener);
+
+        int helpers = Math.min(parallelism, chunkCount) - 1;
+        CountDownLatch done = new CountDownLatch(helpers);
+        for (int i = 0; i < helpers; i++) {
+            executor.execute(() -> {
+                try {
+                    run.work(null);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        try {
+            run.work(Thread.currentThread());
+            done.await();
+        } catch (InterruptedException e) {
+            run.cancelled = true;
+            throw e;
+        }
+        run.rethrowFailure();
+        if (run.cancelled) {
+            throw new InterruptedException("Monte Carlo evaluation cancelled");
+        }
+        return run.result();
+    }
+
+    /**
+     * @return histogram limits: the output range of a short run, widened by half its span each way
+     */
+    private double[] pilot(SplittableRandom random) {
+        double[][] samples = new double[inputs.length][BLOCK_SIZE];
+        double[] output = new double[BLOCK_SIZE];
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int done = 0; done < PILOT_TRIALS; done += BLOCK_SIZE) {
+            for (int input = 0; input < inputs.length; input++) {
+                inputs[input].sample(random, samples[input], BLOCK_SIZE);
+            }
+            model.evaluate(samples, output, BLOCK_SIZE);
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                double value = output[i];
+                if (Double.isFinite(value)) {
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+            }
+        }
+        if (min > max) {
+            return new double[]{-1, 1};
+        }
+        double margin = max > min ? (max - min) / 2 : Math.max(Math.abs(min) * 1e-9, Double.MIN_NORMAL);
+        return new double[]{min - margin, max + margin};
+    }
+
+    /**
+     * State shared by the threads of one evaluation.
+     */
+    private final class Run {
+
+        private final long trials;
+        private final SplittableRandom[] streams;
+        private final double histogramStart;
+        private final double binScale;
+        private final ProgressListener listener;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final AtomicLong completed = new AtomicLong();
+        private final long[] chunkCounts;
+        private final double[] chunkMeans;
+        private final double[] chunkSquares;
+        private final double[] chunkMins;
+        private final double[] chunkMaxes;
+        private final List<long[]> histograms = new ArrayList<>();
+
+        volatile boolean cancelled;
+
+        Run(long trials, SplittableRandom[] streams, double histogramStart, double histogramEnd,
+            ProgressListener listener) {
+            this.trials = trials;
+            this.streams = streams;
+            this.histogramStart = histogramStart;
+            this.binScale = HISTOGRAM_BINS / (histogramEnd - histogramStart);
+            this.listener = listener;
+            chunkCounts = new long[streams.length];
+            chunkMeans = new double[streams.length];
+            chunkSquares = new double[streams.length];
+            chunkMins = new double[streams.length];
+            chunkMaxes = new double[streams.length];
+        }
+
+        /**
+         * Takes chunks until none are left. {@code caller} is the evaluating thread, whose interrupt
+         * status cancels the run.
+         */
+        void work(Thread caller) {
+            // Two extra slots count values below and above the histogram range.
+            long[] histogram = new long[HISTOGRAM_BINS + 2];
+            synchronized (histograms) {
+                histograms.add(histogram);
+            }
+            double[][] samples = new double[inputs.length][BLOCK_SIZE];
+            double[] output = new double[BLOCK_SIZE];
+            try {
+                int chunk;
+                while (!cancelled && (chunk = nextChunk.getAndIncrement()) < streams.length) {
+                    runChunk(chunk, histogram, samples, output, caller);
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+                cancelled = true;
+            }
+        }
+
+        private void runChunk(int chunk, long[] histogram, double[][] samples, double[] output, Thread caller) {
+            SplittableRandom random = streams[chunk];
+            long first = (long) chunk * CHUNK_TRIALS;
+            int chunkTrials = (int) Math.min(CHUNK_TRIALS, trials - first);
+            long count = 0;
+            double mean = 0;
+            double squares = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int done = 0; done < chunkTrials; done += BLOCK_SIZE) {
+                if (cancelled || caller != null && caller.isInterrupted()) {
+                    cancelled = true;
+                    return;
+                }
+                int length = Math.min(BLOCK_SIZE, chunkTrials - done);
+                for (int input = 0; input < inputs.length; input++) {
+                    inputs[input].sample(random, samples[input], length);
+                }
+                model.evaluate(samples, output, length);
+                for (int i = 0; i < length; i++) {
+                    double value = output[i];
+                    if (!Double.isFinite(value)) {
+                        continue;
+                    }
+                    // Welford's update keeps the variance accurate when the mean is far from zero.
+                    count++;
+                    double delta = value - mean;
+                    mean += delta / count;
+                    squares += delta * (value - mean);
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                    double position = (value - histogramStart) * binScale;
+                    int bin = position < 0 ? HISTOGRAM_BINS : position >= HISTOGRAM_BINS ? HISTOGRAM_BINS + 1 : (int) position;
+                    histogram[bin]++;
+                }
+            }
+            chunkCounts[chunk] = count;
+            chunkMeans[chunk] = mean;
+            chunkSquares[chunk] = squares;
+            chunkMins[chunk] = min;
+            chunkMaxes[chunk] = max;
+            long total = completed.addAndGet(chunkTrials);
+            if (listener != null) {
+                listener.onProgress(total, trials);
+            }
+        }
+
+        void rethrowFailure() {
+            Throwable t = failure.get();
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            if (t != null) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        Result result() {
+            long count = 0;
+            double mean = 0;
+            double squares = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int chunk = 0; chunk < streams.length; chunk++) {
+                long chunkCount = chunkCounts[chunk];
+                if (chunkCount == 0) {
+                    continue;
+                }
+                // Pairwise combination of Chan et al.
+                long merged = count + chunkCount;
+                double delta = chunkMeans[chunk] - mean;
+                mean += delta * chunkCount / merged;
+                squares += chunkSquares[chunk] + delta * delta * ((double) count * chunkCount / merged);
+                count = merged;
+                min = Math.min(min, chunkMins[chunk]);
+                max = Math.max(max, chunkMaxes[chunk]);
+            }
+            long[] bins = new long[HISTOGRAM_BINS + 2];
+            for (long[] histogram : histograms) {
+                for (int i = 0; i < bins.length; i++) {
+                    bins[i] += histogram[i];
+                }
+            }
+            double deviation = count > 1 ? Math.sqrt(squares / (count - 1)) : Double.NaN;
+            return new Result(trials, count, count == 0 ? Double.NaN : mean, deviation, min, max,
+                    histogramStart, 1 / binScale, bins);
+        }
+    }
+
+    /**
+     * Summary of the output distribution.
+     */
+    public static final class Result {
+
+        private final long trialCount;
+        private final long validCount;
+        private final double mean;
+        private final double standardUncertainty;
+        private final double min;
+        private final double max;
+        private final double histogramStart;
+        private final double binWidth;
+        private final long[] bins;
+        private final long below;
+        // cumulative[i]: valid values below the lower edge of bin i; cumulative[HISTOGRAM_BINS] excludes only those above.
+        private final long[] cumulative;
+
+        Result(long trialCount, long validCount, double mean, double standardUncertainty, double min, double max,
+               double histogramStart, double binWidth, long[] histogram) {
+            this.trialCount = trialCount;
+            this.validCount = validCount;
+            this.mean = mean;
+            this.standardUncertainty = standardUncertainty;
+            this.min = min;
+            this.max = max;
+            this.histogramStart = histogramStart;
+            this.binWidth = binWidth;
+            bins = Arrays.copyOf(histogram, HISTOGRAM_BINS);
+            below = histogram[HISTOGRAM_BINS];
+            cumulative = new long[HISTOGRAM_BINS + 1];
+            cumulative[0] = below;
+            for (int i = 0; i < HISTOGRAM_BINS; i++) {
+                cumulative[i + 1] = cumulative[i] + bins[i];
+            }
+        }
+
+        public long getTrialCount() {
+            return trialCount;
+        }
+
+        /**
+         * Trials for which the model gave a finite value.
+         */
+        public long getValidCount() {
+            return validCount;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getStandardUncertainty() {
+            return standardUncertainty;
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public double getHistogramStart() {
+            return histogramStart;
+        }
+
+        public double getBinWidth() {
+            return binWidth;
+        }
+
+        /**
+         * Counts per bin, starting at {@link #getHistogramStart()}; values outside are not included.
+         */
+        public long[] getHistogram() {
+            return bins.clone();
+        }
+
+        /**
+         * Value below which a fraction {@code p} of the valid trials lies.
+         */
+        public double quantile(double p) {
+            if (!(p >= 0 && p <= 1) || validCount == 0) {
+                return Double.NaN;
+            }
+            return valueAtRank(p * validCount);
+        }
+
+        /**
+         * Probabilistically symmetric coverage interval: {@code {low, high}} with a fraction
+         * {@code (1 - p) / 2} of the trials on either side.
+         */
+        public double[] coverageInterval(double p) {
+            checkCoverage(p);
+            return new double[]{quantile((1 - p) / 2), quantile((1 + p) / 2)};
+        }
+
+        /**
+         * Shortest interval holding a fraction {@code p} of the trials, for asymmetric outputs.
+         */
+        public double[] shortestCoverageInterval(double p) {
+            checkCoverage(p);
+            if (validCount == 0) {
+                return new double[]{Double.NaN, Double.NaN};
+            }
+            double covered = p * validCount;
+            double bestLow = quantile(0);
+            double bestHigh = valueAtRank(covered);
+            for (int i = 0; i <= HISTOGRAM_BINS; i++) {
+                double rank = cumulative[i];
+                if (rank + covered > validCount) {
+                    break;
+                }
+                double low = histogramStart + i * binWidth;
+                double high = valueAtRank(rank + covered);
+                if (high - low < bestHigh - bestLow) {
+                    bestLow = low;
+                    bestHigh = high;
+                }
+            }
+            double top = quantile(1 - p);
+            if (max - top < bestHigh - bestLow) {
+                bestLow = top;
+                bestHigh = max;
+            }
+            return new double[]{bestLow, bestHigh};
+        }
+
+        private static void checkCoverage(double p) {
+            if (!(p > 0 && p < 1)) {
+                throw new IllegalArgumentException("Coverage probability out of range: " + p);
+            }
+        }
+
+        private double valueAtRank(double rank) {
+            if (rank <= below) {
+                // Spread linearly between the smallest value and the histogram start.
+                double end = Math.min(histogramStart, max);
+                return below == 0 ? end : min + (end - min) * (rank / below);
+            }
+            if (rank > cumulative[HISTOGRAM_BINS]) {
+                double start = Math.max(histogramStart + HISTOGRAM_BINS * binWidth, min);
+                long above = validCount - cumulative[HISTOGRAM_BINS];
+                return start + (max - start) * ((rank - cumulative[HISTOGRAM_BINS]) / above);
+            }
+            // First bin whose upper edge reaches the rank.
+            int low = 0;
+            int high = HISTOGRAM_BINS - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle + 1] < rank) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            double fraction = bins[low] == 0 ? 0 : (rank - cumulative[low]) / bins[low];
+            double value = histogramStart + (low + fraction) * binWidth;
+            return Math.min(Math.max(value, min), max);
+        }
+
+        @Override
+        public String toString() {
+            return "Result{trials=" + trialCount + ", valid=" + validCount + ", mean=" + mean
+                    + ", u=" + standardUncertainty + '}';
+        }
+    }
+
+    public static final class Builder {
+
+        private final Model model;
+        private final List<InputDistribution> inputs = new ArrayList<>();
+        private Executor executor = ForkJoinPool.commonPool();
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        public Builder(Model model) {
+            this.model = Objects.requireNonNull(model, "model");
+        }
+
+        public Builder input(InputDistribution distribution) {
+            inputs.add(Objects.requireNonNull(distribution, "distribution"));
+            return this;
+        }
+
+        /**
+         * Threads for helpers; the common fork-join pool by default.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor, "executor");
+            return this;
+        }
+
+        /**
+         * Number of threads working on one evaluation, the calling thread included; the number of
+         * processors by default. {@code 1} runs on the calling thread only.
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public MonteCarloUncertainty build() {
+            if (inputs.isEmpty()) {
+                throw new IllegalStateException("No input distributions");
+            }
+            return new MonteCarloUncertainty(this);
+        }
+    }
+}
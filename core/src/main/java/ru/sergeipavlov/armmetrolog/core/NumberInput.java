@@ -0,0 +1,304 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Parser for numbers typed into input fields, reading the field's text in place.
+ * <p>
+ * Accepts an optional sign ({@code '-'}, {@code '+'} or {@code '−'}), digits with {@code '.'} or
+ * {@code ','} as the decimal separator, spaces between groups of integer digits, an optional
+ * exponent and an optional SI prefix as the last character: {@code T G M k m u µ n p} or their
+ * Russian forms {@code Т Г М к м мк н п}. So {@code "4,5k"}, {@code "12m"}, {@code "250µ"} and
+ * {@code "1 013,25"} are all numbers.
+ * <p>
+ * One pass tells an unfinished number ({@code "-"}, {@code ","}, {@code "1e-"}) from text that
+ * cannot become a number by typing more, and counts the typed fraction and significant digits.
+ * Parsing does not allocate except when a value has more than 15–16 significant digits or a large
+ * exponent. An instance keeps the result of the last call and is meant to be reused by one thread.
+ */
+public final class NumberInput {
+
+    /**
+     * Characters a field needs to accept for every form this parser understands.
+     */
+    public static final String ACCEPTED_CHARACTERS = "0123456789+-\u2212.,eETGMkmu\u00B5\u03BCnp\u0422\u0413\u041C\u043A\u043C\u043D\u043F";
+
+    public enum Status {
+        /** Nothing but blanks. */
+        EMPTY,
+        /** A prefix of a number, such as a lone sign or separator or a dangling exponent. */
+        INCOMPLETE,
+        /**
+         * Not a number and not the start of one, or a non-zero number whose magnitude overflows
+         * to infinity or underflows to zero as a {@code double}.
+         */
+        INVALID,
+        VALID
+    }
+
+    private Status status = Status.EMPTY;
+    private double value = Double.NaN;
+    private int fractionDigits;
+    private int scaleExponent;
+    private boolean plain;
+    private boolean negative;
+    // Digits from the first non-zero one; the value is digits * 10^power.
+    private char[] digits = new char[32];
+    private int digitCount;
+    private int power;
+    // Exact value of the digits, or -1 if it exceeds 2^53.
+    private long mantissa;
+
+    public Status parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses {@code text[start, end)} and keeps the result until the next call.
+     */
+    public Status parse(CharSequence text, int start, int end) {
+        Objects.checkFromToIndex(start, end, text.length());
+        value = Double.NaN;
+        fractionDigits = 0;
+        scaleExponent = 0;
+        plain = true;
+        negative = false;
+        digitCount = 0;
+        power = 0;
+        mantissa = 0;
+        status = scan(text, start, end);
+        if (status == Status.VALID) {
+            value = toDouble();
+            if (Double.isInfinite(value) || value == 0.0 && digitCount > 0) {
+                status = Status.INVALID;
+                value = Double.NaN;
+            }
+        }
+        if (status != Status.VALID) {
+            fractionDigits = 0;
+            scaleExponent = 0;
+            digitCount = 0;
+        }
+        return status;
+    }
+
+    private Status scan(CharSequence text, int start, int end) {
+        while (start < end && isBlank(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && isBlank(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            return Status.EMPTY;
+        }
+
+        int i = start;
+        char c = text.charAt(i);
+        if (c == '-' || c == '+' || c == '\u2212') {
+            negative = c != '+';
+            i++;
+        }
+
+        boolean exact = true;
+        boolean separator = false;
+        boolean anyDigit = false;
+        for (; i < end; i++) {
+            c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (separator) {
+                    fractionDigits++;
+                    power--;
+                }
+                if (digitCount == 0 && c == '0') {
+                    continue;
+                }
+                appendDigit(c);
+                int digit = c - '0';
+                if (exact && mantissa <= (DecimalParser.MAX_EXACT_MANTISSA - digit) / 10) {
+                    mantissa = mantissa * 10 + digit;
+                } else {
+                    exact = false;
+                }
+            } else if ((c == '.' || c == ',') && !separator) {
+                separator = true;
+            } else if (isBlank(c) && anyDigit && !separator && i + 1 < end && isDigit(text.charAt(i + 1))) {
+                // Digit group separator, as in "1 000".
+                plain = false;
+            } else {
+                break;
+            }
+        }
+        if (!anyDigit) {
+            return i == end ? Status.INCOMPLETE : Status.INVALID;
+        }
+
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+' || text.charAt(i) == '\u2212')) {
+                negativeExponent = text.charAt(i) != '+';
+                i++;
+            }
+            int exponentStart = i;
+            int exponent = 0;
+            for (; i < end && isDigit(text.charAt(i)); i++) {
+                if (exponent < DecimalParser.MAX_EXPONENT) {
+                    exponent = exponent * 10 + (text.charAt(i) - '0');
+                }
+            }
+            if (i == exponentStart) {
+                return i == end ? Status.INCOMPLETE : Status.INVALID;
+            }
+            scaleExponent = negativeExponent ? -exponent : exponent;
+            plain = false;
+        }
+
+        if (i < end) {
+            c = text.charAt(i++);
+            if (c == '\u043C' && i < end && text.charAt(i) == '\u043A') {
+                i++;
+                scaleExponent -= 6;
+            } else {
+                int prefix = prefixPower(c);
+                if (prefix == 0) {
+                    return Status.INVALID;
+                }
+                scaleExponent += prefix;
+            }
+            plain = false;
+        }
+        if (i != end) {
+            return Status.INVALID;
+        }
+        if (!exact) {
+            mantissa = -1;
+        }
+        power += scaleExponent;
+        return Status.VALID;
+    }
+
+    private double toDouble() {
+        double result;
+        if (digitCount == 0) {
+            result = 0.0;
+        } else {
+            result = mantissa >= 0 ? DecimalParser.exactValue(mantissa, power) : Double.NaN;
+            if (Double.isNaN(result)) {
+                result = Double.parseDouble(new String(digits, 0, digitCount) + 'E' + power);
+            }
+        }
+        return negative ? -result : result;
+    }
+
+    private void appendDigit(char c) {
+        if (digitCount == digits.length) {
+            digits = Arrays.copyOf(digits, digitCount * 2);
+        }
+        digits[digitCount++] = c;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isValid() {
+        return status == Status.VALID;
+    }
+
+    /**
+     * @return the parsed value, or {@link Double#NaN} unless the status is {@link Status#VALID}
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Digits typed after the decimal separator, regardless of exponent and prefix.
+     */
+    public int getFractionDigits() {
+        return fractionDigits;
+    }
+
+    /**
+     * Power of ten applied by the exponent and the prefix: {@code 3} for {@code "4,5k"} and
+     * {@code "4.5e3"}.
+     */
+    public int getScaleExponent() {
+        return scaleExponent;
+    }
+
+    /**
+     * Whether the number was typed as plain decimal digits, without exponent, prefix or digit
+     * grouping, so that reformatting it with the same fraction digits keeps what was typed.
+     */
+    public boolean isPlain() {
+        return plain;
+    }
+
+    /**
+     * Digits from the first non-zero one, trailing zeros included; {@code 0} for a zero value.
+     */
+    public int getSignificantDigits() {
+        return digitCount;
+    }
+
+    /**
+     * The parsed value without rounding, for exact calculations.
+     *
+     * @throws IllegalStateException unless the status is {@link Status#VALID}
+     */
+    public BigDecimal toBigDecimal() {
+        if (status != Status.VALID) {
+            throw new IllegalStateException("No valid number parsed: " + status);
+        }
+        if (digitCount == 0) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal result = new BigDecimal(digits, 0, digitCount).scaleByPowerOfTen(power);
+        return negative ? result.negate() : result;
+    }
+
+    private static int prefixPower(char c) {
+        switch (c) {
+            case 'T':
+            case '\u0422':
+                return 12;
+            case 'G':
+            case '\u0413':
+                return 9;
+            case 'M':
+            case '\u041C':
+                return 6;
+            case 'k':
+            case '\u043A':
+                return 3;
+            case 'm':
+            case '\u043C':
+                return -3;
+            case 'u':
+            case '\u00B5':
+            case '\u03BC':
+                return -6;
+            case 'n':
+            case '\u043D':
+                return -9;
+            case 'p':
+            case '\u043F':
+                return -12;
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isBlank(char c) {
+        return c <= ' ' || c == '\u00A0' || c == '\u202F';
+    }
+}
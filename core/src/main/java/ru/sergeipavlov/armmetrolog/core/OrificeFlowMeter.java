@@ -0,0 +1,368 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.Objects;
+
+/**
+ * Orifice plate flow meter after ISO 5167-2: mass and volume flow from the differential pressure,
+ * for example as read through a {@link CurrentLoopScaleType#ROOT} transmitter.
+ * <p>
+ * The discharge coefficient follows the Reader-Harris/Gallagher equation, which depends on the pipe
+ * Reynolds number and so on the flow itself. The flow is found by Newton's method on
+ * {@code q - s C(Re(q)) = 0}, starting from the flow for an infinite Reynolds number; the function
+ * increases with {@code q}, so unlike plain substitution this converges also at the very low
+ * Reynolds numbers near the start of a root scale. It takes two to four steps in the valid range
+ * and never more than {@value #MAX_ITERATIONS}. Everything that depends only on the geometry and the
+ * fluid is computed once at build time, which leaves one power per step: the Reynolds powers of the
+ * equation are all multiples of 0.1.
+ * <p>
+ * SI units throughout: metres, pascals, kg/m³, Pa·s, kg/s and m³/s. Diameters are at the operating
+ * temperature, density and pressure at the upstream tapping. Instances are immutable and
+ * thread-safe.
+ */
+public final class OrificeFlowMeter {
+
+    static final int MAX_ITERATIONS = 30;
+    private static final double TOLERANCE = 1e-12;
+    // Pipes below 71.12 mm get an extra term in the discharge coefficient.
+    private static final double SMALL_PIPE_DIAMETER = 0.07112;
+    // Lowest p2/p1 for which the expansibility equation holds.
+    private static final double MINIMUM_PRESSURE_RATIO = 0.75;
+
+    /**
+     * Pressure tapping arrangement, which fixes the tapping distances {@code L1} and {@code L2'}.
+     */
+    public enum Tapping {
+        CORNER,
+        FLANGE,
+        D_AND_HALF_D
+    }
+
+    private final double pipeDiameter;
+    private final double boreDiameter;
+    private final Tapping tapping;
+    private final double density;
+    private final double viscosity;
+    private final double isentropicExponent;
+    private final double upstreamPressure;
+
+    private final double beta;
+    // Discharge coefficient terms that do not depend on the Reynolds number.
+    private final double coefficientBase;
+    // (0.043 + 0.080 e^(-10 L1) - 0.123 e^(-7 L1)) * beta^4 / (1 - beta^4), times (1 - 0.11 A).
+    private final double upstreamTerm;
+    private final double slopeTerm;
+    private final double velocityTerm;
+    // A = (19000 beta / Re)^0.8 without the Reynolds number.
+    private final double aFactor;
+    // qm = flowFactor * C * epsilon * sqrt(dp), without C and epsilon.
+    private final double flowFactor;
+    // Re_D per kg/s.
+    private final double reynoldsFactor;
+    private final double expansibilityFactor;
+    private final double minimumReynolds;
+
+    private OrificeFlowMeter(Builder builder) {
+        pipeDiameter = builder.pipeDiameter;
+        boreDiameter = builder.boreDiameter;
+        tapping = builder.tapping;
+        density = builder.density;
+        viscosity = builder.viscosity;
+        isentropicExponent = builder.isentropicExponent;
+        upstreamPressure = builder.upstreamPressure;
+
+        beta = boreDiameter / pipeDiameter;
+        double beta2 = beta * beta;
+        double beta4 = beta2 * beta2;
+        double beta8 = beta4 * beta4;
+        double l1;
+        double l2;
+        switch (tapping) {
+            case CORNER:
+                l1 = 0;
+                l2 = 0;
+                break;
+            case FLANGE:
+                l1 = 0.0254 / pipeDiameter;
+                l2 = l1;
+                break;
+            default:
+                l1 = 1;
+                l2 = 0.47;
+                break;
+        }
+        double m2 = 2 * l2 / (1 - beta);
+        double base = 0.5961 + 0.0261 * beta2 - 0.216 * beta8
+                - 0.031 * (m2 - 0.8 * Math.pow(m2, 1.1)) * Math.pow(beta, 1.3);
+        if (pipeDiameter < SMALL_PIPE_DIAMETER) {
+            base += 0.011 * (0.75 - beta) * (2.8 - pipeDiameter / 0.0254);
+        }
+        coefficientBase = base;
+        upstreamTerm = (0.043 + 0.080 * Math.exp(-10 * l1) - 0.123 * Math.exp(-7 * l1)) * beta4 / (1 - beta4);
+        slopeTerm = 0.000521 * Math.pow(1e6 * beta, 0.7);
+        velocityTerm = Math.pow(beta, 3.5) * Math.pow(1e6, 0.3);
+        aFactor = Math.pow(19000 * beta, 0.8);
+        flowFactor = Math.PI / 4 * boreDiameter * boreDiameter / Math.sqrt(1 - beta4) * Math.sqrt(2 * density);
+        reynoldsFactor = 4 / (Math.PI * viscosity * pipeDiameter);
+        expansibilityFactor = 0.351 + 0.256 * beta4 + 0.93 * beta8;
+        double reynoldsLimit = beta <= 0.56 ? 5000 : 16000 * beta2;
+        if (tapping == Tapping.FLANGE) {
+            // Flange tappings need Re_D >= 5000 and Re_D >= 170 beta^2 D, with D in millimetres.
+            reynoldsLimit = Math.max(5000, 170 * beta2 * pipeDiameter * 1000);
+        }
+        minimumReynolds = reynoldsLimit;
+    }
+
+    public double getBeta() {
+        return beta;
+    }
+
+    public Tapping getTapping() {
+        return tapping;
+    }
+
+    /**
+     * Lowest pipe Reynolds number for which ISO 5167-2 states the uncertainty of the discharge
+     * coefficient; for flange tappings it grows with the pipe diameter.
+     */
+    public double getMinimumReynolds() {
+        return minimumReynolds;
+    }
+
+    /**
+     * Reader-Harris/Gallagher discharge coefficient at a pipe Reynolds number.
+     */
+    public double dischargeCoefficient(double reynolds) {
+        double t = Math.pow(reynolds, -0.1);
+        double t2 = t * t;
+        double t3 = t2 * t;
+        double t4 = t2 * t2;
+        double a = aFactor * t4 * t4;
+        return coefficientBase
+                + slopeTerm * t4 * t3
+                + (0.0188 + 0.0063 * a) * velocityTerm * t3
+                + upstreamTerm * (1 - 0.11 * a);
+    }
+
+    /**
+     * Largest differential pressure the flow equations apply to: a quarter of the upstream pressure
+     * for a gas, so that p2/p1 stays at or above 0.75, and unlimited for a liquid.
+     */
+    public double getMaximumDifferentialPressure() {
+        return Double.isNaN(isentropicExponent)
+                ? Double.POSITIVE_INFINITY
+                : (1 - MINIMUM_PRESSURE_RATIO) * upstreamPressure;
+    }
+
+    /**
+     * Expansibility factor, 1 for a liquid and {@link Double#NaN} for a gas at a pressure ratio
+     * p2/p1 below 0.75.
+     */
+    public double expansibility(double differentialPressure) {
+        if (Double.isNaN(isentropicExponent)) {
+            return 1;
+        }
+        double ratio = 1 - differentialPressure / upstreamPressure;
+        if (!(ratio >= MINIMUM_PRESSURE_RATIO)) {
+            return Double.NaN;
+        }
+        return 1 - expansibilityFactor * (1 - Math.pow(ratio, 1 / isentropicExponent));
+    }
+
+    public double reynoldsNumber(double massFlow) {
+        return reynoldsFactor * massFlow;
+    }
+
+    /**
+     * Mass flow in kg/s at a differential pressure in pascals; 0 at no pressure drop and
+     * {@link Double#NaN} for a negative or non-finite one or one above
+     * {@link #getMaximumDifferentialPressure()}.
+     */
+    public double massFlow(double differentialPressure) {
+        if (differentialPressure == 0) {
+            return 0;
+        }
+        if (!(differentialPressure > 0 && differentialPressure < Double.POSITIVE_INFINITY)) {
+            return Double.NaN;
+        }
+        double scale = flowFactor * expansibility(differentialPressure) * Math.sqrt(differentialPressure);
+        // C at an infinite Reynolds number, where only the constant terms remain.
+        return solve(scale, coefficientBase + upstreamTerm);
+    }
+
+    /**
+     * Newton's method for {@code q = scale * C(Re(q))} from {@code q = scale * start}.
+     */
+    private double solve(double scale, double start) {
+        double flow = scale * start;
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            double t = Math.pow(reynoldsFactor * flow, -0.1);
+            double t2 = t * t;
+            double t3 = t2 * t;
+            double t4 = t2 * t2;
+            double a = aFactor * t4 * t4;
+            double slope = slopeTerm * t4 * t3;
+            double velocity = (0.0188 + 0.0063 * a) * velocityTerm * t3;
+            double coefficient = coefficientBase + slope + velocity + upstreamTerm * (1 - 0.11 * a);
+            // Re dC/dRe, from d(Re^-0.1 n)/dRe = -0.1 n Re^-0.1 n / Re.
+            double derivative = -0.7 * slope - 0.3 * velocity
+                    - 0.8 * a * (0.0063 * velocityTerm * t3 - 0.11 * upstreamTerm);
+            double next = flow - (flow - scale * coefficient) / (1 - scale * derivative / flow);
+            if (!(next > 0)) {
+                next = 0.5 * flow;
+            }
+            if (Math.abs(next - flow) <= TOLERANCE * next) {
+                return next;
+            }
+            flow = next;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Volume flow in m³/s at upstream conditions.
+     */
+    public double volumeFlow(double differentialPressure) {
+        return massFlow(differentialPressure) / density;
+    }
+
+    public void massFlow(double[] differentialPressure, double[] massFlow) {
+        if (differentialPressure.length != massFlow.length) {
+            throw new IllegalArgumentException("Length mismatch: " + differentialPressure.length
+                    + " and " + massFlow.length);
+        }
+        massFlow(differentialPressure, 0, massFlow, 0, differentialPressure.length);
+    }
+
+    /**
+     * Array form of {@link #massFlow(double)}; input and output may be the same array.
+     */
+    public void massFlow(double[] differentialPressure, int pressureOffset, double[] massFlow, int flowOffset,
+                         int length) {
+        Objects.checkFromIndexSize(pressureOffset, length, differentialPressure.length);
+        Objects.checkFromIndexSize(flowOffset, length, massFlow.length);
+        // Neighbouring rows of a table have close coefficients: start from the previous one.
+        double coefficient = coefficientBase + upstreamTerm;
+        for (int i = 0; i < length; i++) {
+            double dp = differentialPressure[pressureOffset + i];
+            double flow;
+            if (dp > 0 && dp < Double.POSITIVE_INFINITY) {
+                double scale = flowFactor * expansibility(dp) * Math.sqrt(dp);
+                flow = solve(scale, coefficient);
+                if (flow > 0) {
+                    coefficient = flow / scale;
+                }
+            } else {
+                flow = massFlow(dp);
+            }
+            massFlow[flowOffset + i] = flow;
+        }
+    }
+
+    /**
+     * Mass flow for transmitter signals, the physical range of {@code range} being the differential
+     * pressure in pascals: the signals are converted by {@code scale}, normally
+     * {@link CurrentLoopScaleType#ROOT}, and then to flow. Input and output may be the same array.
+     */
+    public void massFlowFromSignal(CurrentLoopScale scale, CurrentLoopRange range, double[] signal, int signalOffset,
+                                   double[] massFlow, int flowOffset, int length) {
+        scale.toPhysical(range, signal, signalOffset, massFlow, flowOffset, length);
+        massFlow(massFlow, flowOffset, massFlow, flowOffset, length);
+    }
+
+    @Override
+    public String toString() {
+        return "OrificeFlowMeter{D=" + pipeDiameter + ", d=" + boreDiameter + ", " + tapping
+                + ", rho=" + density + ", mu=" + viscosity
+                + (Double.isNaN(isentropicExponent) ? "" : ", kappa=" + isentropicExponent + ", p1=" + upstreamPressure)
+                + '}';
+    }
+
+    public static final class Builder {
+
+        private double pipeDiameter = Double.NaN;
+        private double boreDiameter = Double.NaN;
+        private Tapping tapping = Tapping.FLANGE;
+        private double density = Double.NaN;
+        private double viscosity = Double.NaN;
+        private double isentropicExponent = Double.NaN;
+        private double upstreamPressure = Double.NaN;
+
+        /**
+         * Pipe diameter, 50…1000 mm.
+         */
+        public Builder pipeDiameter(double metres) {
+            if (!(metres >= 0.05 && metres <= 1)) {
+                throw new IllegalArgumentException("Pipe diameter outside 50…1000 mm: " + metres);
+            }
+            pipeDiameter = metres;
+            return this;
+        }
+
+        /**
+         * Orifice bore, at least 12.5 mm.
+         */
+        public Builder boreDiameter(double metres) {
+            if (!(metres >= 0.0125 && metres < Double.POSITIVE_INFINITY)) {
+                throw new IllegalArgumentException("Bore diameter below 12.5 mm: " + metres);
+            }
+            boreDiameter = metres;
+            return this;
+        }
+
+        /**
+         * Default {@link Tapping#FLANGE}.
+         */
+        public Builder tapping(Tapping tapping) {
+            this.tapping = Objects.requireNonNull(tapping, "tapping");
+            return this;
+        }
+
+        public Builder density(double kilogramsPerCubicMetre) {
+            if (!(kilogramsPerCubicMetre > 0 && kilogramsPerCubicMetre < Double.POSITIVE_INFINITY)) {
+                throw new IllegalArgumentException("Density must be positive: " + kilogramsPerCubicMetre);
+            }
+            density = kilogramsPerCubicMetre;
+            return this;
+        }
+
+        public Builder viscosity(double pascalSeconds) {
+            if (!(pascalSeconds > 0 && pascalSeconds < Double.POSITIVE_INFINITY)) {
+                throw new IllegalArgumentException("Viscosity must be positive: " + pascalSeconds);
+            }
+            viscosity = pascalSeconds;
+            return this;
+        }
+
+        /**
+         * Makes the fluid a gas with the given isentropic exponent and absolute upstream pressure;
+         * without this call it is a liquid and the expansibility is 1.
+         */
+        public Builder gas(double isentropicExponent, double upstreamPressure) {
+            if (!(isentropicExponent > 1 && isentropicExponent < Double.POSITIVE_INFINITY)) {
+                throw new IllegalArgumentException("Isentropic exponent must exceed 1: " + isentropicExponent);
+            }
+            if (!(upstreamPressure > 0 && upstreamPressure < Double.POSITIVE_INFINITY)) {
+                throw new IllegalArgumentException("Upstream pressure must be positive: " + upstreamPressure);
+            }
+            this.isentropicExponent = isentropicExponent;
+            this.upstreamPressure = upstreamPressure;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if a diameter, the density or the viscosity is missing, or
+         *                                  the diameter ratio is outside 0.1…0.75
+         */
+        public OrificeFlowMeter build() {
+            if (Double.isNaN(pipeDiameter) || Double.isNaN(boreDiameter)
+                    || Double.isNaN(density) || Double.isNaN(viscosity)) {
+                throw new IllegalArgumentException("Diameters, density and viscosity are required");
+            }
+            double beta = boreDiameter / pipeDiameter;
+            if (!(beta >= 0.1 && beta <= 0.75)) {
+                throw new IllegalArgumentException("Diameter ratio outside 0.1…0.75: " + beta);
+            }
+            return new OrificeFlowMeter(this);
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * User-defined characteristic given by a table of points, for transmitters with a custom
+ * linearization such as tank volume or a characterised valve.
+ * <p>
+ * Points are ratios over the range, like the normalized characteristic of
+ * {@link CurrentLoopScaleType}: 0 is the start and 1 the end of the physical or signal range.
+ * Physical ratios must increase and signal ratios must be strictly monotonic, increasing or
+ * decreasing, so that the inverse exists. Between points the table is interpolated linearly or with
+ * a monotone cubic (Fritsch–Carlson), which keeps the curve smooth without overshooting the points;
+ * beyond the first and last point it is extended along the first and last chord.
+ * <p>
+ * Segments are found by binary search, after first trying the segment of the previous lookup and
+ * the one after it, so that sweeps and sorted columns cost O(1) per value. The inverse of a cubic
+ * segment is solved by safeguarded Newton iteration to full precision.
+ * <p>
+ * Tables are stored with {@link #writeTo(DataOutput)} as raw doubles and reloaded with
+ * {@link #readFrom(DataInput)} without parsing text.
+ */
+public final class PiecewiseScale implements CurrentLoopScale {
+
+    public enum Interpolation {
+        LINEAR,
+        MONOTONE_CUBIC
+    }
+
+    public static final int MAX_POINTS = 100_000;
+
+    // "PWSC"
+    private static final int MAGIC = 0x50575343;
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_NEWTON_ITERATIONS = 60;
+
+    private final Interpolation interpolation;
+    private final double[] physical;
+    private final double[] signal;
+    // Signal ratios times direction, increasing, for the inverse lookup.
+    private final double[] signalKeys;
+    private final double direction;
+    // dSignal/dPhysical at every point for cubic tables, null for linear ones.
+    private final double[] tangents;
+    // Slopes of the first and last chord, for extrapolation.
+    private final double startSlope;
+    private final double endSlope;
+
+    // Segments of the last scalar lookups. Hints only, so unsynchronized access is harmless:
+    // every hint is checked before use and any stale value is still a valid index.
+    private int forwardHint;
+    private int inverseHint;
+
+    private PiecewiseScale(Interpolation interpolation, double[] physical, double[] signal) {
+        int count = physical.length;
+        if (count != signal.length) {
+            throw new IllegalArgumentException("Point count mismatch: " + count + " and " + signal.length);
+        }
+        if (count < 2 || count > MAX_POINTS) {
+            throw new IllegalArgumentException("Point count out of range: " + count);
+        }
+        this.interpolation = Objects.requireNonNull(interpolation, "interpolation");
+        this.physical = physical;
+        this.signal = signal;
+        direction = signal[1] < signal[0] ? -1 : 1;
+        signalKeys = new double[count];
+        for (int i = 0; i < count; i++) {
+            if (!Double.isFinite(physical[i]) || !Double.isFinite(signal[i])) {
+                throw new IllegalArgumentException("Non-finite point " + i);
+            }
+            signalKeys[i] = signal[i] * direction;
+            if (i > 0 && !(physical[i] > physical[i - 1] && signalKeys[i] > signalKeys[i - 1])) {
+                throw new IllegalArgumentException("Points are not strictly monotonic at " + i);
+            }
+        }
+        int last = count - 1;
+        startSlope = (signal[1] - signal[0]) / (physical[1] - physical[0]);
+        endSlope = (signal[last] - signal[last - 1]) / (physical[last] - physical[last - 1]);
+        tangents = interpolation == Interpolation.MONOTONE_CUBIC ? tangents(physical, signal) : null;
+    }
+
+    /**
+     * @param physicalRatios increasing physical ratios; copied
+     * @param signalRatios   strictly monotonic signal ratios at the same points; copied
+     * @throws IllegalArgumentException if the table is shorter than two points, longer than
+     *                                  {@link #MAX_POINTS}, or not monotonic
+     */
+    public static PiecewiseScale of(Interpolation interpolation, double[] physicalRatios, double[] signalRatios) {
+        return new PiecewiseScale(interpolation, physicalRatios.clone(), signalRatios.clone());
+    }
+
+    private static double[] tangents(double[] x, double[] y) {
+        int last = x.length - 1;
+        double[] slopes = new double[x.length];
+        double[] secants = new double[last];
+        for (int k = 0; k < last; k++) {
+            secants[k] = (y[k + 1] - y[k]) / (x[k + 1] - x[k]);
+        }
+        if (last == 1) {
+            slopes[0] = secants[0];
+            slopes[1] = secants[0];
+            return slopes;
+        }
+        slopes[0] = endTangent(x[1] - x[0], x[2] - x[1], secants[0], secants[1]);
+        slopes[last] = endTangent(x[last] - x[last - 1], x[last - 1] - x[last - 2],
+                secants[last - 1], secants[last - 2]);
+        for (int k = 1; k < last; k++) {
+            // All secants have the same sign, the points being monotonic.
+            slopes[k] = (secants[k - 1] + secants[k]) / 2;
+        }
+        // Fritsch–Carlson: limit the tangents so that no segment overshoots.
+        for (int k = 0; k < last; k++) {
+            double alpha = slopes[k] / secants[k];
+            double beta = slopes[k + 1] / secants[k];
+            double sum = alpha * alpha + beta * beta;
+            if (sum > 9) {
+                double tau = 3 / Math.sqrt(sum);
+                slopes[k] = tau * alpha * secants[k];
+                slopes[k + 1] = tau * beta * secants[k];
+            }
+        }
+        return slopes;
+    }
+
+    /**
+     * Three-point estimate of the tangent at an end, cut to zero where it would turn back.
+     */
+    private static double endTangent(double h0, double h1, double secant0, double secant1) {
+        double tangent = ((2 * h0 + h1) * secant0 - h0 * secant1) / (h0 + h1);
+        return tangent * secant0 > 0 ? tangent : 0;
+    }
+
+    public Interpolation getInterpolation() {
+        return interpolation;
+    }
+
+    public int getPointCount() {
+        return physical.length;
+    }
+
+    public double[] getPhysicalRatios() {
+        return physical.clone();
+    }
+
+    public double[] getSignalRatios() {
+        return signal.clone();
+    }
+
+    /**
+     * Normalized characteristic: signal ratio for a physical ratio.
+     */
+    public double forwardRatio(double ratio) {
+        int segment = segment(physical, ratio, forwardHint);
+        forwardHint = segment;
+        return forward(ratio, segment);
+    }
+
+    /**
+     * Inverse of {@link #forwardRatio(double)}.
+     */
+    public double inverseRatio(double ratio) {
+        int segment = segment(signalKeys, ratio * direction, inverseHint);
+        inverseHint = segment;
+        return inverse(ratio, segment);
+    }
+
+    /**
+     * Index {@code k} of the segment {@code [knots[k], knots[k + 1])} holding {@code value}; the
+     * first segment for values below it and the last one for values above.
+     */
+    private static int segment(double[] knots, double value, int hint) {
+        int last = knots.length - 2;
+        if (value >= knots[hint]) {
+            if (hint == last || value < knots[hint + 1]) {
+                return hint;
+            }
+            if (hint + 1 == last || value < knots[hint + 2]) {
+                return hint + 1;
+            }
+        }
+        int low = 0;
+        int high = last;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (knots[middle] <= value) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private double forward(double ratio, int k) {
+        double x0 = physical[k];
+        double y0 = signal[k];
+        if (ratio < x0) {
+            return y0 + startSlope * (ratio - x0);
+        }
+        double x1 = physical[k + 1];
+        double y1 = signal[k + 1];
+        if (ratio > x1) {
+            return y1 + endSlope * (ratio - x1);
+        }
+        double h = x1 - x0;
+        double t = (ratio - x0) / h;
+        if (interpolation == Interpolation.LINEAR) {
+            return y0 + (y1 - y0) * t;
+        }
+        return hermite(y0, y1, tangents[k] * h, tangents[k + 1] * h, t);
+    }
+
+    private static double hermite(double y0, double y1, double m0, double m1, double t) {
+        double u = 1 - t;
+        return (y0 * (1 + 2 * t) + m0 * t) * u * u + (y1 * (3 - 2 * t) - m1 * u) * t * t;
+    }
+
+    private double inverse(double ratio, int k) {
+        double y0 = signal[k];
+        double key = ratio * direction;
+        if (key < signalKeys[k]) {
+            return physical[k] + (ratio - y0) / startSlope;
+        }
+        double y1 = signal[k + 1];
+        if (key > signalKeys[k + 1]) {
+            return physical[k + 1] + (ratio - y1) / endSlope;
+        }
+        double x0 = physical[k];
+        double h = physical[k + 1] - x0;
+        double t = (ratio - y0) / (y1 - y0);
+        if (interpolation == Interpolation.LINEAR) {
+            return x0 + h * t;
+        }
+        return x0 + h * solveHermite(y0, y1, tangents[k] * h, tangents[k + 1] * h, ratio, t);
+    }
+
+    /**
+     * Parameter {@code t} in [0, 1] at which the monotone segment reaches {@code target}, starting
+     * from the linear estimate and falling back to bisection whenever Newton leaves the bracket.
+     */
+    private double solveHermite(double y0, double y1, double m0, double m1, double target, double t) {
+        double low = 0;
+        double high = 1;
+        for (int i = 0; i < MAX_NEWTON_ITERATIONS; i++) {
+            double residual = (hermite(y0, y1, m0, m1, t) - target) * direction;
+            if (residual == 0) {
+                return t;
+            }
+            if (residual > 0) {
+                high = t;
+            } else {
+                low = t;
+            }
+            double derivative = 6 * t * (1 - t) * (y1 - y0) + (1 - t) * (1 - 3 * t) * m0 + t * (3 * t - 2) * m1;
+            double next = t - residual * direction / derivative;
+            if (!(next > low && next < high)) {
+                next = (low + high) / 2;
+            }
+            if (Math.abs(next - t) <= 1e-15 || high - low <= 1e-15) {
+                return next;
+            }
+            t = next;
+        }
+        return t;
+    }
+
+    @Override
+    public double toSignal(double physical, CurrentLoopRange range) {
+        double denominator = range.getPhysicalEnd() - range.getPhysicalStart();
+        if (denominator == 0) {
+            return Double.NaN;
+        }
+        double ratio = forwardRatio((physical - range.getPhysicalStart()) / denominator);
+        return ratio * (range.getSignalEnd() - range.getSignalStart()) + range.getSignalStart();
+    }
+
+    @Override
+    public double toPhysical(double signal, CurrentLoopRange range) {
+        double denominator = range.getSignalEnd() - range.getSignalStart();
+        if (denominator == 0) {
+            return Double.NaN;
+        }
+        double ratio = inverseRatio((signal - range.getSignalStart()) / denominator);
+        return ratio * (range.getPhysicalEnd() - range.getPhysicalStart()) + range.getPhysicalStart();
+    }
+
+    @Override
+    public void toSignal(CurrentLoopRange range, double[] physical, int physicalOffset,
+                         double[] signal, int signalOffset, int length) {
+        Objects.checkFromIndexSize(physicalOffset, length, physical.length);
+        Objects.checkFromIndexSize(signalOffset, length, signal.length);
+
+        double start = range.getPhysicalStart();
+        double denominator = range.getPhysicalEnd() - start;
+        double low = range.getSignalStart();
+        double span = range.getSignalEnd() - low;
+        if (denominator == 0) {
+            Arrays.fill(signal, signalOffset, signalOffset + length, Double.NaN);
+            return;
+        }
+        int segment = 0;
+        for (int i = 0; i < length; i++) {
+            double ratio = (physical[physicalOffset + i] - start) / denominator;
+            segment = segment(this.physical, ratio, segment);
+            signal[signalOffset + i] = forward(ratio, segment) * span + low;
+        }
+    }
+
+    @Override
+    public void toPhysical(CurrentLoopRange range, double[] signal, int signalOffset,
+                           double[] physical, int physicalOffset, int length) {
+        Objects.checkFromIndexSize(signalOffset, length, signal.length);
+        Objects.checkFromIndexSize(physicalOffset, length, physical.length);
+
+        double start = range.getPhysicalStart();
+        double span = range.getPhysicalEnd() - start;
+        double low = range.getSignalStart();
+        double denominator = range.getSignalEnd() - low;
+        if (denominator == 0) {
+            Arrays.fill(physical, physicalOffset, physicalOffset + length, Double.NaN);
+            return;
+        }
+        int segment = 0;
+        for (int i = 0; i < length; i++) {
+            double ratio = (signal[signalOffset + i] - low) / denominator;
+            segment = segment(signalKeys, ratio * direction, segment);
+            physical[physicalOffset + i] = inverse(ratio, segment) * span + start;
+        }
+    }
+
+    @Override
+    public void signalLimits(CurrentLoopRange range, double accuracyClass, double[] physical, int physicalOffset,
+                             double[] lower, int lowerOffset, double[] upper, int upperOffset, int length) {
+        Objects.checkFromIndexSize(physicalOffset, length, physical.length);
+        Objects.checkFromIndexSize(lowerOffset, length, lower.length);
+        Objects.checkFromIndexSize(upperOffset, length, upper.length);
+
+        double start = range.getPhysicalStart();
+        double denominator = range.getPhysicalEnd() - start;
+        double low = range.getSignalStart();
+        double span = range.getSignalEnd() - low;
+        double tolerance = Math.abs(accuracyClass) / 100;
+        if (denominator == 0 || !Double.isFinite(tolerance)) {
+            Arrays.fill(lower, lowerOffset, lowerOffset + length, Double.NaN);
+            Arrays.fill(upper, upperOffset, upperOffset + length, Double.NaN);
+            return;
+        }
+        int from = 0;
+        int to = 0;
+        for (int i = 0; i < length; i++) {
+            double ratio = (physical[physicalOffset + i] - start) / denominator;
+            from = segment(this.physical, ratio - tolerance, from);
+            to = segment(this.physical, ratio + tolerance, to);
+            double a = forward(ratio - tolerance, from) * span + low;
+            double b = forward(ratio + tolerance, to) * span + low;
+            lower[lowerOffset + i] = Math.min(a, b);
+            upper[upperOffset + i] = Math.max(a, b);
+        }
+    }
+
+    @Override
+    public void physicalLimits(CurrentLoopRange range, double accuracyClass, double[] signal, int signalOffset,
+                               double[] lower, int lowerOffset, double[] upper, int upperOffset, int length) {
+        Objects.checkFromIndexSize(signalOffset, length, signal.length);
+        Objects.checkFromIndexSize(lowerOffset, length, lower.length);
+        Objects.checkFromIndexSize(upperOffset, length, upper.length);
+
+        double start = range.getPhysicalStart();
+        double span = range.getPhysicalEnd() - start;
+        double low = range.getSignalStart();
+        double denominator = range.getSignalEnd() - low;
+        double tolerance = Math.abs(accuracyClass) / 100;
+        if (denominator == 0 || !Double.isFinite(tolerance)) {
+            Arrays.fill(lower, lowerOffset, lowerOffset + length, Double.NaN);
+            Arrays.fill(upper, upperOffset, upperOffset + length, Double.NaN);
+            return;
+        }
+        int from = 0;
+        int to = 0;
+        for (int i = 0; i < length; i++) {
+            double ratio = (signal[signalOffset + i] - low) / denominator;
+            from = segment(signalKeys, (ratio - tolerance) * direction, from);
+            to = segment(signalKeys, (ratio + tolerance) * direction, to);
+            double a = inverse(ratio - tolerance, from) * span + start;
+            double b = inverse(ratio + tolerance, to) * span + start;
+            lower[lowerOffset + i] = Math.min(a, b);
+            upper[upperOffset + i] = Math.max(a, b);
+        }
+    }
+
+    /**
+     * Writes the table in a compact binary form read back by {@link #readFrom(DataInput)}.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        // Stored by ordinal: new interpolations go at the end of the enum.
+        out.writeByte(interpolation.ordinal());
+        out.writeInt(physical.length);
+        for (double value : physical) {
+            out.writeDouble(value);
+        }
+        for (double value : signal) {
+            out.writeDouble(value);
+        }
+    }
+
+    /**
+     * @throws IOException if the data is not a table written by {@link #writeTo(DataOutput)}
+     */
+    public static PiecewiseScale readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a piecewise scale");
+        }
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported piecewise scale version " + version);
+        }
+        int ordinal = in.readUnsignedByte();
+        Interpolation[] interpolations = Interpolation.values();
+        if (ordinal >= interpolations.length) {
+            throw new IOException("Unknown interpolation " + ordinal);
+        }
+        int count = in.readInt();
+        if (count < 2 || count > MAX_POINTS) {
+            throw new IOException("Invalid point count " + count);
+        }
+        double[] physical = new double[count];
+        double[] signal = new double[count];
+        for (int i = 0; i < count; i++) {
+            physical[i] = in.readDouble();
+        }
+        for (int i = 0; i < count; i++) {
+            signal[i] = in.readDouble();
+        }
+        try {
+            return new PiecewiseScale(interpolations[ordinal], physical, signal);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid piecewise scale: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PiecewiseScale)) {
+            return false;
+        }
+        PiecewiseScale other = (PiecewiseScale) o;
+        return interpolation == other.interpolation
+                && Arrays.equals(physical, other.physical)
+                && Arrays.equals(signal, other.signal);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = interpolation.hashCode();
+        result = 31 * result + Arrays.hashCode(physical);
+        result = 31 * result + Arrays.hashCode(signal);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "PiecewiseScale{interpolation=" + interpolation + ", points=" + physical.length
+                + ", physical=" + physical[0] + ".." + physical[physical.length - 1]
+                + ", signal=" + signal[0] + ".." + signal[signal.length - 1] + '}';
+    }
+}
@@ -0,0 +1,97 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registry of the quantities available in the unit converter.
+ */
+public final class Quantities {
+
+    /** Base unit: kelvin. */
+    public static final Quantity TEMPERATURE = new Quantity.Builder("temperature")
+            .unit("kelvin", "0", "1")
+            .unit("celsius", "273.15", "1")
+            .unit("fahrenheit", "459.67", "5/9")
+            .unit("rankine", "0", "5/9")
+            .unit("reaumur", "218.52", "5/4")
+            .build();
+
+    /** Base unit: second. Month and year are the 365-day calendar averages. */
+    public static final Quantity TIME = new Quantity.Builder("time")
+            .unit("second", "0", "1")
+            .unit("microsecond", "0", "1/1000000")
+            .unit("millisecond", "0", "1/1000")
+            .unit("minute", "0", "60")
+            .unit("hour", "0", "3600")
+            .unit("day", "0", "86400")
+            .unit("week", "0", "604800")
+            .unit("month", "0", "2628000")
+            .unit("year", "0", "31536000")
+            .unit("century", "0", "3153600000")
+            .unit("millennium", "0", "31536000000")
+            .build();
+
+    /** Base unit: metre per second. */
+    public static final Quantity SPEED = new Quantity.Builder("speed")
+            .compoundUnit("metre_per_second", "m/s")
+            .compoundUnit("kilometre_per_hour", "km/h")
+            .compoundUnit("metre_per_minute", "m/min")
+            .compoundUnit("centimetre_per_second", "cm/s")
+            .compoundUnit("millimetre_per_second", "mm/s")
+            .compoundUnit("kilometre_per_second", "km/s")
+            .compoundUnit("knot", "kn")
+            .compoundUnit("mile_per_hour", "mi/h")
+            .compoundUnit("foot_per_second", "ft/s")
+            .compoundUnit("foot_per_minute", "ft/min")
+            .compoundUnit("inch_per_second", "in/s")
+            .build();
+
+    /**
+     * Base unit: absolute pascal. Gauge units read from the standard atmosphere, 101 325 Pa; for
+     * differences of pressure the absolute units apply.
+     */
+    public static final Quantity PRESSURE = new Quantity.Builder("pressure")
+            .compoundUnit("pascal", "Pa")
+            .compoundUnit("kilopascal", "kPa")
+            .compoundUnit("megapascal", "MPa")
+            .compoundUnit("bar", "bar")
+            .compoundUnit("millibar", "mbar")
+            .compoundUnit("kgf_per_square_centimetre", "kgf/cm2")
+            .compoundUnit("millimetre_of_mercury", "mmHg")
+            .compoundUnit("millimetre_of_water", "mmH2O")
+            .compoundUnit("inch_of_water", "inH2O")
+            .compoundUnit("psi", "psi")
+            .compoundUnit("atmosphere", "atm")
+            .compoundUnit("torr", "Torr")
+            .compoundUnit("kilopascal_gauge", "kPa", "atm")
+            .compoundUnit("megapascal_gauge", "MPa", "atm")
+            .compoundUnit("bar_gauge", "bar", "atm")
+            .compoundUnit("kgf_per_square_centimetre_gauge", "kgf/cm2", "atm")
+            .compoundUnit("psi_gauge", "psi", "atm")
+            .build();
+
+    private static final List<Quantity> ALL = Collections.unmodifiableList(Arrays.asList(
+            TEMPERATURE,
+            TIME,
+            SPEED,
+            PRESSURE
+    ));
+
+    private Quantities() {
+    }
+
+    public static List<Quantity> all() {
+        return ALL;
+    }
+
+    public static Quantity get(String key) {
+        for (Quantity quantity : ALL) {
+            if (quantity.getKey().equals(key)) {
+                return quantity;
+            }
+        }
+        throw new IllegalArgumentException("Unknown quantity " + key);
+    }
+}
@@ -0,0 +1,256 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A physical quantity with its units declared as data.
+ * <p>
+ * Each unit is an affine map to the base unit. The coefficients are precomputed into
+ * primitive arrays. Between two units the scales are folded into one factor per pair, rounded
+ * once from the exact fraction and kept in a flat source-major matrix, so a conversion is one
+ * multiply and converting one value into every unit is a single loop over a matrix row:
+ * {@code out[i] = (value + offset[s]) * factor[s][i] - offset[i]}.
+ * <p>
+ * Units of compound quantities are declared as {@link UnitExpression}s with
+ * {@link Builder#compoundUnit(String, String)}, which makes a new quantity a registry entry.
+ * <p>
+ * The {@code Exact} methods convert decimals without going through {@code double}; see
+ * {@link #convertExact(BigDecimal, int, int, MathContext)}.
+ */
+public final class Quantity {
+
+    private final String key;
+    private final List<UnitDefinition> units;
+    private final double[] offsets;
+    private final double[] toBaseFactors;
+    private final double[] fromBaseFactors;
+    // Unit-to-unit scale, source-major.
+    private final double[] pairFactors;
+
+    private volatile ExactFactors exactFactors;
+
+    private Quantity(String key, List<UnitDefinition> units) {
+        this.key = key;
+        this.units = Collections.unmodifiableList(new ArrayList<>(units));
+        int size = units.size();
+        offsets = new double[size];
+        toBaseFactors = new double[size];
+        fromBaseFactors = new double[size];
+        for (int i = 0; i < size; i++) {
+            UnitDefinition unit = units.get(i);
+            double numerator = unit.getNumerator().doubleValue();
+            double denominator = unit.getDenominator().doubleValue();
+            offsets[i] = unit.getOffset().doubleValue();
+            toBaseFactors[i] = numerator / denominator;
+            fromBaseFactors[i] = denominator / numerator;
+        }
+        pairFactors = new double[size * size];
+        for (int source = 0; source < size; source++) {
+            UnitDefinition from = units.get(source);
+            for (int target = 0; target < size; target++) {
+                UnitDefinition to = units.get(target);
+                pairFactors[source * size + target] = from.getNumerator().multiply(to.getDenominator())
+                        .divide(from.getDenominator().multiply(to.getNumerator()), MathContext.DECIMAL128)
+                        .doubleValue();
+            }
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int size() {
+        return units.size();
+    }
+
+    public List<UnitDefinition> getUnits() {
+        return units;
+    }
+
+    public UnitDefinition getUnit(int index) {
+        return units.get(index);
+    }
+
+    public int indexOf(String unitKey) {
+        for (int i = 0; i < units.size(); i++) {
+            if (units.get(i).getKey().equals(unitKey)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown unit " + unitKey + " of " + key);
+    }
+
+    public double toBase(int unit, double value) {
+        return (value + offsets[unit]) * toBaseFactors[unit];
+    }
+
+    public double fromBase(int unit, double base) {
+        return base * fromBaseFactors[unit] - offsets[unit];
+    }
+
+    /**
+     * Scale from {@code fromUnit} to {@code toUnit}, offsets aside.
+     */
+    public double factor(int fromUnit, int toUnit) {
+        return pairFactors[fromUnit * offsets.length + toUnit];
+    }
+
+    public double convert(double value, int fromUnit, int toUnit) {
+        return (value + offsets[fromUnit]) * pairFactors[fromUnit * offsets.length + toUnit] - offsets[toUnit];
+    }
+
+    /**
+     * Converts {@code length} values in place, with the same arithmetic as the scalar
+     * {@link #convert(double, int, int)}.
+     */
+    public void convert(int fromUnit, int toUnit, double[] values, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, values.length);
+        double fromOffset = offsets[fromUnit];
+        double factor = pairFactors[fromUnit * offsets.length + toUnit];
+        double toOffset = offsets[toUnit];
+        for (int i = offset, end = offset + length; i < end; i++) {
+            values[i] = (values[i] + fromOffset) * factor - toOffset;
+        }
+    }
+
+    /**
+     * Converts {@code value} given in {@code sourceUnit} into every unit of the quantity.
+     *
+     * @param out receives one value per unit, in declaration order; length must be at least {@link #size()}
+     */
+    public void convertAll(int sourceUnit, double value, double[] out) {
+        int size = offsets.length;
+        if (out.length < size) {
+            throw new IllegalArgumentException("Output holds " + out.length + " values, " + size + " required");
+        }
+        // One row of the pair factors: a multiply and a subtract per unit, with no dependency
+        // between iterations.
+        double shifted = value + offsets[sourceUnit];
+        int row = sourceUnit * size;
+        for (int i = 0; i < size; i++) {
+            out[i] = shifted * pairFactors[row + i] - offsets[i];
+        }
+        // The source unit is echoed back unchanged rather than round-tripped through the base.
+        out[sourceUnit] = value;
+    }
+
+    /**
+     * Exact counterpart of {@link #convert(double, int, int)}. The unit coefficients are combined
+     * into reduced integer fractions, computed once per quantity and cached, so the only rounding
+     * is the final division, to {@code context}. Results that terminate within the precision of
+     * {@code context} are exact.
+     */
+    public BigDecimal convertExact(BigDecimal value, int fromUnit, int toUnit, MathContext context) {
+        return exactFactors().convert(value, fromUnit, toUnit, context);
+    }
+
+    /**
+     * Exact counterpart of {@link #convertAll(int, double, double[])}.
+     */
+    public void convertAllExact(int sourceUnit, BigDecimal value, MathContext context, BigDecimal[] out) {
+        int size = units.size();
+        if (out.length < size) {
+            throw new IllegalArgumentException("Output holds " + out.length + " values, " + size + " required");
+        }
+        ExactFactors factors = exactFactors();
+        for (int i = 0; i < size; i++) {
+            out[i] = i == sourceUnit ? value : factors.convert(value, sourceUnit, i, context);
+        }
+    }
+
+    private ExactFactors exactFactors() {
+        ExactFactors factors = exactFactors;
+        if (factors == null) {
+            // Immutable, so a concurrent duplicate build is harmless.
+            factors = new ExactFactors(units);
+            exactFactors = factors;
+        }
+        return factors;
+    }
+
+    @Override
+    public String toString() {
+        return key + units;
+    }
+
+    public static final class Builder {
+
+        private final String key;
+        private final List<UnitDefinition> units = new ArrayList<>();
+        // Dimension shared by the compound units, set by the first one.
+        private UnitExpression dimension;
+
+        public Builder(String key) {
+            this.key = key;
+        }
+
+        /**
+         * @see UnitDefinition#of(String, String, String)
+         */
+        public Builder unit(String unitKey, String offset, String scale) {
+            return unit(UnitDefinition.of(unitKey, offset, scale));
+        }
+
+        /**
+         * Declares a unit by a compound expression such as {@code "km/h"}; its scale is relative to
+         * the coherent SI unit of the dimension, which should then be the base unit of the quantity.
+         *
+         * @throws IllegalArgumentException if the expression is invalid or measures another dimension
+         *                                  than the compound units declared before it
+         * @see UnitExpression
+         */
+        public Builder compoundUnit(String unitKey, String expression) {
+            UnitExpression unit = commensurable(unitKey, expression);
+            return unit(new UnitDefinition(unitKey, BigDecimal.ZERO, unit.getNumerator(), unit.getDenominator()));
+        }
+
+        /**
+         * Declares a compound unit that reads zero at {@code zero}, another expression of the same
+         * dimension: a gauge pressure unit is {@code compoundUnit("kilopascal_gauge", "kPa", "atm")}.
+         * The offset is exact when it terminates and rounded to {@link MathContext#DECIMAL128}
+         * otherwise.
+         */
+        public Builder compoundUnit(String unitKey, String expression, String zero) {
+            UnitExpression unit = commensurable(unitKey, expression);
+            UnitExpression origin = commensurable(unitKey, zero);
+            BigDecimal offset = origin.getNumerator().multiply(unit.getDenominator())
+                    .divide(origin.getDenominator().multiply(unit.getNumerator()), MathContext.DECIMAL128);
+            return unit(new UnitDefinition(unitKey, offset.stripTrailingZeros(),
+                    unit.getNumerator(), unit.getDenominator()));
+        }
+
+        private UnitExpression commensurable(String unitKey, String expression) {
+            UnitExpression unit = UnitExpression.parse(expression);
+            if (dimension == null) {
+                dimension = unit;
+            } else if (!dimension.isCommensurable(unit)) {
+                throw new IllegalArgumentException("Unit " + unitKey + " is " + unit.getDimension() + ", not "
+                        + dimension.getDimension() + " as the other units of " + key);
+            }
+            return unit;
+        }
+
+        public Builder unit(UnitDefinition unit) {
+            for (UnitDefinition existing : units) {
+                if (existing.getKey().equals(unit.getKey())) {
+                    throw new IllegalArgumentException("Duplicate unit " + unit.getKey() + " of " + key);
+                }
+            }
+            units.add(unit);
+            return this;
+        }
+
+        public Quantity build() {
+            if (units.isEmpty()) {
+                throw new IllegalStateException("Quantity " + key + " has no units");
+            }
+            return new Quantity(key, units);
+        }
+    }
+}
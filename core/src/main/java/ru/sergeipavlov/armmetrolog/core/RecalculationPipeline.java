@@ -0,0 +1,90 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Debounced, latest-wins recalculation for converter screens.
+ * <p>
+ * {@link #submit} is called from the UI thread on every edit. Submissions arriving within the
+ * debounce window replace each other; the surviving task is computed on a single background
+ * thread and its result is delivered through {@code resultExecutor} (the main-thread executor
+ * on Android) only if no newer submission was made in the meantime.
+ * <p>
+ * State written before a submission (for example buffers filled during screen setup) is visible
+ * to the task, since handing a task to an executor establishes happens-before.
+ */
+public final class RecalculationPipeline {
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 50;
+
+    public interface Task<R> {
+        R compute();
+    }
+
+    public interface Callback<R> {
+        void onResult(R result);
+    }
+
+    private final Executor resultExecutor;
+    private final long debounceMillis;
+    private final ScheduledExecutorService worker;
+    private final AtomicLong generation = new AtomicLong();
+
+    private ScheduledFuture<?> pending;
+
+    public RecalculationPipeline(Executor resultExecutor) {
+        this(resultExecutor, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    public RecalculationPipeline(Executor resultExecutor, long debounceMillis) {
+        this.resultExecutor = resultExecutor;
+        this.debounceMillis = debounceMillis;
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recalculation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public synchronized <R> void submit(Task<R> task, Callback<R> callback) {
+        long id = generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = worker.schedule(() -> {
+            if (generation.get() != id) {
+                return;
+            }
+            R result = task.compute();
+            if (generation.get() != id) {
+                return;
+            }
+            resultExecutor.execute(() -> {
+                if (generation.get() == id) {
+                    callback.onResult(result);
+                }
+            });
+        }, debounceMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops the pending task and any result not yet delivered.
+     */
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    public void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+}
@@ -0,0 +1,108 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.Objects;
+
+/**
+ * Immutable resistance thermometer: a nominal static characteristic and the resistance R0 at
+ * 0 °C in ohms. Temperatures are in degrees Celsius.
+ * <p>
+ * The scalar conversions are exact. The array overloads for resistance → temperature read the
+ * interpolating inverse of the characteristic, built once per characteristic on first use and
+ * shared by every thermometer with it; it stays within {@link #getMaxTableError()} of the exact
+ * inverse. Input and output may be the same array.
+ */
+public final class ResistanceThermometer {
+
+    public static final ResistanceThermometer PT100 = new ResistanceThermometer(RtdCharacteristic.PLATINUM_385, 100);
+    public static final ResistanceThermometer PT500 = new ResistanceThermometer(RtdCharacteristic.PLATINUM_385, 500);
+    public static final ResistanceThermometer PT1000 = new ResistanceThermometer(RtdCharacteristic.PLATINUM_385, 1000);
+    public static final ResistanceThermometer P50 = new ResistanceThermometer(RtdCharacteristic.PLATINUM_391, 50);
+    public static final ResistanceThermometer P100 = new ResistanceThermometer(RtdCharacteristic.PLATINUM_391, 100);
+    public static final ResistanceThermometer CU50 = new ResistanceThermometer(RtdCharacteristic.COPPER_428, 50);
+    public static final ResistanceThermometer CU100 = new ResistanceThermometer(RtdCharacteristic.COPPER_428, 100);
+
+    private final RtdCharacteristic characteristic;
+    private final double nominalResistance;
+
+    public ResistanceThermometer(RtdCharacteristic characteristic, double nominalResistance) {
+        this.characteristic = Objects.requireNonNull(characteristic, "characteristic");
+        if (!(nominalResistance > 0) || Double.isInfinite(nominalResistance)) {
+            throw new IllegalArgumentException("Nominal resistance must be positive: " + nominalResistance);
+        }
+        this.nominalResistance = nominalResistance;
+    }
+
+    public RtdCharacteristic getCharacteristic() {
+        return characteristic;
+    }
+
+    public double getNominalResistance() {
+        return nominalResistance;
+    }
+
+    public double toResistance(double temperature) {
+        return nominalResistance * characteristic.ratio(temperature);
+    }
+
+    public double toTemperature(double resistance) {
+        return characteristic.temperature(resistance / nominalResistance);
+    }
+
+    public void toResistance(double[] temperatures, double[] resistances) {
+        toResistance(temperatures, 0, resistances, 0, temperatures.length);
+    }
+
+    public void toResistance(double[] temperatures, int temperatureOffset,
+                             double[] resistances, int resistanceOffset, int length) {
+        Objects.checkFromIndexSize(temperatureOffset, length, temperatures.length);
+        Objects.checkFromIndexSize(resistanceOffset, length, resistances.length);
+        for (int i = 0; i < length; i++) {
+            resistances[resistanceOffset + i] = nominalResistance * characteristic.ratio(temperatures[temperatureOffset + i]);
+        }
+    }
+
+    public void toTemperature(double[] resistances, double[] temperatures) {
+        toTemperature(resistances, 0, temperatures, 0, resistances.length);
+    }
+
+    public void toTemperature(double[] resistances, int resistanceOffset,
+                              double[] temperatures, int temperatureOffset, int length) {
+        Objects.checkFromIndexSize(resistanceOffset, length, resistances.length);
+        Objects.checkFromIndexSize(temperatureOffset, length, temperatures.length);
+        RtdCharacteristic.InverseTable table = characteristic.inverseTable();
+        double scale = 1 / nominalResistance;
+        for (int i = 0; i < length; i++) {
+            temperatures[temperatureOffset + i] = table.temperature(resistances[resistanceOffset + i] * scale);
+        }
+    }
+
+    /**
+     * Largest difference in °C between the array and the scalar resistance → temperature conversion.
+     */
+    public double getMaxTableError() {
+        return characteristic.inverseTable().getMaxError();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ResistanceThermometer)) {
+            return false;
+        }
+        ResistanceThermometer other = (ResistanceThermometer) o;
+        return characteristic == other.characteristic
+                && Double.compare(nominalResistance, other.nominalResistance) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * characteristic.hashCode() + Double.hashCode(nominalResistance);
+    }
+
+    @Override
+    public String toString() {
+        return "ResistanceThermometer{characteristic=" + characteristic + ", r0=" + nominalResistance + '}';
+    }
+}
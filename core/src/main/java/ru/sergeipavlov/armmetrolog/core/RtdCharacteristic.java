@@ -0,0 +1,237 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+/**
+ * Nominal static characteristics of resistance thermometers per GOST 6651-2009 (IEC 60751 for
+ * platinum with α = 0.00385 °C⁻¹): the resistance ratio W = R(t) / R(0 °C) as a function of the
+ * temperature in degrees Celsius.
+ * <p>
+ * Platinum follows the Callendar–Van Dusen equation, W = 1 + At + Bt² above 0 °C and
+ * W = 1 + At + Bt² + C(t − 100)t³ below. Copper with α = 0.00428 °C⁻¹ is linear above 0 °C and
+ * W = 1 + At + Bt(t + 6.7) + Ct³ below; copper with α = 0.00426 °C⁻¹ is linear throughout.
+ * <p>
+ * The inverse is closed-form above 0 °C. Below, it starts from the inverse polynomial of the
+ * standard and is finished with Newton iterations on the characteristic. Temperatures and ratios
+ * outside the range of the characteristic yield {@link Double#NaN}.
+ */
+public enum RtdCharacteristic {
+    PLATINUM_385(true, 0.00385, 3.9083e-3, -5.775e-7, -4.183e-12, -200, 850,
+            new double[]{255.819, 9.14550, -2.92363, 1.79090}),
+    PLATINUM_391(true, 0.00391, 3.9690e-3, -5.841e-7, -4.330e-12, -200, 850,
+            new double[]{251.903, 8.80035, -2.91506, 1.67611}),
+    COPPER_428(false, 0.00428, 4.28e-3, -6.2032e-7, 8.5154e-10, -180, 200,
+            new double[]{233.87, 7.9370, -2.0062, -0.3953}),
+    COPPER_426(false, 0.00426, 4.26e-3, 0, 0, -50, 200,
+            new double[]{1 / 4.26e-3});
+
+    // R / R0 is rarely exact in binary, so the ratio limits are widened by a few ulps to keep the
+    // end points of the range convertible.
+    private static final double RATIO_LIMIT_MARGIN = 1e-14;
+    private static final int MAX_NEWTON_ITERATIONS = 8;
+    private static final double NEWTON_TOLERANCE = 1e-10;
+
+    private final boolean platinum;
+    private final double alpha;
+    private final double a;
+    private final double b;
+    private final double c;
+    private final double minTemperature;
+    private final double maxTemperature;
+    // Seed for the inverse below 0 °C: t = d1 x + d2 x² + … with x = W - 1.
+    private final double[] inverseBelowZero;
+    private final double minRatio;
+    private final double maxRatio;
+
+    private volatile InverseTable inverseTable;
+
+    RtdCharacteristic(boolean platinum, double alpha, double a, double b, double c,
+                      double minTemperature, double maxTemperature, double[] inverseBelowZero) {
+        this.platinum = platinum;
+        this.alpha = alpha;
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.minTemperature = minTemperature;
+        this.maxTemperature = maxTemperature;
+        this.inverseBelowZero = inverseBelowZero;
+        minRatio = belowZero(minTemperature) - RATIO_LIMIT_MARGIN;
+        maxRatio = aboveZero(maxTemperature) + RATIO_LIMIT_MARGIN;
+    }
+
+    /**
+     * Temperature coefficient α, the mean relative change of resistance per °C between 0 and 100 °C.
+     */
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public double getMinTemperature() {
+        return minTemperature;
+    }
+
+    public double getMaxTemperature() {
+        return maxTemperature;
+    }
+
+    public double getMinRatio() {
+        return minRatio;
+    }
+
+    public double getMaxRatio() {
+        return maxRatio;
+    }
+
+    /**
+     * Resistance ratio W = R(t) / R(0 °C).
+     */
+    public double ratio(double temperature) {
+        if (!(temperature >= minTemperature && temperature <= maxTemperature)) {
+            return Double.NaN;
+        }
+        return temperature >= 0 ? aboveZero(temperature) : belowZero(temperature);
+    }
+
+    public double temperature(double ratio) {
+        if (!(ratio >= minRatio && ratio <= maxRatio)) {
+            return Double.NaN;
+        }
+        double x = ratio - 1;
+        if (x >= 0) {
+            // Root of B t² + A t - x written without the cancellation of the textbook formula.
+            return platinum ? 2 * x / (a + Math.sqrt(a * a + 4 * b * x)) : x / a;
+        }
+        double temperature = 0;
+        for (int i = inverseBelowZero.length - 1; i >= 0; i--) {
+            temperature = (temperature + inverseBelowZero[i]) * x;
+        }
+        for (int iteration = 0; iteration < MAX_NEWTON_ITERATIONS; iteration++) {
+            double step = (belowZero(temperature) - ratio) / slopeBelowZero(temperature);
+            temperature -= step;
+            if (Math.abs(step) < NEWTON_TOLERANCE) {
+                break;
+            }
+        }
+        return temperature;
+    }
+
+    /**
+     * dW/dt, used to build the interpolating inverse.
+     */
+    double slope(double temperature) {
+        return temperature >= 0 ? a + (platinum ? 2 * b * temperature : 0) : slopeBelowZero(temperature);
+    }
+
+    /**
+     * Shared interpolating inverse, built on first use.
+     */
+    InverseTable inverseTable() {
+        InverseTable table = inverseTable;
+        if (table == null) {
+            synchronized (this) {
+                table = inverseTable;
+                if (table == null) {
+                    table = new InverseTable(this);
+                    inverseTable = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    private double aboveZero(double t) {
+        return platinum ? 1 + (a + b * t) * t : 1 + a * t;
+    }
+
+    private double belowZero(double t) {
+        if (platinum) {
+            return 1 + (a + (b + c * (t - 100) * t) * t) * t;
+        }
+        return 1 + (a + b * (t + 6.7) + c * t * t) * t;
+    }
+
+    private double slopeBelowZero(double t) {
+        if (platinum) {
+            return a + (2 * b + (4 * t - 300) * c * t) * t;
+        }
+        return a + b * (2 * t + 6.7) + 3 * c * t * t;
+    }
+
+    /**
+     * Temperature as a function of W, tabulated on a uniform grid over the whole range and
+     * answered by cubic Hermite interpolation with the exact slopes at the nodes. Segments whose
+     * interpolation error, checked at build time, exceeds {@link #ERROR_BOUND} (only the one
+     * across the kink of the copper characteristic at 0 °C) are evaluated exactly.
+     */
+    static final class InverseTable {
+
+        static final double ERROR_BOUND = 1e-6;
+
+        private static final int SEGMENTS = 2048;
+
+        private final RtdCharacteristic characteristic;
+        private final double start;
+        private final double scale;
+        // Per segment: c0 + c1 u + c2 u² + c3 u³ over u = 0…1.
+        private final double[] coefficients = new double[SEGMENTS * 4];
+        private final boolean[] exact = new boolean[SEGMENTS];
+        private final double maxError;
+
+        InverseTable(RtdCharacteristic characteristic) {
+            this.characteristic = characteristic;
+            start = characteristic.minRatio;
+            double step = (characteristic.maxRatio - start) / SEGMENTS;
+            scale = 1 / step;
+
+            double previous = characteristic.minTemperature;
+            double previousSlope = step / characteristic.slope(previous);
+            double worst = 0;
+            for (int i = 0; i < SEGMENTS; i++) {
+                double next = i == SEGMENTS - 1
+                        ? characteristic.maxTemperature
+                        : characteristic.temperature(start + (i + 1) * step);
+                double nextSlope = step / characteristic.slope(next);
+                double delta = next - previous;
+                int base = i * 4;
+                coefficients[base] = previous;
+                coefficients[base + 1] = previousSlope;
+                coefficients[base + 2] = 3 * delta - 2 * previousSlope - nextSlope;
+                coefficients[base + 3] = previousSlope + nextSlope - 2 * delta;
+
+                double error = 0;
+                for (int k = 1; k <= 3; k++) {
+                    double u = k / 4.0;
+                    double expected = characteristic.temperature(start + (i + u) * step);
+                    error = Math.max(error, Math.abs(interpolate(base, u) - expected));
+                }
+                if (error > ERROR_BOUND) {
+                    exact[i] = true;
+                } else if (error > worst) {
+                    worst = error;
+                }
+                previous = next;
+                previousSlope = nextSlope;
+            }
+            maxError = worst;
+        }
+
+        double getMaxError() {
+            return maxError;
+        }
+
+        double temperature(double ratio) {
+            double position = (ratio - start) * scale;
+            if (!(position >= 0 && position <= SEGMENTS)) {
+                return Double.NaN;
+            }
+            int index = Math.min((int) position, SEGMENTS - 1);
+            if (exact[index]) {
+                return characteristic.temperature(ratio);
+            }
+            return interpolate(index * 4, position - index);
+        }
+
+        private double interpolate(int base, double u) {
+            return coefficients[base]
+                    + (coefficients[base + 1] + (coefficients[base + 2] + coefficients[base + 3] * u) * u) * u;
+        }
+    }
+}
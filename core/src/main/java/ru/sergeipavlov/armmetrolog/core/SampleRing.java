@@ -0,0 +1,120 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue of timestamped samples for exactly one producer and one consumer thread.
+ * <p>
+ * Samples live in two primitive arrays indexed by a power-of-two mask, so neither side allocates or
+ * blocks. Each side publishes its position with an ordered write and keeps a cached copy of the
+ * other side's position, reading the shared one only when the cache says the ring is full or empty.
+ * When the consumer falls behind, new samples are dropped and counted rather than overwriting
+ * unread ones.
+ */
+public final class SampleRing {
+
+    private final long[] times;
+    private final double[] values;
+    private final int mask;
+
+    // Next position to write, advanced by the producer only.
+    private final AtomicLong head = new AtomicLong();
+    // Next position to read, advanced by the consumer only.
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Producer's view of tail.
+    private long tailCache;
+    // Consumer's view of head.
+    private long headCache;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public SampleRing(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        times = new long[size];
+        values = new double[size];
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Producer side.
+     *
+     * @return {@code false} if the ring was full and the sample was dropped
+     */
+    public boolean offer(long time, double value) {
+        long position = head.get();
+        if (position - tailCache > mask) {
+            tailCache = tail.get();
+            if (position - tailCache > mask) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+        int index = (int) position & mask;
+        times[index] = time;
+        values[index] = value;
+        head.lazySet(position + 1);
+        return true;
+    }
+
+    /**
+     * Consumer side: moves up to {@code maxCount} of the oldest samples into the arrays.
+     *
+     * @return number of samples moved
+     */
+    public int drain(long[] times, double[] values, int offset, int maxCount) {
+        Objects.checkFromIndexSize(offset, maxCount, times.length);
+        Objects.checkFromIndexSize(offset, maxCount, values.length);
+        long position = tail.get();
+        if (headCache - position < maxCount) {
+            headCache = head.get();
+        }
+        int count = (int) Math.min(headCache - position, maxCount);
+        for (int i = 0; i < count; i++) {
+            int index = (int) (position + i) & mask;
+            times[offset + i] = this.times[index];
+            values[offset + i] = this.values[index];
+        }
+        tail.lazySet(position + count);
+        return count;
+    }
+
+    /**
+     * Consumer side: discards everything but the newest sample and returns its value, or
+     * {@link Double#NaN} if the ring is empty.
+     */
+    public double drainLatest() {
+        long position = tail.get();
+        headCache = head.get();
+        if (headCache == position) {
+            return Double.NaN;
+        }
+        double value = values[(int) (headCache - 1) & mask];
+        tail.lazySet(headCache);
+        return value;
+    }
+
+    /**
+     * Number of unread samples; only a snapshot while the other side is running.
+     */
+    public int size() {
+        return (int) (head.get() - tail.get());
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,161 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+/**
+ * One candidate characteristic fitted to as-found points by {@link ScaleFitter}.
+ * <p>
+ * A scale-type candidate keeps the shape of its {@link CurrentLoopScaleType} and fits the signal at
+ * the start and end of the physical range, {@code signal = c0 + c1 * shape(ratio)}, with the span
+ * sign of the type; besides the residuals of the fit it reports the deviation of every point from
+ * the nominal characteristic of the entered ranges. A polynomial candidate fits
+ * {@code signal = c0 + c1 * ratio + … + cn * ratio^n}. Here {@code ratio} is the physical value as
+ * a fraction of the entered physical range.
+ */
+public final class ScaleFit {
+
+    // Fraction of the signal span below which residuals are treated as zero.
+    private static final double RESOLUTION = 1e-7;
+
+    private final CurrentLoopScaleType scaleType;
+    private final int degree;
+    private final CurrentLoopRange range;
+    private final double[] coefficients;
+    private final double[] residuals;
+    private final double[] deviations;
+    private final double standardError;
+    private final double residualRms;
+    private final double informationCriterion;
+
+    ScaleFit(CurrentLoopScaleType scaleType, int degree, CurrentLoopRange range, double[] coefficients,
+             double[] residuals, double[] deviations) {
+        this.scaleType = scaleType;
+        this.degree = degree;
+        this.range = range;
+        this.coefficients = coefficients;
+        this.residuals = residuals;
+        this.deviations = deviations;
+        double sum = 0;
+        for (double residual : residuals) {
+            sum += residual * residual;
+        }
+        residualRms = Math.sqrt(sum / residuals.length);
+        int n = residuals.length;
+        int p = coefficients.length;
+        int freedom = n - p;
+        standardError = freedom > 0 ? Math.sqrt(sum / freedom) : Double.NaN;
+        if (freedom > 1) {
+            // The floor keeps rounding noise of exact points from deciding between exact fits.
+            double floor = RESOLUTION * (range.getSignalEnd() - range.getSignalStart());
+            double variance = Math.max(sum / n, floor * floor);
+            informationCriterion = n * Math.log(variance) + 2 * p + 2.0 * p * (p + 1) / (freedom - 1);
+        } else {
+            informationCriterion = sum == sum ? Double.POSITIVE_INFINITY : Double.NaN;
+        }
+    }
+
+    /**
+     * @return the fitted scale type, or {@code null} for a polynomial
+     */
+    public CurrentLoopScaleType getScaleType() {
+        return scaleType;
+    }
+
+    /**
+     * @return the polynomial degree, or 0 for a scale type
+     */
+    public int getPolynomialDegree() {
+        return degree;
+    }
+
+    /**
+     * {@link CurrentLoopScaleType#name()} of the scale type, or {@code POLYNOMIAL_n}.
+     */
+    public String getName() {
+        return scaleType != null ? scaleType.name() : "POLYNOMIAL_" + degree;
+    }
+
+    public CurrentLoopRange getRange() {
+        return range;
+    }
+
+    public int getPointCount() {
+        return residuals.length;
+    }
+
+    public double[] getCoefficients() {
+        return coefficients.clone();
+    }
+
+    /**
+     * Residual standard error {@code sqrt(SSR / (n - p))}; {@link Double#NaN} if the fit failed or
+     * there are no more points than coefficients.
+     */
+    public double getStandardError() {
+        return standardError;
+    }
+
+    /**
+     * Corrected Akaike criterion {@code n ln(SSR / n) + 2p + 2p(p + 1) / (n - p - 1)}, the ranking
+     * criterion, lower is better. Unlike the standard error it charges every extra coefficient, so a
+     * polynomial outranks the scale type only when it explains more than the measurement noise.
+     * Infinite when there are too few points to tell, {@link Double#NaN} if the fit failed.
+     */
+    public double getInformationCriterion() {
+        return informationCriterion;
+    }
+
+    public double getResidualRms() {
+        return residualRms;
+    }
+
+    /**
+     * Measured minus fitted signal at every point, in signal units.
+     */
+    public double[] getResiduals() {
+        return residuals.clone();
+    }
+
+    /**
+     * Measured minus nominal signal at every point, in percent of the entered signal span, or
+     * {@code null} for a polynomial.
+     */
+    public double[] getDeviations() {
+        return deviations != null ? deviations.clone() : null;
+    }
+
+    /**
+     * Largest absolute deviation from the nominal characteristic in percent of the signal span, to
+     * compare with the accuracy class; {@link Double#NaN} for a polynomial.
+     */
+    public double getMaxAbsDeviation() {
+        if (deviations == null) {
+            return Double.NaN;
+        }
+        double max = 0;
+        for (double deviation : deviations) {
+            max = Math.max(max, Math.abs(deviation));
+        }
+        return max;
+    }
+
+    /**
+     * Fitted signal at a physical value.
+     */
+    public double predict(double physical) {
+        double denominator = range.getPhysicalEnd() - range.getPhysicalStart();
+        double ratio = (physical - range.getPhysicalStart()) / denominator;
+        if (scaleType != null) {
+            return coefficients[0] + coefficients[1] * scaleType.forwardRatio(ratio);
+        }
+        double value = 0;
+        for (int k = coefficients.length - 1; k >= 0; k--) {
+            value = value * ratio + coefficients[k];
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "ScaleFit{" + getName() + ", standardError=" + standardError
+                + ", maxAbsDeviation=" + getMaxAbsDeviation() + '}';
+    }
+}
@@ -0,0 +1,430 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Finds the characteristic a transmitter is configured for from as-found points, pairs of applied
+ * physical value and measured signal.
+ * <p>
+ * Every {@link CurrentLoopScaleType} and every polynomial from degree 2 up to the configured one,
+ * the straight line being {@code LINEAR} already, is fitted by
+ * least squares, and the candidates are ranked by {@link ScaleFit#getInformationCriterion()}, best
+ * first, so that extra polynomial coefficients do not win by fitting the noise. Scale types
+ * fit only the signal at both ends of the range, in closed form; when the best span has the wrong
+ * sign for the type, such as an increasing transmitter tried as descending, the fit falls back to a
+ * flat line so that the type ranks low. Polynomials are solved by Householder QR, which stays
+ * accurate where the normal equations would square the condition number.
+ * <p>
+ * {@link #fitAll(List)} fits many instruments, such as those of a file read by
+ * {@link #readCsv(Reader, CurrentLoopRange)}, in parallel on the executor with the calling thread
+ * taking part.
+ *
+ * @see ScaleFit
+ */
+public final class ScaleFitter {
+
+    public static final int MAX_POLYNOMIAL_DEGREE = 5;
+
+    // Instruments taken at a time; one fit takes a few microseconds.
+    static final int CHUNK_INSTRUMENTS = 16;
+
+    private static final Comparator<ScaleFit> BY_CRITERION = (a, b) -> {
+        double x = a.getInformationCriterion();
+        double y = b.getInformationCriterion();
+        // Failed fits, with a NaN error, go last.
+        if (Double.isNaN(x) || Double.isNaN(y)) {
+            return Boolean.compare(Double.isNaN(x), Double.isNaN(y));
+        }
+        return Double.compare(x, y);
+    };
+
+    /**
+     * As-found points of one instrument against its entered ranges.
+     */
+    public static final class Measurements {
+
+        private final CurrentLoopRange range;
+        private final double[] physical;
+        private final double[] signal;
+
+        /**
+         * @param physical applied physical values; copied
+         * @param signal   measured signals at the same points; copied
+         */
+        public Measurements(CurrentLoopRange range, double[] physical, double[] signal) {
+            if (physical.length != signal.length) {
+                throw new IllegalArgumentException("Point count mismatch: " + physical.length
+                        + " and " + signal.length);
+            }
+            this.range = Objects.requireNonNull(range, "range");
+            this.physical = physical.clone();
+            this.signal = signal.clone();
+        }
+
+        public CurrentLoopRange getRange() {
+            return range;
+        }
+
+        public int getPointCount() {
+            return physical.length;
+        }
+    }
+
+    private final int maxPolynomialDegree;
+    private final Executor executor;
+    private final int parallelism;
+
+    /**
+     * Reads the as-found points of many instruments, one point per line: instrument tag, applied
+     * physical value and measured signal, split on {@code ';'} or tabs. Lines whose last two columns
+     * are not numbers, such as headers and blank lines, are skipped. The points of an instrument
+     * need not be on adjacent lines.
+     *
+     * @param range the range all instruments are checked against
+     * @return the points by tag, in the order the tags first appear
+     * @throws IllegalArgumentException if an instrument has fewer than two points
+     */
+    public static Map<String, Measurements> readCsv(Reader reader, CurrentLoopRange range) throws IOException {
+        Objects.requireNonNull(range, "range");
+        Map<String, double[][]> points = new LinkedHashMap<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            char[] text = line.toCharArray();
+            int first = indexOfDelimiter(text, 0);
+            int second = first < 0 ? -1 : indexOfDelimiter(text, first + 1);
+            if (second < 0) {
+                continue;
+            }
+            int end = indexOfDelimiter(text, second + 1);
+            double physical = DecimalParser.parse(text, first + 1, second);
+            double signal = DecimalParser.parse(text, second + 1, end < 0 ? text.length : end);
+            if (Double.isNaN(physical) || Double.isNaN(signal)) {
+                continue;
+            }
+            String tag = line.substring(0, first).trim();
+            double[][] columns = points.computeIfAbsent(tag, key -> new double[2][8]);
+            int count = counts.getOrDefault(tag, 0);
+            if (count == columns[0].length) {
+                columns[0] = Arrays.copyOf(columns[0], count * 2);
+                columns[1] = Arrays.copyOf(columns[1], count * 2);
+            }
+            columns[0][count] = physical;
+            columns[1][count] = signal;
+            counts.put(tag, count + 1);
+        }
+
+        Map<String, Measurements> instruments = new LinkedHashMap<>();
+        for (Map.Entry<String, double[][]> entry : points.entrySet()) {
+            int count = counts.get(entry.getKey());
+            if (count < 2) {
+                throw new IllegalArgumentException("Instrument \"" + entry.getKey() + "\" has " + count + " point");
+            }
+            double[][] columns = entry.getValue();
+            instruments.put(entry.getKey(), new Measurements(range, Arrays.copyOf(columns[0], count),
+                    Arrays.copyOf(columns[1], count)));
+        }
+        return instruments;
+    }
+
+    private static int indexOfDelimiter(char[] text, int from) {
+        for (int i = from; i < text.length; i++) {
+            if (text[i] == ';' || text[i] == '\t') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private ScaleFitter(Builder builder) {
+        maxPolynomialDegree = builder.maxPolynomialDegree;
+        executor = builder.executor;
+        parallelism = builder.parallelism;
+    }
+
+    public List<ScaleFit> fit(CurrentLoopRange range, double[] physical, double[] signal) {
+        if (physical.length != signal.length) {
+            throw new IllegalArgumentException("Point count mismatch: " + physical.length + " and " + signal.length);
+        }
+        return fit(range, physical, signal, 0, physical.length);
+    }
+
+    /**
+     * Fits all candidates to {@code length} points.
+     *
+     * @return the candidates, best first
+     * @throws IllegalArgumentException if there are fewer than two points or the physical range is
+     *                                  empty or not finite
+     */
+    public List<ScaleFit> fit(CurrentLoopRange range, double[] physical, double[] signal, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, physical.length);
+        Objects.checkFromIndexSize(offset, length, signal.length);
+        double denominator = range.getPhysicalEnd() - range.getPhysicalStart();
+        if (length < 2 || denominator == 0 || !Double.isFinite(denominator)) {
+            throw new IllegalArgumentException("Need two points and a physical range, got " + length
+                    + " points over " + range);
+        }
+        double[] ratios = new double[length];
+        double[] measured = Arrays.copyOfRange(signal, offset, offset + length);
+        for (int i = 0; i < length; i++) {
+            ratios[i] = (physical[offset + i] - range.getPhysicalStart()) / denominator;
+        }
+
+        CurrentLoopScaleType[] types = CurrentLoopScaleType.values();
+        List<ScaleFit> fits = new ArrayList<>(types.length + Math.max(maxPolynomialDegree - 1, 0));
+        double[] basis = new double[length];
+        for (CurrentLoopScaleType type : types) {
+            fits.add(fitScaleType(type, range, physical, offset, ratios, measured, basis));
+        }
+        for (int degree = 2; degree <= maxPolynomialDegree && degree < length; degree++) {
+            fits.add(fitPolynomial(degree, range, ratios, measured));
+        }
+        // Stable: on ties, such as exact points too few to tell, scale types stay first.
+        fits.sort(BY_CRITERION);
+        return Collections.unmodifiableList(fits);
+    }
+
+    private static ScaleFit fitScaleType(CurrentLoopScaleType type, CurrentLoopRange range, double[] physical,
+                                         int offset, double[] ratios, double[] measured, double[] basis) {
+        int n = ratios.length;
+        double low = type.isDescending() ? range.getSignalEnd() : range.getSignalStart();
+        double nominalSpan = (type.isDescending() ? range.getSignalStart() : range.getSignalEnd()) - low;
+        double meanBasis = 0;
+        double meanSignal = 0;
+        for (int i = 0; i < n; i++) {
+            basis[i] = type.forwardRatio(ratios[i]);
+            meanBasis += basis[i];
+            meanSignal += measured[i];
+        }
+        meanBasis /= n;
+        meanSignal /= n;
+        double sxx = 0;
+        double sxy = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = basis[i] - meanBasis;
+            sxx += dx * dx;
+            sxy += dx * (measured[i] - meanSignal);
+        }
+        double gain = sxx > 0 ? sxy / sxx : Double.NaN;
+        if (gain * nominalSpan < 0) {
+            gain = 0;
+        }
+        double intercept = meanSignal - gain * meanBasis;
+
+        double[] residuals = new double[n];
+        double[] deviations = new double[n];
+        double scale = 100 / Math.abs(range.getSignalEnd() - range.getSignalStart());
+        for (int i = 0; i < n; i++) {
+            residuals[i] = measured[i] - (intercept + gain * basis[i]);
+            deviations[i] = (measured[i] - type.toSignal(physical[offset + i], range)) * scale;
+        }
+        return new ScaleFit(type, 0, range, new double[]{intercept, gain}, residuals, deviations);
+    }
+
+    private static ScaleFit fitPolynomial(int degree, CurrentLoopRange range, double[] ratios, double[] measured) {
+        int n = ratios.length;
+        int m = degree + 1;
+        // Column-major Vandermonde matrix.
+        double[] matrix = new double[m * n];
+        for (int i = 0; i < n; i++) {
+            double power = 1;
+            for (int k = 0; k < m; k++) {
+                matrix[k * n + i] = power;
+                power *= ratios[i];
+            }
+        }
+        double[] coefficients = new double[m];
+        if (!leastSquares(matrix, n, m, measured.clone(), coefficients)) {
+            Arrays.fill(coefficients, Double.NaN);
+        }
+        double[] residuals = new double[n];
+        for (int i = 0; i < n; i++) {
+            double value = 0;
+            for (int k = m - 1; k >= 0; k--) {
+                value = value * ratios[i] + coefficients[k];
+            }
+            residuals[i] = measured[i] - value;
+        }
+        return new ScaleFit(null, degree, range, coefficients, residuals, null);
+    }
+
+    /**
+     * Solves {@code min |A x - b|} by Householder QR. {@code a} is column-major {@code n x m} and is
+     * overwritten, as is {@code b}.
+     *
+     * @return false if {@code A} is rank-deficient, for example with fewer distinct points than
+     * coefficients
+     */
+    static boolean leastSquares(double[] a, int n, int m, double[] b, double[] x) {
+        double[] diagonal = new double[m];
+        for (int k = 0; k < m; k++) {
+            int column = k * n;
+            double columnNorm = 0;
+            double norm = 0;
+            for (int i = 0; i < n; i++) {
+                double value = a[column + i];
+                columnNorm += value * value;
+                if (i >= k) {
+                    norm += value * value;
+                }
+            }
+            norm = Math.sqrt(norm);
+            if (!(norm > 1e-12 * Math.sqrt(columnNorm))) {
+                return false;
+            }
+            double alpha = a[column + k] > 0 ? -norm : norm;
+            a[column + k] -= alpha;
+            double vNorm = 0;
+            for (int i = k; i < n; i++) {
+                vNorm += a[column + i] * a[column + i];
+            }
+            for (int j = k + 1; j < m; j++) {
+                int other = j * n;
+                double dot = 0;
+                for (int i = k; i < n; i++) {
+                    dot += a[column + i] * a[other + i];
+                }
+                double factor = 2 * dot / vNorm;
+                for (int i = k; i < n; i++) {
+                    a[other + i] -= factor * a[column + i];
+                }
+            }
+            double dot = 0;
+            for (int i = k; i < n; i++) {
+                dot += a[column + i] * b[i];
+            }
+            double factor = 2 * dot / vNorm;
+            for (int i = k; i < n; i++) {
+                b[i] -= factor * a[column + i];
+            }
+            diagonal[k] = alpha;
+        }
+        for (int k = m - 1; k >= 0; k--) {
+            double sum = b[k];
+            for (int j = k + 1; j < m; j++) {
+                sum -= a[j * n + k] * x[j];
+            }
+            x[k] = sum / diagonal[k];
+        }
+        return true;
+    }
+
+    /**
+     * Fits every instrument, in parallel. The calling thread takes part and waits for the helpers;
+     * interrupting it stops all of them before their next chunk of
+     * {@value #CHUNK_INSTRUMENTS} instruments.
+     *
+     * @return the ranked candidates of every instrument, in input order
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public List<List<ScaleFit>> fitAll(List<Measurements> instruments) throws InterruptedException {
+        Measurements[] tasks = instruments.toArray(new Measurements[0]);
+        // Every slot is written by one thread only, and the latch publishes it.
+        List<List<ScaleFit>> results = new ArrayList<>(Collections.nCopies(tasks.length, null));
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread caller = Thread.currentThread();
+        int chunkCount = (tasks.length + CHUNK_INSTRUMENTS - 1) / CHUNK_INSTRUMENTS;
+        Runnable work = () -> {
+            int chunk;
+            while (failure.get() == null && !caller.isInterrupted()
+                    && (chunk = next.getAndIncrement()) < chunkCount) {
+                int end = Math.min(tasks.length, (chunk + 1) * CHUNK_INSTRUMENTS);
+                for (int index = chunk * CHUNK_INSTRUMENTS; index < end; index++) {
+                    Measurements task = tasks[index];
+                    try {
+                        results.set(index, fit(task.range, task.physical, task.signal));
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                        return;
+                    }
+                }
+            }
+        };
+
+        int helpers = Math.min(parallelism, chunkCount) - 1;
+        CountDownLatch done = new CountDownLatch(Math.max(helpers, 0));
+        for (int i = 0; i < helpers; i++) {
+            executor.execute(() -> {
+                try {
+                    work.run();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        work.run();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            // Waiting cleared the interrupt status, so stop the helpers through the counter.
+            next.set(chunkCount);
+            throw e;
+        }
+        Throwable error = failure.get();
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException("Scale fitting cancelled");
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    public static final class Builder {
+
+        private int maxPolynomialDegree = 3;
+        private Executor executor = ForkJoinPool.commonPool();
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Highest polynomial degree tried, below 2 for scale types only. Default 3.
+         */
+        public Builder maxPolynomialDegree(int maxPolynomialDegree) {
+            if (maxPolynomialDegree < 0 || maxPolynomialDegree > MAX_POLYNOMIAL_DEGREE) {
+                throw new IllegalArgumentException("Polynomial degree out of range: " + maxPolynomialDegree);
+            }
+            this.maxPolynomialDegree = maxPolynomialDegree;
+            return this;
+        }
+
+        public Builder executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor, "executor");
+            return this;
+        }
+
+        /**
+         * Number of threads fitting at once, the calling thread included.
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public ScaleFitter build() {
+            return new ScaleFitter(this);
+        }
+    }
+}
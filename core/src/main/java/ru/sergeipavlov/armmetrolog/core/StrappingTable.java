@@ -0,0 +1,503 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Tank strapping (calibration) table: volume against level, linearly interpolated between rows.
+ * <p>
+ * The rows are held in two primitive arrays. Level to volume and back are found by binary search;
+ * the array forms search onwards from the last segment found, so a sorted sweep such as a report
+ * or a trend costs a few comparisons per value. Levels must increase strictly and volumes must not decrease; on
+ * a flat stretch the inverse gives the lowest level holding the volume. Values outside the table
+ * give {@link Double#NaN}.
+ * <p>
+ * Tables are imported once from text with {@link #readCsv(Reader)}, where a section marked as the
+ * critical zone replaces the main rows over its level range, stored with
+ * {@link #writeTo(DataOutput)} and reloaded later with {@link #map(FileChannel)}, which copies the
+ * raw doubles out of the mapped file without parsing. Instances are immutable and thread-safe.
+ */
+public final class StrappingTable {
+
+    public static final int MAX_ROWS = 1 << 22;
+
+    private static final int MAGIC = 0x53545250;
+    private static final int FORMAT_VERSION = 1;
+    // Magic, version, row count and padding, so that the doubles start 8-byte aligned.
+    private static final int HEADER_BYTES = 16;
+
+    private final double[] levels;
+    private final double[] volumes;
+
+    private StrappingTable(double[] levels, double[] volumes) {
+        this.levels = levels;
+        this.volumes = volumes;
+    }
+
+    /**
+     * @param levels  strictly increasing levels; copied
+     * @param volumes non-decreasing volumes at those levels; copied
+     * @throws IllegalArgumentException if there are fewer than two rows, more than
+     *                                  {@link #MAX_ROWS}, or the columns are not monotonic
+     */
+    public static StrappingTable of(double[] levels, double[] volumes) {
+        if (levels.length != volumes.length) {
+            throw new IllegalArgumentException("Row count mismatch: " + levels.length + " and " + volumes.length);
+        }
+        double[] l = levels.clone();
+        double[] v = volumes.clone();
+        validate(l, v);
+        return new StrappingTable(l, v);
+    }
+
+    private static void validate(double[] levels, double[] volumes) {
+        int n = levels.length;
+        if (n < 2 || n > MAX_ROWS) {
+            throw new IllegalArgumentException("Need 2 to " + MAX_ROWS + " rows, got " + n);
+        }
+        for (int i = 0; i < n; i++) {
+            if (!Double.isFinite(levels[i]) || !Double.isFinite(volumes[i])) {
+                throw new IllegalArgumentException("Row " + i + " is not finite");
+            }
+            if (i > 0 && !(levels[i] > levels[i - 1])) {
+                throw new IllegalArgumentException("Levels must increase strictly at row " + i);
+            }
+            if (i > 0 && volumes[i] < volumes[i - 1]) {
+                throw new IllegalArgumentException("Volumes must not decrease at row " + i);
+            }
+        }
+    }
+
+    /**
+     * Returns a table whose rows between the first and the last level of {@code zone} are those of
+     * the zone, as when a finer critical-zone table supersedes the main one there.
+     *
+     * @throws IllegalArgumentException if the merged table is not monotonic
+     */
+    public StrappingTable withCriticalZone(StrappingTable zone) {
+        double from = zone.levels[0];
+        double to = zone.levels[zone.levels.length - 1];
+        int before = lowerBound(levels, from);
+        int after = levels.length - upperBound(levels, to);
+        int n = before + zone.levels.length + after;
+        double[] l = new double[n];
+        double[] v = new double[n];
+        System.arraycopy(levels, 0, l, 0, before);
+        System.arraycopy(volumes, 0, v, 0, before);
+        System.arraycopy(zone.levels, 0, l, before, zone.levels.length);
+        System.arraycopy(zone.volumes, 0, v, before, zone.levels.length);
+        System.arraycopy(levels, levels.length - after, l, n - after, after);
+        System.arraycopy(volumes, levels.length - after, v, n - after, after);
+        validate(l, v);
+        return new StrappingTable(l, v);
+    }
+
+    // First index with keys[i] >= key.
+    private static int lowerBound(double[] keys, double key) {
+        return lowerBound(keys, 0, keys.length, key);
+    }
+
+    private static int lowerBound(double[] keys, int low, int high, double key) {
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // First index with keys[i] > key.
+    private static int upperBound(double[] keys, double key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public int getRowCount() {
+        return levels.length;
+    }
+
+    public double[] getLevels() {
+        return levels.clone();
+    }
+
+    public double[] getVolumes() {
+        return volumes.clone();
+    }
+
+    public double getMinLevel() {
+        return levels[0];
+    }
+
+    public double getMaxLevel() {
+        return levels[levels.length - 1];
+    }
+
+    public double getMaxVolume() {
+        return volumes[volumes.length - 1];
+    }
+
+    /**
+     * Segment {@code i} with {@code keys[i] < key <= keys[i + 1]}, galloping up from {@code hint} so
+     * that a sorted sweep costs a few comparisons per value; -1 for {@code key == keys[0]}. The key
+     * must lie within the table.
+     */
+    private static int segment(double[] keys, double key, int hint) {
+        if (!(keys[hint] < key)) {
+            return lowerBound(keys, 0, hint + 1, key) - 1;
+        }
+        int last = keys.length - 1;
+        int low = hint;
+        int high = hint + 1;
+        for (int step = 1; high < last && keys[high] < key; step <<= 1) {
+            low = high;
+            high = Math.min(last, high + step);
+        }
+        return lowerBound(keys, low + 1, high + 1, key) - 1;
+    }
+
+    private static double interpolate(double[] keys, double[] values, double key, int segment) {
+        if (segment < 0) {
+            return values[0];
+        }
+        double k0 = keys[segment];
+        double v0 = values[segment];
+        return v0 + (values[segment + 1] - v0) * ((key - k0) / (keys[segment + 1] - k0));
+    }
+
+    /**
+     * Volume at a level; {@link Double#NaN} outside the table.
+     */
+    public double volume(double level) {
+        if (!(level >= levels[0] && level <= levels[levels.length - 1])) {
+            return Double.NaN;
+        }
+        return interpolate(levels, volumes, level, lowerBound(levels, level) - 1);
+    }
+
+    /**
+     * Lowest level holding a volume; {@link Double#NaN} outside the table.
+     */
+    public double level(double volume) {
+        if (!(volume >= volumes[0] && volume <= volumes[volumes.length - 1])) {
+            return Double.NaN;
+        }
+        return interpolate(volumes, levels, volume, lowerBound(volumes, volume) - 1);
+    }
+
+    public void volume(double[] level, double[] volume) {
+        if (level.length != volume.length) {
+            throw new IllegalArgumentException("Length mismatch: " + level.length + " and " + volume.length);
+        }
+        volume(level, 0, volume, 0, level.length);
+    }
+
+    /**
+     * Array form of {@link #volume(double)}; input and output may be the same array.
+     */
+    public void volume(double[] level, int levelOffset, double[] volume, int volumeOffset, int length) {
+        convert(levels, volumes, level, levelOffset, volume, volumeOffset, length);
+    }
+
+    public void level(double[] volume, double[] level) {
+        if (volume.length != level.length) {
+            throw new IllegalArgumentException("Length mismatch: " + volume.length + " and " + level.length);
+        }
+        level(volume, 0, level, 0, volume.length);
+    }
+
+    /**
+     * Array form of {@link #level(double)}; input and output may be the same array.
+     */
+    public void level(double[] volume, int volumeOffset, double[] level, int levelOffset, int length) {
+        convert(volumes, levels, volume, volumeOffset, level, levelOffset, length);
+    }
+
+    private static void convert(double[] keys, double[] values, double[] in, int inOffset,
+                                double[] out, int outOffset, int length) {
+        Objects.checkFromIndexSize(inOffset, length, in.length);
+        Objects.checkFromIndexSize(outOffset, length, out.length);
+        double first = keys[0];
+        double last = keys[keys.length - 1];
+        int hint = 0;
+        for (int i = 0; i < length; i++) {
+            double key = in[inOffset + i];
+            if (!(key >= first && key <= last)) {
+                out[outOffset + i] = Double.NaN;
+                continue;
+            }
+            int segment = segment(keys, key, hint);
+            if (segment >= 0) {
+                hint = segment;
+            }
+            out[outOffset + i] = interpolate(keys, values, key, segment);
+        }
+    }
+
+    /**
+     * Volume for level transmitter signals, the physical range of {@code range} being the level in
+     * the units of the table: the signals are converted by {@code scale}, normally
+     * {@link CurrentLoopScaleType#LINEAR}, and then looked up. Input and output may be the same
+     * array.
+     */
+    public void volumeFromSignal(CurrentLoopScale scale, CurrentLoopRange range, double[] signal, int signalOffset,
+                                 double[] volume, int volumeOffset, int length) {
+        scale.toPhysical(range, signal, signalOffset, volume, volumeOffset, length);
+        volume(volume, volumeOffset, volume, volumeOffset, length);
+    }
+
+    /**
+     * Reads a table from delimited text, one row per line as level and volume. Lines that do not
+     * start with a number, such as headers and blank lines, are skipped, except that a line
+     * mentioning the critical zone ({@code "critical"} or {@code "критическ"}) starts a section
+     * that replaces the main rows over its level range, see {@link #withCriticalZone}.
+     * <p>
+     * Columns are split on {@code ';'} or tabs, else on blanks, else on a comma; the decimal
+     * separator is {@code '.'} or {@code ','} as in {@link DecimalParser}.
+     *
+     * @throws IllegalArgumentException if a row is incomplete or the table is not monotonic
+     */
+    public static StrappingTable readCsv(Reader reader) throws IOException {
+        char[] text = new char[1 << 16];
+        int size = 0;
+        int read;
+        while ((read = reader.read(text, size, text.length - size)) >= 0) {
+            size += read;
+            if (size == text.length) {
+                text = Arrays.copyOf(text, size * 2);
+            }
+        }
+
+        Columns main = new Columns();
+        Columns zone = null;
+        int lineNumber = 0;
+        for (int start = 0; start < size; ) {
+            int end = start;
+            while (end < size && text[end] != '\n') {
+                end++;
+            }
+            lineNumber++;
+            Columns target = zone != null ? zone : main;
+            if (!parseRow(text, start, end, target)) {
+                String line = new String(text, start, end - start).toLowerCase(Locale.ROOT);
+                if (line.contains("critical") || line.contains("критическ")) {
+                    if (zone != null) {
+                        throw new IllegalArgumentException("Second critical zone at line " + lineNumber);
+                    }
+                    zone = new Columns();
+                } else if (startsWithNumber(text, start, end)) {
+                    throw new IllegalArgumentException("Incomplete row at line " + lineNumber);
+                }
+            }
+            start = end + 1;
+        }
+        StrappingTable table = of(main.levels(), main.volumes());
+        return zone != null ? table.withCriticalZone(of(zone.levels(), zone.volumes())) : table;
+    }
+
+    private static boolean parseRow(char[] text, int start, int end, Columns target) {
+        char delimiter = ',';
+        for (int i = start; i < end; i++) {
+            char c = text[i];
+            if (c == ';' || c == '\t') {
+                delimiter = c;
+                break;
+            }
+        }
+        if (delimiter == ',') {
+            // Blanks separate columns only between two non-blank runs.
+            int first = start;
+            while (first < end && text[first] <= ' ') {
+                first++;
+            }
+            int last = end;
+            while (last > first && text[last - 1] <= ' ') {
+                last--;
+            }
+            for (int i = first; i < last; i++) {
+                if (text[i] == ' ') {
+                    delimiter = ' ';
+                    break;
+                }
+            }
+        }
+        int split = start;
+        while (split < end && text[split] != delimiter) {
+            split++;
+        }
+        if (split == end) {
+            return false;
+        }
+        int second = split + 1;
+        if (delimiter == ' ') {
+            while (second < end && text[second] == ' ') {
+                second++;
+            }
+        }
+        double level = DecimalParser.parse(text, start, split);
+        double volume = DecimalParser.parse(text, second, end);
+        if (Double.isNaN(level) || Double.isNaN(volume)) {
+            return false;
+        }
+        target.add(level, volume);
+        return true;
+    }
+
+    private static boolean startsWithNumber(char[] text, int start, int end) {
+        while (start < end && text[start] <= ' ') {
+            start++;
+        }
+        return start < end && (Character.isDigit(text[start]) || text[start] == '-' || text[start] == '+'
+                || text[start] == '.');
+    }
+
+    /**
+     * Growing pair of primitive columns.
+     */
+    private static final class Columns {
+
+        private double[] levels = new double[1024];
+        private double[] volumes = new double[1024];
+        private int size;
+
+        void add(double level, double volume) {
+            if (size == levels.length) {
+                levels = Arrays.copyOf(levels, size * 2);
+                volumes = Arrays.copyOf(volumes, size * 2);
+            }
+            levels[size] = level;
+            volumes[size++] = volume;
+        }
+
+        double[] levels() {
+            return Arrays.copyOf(levels, size);
+        }
+
+        double[] volumes() {
+            return Arrays.copyOf(volumes, size);
+        }
+    }
+
+    /**
+     * Writes the table in a compact binary form read back by {@link #readFrom(DataInput)} and
+     * {@link #map(FileChannel)}.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(levels.length);
+        out.writeInt(0);
+        for (double level : levels) {
+            out.writeDouble(level);
+        }
+        for (double volume : volumes) {
+            out.writeDouble(volume);
+        }
+    }
+
+    /**
+     * @throws IOException if the data is not a table written by {@link #writeTo(DataOutput)}
+     */
+    public static StrappingTable readFrom(DataInput in) throws IOException {
+        int count = readHeader(in.readInt(), in.readInt(), in.readInt());
+        in.readInt();
+        double[] levels = new double[count];
+        double[] volumes = new double[count];
+        for (int i = 0; i < count; i++) {
+            levels[i] = in.readDouble();
+        }
+        for (int i = 0; i < count; i++) {
+            volumes[i] = in.readDouble();
+        }
+        return checked(levels, volumes);
+    }
+
+    /**
+     * Loads a table written by {@link #writeTo(DataOutput)} from the start of a file by mapping it,
+     * which moves the columns with two bulk copies. The channel is not closed here.
+     *
+     * @throws IOException if the file is not such a table
+     */
+    public static StrappingTable map(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            throw new IOException("Not a strapping table");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        int count = readHeader(buffer.getInt(), buffer.getInt(), buffer.getInt());
+        if (size < HEADER_BYTES + 16L * count) {
+            throw new IOException("Truncated strapping table");
+        }
+        buffer.position(HEADER_BYTES);
+        DoubleBuffer doubles = buffer.asDoubleBuffer();
+        double[] levels = new double[count];
+        double[] volumes = new double[count];
+        doubles.get(levels);
+        doubles.get(volumes);
+        return checked(levels, volumes);
+    }
+
+    private static int readHeader(int magic, int version, int count) throws IOException {
+        if (magic != MAGIC) {
+            throw new IOException("Not a strapping table");
+        }
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported strapping table version " + version);
+        }
+        if (count < 2 || count > MAX_ROWS) {
+            throw new IOException("Invalid strapping table row count " + count);
+        }
+        return count;
+    }
+
+    private static StrappingTable checked(double[] levels, double[] volumes) throws IOException {
+        try {
+            validate(levels, volumes);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt strapping table", e);
+        }
+        return new StrappingTable(levels, volumes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StrappingTable)) {
+            return false;
+        }
+        StrappingTable that = (StrappingTable) o;
+        return Arrays.equals(levels, that.levels) && Arrays.equals(volumes, that.volumes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(levels) + Arrays.hashCode(volumes);
+    }
+
+    @Override
+    public String toString() {
+        return "StrappingTable{" + levels.length + " rows, " + levels[0] + "…" + getMaxLevel()
+                + " -> " + volumes[0] + "…" + getMaxVolume() + '}';
+    }
+}
@@ -0,0 +1,194 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.Objects;
+
+import static ru.sergeipavlov.armmetrolog.core.Its90Coefficients.*;
+
+/**
+ * Standard thermocouple types with their ITS-90 reference functions.
+ * <p>
+ * Temperatures are in degrees Celsius and EMF in millivolts. Without a cold junction argument the
+ * reference junction is at 0 °C; with one, the EMF is the one measured against a reference junction
+ * at that temperature. Values outside the range of the reference function, or of its inverse for
+ * EMF → temperature, yield {@link Double#NaN}.
+ * <p>
+ * The inverse polynomials of the standard are only accurate to a few hundredths of a degree, so
+ * {@link #toTemperature(double)} refines their result with one Newton step on the reference function.
+ * The result then matches {@link #toEmf(double)} to better than 0.0001 °C, and a value converted
+ * back and forth does not drift.
+ * <p>
+ * The array overloads convert whole tables without allocating; input and output may be the same
+ * array. The coefficient tables are loaded once and shared.
+ */
+public enum Thermocouple {
+    B(B_TEMPERATURES, B_EMF, B_VOLTAGES, B_TEMPERATURE),
+    E(E_TEMPERATURES, E_EMF, E_VOLTAGES, E_TEMPERATURE),
+    J(J_TEMPERATURES, J_EMF, J_VOLTAGES, J_TEMPERATURE),
+    K(K_TEMPERATURES, K_EMF, K_VOLTAGES, K_TEMPERATURE),
+    N(N_TEMPERATURES, N_EMF, N_VOLTAGES, N_TEMPERATURE),
+    R(R_TEMPERATURES, R_EMF, R_VOLTAGES, R_TEMPERATURE),
+    S(S_TEMPERATURES, S_EMF, S_VOLTAGES, S_TEMPERATURE),
+    T(T_TEMPERATURES, T_EMF, T_VOLTAGES, T_TEMPERATURE);
+
+    // The standard rounds the EMF limits of the inverse to the microvolt; without a margin of one
+    // microvolt the end points of the temperature range could not always be converted back.
+    private static final double EMF_LIMIT_MARGIN = 0.001;
+
+    private final double[] temperatures;
+    private final double[][] emfCoefficients;
+    private final double[] voltages;
+    private final double[][] temperatureCoefficients;
+
+    Thermocouple(double[] temperatures, double[][] emfCoefficients, double[] voltages,
+                 double[][] temperatureCoefficients) {
+        this.temperatures = temperatures;
+        this.emfCoefficients = emfCoefficients;
+        this.voltages = voltages.clone();
+        this.voltages[0] -= EMF_LIMIT_MARGIN;
+        this.voltages[voltages.length - 1] += EMF_LIMIT_MARGIN;
+        this.temperatureCoefficients = temperatureCoefficients;
+    }
+
+    public double getMinTemperature() {
+        return temperatures[0];
+    }
+
+    public double getMaxTemperature() {
+        return temperatures[temperatures.length - 1];
+    }
+
+    /**
+     * Lowest EMF that can be converted to a temperature, with the reference junction at 0 °C.
+     */
+    public double getMinEmf() {
+        return voltages[0];
+    }
+
+    public double getMaxEmf() {
+        return voltages[voltages.length - 1];
+    }
+
+    public double toEmf(double temperature) {
+        int range = findRange(temperatures, temperature);
+        return range < 0 ? Double.NaN : emf(range, temperature);
+    }
+
+    public double toEmf(double temperature, double coldJunction) {
+        return toEmf(temperature) - toEmf(coldJunction);
+    }
+
+    public double toTemperature(double emf) {
+        int range = findRange(voltages, emf);
+        return range < 0 ? Double.NaN : temperature(range, emf);
+    }
+
+    public double toTemperature(double emf, double coldJunction) {
+        return toTemperature(emf + toEmf(coldJunction));
+    }
+
+    public void toEmf(double coldJunction, double[] temperatures, double[] emfs) {
+        toEmf(coldJunction, temperatures, 0, emfs, 0, temperatures.length);
+    }
+
+    public void toEmf(double coldJunction, double[] temperatures, int temperatureOffset,
+                      double[] emfs, int emfOffset, int length) {
+        Objects.checkFromIndexSize(temperatureOffset, length, temperatures.length);
+        Objects.checkFromIndexSize(emfOffset, length, emfs.length);
+
+        double coldEmf = toEmf(coldJunction);
+        int range = 0;
+        for (int i = 0; i < length; i++) {
+            double temperature = temperatures[temperatureOffset + i];
+            // Tables are usually sorted, so the range of the previous value mostly fits.
+            if (!(temperature >= this.temperatures[range] && temperature < this.temperatures[range + 1])) {
+                range = findRange(this.temperatures, temperature);
+                if (range < 0) {
+                    emfs[emfOffset + i] = Double.NaN;
+                    range = 0;
+                    continue;
+                }
+            }
+            emfs[emfOffset + i] = emf(range, temperature) - coldEmf;
+        }
+    }
+
+    public void toTemperature(double coldJunction, double[] emfs, double[] temperatures) {
+        toTemperature(coldJunction, emfs, 0, temperatures, 0, emfs.length);
+    }
+
+    public void toTemperature(double coldJunction, double[] emfs, int emfOffset,
+                              double[] temperatures, int temperatureOffset, int length) {
+        Objects.checkFromIndexSize(emfOffset, length, emfs.length);
+        Objects.checkFromIndexSize(temperatureOffset, length, temperatures.length);
+
+        double coldEmf = toEmf(coldJunction);
+        int range = 0;
+        for (int i = 0; i < length; i++) {
+            double emf = emfs[emfOffset + i] + coldEmf;
+            if (!(emf >= voltages[range] && emf < voltages[range + 1])) {
+                range = findRange(voltages, emf);
+                if (range < 0) {
+                    temperatures[temperatureOffset + i] = Double.NaN;
+                    range = 0;
+                    continue;
+                }
+            }
+            temperatures[temperatureOffset + i] = temperature(range, emf);
+        }
+    }
+
+    private double emf(int range, double temperature) {
+        double[] c = emfCoefficients[range];
+        double emf = c[c.length - 1];
+        for (int i = c.length - 2; i >= 0; i--) {
+            emf = emf * temperature + c[i];
+        }
+        if (this == K && range > 0) {
+            double offset = temperature - K_A2;
+            emf += K_A0 * Math.exp(K_A1 * offset * offset);
+        }
+        return emf;
+    }
+
+    private double temperature(int voltageRange, double emf) {
+        double[] d = temperatureCoefficients[voltageRange];
+        double temperature = d[d.length - 1];
+        for (int i = d.length - 2; i >= 0; i--) {
+            temperature = temperature * emf + d[i];
+        }
+
+        // Newton step on the reference function; value and slope come from one Horner pass.
+        double clamped = Math.min(Math.max(temperature, getMinTemperature()), getMaxTemperature());
+        int range = findRange(temperatures, clamped);
+        double[] c = emfCoefficients[range];
+        double value = c[c.length - 1];
+        double slope = 0;
+        for (int i = c.length - 2; i >= 0; i--) {
+            slope = slope * temperature + value;
+            value = value * temperature + c[i];
+        }
+        if (this == K && range > 0) {
+            double offset = temperature - K_A2;
+            double exponential = K_A0 * Math.exp(K_A1 * offset * offset);
+            value += exponential;
+            slope += exponential * 2 * K_A1 * offset;
+        }
+        return temperature - (value - emf) / slope;
+    }
+
+    /**
+     * @return index of the range of {@code limits} holding {@code value}, or {@code -1}
+     */
+    private static int findRange(double[] limits, double value) {
+        int last = limits.length - 1;
+        if (!(value >= limits[0] && value <= limits[last])) {
+            return -1;
+        }
+        for (int i = 1; i < last; i++) {
+            if (value < limits[i]) {
+                return i - 1;
+            }
+        }
+        return last - 1;
+    }
+}
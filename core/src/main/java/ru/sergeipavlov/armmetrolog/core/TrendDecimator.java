@@ -0,0 +1,139 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+/**
+ * Reduction of a sorted series to about one point per screen column.
+ * <p>
+ * Both methods read {@code x[start, end)}, which must be non-decreasing, and write the kept points
+ * to {@code outX}/{@code outY}, returning their number.
+ */
+final class TrendDecimator {
+
+    private TrendDecimator() {
+    }
+
+    /**
+     * Min/max bucketing: the x range {@code [from, to]} is split into {@code buckets} equal columns,
+     * and each non-empty column keeps its lowest and highest point, in the order they occur. The
+     * drawn envelope is then exactly that of the full series, spikes included. Needs room for
+     * {@code 2 * buckets} points.
+     */
+    static int minMax(double[] x, double[] y, int start, int end, double from, double to, int buckets,
+                      double[] outX, double[] outY) {
+        if (start >= end || buckets < 1 || !(to > from)) {
+            return 0;
+        }
+        double scale = buckets / (to - from);
+        int count = 0;
+        int i = start;
+        while (i < end) {
+            int bucket = bucket(x[i], from, scale, buckets);
+            int minIndex = i;
+            int maxIndex = i;
+            double min = y[i];
+            double max = min;
+            i++;
+            while (i < end && bucket(x[i], from, scale, buckets) == bucket) {
+                double value = y[i];
+                if (value < min) {
+                    min = value;
+                    minIndex = i;
+                } else if (value > max) {
+                    max = value;
+                    maxIndex = i;
+                }
+                i++;
+            }
+            int first = Math.min(minIndex, maxIndex);
+            int second = Math.max(minIndex, maxIndex);
+            outX[count] = x[first];
+            outY[count++] = y[first];
+            if (second != first) {
+                outX[count] = x[second];
+                outY[count++] = y[second];
+            }
+        }
+        return count;
+    }
+
+    private static int bucket(double x, double from, double scale, int buckets) {
+        int bucket = (int) ((x - from) * scale);
+        return bucket < 0 ? 0 : Math.min(bucket, buckets - 1);
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets (Steinarsson, 2013): keeps the first and last point and, from
+     * each of {@code threshold - 2} buckets of equal point count, the point forming the largest
+     * triangle with the previously kept point and the mean of the next bucket. Better than min/max
+     * at preserving the visual shape with few points, but may drop single-sample spikes. Needs room
+     * for {@code threshold} points.
+     */
+    static int lttb(double[] x, double[] y, int start, int end, int threshold, double[] outX, double[] outY) {
+        int length = end - start;
+        if (length <= 0) {
+            return 0;
+        }
+        if (threshold >= length) {
+            System.arraycopy(x, start, outX, 0, length);
+            System.arraycopy(y, start, outY, 0, length);
+            return length;
+        }
+        if (threshold < 3) {
+            // Too few points to bucket: keep what fits of the ends.
+            int count = 0;
+            if (threshold >= 1) {
+                outX[count] = x[start];
+                outY[count++] = y[start];
+            }
+            if (threshold == 2) {
+                outX[count] = x[end - 1];
+                outY[count++] = y[end - 1];
+            }
+            return count;
+        }
+
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        int count = 0;
+        int kept = start;
+        outX[count] = x[kept];
+        outY[count++] = y[kept];
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int bucketStart = start + 1 + (int) (bucket * bucketSize);
+            int bucketEnd = start + 1 + (int) ((bucket + 1) * bucketSize);
+            int nextEnd = Math.min(start + 1 + (int) ((bucket + 2) * bucketSize), end);
+
+            double meanX = 0;
+            double meanY = 0;
+            for (int j = bucketEnd; j < nextEnd; j++) {
+                meanX += x[j];
+                meanY += y[j];
+            }
+            int nextLength = nextEnd - bucketEnd;
+            if (nextLength > 0) {
+                meanX /= nextLength;
+                meanY /= nextLength;
+            } else {
+                meanX = x[end - 1];
+                meanY = y[end - 1];
+            }
+
+            double keptX = x[kept];
+            double keptY = y[kept];
+            double largest = -1;
+            int chosen = bucketStart;
+            for (int j = bucketStart; j < bucketEnd; j++) {
+                // Twice the triangle area; the factor does not change the choice.
+                double area = Math.abs((keptX - meanX) * (y[j] - keptY) - (keptX - x[j]) * (meanY - keptY));
+                if (area > largest) {
+                    largest = area;
+                    chosen = j;
+                }
+            }
+            kept = chosen;
+            outX[count] = x[kept];
+            outY[count++] = y[kept];
+        }
+        outX[count] = x[end - 1];
+        outY[count++] = y[end - 1];
+        return count;
+    }
+}
@@ -0,0 +1,170 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Time series for trend charts: the latest {@link #capacity()} points in primitive arrays, with
+ * decimation of any time window to screen resolution.
+ * <p>
+ * Points are kept contiguous in arrays of twice the capacity: appends go to the end, and when the
+ * end is reached the newest half is moved back to the front, so an append costs O(1) amortized and
+ * the decimators can scan one plain slice. Times must not decrease; non-finite values are skipped.
+ * Not thread-safe; a chart appends and draws on the main thread.
+ */
+public final class TrendSeries {
+
+    public enum Decimation {
+        /** Lowest and highest point per column; keeps every spike. */
+        MIN_MAX,
+        /** Largest-Triangle-Three-Buckets; smoother shape from fewer points. */
+        LTTB
+    }
+
+    private final int capacity;
+    private double[] times;
+    private double[] values;
+    private int start;
+    private int end;
+    private long version;
+
+    public TrendSeries(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2: " + capacity);
+        }
+        this.capacity = capacity;
+        // Grown on demand, so a large history capacity costs nothing until it is filled.
+        int initial = Math.min(capacity, 1024) * 2;
+        times = new double[initial];
+        values = new double[initial];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return end - start;
+    }
+
+    /**
+     * Changes on every modification, so that a view can tell whether its decimated points are stale.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public double getFirstTime() {
+        return end > start ? times[start] : Double.NaN;
+    }
+
+    public double getLastTime() {
+        return end > start ? times[end - 1] : Double.NaN;
+    }
+
+    public void clear() {
+        start = 0;
+        end = 0;
+        version++;
+    }
+
+    public void append(double time, double value) {
+        if (!Double.isFinite(value) || !Double.isFinite(time)) {
+            return;
+        }
+        if (end > start && time < times[end - 1]) {
+            throw new IllegalArgumentException("Time " + time + " before " + times[end - 1]);
+        }
+        if (end == times.length) {
+            makeRoom();
+        }
+        times[end] = time;
+        values[end++] = value;
+        if (end - start > capacity) {
+            start++;
+        }
+        version++;
+    }
+
+    public void append(double[] times, double[] values, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, times.length);
+        Objects.checkFromIndexSize(offset, length, values.length);
+        for (int i = 0; i < length; i++) {
+            append(times[offset + i], values[offset + i]);
+        }
+    }
+
+    private void makeRoom() {
+        int size = end - start;
+        if (times.length < 2 * capacity && size > times.length / 4) {
+            int grown = (int) Math.min(2L * capacity, 2L * times.length);
+            times = Arrays.copyOf(times, grown);
+            values = Arrays.copyOf(values, grown);
+            if (end < times.length) {
+                return;
+            }
+        }
+        System.arraycopy(times, start, times, 0, size);
+        System.arraycopy(values, start, values, 0, size);
+        start = 0;
+        end = size;
+    }
+
+    /**
+     * Decimates the points with times in {@code [from, to]}, plus one neighbour on each side so that
+     * the line runs to the window edges, to about {@code columns} screen columns.
+     *
+     * @param outTimes  room for {@code 2 * columns + 4} points
+     * @param outValues the same
+     * @return number of points written
+     */
+    public int decimate(Decimation decimation, double from, double to, int columns,
+                        double[] outTimes, double[] outValues) {
+        if (columns < 1 || !(to > from) || end == start) {
+            return 0;
+        }
+        int first = Math.max(lowerBound(from) - 1, start);
+        int last = Math.min(upperBound(to) + 1, end);
+        if (first >= last) {
+            return 0;
+        }
+        if (decimation == Decimation.LTTB) {
+            return TrendDecimator.lttb(times, values, first, last, 2 * columns + 2, outTimes, outValues);
+        }
+        return TrendDecimator.minMax(times, values, first, last, from, to, columns, outTimes, outValues);
+    }
+
+    /**
+     * First index with a time not below {@code time}.
+     */
+    private int lowerBound(double time) {
+        int low = start;
+        int high = end;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First index with a time above {@code time}.
+     */
+    private int upperBound(double time) {
+        int low = start;
+        int high = end;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,60 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.math.BigDecimal;
+
+/**
+ * A unit of a {@link Quantity} declared as an affine map to the base unit:
+ * {@code base = (value + offset) * numerator / denominator}.
+ * <p>
+ * Coefficients are kept as exact decimals; {@link Quantity} derives the {@code double}
+ * coefficient arrays used for conversion from them.
+ */
+public final class UnitDefinition {
+
+    private final String key;
+    private final BigDecimal offset;
+    private final BigDecimal numerator;
+    private final BigDecimal denominator;
+
+    public UnitDefinition(String key, BigDecimal offset, BigDecimal numerator, BigDecimal denominator) {
+        if (numerator.signum() == 0 || denominator.signum() == 0) {
+            throw new IllegalArgumentException("Zero scale for unit " + key);
+        }
+        this.key = key;
+        this.offset = offset;
+        this.numerator = numerator;
+        this.denominator = denominator;
+    }
+
+    /**
+     * Parses the textual form used by the registry: {@code offset} is a decimal,
+     * {@code scale} is a decimal or a {@code "numerator/denominator"} fraction.
+     */
+    public static UnitDefinition of(String key, String offset, String scale) {
+        int slash = scale.indexOf('/');
+        BigDecimal numerator = new BigDecimal(slash < 0 ? scale : scale.substring(0, slash));
+        BigDecimal denominator = slash < 0 ? BigDecimal.ONE : new BigDecimal(scale.substring(slash + 1));
+        return new UnitDefinition(key, new BigDecimal(offset), numerator, denominator);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public BigDecimal getOffset() {
+        return offset;
+    }
+
+    public BigDecimal getNumerator() {
+        return numerator;
+    }
+
+    public BigDecimal getDenominator() {
+        return denominator;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
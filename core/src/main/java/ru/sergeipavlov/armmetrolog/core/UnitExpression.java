@@ -0,0 +1,358 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A compound unit such as {@code "km/h"}, {@code "kg/m3"} or {@code "kgf/cm^2"}, reduced to an
+ * exact factor to the coherent SI unit and the exponents of the SI base dimensions.
+ * <p>
+ * An expression is a product of terms joined by {@code '*'} or {@code '·'}, where {@code '/'}
+ * divides by the next term only. A term is a decimal number or a unit symbol with an optional
+ * SI prefix and an optional integer exponent, written as {@code ^n}, trailing digits or
+ * {@code '²'}/{@code '³'}; digits followed by a letter stay in the symbol, as in {@code "mmH2O"}.
+ * Symbols are matched whole before being split into a prefix and a unit, so {@code "min"} is a
+ * minute and {@code "mm"} a millimetre.
+ * <p>
+ * Parsed expressions are cached, so declaring units with them costs one parse per distinct text.
+ * Instances are immutable.
+ */
+public final class UnitExpression {
+
+    /** Metre, kilogram, second, ampere, kelvin, mole, candela. */
+    public static final int DIMENSIONS = 7;
+
+    private static final String[] BASE_SYMBOLS = {"m", "kg", "s", "A", "K", "mol", "cd"};
+    private static final String[] PREFIXES = {
+            "Y", "Z", "E", "P", "T", "G", "M", "k", "h", "da", "d", "c", "m", "µ", "u", "n", "p", "f", "a"
+    };
+    private static final int[] PREFIX_POWERS = {
+            24, 21, 18, 15, 12, 9, 6, 3, 2, 1, -1, -2, -3, -6, -6, -9, -12, -15, -18
+    };
+
+    private static final Map<String, UnitExpression> SYMBOLS = new HashMap<>();
+    private static final Map<String, Boolean> PREFIXABLE = new HashMap<>();
+    private static final Map<String, UnitExpression> PARSED = new ConcurrentHashMap<>();
+
+    static {
+        base("m", 0, "1");
+        base("g", 1, "0.001");
+        base("s", 2, "1");
+        base("A", 3, "1");
+        base("K", 4, "1");
+        base("mol", 5, "1");
+        base("cd", 6, "1");
+
+        define("min", false, "60", "s");
+        define("h", false, "3600", "s");
+        define("d", false, "86400", "s");
+        define("in", false, "0.0254", "m");
+        define("ft", false, "0.3048", "m");
+        define("yd", false, "0.9144", "m");
+        define("mi", false, "1609.344", "m");
+        define("nmi", false, "1852", "m");
+        define("kn", false, "1", "nmi/h");
+        define("L", true, "0.001", "m3");
+        define("l", true, "1", "L");
+        define("t", true, "1000", "kg");
+        define("lb", false, "0.45359237", "kg");
+        define("N", true, "1", "kg*m/s2");
+        define("kgf", false, "9.80665", "N");
+        define("lbf", false, "9.80665", "lb*m/s2");
+        define("Pa", true, "1", "N/m2");
+        define("bar", true, "100000", "Pa");
+        define("J", true, "1", "N*m");
+        define("W", true, "1", "J/s");
+        define("psi", false, "1", "lbf/in2");
+        define("atm", false, "101325", "Pa");
+        define("Torr", false, "1", "atm/760");
+        // Conventional manometric units: mercury of 13 595.1 kg/m3 and water of 1000 kg/m3 under
+        // standard gravity.
+        define("mmHg", false, "133.322387415", "Pa");
+        define("inHg", false, "25.4", "mmHg");
+        define("mmH2O", false, "9.80665", "Pa");
+        define("inH2O", false, "25.4", "mmH2O");
+    }
+
+    private final BigDecimal numerator;
+    private final BigDecimal denominator;
+    private final int[] exponents;
+    private final double factor;
+
+    private UnitExpression(BigDecimal numerator, BigDecimal denominator, int[] exponents) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+        this.exponents = exponents;
+        factor = numerator.divide(denominator, MathContext.DECIMAL128).doubleValue();
+    }
+
+    private static void base(String symbol, int dimension, String factor) {
+        int[] exponents = new int[DIMENSIONS];
+        exponents[dimension] = 1;
+        SYMBOLS.put(symbol, new UnitExpression(new BigDecimal(factor), BigDecimal.ONE, exponents));
+        PREFIXABLE.put(symbol, true);
+    }
+
+    private static void define(String symbol, boolean prefixable, String factor, String expression) {
+        UnitExpression unit = parse(expression);
+        SYMBOLS.put(symbol, new UnitExpression(unit.numerator.multiply(new BigDecimal(factor)),
+                unit.denominator, unit.exponents));
+        PREFIXABLE.put(symbol, prefixable);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text is not a valid expression of known units
+     */
+    public static UnitExpression parse(String text) {
+        UnitExpression cached = PARSED.get(text);
+        if (cached == null) {
+            cached = new Parser(text).parse();
+            PARSED.put(text, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Exact factor to the coherent SI unit as {@code numerator / denominator}.
+     */
+    public BigDecimal getNumerator() {
+        return numerator;
+    }
+
+    public BigDecimal getDenominator() {
+        return denominator;
+    }
+
+    /**
+     * Factor to the coherent SI unit, rounded once from the exact fraction.
+     */
+    public double getFactor() {
+        return factor;
+    }
+
+    /**
+     * @param dimension index in {@link #DIMENSIONS} order
+     */
+    public int getExponent(int dimension) {
+        return exponents[dimension];
+    }
+
+    /**
+     * Whether both expressions measure the same dimension, so that one converts into the other.
+     */
+    public boolean isCommensurable(UnitExpression other) {
+        return Arrays.equals(exponents, other.exponents);
+    }
+
+    /**
+     * Factor converting a value in this unit into {@code target}.
+     *
+     * @throws IllegalArgumentException if the units measure different dimensions
+     */
+    public double factorTo(UnitExpression target) {
+        if (!isCommensurable(target)) {
+            throw new IllegalArgumentException("Cannot convert " + getDimension() + " to " + target.getDimension());
+        }
+        return numerator.multiply(target.denominator)
+                .divide(denominator.multiply(target.numerator), MathContext.DECIMAL128).doubleValue();
+    }
+
+    /**
+     * The dimension in coherent SI units, such as {@code "m s^-1"}; {@code "1"} if dimensionless.
+     */
+    public String getDimension() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < DIMENSIONS; i++) {
+            if (exponents[i] == 0) {
+                continue;
+            }
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(BASE_SYMBOLS[i]);
+            if (exponents[i] != 1) {
+                text.append('^').append(exponents[i]);
+            }
+        }
+        return text.length() > 0 ? text.toString() : "1";
+    }
+
+    private UnitExpression multiply(UnitExpression other, int sign) {
+        int[] sum = new int[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            sum[i] = exponents[i] + sign * other.exponents[i];
+        }
+        return sign > 0
+                ? new UnitExpression(numerator.multiply(other.numerator), denominator.multiply(other.denominator), sum)
+                : new UnitExpression(numerator.multiply(other.denominator), denominator.multiply(other.numerator), sum);
+    }
+
+    private UnitExpression power(int exponent) {
+        UnitExpression result = new UnitExpression(BigDecimal.ONE, BigDecimal.ONE, new int[DIMENSIONS]);
+        for (int i = 0; i < Math.abs(exponent); i++) {
+            result = result.multiply(this, exponent > 0 ? 1 : -1);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UnitExpression)) {
+            return false;
+        }
+        UnitExpression that = (UnitExpression) o;
+        return numerator.multiply(that.denominator).compareTo(that.numerator.multiply(denominator)) == 0
+                && Arrays.equals(exponents, that.exponents);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(factor) + Arrays.hashCode(exponents);
+    }
+
+    @Override
+    public String toString() {
+        return "UnitExpression{" + factor + " " + getDimension() + '}';
+    }
+
+    /**
+     * Recursive-descent parser over one expression.
+     */
+    private static final class Parser {
+
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        UnitExpression parse() {
+            UnitExpression result = term();
+            while (true) {
+                skipBlanks();
+                if (position == text.length()) {
+                    return result;
+                }
+                char operator = text.charAt(position++);
+                if (operator == '*' || operator == '·') {
+                    result = result.multiply(term(), 1);
+                } else if (operator == '/') {
+                    result = result.multiply(term(), -1);
+                } else {
+                    throw error("Unexpected '" + operator + "'");
+                }
+            }
+        }
+
+        private UnitExpression term() {
+            skipBlanks();
+            int start = position;
+            if (position < text.length() && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+                while (position < text.length()
+                        && (Character.isDigit(text.charAt(position)) || text.charAt(position) == '.')) {
+                    position++;
+                }
+                BigDecimal number;
+                try {
+                    number = new BigDecimal(text.substring(start, position));
+                } catch (NumberFormatException exception) {
+                    throw error("Invalid number");
+                }
+                if (number.signum() == 0) {
+                    throw error("Zero factor");
+                }
+                return new UnitExpression(number, BigDecimal.ONE, new int[DIMENSIONS]);
+            }
+            while (position < text.length()) {
+                char c = text.charAt(position);
+                if (Character.isLetter(c)) {
+                    position++;
+                } else if (Character.isDigit(c) && position > start) {
+                    // Digits followed by a letter belong to the symbol, as in "mmH2O"; otherwise
+                    // they are the exponent.
+                    int end = position;
+                    while (end < text.length() && Character.isDigit(text.charAt(end))) {
+                        end++;
+                    }
+                    if (end == text.length() || !Character.isLetter(text.charAt(end))) {
+                        break;
+                    }
+                    position = end;
+                } else {
+                    break;
+                }
+            }
+            if (position == start) {
+                throw error("Unit expected");
+            }
+            UnitExpression unit = symbol(text.substring(start, position));
+            return unit.power(exponent());
+        }
+
+        private int exponent() {
+            if (position == text.length()) {
+                return 1;
+            }
+            char c = text.charAt(position);
+            if (c == '²' || c == '³') {
+                position++;
+                return c == '²' ? 2 : 3;
+            }
+            int start = position;
+            if (c == '^') {
+                position++;
+                if (position < text.length() && (text.charAt(position) == '-' || text.charAt(position) == '+')) {
+                    position++;
+                }
+            } else if (!Character.isDigit(c)) {
+                return 1;
+            }
+            int digits = position;
+            while (position < text.length() && Character.isDigit(text.charAt(position))) {
+                position++;
+            }
+            if (position == digits || position - digits > 2) {
+                throw error("Invalid exponent");
+            }
+            int value = Integer.parseInt(text.substring(digits, position));
+            return text.charAt(start) == '^' && text.charAt(start + 1) == '-' ? -value : value;
+        }
+
+        private UnitExpression symbol(String symbol) {
+            UnitExpression unit = SYMBOLS.get(symbol);
+            if (unit != null) {
+                return unit;
+            }
+            for (int i = 0; i < PREFIXES.length; i++) {
+                String prefix = PREFIXES[i];
+                if (symbol.length() > prefix.length() && symbol.startsWith(prefix)) {
+                    String rest = symbol.substring(prefix.length());
+                    unit = SYMBOLS.get(rest);
+                    if (unit != null && PREFIXABLE.get(rest)) {
+                        BigDecimal scale = BigDecimal.ONE.scaleByPowerOfTen(PREFIX_POWERS[i]);
+                        return new UnitExpression(unit.numerator.multiply(scale), unit.denominator, unit.exponents);
+                    }
+                }
+            }
+            throw error("Unknown unit '" + symbol + "'");
+        }
+
+        private void skipBlanks() {
+            while (position < text.length() && text.charAt(position) == ' ') {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at " + position + " in \"" + text + "\"");
+        }
+    }
+}
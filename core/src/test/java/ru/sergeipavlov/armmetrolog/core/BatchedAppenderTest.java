@@ -0,0 +1,85 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BatchedAppenderTest {
+
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+    // Released once a full batch has reached the sink.
+    private final CountDownLatch firstHundred = new CountDownLatch(100);
+    private final BatchedAppender<Integer> appender = new BatchedAppender<>("test-appender", batch -> {
+        batches.add(new ArrayList<>(batch));
+        for (int i = 0; i < batch.size(); i++) {
+            firstHundred.countDown();
+        }
+    }, 100, 10_000);
+
+    @After
+    public void tearDown() {
+        appender.shutdown();
+    }
+
+    @Test
+    public void fullBatch_isWrittenWithoutWaitingForDelay() throws Exception {
+        for (int i = 0; i < 250; i++) {
+            appender.append(i);
+        }
+        // Well within the 10 s delay, so only the full-batch trigger can have written them.
+        assertTrue(firstHundred.await(2, TimeUnit.SECONDS));
+
+        appender.flush().get(2, TimeUnit.SECONDS);
+        assertEquals(250, written());
+        List<Integer> all = new ArrayList<>();
+        batches.forEach(all::addAll);
+        for (int i = 0; i < 250; i++) {
+            assertEquals(Integer.valueOf(i), all.get(i));
+        }
+        for (List<Integer> batch : batches) {
+            assertTrue(batch.size() <= 100);
+        }
+    }
+
+    private int written() {
+        int count = 0;
+        for (List<Integer> batch : batches) {
+            count += batch.size();
+        }
+        return count;
+    }
+
+    @Test
+    public void shutdown_writesPendingRecords() throws InterruptedException {
+        appender.append(1);
+        appender.append(2);
+        assertTrue(batches.isEmpty());
+        appender.shutdown();
+        assertTrue(appender.awaitTermination(2, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(1, 2)), batches);
+    }
+
+    @Test
+    public void failedBatch_isCountedAsDropped() throws Exception {
+        BatchedAppender<Integer> failing = new BatchedAppender<>("failing-appender", batch -> {
+            throw new IOException("disk full");
+        }, 10, 10_000);
+        try {
+            for (int i = 0; i < 3; i++) {
+                failing.append(i);
+            }
+            failing.flush().get(2, TimeUnit.SECONDS);
+            assertEquals(3, failing.getDroppedCount());
+        } finally {
+            failing.shutdown();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import static org.junit.Assert.*;
+
+public class CalibrationSweepTest {
+
+    private static final CurrentLoopRange RANGE = new CurrentLoopRange(0, 100, 4, 20);
+
+    @Test
+    public void fivePointLinearTable() throws IOException {
+        StringWriter writer = new StringWriter();
+        CalibrationSweep.ofPointCount(CurrentLoopScaleType.LINEAR, RANGE, 5).writeCsv(writer, ',', 3);
+        assertEquals("table,point,physical,signal\n"
+                + "forward,0,0.000,4.000\n"
+                + "forward,1,25.000,8.000\n"
+                + "forward,2,50.000,12.000\n"
+                + "forward,3,75.000,16.000\n"
+                + "forward,4,100.000,20.000\n"
+                + "inverse,0,0.000,4.000\n"
+                + "inverse,1,25.000,8.000\n"
+                + "inverse,2,50.000,12.000\n"
+                + "inverse,3,75.000,16.000\n"
+                + "inverse,4,100.000,20.000\n", writer.toString());
+    }
+
+    @Test
+    public void accuracyClass_addsToleranceColumns() throws IOException {
+        StringWriter writer = new StringWriter();
+        CalibrationSweep.ofPointCount(CurrentLoopScaleType.LINEAR, RANGE, 2).writeCsv(writer, ';', 2, 0.5);
+        assertEquals("table;point;physical;signal;lower;upper\n"
+                + "forward;0;0.00;4.00;3.92;4.08\n"
+                + "forward;1;100.00;20.00;19.92;20.08\n"
+                + "inverse;0;0.00;4.00;-0.50;0.50\n"
+                + "inverse;1;100.00;20.00;99.50;100.50\n", writer.toString());
+    }
+
+    @Test
+    public void physicalStep_endsOnRangeEnd() {
+        CalibrationSweep sweep = CalibrationSweep.ofPhysicalStep(CurrentLoopScaleType.ROOT, RANGE, 10);
+        assertEquals(11, sweep.getPointCount());
+        assertEquals(100.0, sweep.physicalPoint(10), 0.0);
+        assertEquals(30.0, sweep.physicalPoint(3), 1e-12);
+        assertEquals(1001, CalibrationSweep.ofPhysicalStep(CurrentLoopScaleType.ROOT, RANGE, 0.1).getPointCount());
+    }
+
+    @Test
+    public void largeSweep_streamsAllRows() throws IOException {
+        CountingWriter writer = new CountingWriter();
+        long start = System.nanoTime();
+        CalibrationSweep.ofPointCount(CurrentLoopScaleType.QUADRATIC, RANGE, 200_001).writeCsv(writer, ';', 6);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(1 + 2 * 200_001, writer.lines);
+        assertTrue("took " + elapsedMillis + " ms", elapsedMillis < 5_000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void singlePoint_rejected() {
+        CalibrationSweep.ofPointCount(CurrentLoopScaleType.LINEAR, RANGE, 1);
+    }
+
+    private static final class CountingWriter extends Writer {
+        int lines;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
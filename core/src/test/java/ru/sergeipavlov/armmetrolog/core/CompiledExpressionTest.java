@@ -0,0 +1,65 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CompiledExpressionTest {
+
+    private static final double DELTA = 1e-12;
+
+    private static double eval(String source, double x) {
+        return CompiledExpression.compile(source).evaluate(x);
+    }
+
+    @Test
+    public void precedenceAndAssociativity() {
+        assertEquals(7.0, eval("1 + 2 * 3", 0), DELTA);
+        assertEquals(9.0, eval("(1 + 2) * 3", 0), DELTA);
+        assertEquals(2.0, eval("8 / 2 / 2", 0), DELTA);
+        assertEquals(512.0, eval("2 ^ 3 ^ 2", 0), DELTA);
+        assertEquals(-9.0, eval("-x^2", 3), DELTA);
+        assertEquals(0.5, eval("2^-1", 0), DELTA);
+        assertEquals(1.0, eval("x - -1", 0), DELTA);
+    }
+
+    @Test
+    public void functionsConstantsAndNumbers() {
+        assertEquals(Math.sqrt(0.3), eval("sqrt(x)", 0.3), DELTA);
+        assertEquals(Math.pow(0.3, 1.5), eval("x^1.5", 0.3), DELTA);
+        assertEquals(Math.pow(0.3, 1.5), eval("pow(x, 1.5)", 0.3), DELTA);
+        assertEquals(0.25, eval("max(min(x, 0.25), 0)", 0.7), DELTA);
+        assertEquals(Math.E - 1, eval("exp(1) - 1", 0), DELTA);
+        assertEquals(1.0, eval("ln(e) * LOG10(10) * sin(pi / 2)", 0), DELTA);
+        assertEquals(1.5e-3, eval("1.5e-3", 0), DELTA);
+        assertEquals(0.5, eval(".5 * X", 1), DELTA);
+        assertEquals(0.027, eval("x * x * x", 0.3), DELTA);
+        assertTrue(Double.isNaN(eval("sqrt(x)", -1)));
+    }
+
+    @Test
+    public void arrayEvaluation_matchesScalar() {
+        CompiledExpression expression = CompiledExpression.compile("(exp(2 * x) - 1) / (exp(2) - 1)");
+        double[] x = new double[101];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = i / 100.0;
+        }
+        double[] result = new double[x.length + 1];
+        expression.evaluate(x, 0, result, 1, x.length);
+        for (int i = 0; i < x.length; i++) {
+            assertEquals(expression.evaluate(x[i]), result[i + 1], 0);
+        }
+    }
+
+    @Test
+    public void invalidExpressions_reportPosition() {
+        for (String source : new String[]{"", "1 +", "2x", "sqrt x", "foo(x)", "(x", "x)", "1..2", "pow(x)", "y"}) {
+            try {
+                CompiledExpression.compile(source);
+                fail(source);
+            } catch (IllegalArgumentException expected) {
+                assertNotNull(expected.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CurrentLoopLookupTableTest {
+
+    private static final CurrentLoopRange RANGE = new CurrentLoopRange(-20, 180, 4, 20);
+    private static final double ROUNDING = 1e-12;
+
+    @Test
+    public void interpolationStaysWithinReportedError() {
+        Random random = new Random(7);
+        for (double bound : new double[]{1e-4, 1e-6, 1e-8}) {
+            for (CurrentLoopScaleType type : CurrentLoopScaleType.values()) {
+                CurrentLoopLookupTable table = type.lookupTable(bound);
+                assertTrue(table.getMaxForwardError() <= bound);
+                assertTrue(table.getMaxInverseError() <= bound);
+                double signalTolerance = table.getMaxSignalError(RANGE) + ROUNDING * 16;
+                double physicalTolerance = table.getMaxPhysicalError(RANGE) + ROUNDING * 200;
+                for (int i = 0; i < 20_000; i++) {
+                    double physical = -30 + random.nextDouble() * 220;
+                    double signal = 3 + random.nextDouble() * 18;
+                    assertClose(type.toSignal(physical, RANGE), table.toSignal(physical, RANGE), signalTolerance);
+                    assertClose(type.toPhysical(signal, RANGE), table.toPhysical(signal, RANGE), physicalTolerance);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void batchMatchesScalar() {
+        double[] physical = new double[513];
+        for (int i = 0; i < physical.length; i++) {
+            physical[i] = -20 + 200.0 * i / (physical.length - 1);
+        }
+        double[] signal = new double[physical.length];
+        double[] back = new double[physical.length];
+        for (CurrentLoopScaleType type : CurrentLoopScaleType.values()) {
+            CurrentLoopLookupTable table = type.lookupTable(1e-6);
+            table.toSignal(RANGE, physical, signal);
+            table.toPhysical(RANGE, signal, back);
+            for (int i = 0; i < physical.length; i++) {
+                assertEquals(table.toSignal(physical[i], RANGE), signal[i], 0.0);
+                assertEquals(table.toPhysical(signal[i], RANGE), back[i], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void tablesAreSharedPerBound() {
+        assertSame(CurrentLoopScaleType.ROOT.lookupTable(1e-6), CurrentLoopScaleType.ROOT.lookupTable(1e-6));
+        assertNotSame(CurrentLoopScaleType.ROOT.lookupTable(1e-6), CurrentLoopScaleType.ROOT.lookupTable(1e-5));
+        assertSame(CurrentLoopScaleType.ROOT.lookupTable(1e-6), CurrentLoopScaleType.ROOT.lookupTable(3.7e-6));
+    }
+
+    @Test
+    public void boundIsQuantizedAndClamped() {
+        assertEquals(1e-6, CurrentLoopScaleType.ROOT.lookupTable(9.9e-6).getErrorBound(), 0.0);
+        assertEquals(1e-1, CurrentLoopScaleType.ROOT.lookupTable(5).getErrorBound(), 0.0);
+        CurrentLoopLookupTable finest = CurrentLoopScaleType.ROOT.lookupTable(Double.MIN_VALUE);
+        assertEquals(1e-10, finest.getErrorBound(), 0.0);
+        assertSame(finest, CurrentLoopScaleType.ROOT.lookupTable(1e-300));
+        assertTrue(finest.getSegmentCount() <= 50_000);
+    }
+
+    @Test
+    public void linearScaleIsExact() {
+        CurrentLoopLookupTable table = CurrentLoopScaleType.LINEAR.lookupTable(1e-3);
+        assertEquals(0, table.getSegmentCount());
+        assertEquals(0.0, table.getMaxForwardError(), 0.0);
+        assertEquals(CurrentLoopScaleType.LINEAR.toSignal(33.3, RANGE), table.toSignal(33.3, RANGE), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveBound_rejected() {
+        CurrentLoopScaleType.ROOT.lookupTable(0);
+    }
+
+    private static void assertClose(double expected, double actual, double tolerance) {
+        if (Double.isNaN(expected)) {
+            assertTrue(Double.isNaN(actual));
+        } else {
+            assertEquals(expected, actual, tolerance);
+        }
+    }
+}
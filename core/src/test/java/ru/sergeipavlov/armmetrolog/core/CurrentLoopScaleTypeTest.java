@@ -0,0 +1,140 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CurrentLoopScaleTypeTest {
+
+    private static final double DELTA = 1e-12;
+    private static final CurrentLoopRange RANGE = new CurrentLoopRange(0, 100, 4, 20);
+
+    @Test
+    public void linear_midpoint() {
+        assertEquals(12.0, CurrentLoopScaleType.LINEAR.toSignal(50, 0, 100, 4, 20), DELTA);
+        assertEquals(50.0, CurrentLoopScaleType.LINEAR.toPhysical(12, 0, 100, 4, 20), DELTA);
+    }
+
+    @Test
+    public void descending_swapsSignalEnds() {
+        assertEquals(20.0, CurrentLoopScaleType.LINEAR_DESCENDING.toSignal(0, RANGE), DELTA);
+        assertEquals(4.0, CurrentLoopScaleType.LINEAR_DESCENDING.toSignal(100, RANGE), DELTA);
+        assertEquals(25.0, CurrentLoopScaleType.LINEAR_DESCENDING.toPhysical(16, RANGE), DELTA);
+    }
+
+    @Test
+    public void quadraticAndRoot_areMutualInverses() {
+        assertEquals(8.0, CurrentLoopScaleType.QUADRATIC.toSignal(50, RANGE), DELTA);
+        assertEquals(12.0, CurrentLoopScaleType.ROOT.toSignal(25, RANGE), DELTA);
+        assertEquals(25.0, CurrentLoopScaleType.ROOT.toPhysical(12, RANGE), DELTA);
+        assertEquals(50.0, CurrentLoopScaleType.QUADRATIC.toPhysical(8, RANGE), DELTA);
+    }
+
+    @Test
+    public void outOfDomain_isNaN() {
+        assertTrue(Double.isNaN(CurrentLoopScaleType.ROOT.toSignal(-1, RANGE)));
+        assertTrue(Double.isNaN(CurrentLoopScaleType.QUADRATIC.toPhysical(3, RANGE)));
+        assertTrue(Double.isNaN(CurrentLoopScaleType.LINEAR.toSignal(1, 5, 5, 4, 20)));
+        assertTrue(Double.isNaN(CurrentLoopScaleType.LINEAR.toPhysical(1, 0, 100, 4, 4)));
+    }
+
+    @Test
+    public void batch_matchesScalar() {
+        double[] physical = new double[1001];
+        for (int i = 0; i < physical.length; i++) {
+            physical[i] = -5 + i * 0.11;
+        }
+        double[] signal = new double[physical.length];
+        double[] back = new double[physical.length];
+        for (CurrentLoopScaleType type : CurrentLoopScaleType.values()) {
+            type.toSignal(RANGE, physical, signal);
+            type.toPhysical(RANGE, signal, back);
+            for (int i = 0; i < physical.length; i++) {
+                assertEquals(type + " @" + i, type.toSignal(physical[i], RANGE), signal[i], DELTA);
+                assertEquals(type + " @" + i, type.toPhysical(signal[i], RANGE), back[i], DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void batch_honoursOffsetsAndInPlace() {
+        double[] values = {0, 25, 50, 75, 100};
+        CurrentLoopScaleType.LINEAR.toSignal(RANGE, values, 1, values, 1, 3);
+        assertArrayEquals(new double[]{0, 8, 12, 16, 100}, values, DELTA);
+    }
+
+    @Test
+    public void batch_degenerateRangeFillsNaN() {
+        double[] out = new double[3];
+        CurrentLoopScaleType.ROOT.toSignal(new CurrentLoopRange(1, 1, 4, 20), new double[]{1, 2, 3}, out);
+        for (double value : out) {
+            assertTrue(Double.isNaN(value));
+        }
+    }
+
+    @Test
+    public void derivatives_matchFiniteDifferences() {
+        double h = 1e-6;
+        for (CurrentLoopScaleType type : CurrentLoopScaleType.values()) {
+            for (double physical = 5; physical <= 95; physical += 10) {
+                double numeric = (type.toSignal(physical + h, RANGE) - type.toSignal(physical - h, RANGE)) / (2 * h);
+                assertEquals(type + " @" + physical, numeric, type.signalDerivative(physical, RANGE), 1e-6);
+                double signal = type.toSignal(physical, RANGE);
+                numeric = (type.toPhysical(signal + h, RANGE) - type.toPhysical(signal - h, RANGE)) / (2 * h);
+                assertEquals(type + " @" + signal, numeric, type.physicalDerivative(signal, RANGE), 1e-4);
+            }
+        }
+        assertEquals(Double.POSITIVE_INFINITY, CurrentLoopScaleType.ROOT.signalDerivative(0, RANGE), 0.0);
+        assertEquals(Double.NEGATIVE_INFINITY, CurrentLoopScaleType.ROOT_DESCENDING.signalDerivative(0, RANGE), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, CurrentLoopScaleType.QUADRATIC.physicalDerivative(4, RANGE), 0.0);
+    }
+
+    @Test
+    public void signalLimits_linearBandIsConstant() {
+        double[] physical = {0, 50, 100};
+        double[] lower = new double[3];
+        double[] upper = new double[3];
+        CurrentLoopScaleType.LINEAR.signalLimits(RANGE, 0.25, physical, lower, upper);
+        assertArrayEquals(new double[]{3.96, 11.96, 19.96}, lower, DELTA);
+        assertArrayEquals(new double[]{4.04, 12.04, 20.04}, upper, DELTA);
+
+        CurrentLoopScaleType.LINEAR_DESCENDING.signalLimits(RANGE, 0.25, physical, lower, upper);
+        assertArrayEquals(new double[]{19.96, 11.96, 3.96}, lower, DELTA);
+        assertArrayEquals(new double[]{20.04, 12.04, 4.04}, upper, DELTA);
+    }
+
+    @Test
+    public void signalLimits_rootStaysFiniteAtZero() {
+        double[] physical = {-1, 0, 0.1, 25};
+        double[] lower = new double[4];
+        double[] upper = new double[4];
+        CurrentLoopScaleType.ROOT.signalLimits(RANGE, 0.5, physical, lower, upper);
+        assertTrue(Double.isNaN(lower[0]) && Double.isNaN(upper[0]));
+        // ±0.5 % around zero flow: cut off at the start, up to sqrt(0.005) of the signal span.
+        assertEquals(4.0, lower[1], DELTA);
+        assertEquals(4 + 16 * Math.sqrt(0.005), upper[1], DELTA);
+        assertEquals(4.0, lower[2], DELTA);
+        assertEquals(4 + 16 * Math.sqrt(0.006), upper[2], DELTA);
+        assertEquals(4 + 16 * Math.sqrt(0.245), lower[3], DELTA);
+        assertEquals(4 + 16 * Math.sqrt(0.255), upper[3], DELTA);
+    }
+
+    @Test
+    public void physicalLimits_mapSignalTolerance() {
+        double[] signal = {3, 4, 12};
+        double[] lower = new double[3];
+        double[] upper = new double[3];
+        CurrentLoopScaleType.QUADRATIC.physicalLimits(RANGE, 1, signal, lower, upper);
+        assertTrue(Double.isNaN(lower[0]));
+        assertEquals(0.0, lower[1], DELTA);
+        assertEquals(100 * Math.sqrt(0.01), upper[1], DELTA);
+        assertEquals(100 * Math.sqrt(0.49), lower[2], DELTA);
+        assertEquals(100 * Math.sqrt(0.51), upper[2], DELTA);
+
+        CurrentLoopScaleType.ROOT.physicalLimits(RANGE, 1, signal, lower, upper);
+        assertEquals(0.0, lower[0], DELTA);
+        assertEquals(0.0, upper[0], DELTA);
+        assertEquals(100 * 0.49 * 0.49, lower[2], DELTA);
+        assertEquals(100 * 0.51 * 0.51, upper[2], DELTA);
+    }
+}
@@ -0,0 +1,67 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DecimalParserTest {
+
+    private static double parse(String text) {
+        char[] chars = text.toCharArray();
+        return DecimalParser.parse(chars, 0, chars.length);
+    }
+
+    @Test
+    public void acceptsBothDecimalSeparators() {
+        assertEquals(12.5, parse("12.5"), 0.0);
+        assertEquals(12.5, parse("12,5"), 0.0);
+        assertEquals(-0.25, parse(" -,25 "), 0.0);
+        assertEquals(3.0, parse("+3."), 0.0);
+        assertEquals(1.5e-3, parse("1,5E-3"), 0.0);
+        assertEquals(-0.0, parse("-0"), 0.0);
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(parse("-0.000")));
+    }
+
+    @Test
+    public void rejectsNonNumbers() {
+        for (String text : new String[]{"", "  ", "-", ".", "-,", "1.2.3", "1,2.3", "1e", "1e+", "abc", "12a", "1 2", "--1", "NaN"}) {
+            assertTrue(text, Double.isNaN(parse(text)));
+        }
+    }
+
+    @Test
+    public void parsesSubrangeOnly() {
+        char[] chars = "x;42,75;y".toCharArray();
+        assertEquals(42.75, DecimalParser.parse(chars, 2, 7), 0.0);
+    }
+
+    @Test
+    public void matchesParseDouble() {
+        Random random = new Random(8);
+        for (int i = 0; i < 100_000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(30) - 12);
+            String text;
+            switch (i % 4) {
+                case 0:
+                    text = Double.toString(value);
+                    break;
+                case 1:
+                    text = String.format(Locale.US, "%." + random.nextInt(12) + "f", value);
+                    break;
+                case 2:
+                    text = String.format(Locale.US, "%." + random.nextInt(18) + "e", value);
+                    break;
+                default:
+                    text = Long.toString(random.nextLong() >> random.nextInt(64));
+                    break;
+            }
+            double expected = Double.parseDouble(text);
+            assertEquals(text, Double.doubleToLongBits(expected), Double.doubleToLongBits(parse(text)));
+            assertEquals(text, Double.doubleToLongBits(expected),
+                    Double.doubleToLongBits(parse(text.replace('.', ','))));
+        }
+    }
+}
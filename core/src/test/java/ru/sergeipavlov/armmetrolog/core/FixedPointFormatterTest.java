@@ -0,0 +1,61 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FixedPointFormatterTest {
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    private String format(double value, int digits) {
+        return FixedPointFormatter.forFractionDigits(digits).format(value, buffer).toString();
+    }
+
+    private static String reference(double value, int digits) {
+        return String.format(Locale.US, "%1$." + digits + "f", value);
+    }
+
+    @Test
+    public void matchesStringFormat_forTypicalValues() {
+        double[] values = {0, 1, -1, 0.5, 1.5, 2.5, -2.5, 0.15, 1.0005, 273.15, -459.67, 0.0001, -0.0001,
+                123456.789, 31_536_000_000.0, 1e-9, 9.9995, 0.125, 1e13, 3.0e20, Double.MIN_VALUE};
+        for (double value : values) {
+            for (int digits = 0; digits <= 8; digits++) {
+                assertEquals(value + " / " + digits, reference(value, digits), format(value, digits));
+            }
+        }
+    }
+
+    @Test
+    public void matchesStringFormat_forRandomValues() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(16) - 4);
+            int digits = random.nextInt(10);
+            assertEquals(value + " / " + digits, reference(value, digits), format(value, digits));
+        }
+    }
+
+    @Test
+    public void negativeZeroAndSpecials() {
+        assertEquals(reference(-0.0, 3), format(-0.0, 3));
+        assertEquals(reference(Double.NaN, 3), format(Double.NaN, 3));
+        assertEquals(reference(Double.POSITIVE_INFINITY, 3), format(Double.POSITIVE_INFINITY, 3));
+        assertEquals(reference(Double.NEGATIVE_INFINITY, 3), format(Double.NEGATIVE_INFINITY, 3));
+    }
+
+    @Test
+    public void manyFractionDigits_useExactPath() {
+        assertEquals(reference(1.0 / 3, 20), format(1.0 / 3, 20));
+        assertEquals(reference(2.0 / 3, 40), format(2.0 / 3, 40));
+    }
+
+    @Test
+    public void instancesAreCached() {
+        assertSame(FixedPointFormatter.forFractionDigits(3), FixedPointFormatter.forFractionDigits(3));
+    }
+}
@@ -0,0 +1,101 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FormulaScaleTest {
+
+    private static final double DELTA = 1e-9;
+    private static final CurrentLoopRange RANGE = new CurrentLoopRange(0, 100, 4, 20);
+
+    @Test
+    public void builtInShapes_matchScaleTypes() {
+        FormulaScale linear = FormulaScale.compile("x");
+        FormulaScale quadratic = FormulaScale.compile("x^2");
+        FormulaScale root = FormulaScale.compile("sqrt(x)");
+        FormulaScale descending = FormulaScale.compile("1 - x");
+        for (int i = 0; i <= 100; i++) {
+            double physical = i;
+            double signal = 4 + 0.16 * i;
+            assertEquals(CurrentLoopScaleType.LINEAR.toSignal(physical, RANGE), linear.toSignal(physical, RANGE), DELTA);
+            assertEquals(CurrentLoopScaleType.QUADRATIC.toSignal(physical, RANGE), quadratic.toSignal(physical, RANGE), DELTA);
+            assertEquals(CurrentLoopScaleType.QUADRATIC.toPhysical(signal, RANGE), quadratic.toPhysical(signal, RANGE), DELTA);
+            assertEquals(CurrentLoopScaleType.ROOT.toPhysical(signal, RANGE), root.toPhysical(signal, RANGE), DELTA);
+            assertEquals(CurrentLoopScaleType.LINEAR_DESCENDING.toPhysical(signal, RANGE),
+                    descending.toPhysical(signal, RANGE), DELTA);
+        }
+    }
+
+    @Test
+    public void inverse_roundTripsInsideAndBeyondRange() {
+        FormulaScale scale = FormulaScale.compile("(exp(2 * x) - 1) / (exp(2) - 1)");
+        for (int i = -50; i <= 150; i++) {
+            double ratio = i / 100.0;
+            assertEquals(ratio, scale.inverseRatio(scale.forwardRatio(ratio)), 1e-12);
+        }
+        // The root shape has no value below the start of the range.
+        assertTrue(Double.isNaN(FormulaScale.compile("sqrt(x)").toPhysical(3, RANGE)));
+    }
+
+    @Test
+    public void batch_matchesScalar() {
+        FormulaScale scale = FormulaScale.compile("x^1.5");
+        double[] physical = new double[1001];
+        for (int i = 0; i < physical.length; i++) {
+            physical[i] = i * 0.1;
+        }
+        double[] signal = new double[physical.length];
+        double[] back = new double[physical.length];
+        scale.toSignal(RANGE, physical, signal);
+        scale.toPhysical(RANGE, signal, back);
+        for (int i = 0; i < physical.length; i++) {
+            assertEquals(scale.toSignal(physical[i], RANGE), signal[i], 0);
+            assertEquals(scale.toPhysical(signal[i], RANGE), back[i], 0);
+            assertEquals(physical[i], back[i], DELTA);
+        }
+    }
+
+    @Test
+    public void limits_matchShiftedPoints() {
+        FormulaScale scale = FormulaScale.compile("x^1.5");
+        double[] signal = {8, 12, 16};
+        double[] lower = new double[signal.length];
+        double[] upper = new double[signal.length];
+        scale.physicalLimits(RANGE, 0.5, signal, 0, lower, 0, upper, 0, signal.length);
+        for (int i = 0; i < signal.length; i++) {
+            assertEquals(scale.toPhysical(signal[i] - 0.08, RANGE), lower[i], DELTA);
+            assertEquals(scale.toPhysical(signal[i] + 0.08, RANGE), upper[i], DELTA);
+        }
+    }
+
+    @Test
+    public void signalLimits_areCutAtRangeStartLikeScaleTypes() {
+        double[] physical = {-1, 0, 0.5, 50, 100};
+        double[] expectedLower = new double[physical.length];
+        double[] expectedUpper = new double[physical.length];
+        double[] lower = new double[physical.length];
+        double[] upper = new double[physical.length];
+        String[] formulas = {"sqrt(x)", "x^2"};
+        CurrentLoopScaleType[] types = {CurrentLoopScaleType.ROOT, CurrentLoopScaleType.QUADRATIC};
+        for (int t = 0; t < formulas.length; t++) {
+            types[t].signalLimits(RANGE, 1, physical, expectedLower, expectedUpper);
+            FormulaScale.compile(formulas[t]).signalLimits(RANGE, 1, physical, 0, lower, 0, upper, 0,
+                    physical.length);
+            assertArrayEquals(formulas[t], expectedLower, lower, DELTA);
+            assertArrayEquals(formulas[t], expectedUpper, upper, DELTA);
+        }
+        // At the start of the range the lower limit is the start of the signal range, not NaN.
+        assertEquals(4, lower[1], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonMonotonicFormula_isRejected() {
+        FormulaScale.compile("4 * x * (1 - x)");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void formulaUndefinedInRange_isRejected() {
+        FormulaScale.compile("ln(x)");
+    }
+}
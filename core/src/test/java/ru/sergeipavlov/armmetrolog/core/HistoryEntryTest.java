@@ -0,0 +1,40 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class HistoryEntryTest {
+
+    @Test
+    public void values_roundTripInOrder() {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("physical_start", "0");
+        values.put("physical_end", "250,5");
+        values.put("note", "two\nlines");
+        values.put("empty", "");
+        String encoded = HistoryEntry.encodeValues(values);
+        assertEquals("physical_start=0\nphysical_end=250,5\nnote=two lines\nempty=", encoded);
+
+        Map<String, String> decoded = HistoryEntry.decodeValues(encoded);
+        assertEquals(new ArrayList<>(values.keySet()), new ArrayList<>(decoded.keySet()));
+        assertEquals("two lines", decoded.get("note"));
+        assertEquals("", decoded.get("empty"));
+        assertTrue(HistoryEntry.decodeValues("").isEmpty());
+    }
+
+    @Test
+    public void sameValues_ignoresIdAndTime() {
+        Map<String, String> inputs = Map.of("signal", "12");
+        Map<String, String> outputs = Map.of("physical", "50");
+        HistoryEntry first = new HistoryEntry(0, "current_loop", "PT-101", 1000, "LINEAR", inputs, outputs);
+        HistoryEntry second = new HistoryEntry(7, "current_loop", "PT-101", 2000, "LINEAR", inputs, outputs);
+        HistoryEntry otherTag = new HistoryEntry(0, "current_loop", "PT-102", 1000, "LINEAR", inputs, outputs);
+        assertTrue(first.sameValues(second));
+        assertFalse(first.sameValues(otherTag));
+    }
+}
@@ -0,0 +1,103 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MeasurementFileConverterTest {
+
+    private static final Quantity TEMPERATURE = Quantities.TEMPERATURE;
+
+    private static String convert(MeasurementFileConverter converter, String input) throws IOException {
+        StringWriter writer = new StringWriter();
+        converter.convert(new StringReader(input), writer, null);
+        return writer.toString();
+    }
+
+    @Test
+    public void convertsSemicolonFileWithCommaDecimals() throws IOException {
+        MeasurementFileConverter converter = new MeasurementFileConverter.Builder()
+                .column(1, ColumnConversion.units(TEMPERATURE,
+                        TEMPERATURE.indexOf("fahrenheit"), TEMPERATURE.indexOf("celsius")))
+                .fractionDigits(2)
+                .build();
+        String output = convert(converter, "time;temp;note\r\n"
+                + "00:00;212;boil\r\n"
+                + "00:01;32,0;\"ice; melting\"\r\n"
+                + "00:02;;\n"
+                + "00:03;\"-40\"");
+        assertEquals("time;temp;note\n"
+                + "00:00;100.00;boil\n"
+                + "00:01;0.00;\"ice; melting\"\n"
+                + "00:02;;\n"
+                + "00:03;-40.00\n", output);
+    }
+
+    @Test
+    public void currentLoopColumn_matchesScalarConversion() throws IOException {
+        CurrentLoopRange range = new CurrentLoopRange(0, 250, 4, 20);
+        MeasurementFileConverter converter = new MeasurementFileConverter.Builder()
+                .column(0, ColumnConversion.toPhysical(CurrentLoopScaleType.ROOT, range))
+                .fractionDigits(9)
+                .build();
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        FixedPointFormatter formatter = FixedPointFormatter.forFractionDigits(9);
+        for (int i = 0; i < 5000; i++) {
+            double signal = 4 + i * 0.0032;
+            input.append(signal).append('\t').append(i).append('\n');
+            formatter.append(CurrentLoopScaleType.ROOT.toPhysical(signal, range), expected);
+            expected.append('\t').append(i).append('\n');
+        }
+        assertEquals(expected.toString(), convert(converter, input.toString()));
+    }
+
+    @Test
+    public void longFile_reportsProgressAndCounts() throws IOException {
+        MeasurementFileConverter converter = new MeasurementFileConverter.Builder()
+                .column(0, ColumnConversion.units(TEMPERATURE,
+                        TEMPERATURE.indexOf("rankine"), TEMPERATURE.indexOf("kelvin")))
+                .build();
+        StringBuilder input = new StringBuilder("rankine\n");
+        for (int i = 0; i < 100_000; i++) {
+            input.append(i).append(",").append(i % 10).append('\n');
+        }
+        List<Long> progress = new ArrayList<>();
+        StringWriter writer = new StringWriter();
+        MeasurementFileConverter.Result result =
+                converter.convert(new StringReader(input.toString()), writer, progress::add);
+        assertEquals(100_001, result.getRowCount());
+        assertEquals(100_000, result.getConvertedCount());
+        assertEquals(1, result.getSkippedCount());
+        assertEquals(Long.valueOf(100_001), progress.get(progress.size() - 1));
+        assertTrue(progress.size() > 1);
+        String output = writer.toString();
+        assertTrue(output.startsWith("rankine\n0.000000,0\n0.555556,1\n"));
+    }
+
+    @Test
+    public void lineLongerThanBuffer_isKept() throws IOException {
+        MeasurementFileConverter converter = new MeasurementFileConverter.Builder()
+                .column(1, ColumnConversion.units(TEMPERATURE, 0, 0))
+                .delimiter(',')
+                .fractionDigits(0)
+                .build();
+        StringBuilder longCell = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            longCell.append('x');
+        }
+        String input = longCell + ",5\n" + "a,7\n";
+        assertEquals(longCell + ",5\na,7\n", convert(converter, input));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void noColumns_rejected() {
+        new MeasurementFileConverter.Builder().build();
+    }
+}
@@ -0,0 +1,191 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ModbusTcpClientTest {
+
+    private Simulator simulator;
+
+    @Before
+    public void setUp() throws IOException {
+        simulator = new Simulator();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        simulator.close();
+    }
+
+    @Test
+    public void readsRegistersInPlace() throws IOException {
+        simulator.registers[10] = (short) 12000;
+        simulator.registers[11] = (short) -5;
+        int bits = Float.floatToIntBits(12.5f);
+        simulator.registers[20] = (short) (bits >>> 16);
+        simulator.registers[21] = (short) bits;
+
+        try (ModbusTcpClient client = ModbusTcpClient.connect("127.0.0.1", simulator.getPort(), 1000)) {
+            ByteBuffer data = client.readInputRegisters(1, 10, 2);
+            assertEquals(4, data.remaining());
+            assertEquals(12000, data.getShort(data.position()));
+            assertEquals(-5, ModbusPoller.Format.INT16.decode(data.position(data.position() + 2)), 0.0);
+
+            data = client.readHoldingRegisters(1, 20, 2);
+            assertEquals(12.5, ModbusPoller.Format.FLOAT32.decode(data), 0.0);
+            // The same buffer serves every response.
+            assertSame(data, client.readInputRegisters(1, 10, 1));
+        }
+    }
+
+    @Test
+    public void reportsExceptionResponses() throws IOException {
+        try (ModbusTcpClient client = ModbusTcpClient.connect("127.0.0.1", simulator.getPort(), 1000)) {
+            try {
+                client.readInputRegisters(1, Simulator.SIZE - 1, 2);
+                fail();
+            } catch (ModbusException e) {
+                assertEquals(2, e.getExceptionCode());
+            }
+            // The connection stays usable.
+            assertEquals(2, client.readInputRegisters(1, 0, 1).remaining());
+        }
+    }
+
+    @Test
+    public void pollerFeedsRingUntilClosed() throws Exception {
+        simulator.registers[3] = (short) 16000;
+        ModbusPoller poller = new ModbusPoller.Builder("127.0.0.1")
+                .port(simulator.getPort())
+                .register(ModbusPoller.Area.INPUT_REGISTERS, 3, ModbusPoller.Format.UINT16)
+                .scaling(0.001, 0)
+                .interval(200, TimeUnit.MICROSECONDS)
+                .build();
+        SampleRing ring = new SampleRing(1024);
+        long[] times = new long[1024];
+        double[] values = new double[1024];
+        poller.start(ring, null);
+        try {
+            int received = 0;
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (received < 50 && System.currentTimeMillis() < deadline) {
+                int count = ring.drain(times, values, 0, times.length);
+                for (int i = 0; i < count; i++) {
+                    assertEquals(16.0, values[i], 1e-12);
+                }
+                received += count;
+                Thread.sleep(5);
+            }
+            assertTrue("received " + received, received >= 50);
+        } finally {
+            poller.close();
+        }
+        assertFalse(poller.isRunning());
+        ring.drain(times, values, 0, times.length);
+        Thread.sleep(20);
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    public void pollerReportsConnectionFailure() throws Exception {
+        int port = simulator.getPort();
+        simulator.close();
+        IOException[] failure = new IOException[1];
+        ModbusPoller poller = new ModbusPoller.Builder("127.0.0.1")
+                .port(port)
+                .timeoutMillis(200)
+                .reconnectDelayMillis(10)
+                .build();
+        poller.start(new SampleRing(16), (connected, error) -> {
+            synchronized (failure) {
+                failure[0] = error;
+                failure.notifyAll();
+            }
+        });
+        try {
+            synchronized (failure) {
+                long deadline = System.currentTimeMillis() + 5_000;
+                while (failure[0] == null && System.currentTimeMillis() < deadline) {
+                    failure.wait(100);
+                }
+            }
+            assertNotNull(failure[0]);
+        } finally {
+            poller.close();
+        }
+    }
+
+    /**
+     * Loopback Modbus TCP server with one table serving functions 3 and 4.
+     */
+    private static final class Simulator implements AutoCloseable {
+
+        static final int SIZE = 100;
+
+        final short[] registers = new short[SIZE];
+        private final ServerSocket server = new ServerSocket(0);
+        private final Thread thread = new Thread(this::serve, "modbus-simulator");
+
+        Simulator() throws IOException {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int getPort() {
+            return server.getLocalPort();
+        }
+
+        private void serve() {
+            while (!server.isClosed()) {
+                try (Socket socket = server.accept()) {
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                    while (true) {
+                        int transaction = in.readUnsignedShort();
+                        in.readUnsignedShort();
+                        in.readUnsignedShort();
+                        int unit = in.readUnsignedByte();
+                        int function = in.readUnsignedByte();
+                        int address = in.readUnsignedShort();
+                        int count = in.readUnsignedShort();
+                        out.writeShort(transaction);
+                        out.writeShort(0);
+                        if (address + count > SIZE) {
+                            out.writeShort(3);
+                            out.writeByte(unit);
+                            out.writeByte(function | 0x80);
+                            out.writeByte(2);
+                        } else {
+                            out.writeShort(3 + 2 * count);
+                            out.writeByte(unit);
+                            out.writeByte(function);
+                            out.writeByte(2 * count);
+                            for (int i = 0; i < count; i++) {
+                                out.writeShort(registers[address + i]);
+                            }
+                        }
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    // Client went away; accept the next one.
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MonteCarloUncertaintyTest {
+
+    private static final MonteCarloUncertainty.Model SUM = (inputs, output, length) -> {
+        for (int i = 0; i < length; i++) {
+            output[i] = inputs[0][i] + inputs[1][i];
+        }
+    };
+
+    @Test
+    public void reproducesLinearPropagation() throws InterruptedException {
+        MonteCarloUncertainty.Result result = new MonteCarloUncertainty.Builder(SUM)
+                .input(InputDistribution.normal(10, 0.3))
+                .input(InputDistribution.normal(5, 0.4))
+                .build()
+                .evaluate(1_000_000, 42, null);
+
+        assertEquals(1_000_000, result.getValidCount());
+        assertEquals(15, result.getMean(), 0.002);
+        assertEquals(0.5, result.getStandardUncertainty(), 0.002);
+        // Normal, so the 95 % interval is ±1.96 u.
+        double[] interval = result.coverageInterval(0.95);
+        assertEquals(15 - 0.98, interval[0], 0.01);
+        assertEquals(15 + 0.98, interval[1], 0.01);
+        assertEquals(15, result.quantile(0.5), 0.005);
+    }
+
+    @Test
+    public void boundedInputsHaveExpectedSpread() throws InterruptedException {
+        for (InputDistribution input : new InputDistribution[]{
+                InputDistribution.rectangular(0, 1), InputDistribution.triangular(0, 1)}) {
+            MonteCarloUncertainty.Result result = new MonteCarloUncertainty.Builder(
+                    MonteCarloUncertainty.Model.of((values, offset, length) -> { }))
+                    .input(input)
+                    .build()
+                    .evaluate(500_000, 7, null);
+
+            assertEquals(input.toString(), input.getStandardUncertainty(), result.getStandardUncertainty(), 0.002);
+            assertTrue(result.getMin() >= -1 && result.getMax() <= 1);
+        }
+        assertEquals(1 / Math.sqrt(3), InputDistribution.rectangular(0, 1).getStandardUncertainty(), 1e-15);
+        assertEquals(1 / Math.sqrt(6), InputDistribution.triangular(0, 1).getStandardUncertainty(), 1e-15);
+    }
+
+    @Test
+    public void resultDoesNotDependOnThreadCount() throws InterruptedException {
+        CurrentLoopRange range = new CurrentLoopRange(0, 100, 4, 20);
+        MonteCarloUncertainty.Model model = MonteCarloUncertainty.Model.of(
+                ColumnConversion.toPhysical(CurrentLoopScaleType.ROOT, range));
+        MonteCarloUncertainty.Result single = new MonteCarloUncertainty.Builder(model)
+                .input(InputDistribution.normal(4.5, 0.05))
+                .parallelism(1)
+                .build()
+                .evaluate(300_000, 123, null);
+        MonteCarloUncertainty.Result parallel = new MonteCarloUncertainty.Builder(model)
+                .input(InputDistribution.normal(4.5, 0.05))
+                .parallelism(4)
+                .build()
+                .evaluate(300_000, 123, null);
+
+        assertEquals(single.getMean(), parallel.getMean(), 0.0);
+        assertEquals(single.getStandardUncertainty(), parallel.getStandardUncertainty(), 0.0);
+        assertArrayEquals(single.getHistogram(), parallel.getHistogram());
+        assertArrayEquals(single.shortestCoverageInterval(0.95), parallel.shortestCoverageInterval(0.95), 0.0);
+    }
+
+    @Test
+    public void shortestIntervalFollowsSkewedOutput() throws InterruptedException {
+        // Square of a normal input near zero: the output piles up at its lower end.
+        MonteCarloUncertainty.Result result = new MonteCarloUncertainty.Builder(
+                (inputs, output, length) -> {
+                    for (int i = 0; i < length; i++) {
+                        output[i] = inputs[0][i] * inputs[0][i];
+                    }
+                })
+                .input(InputDistribution.normal(0, 1))
+                .build()
+                .evaluate(1_000_000, 1, null);
+
+        double[] shortest = result.shortestCoverageInterval(0.95);
+        double[] symmetric = result.coverageInterval(0.95);
+        assertEquals(0, shortest[0], 0.001);
+        // Chi-squared with one degree of freedom: 95th percentile 3.841.
+        assertEquals(3.841, shortest[1], 0.03);
+        assertTrue(shortest[1] - shortest[0] < symmetric[1] - symmetric[0]);
+    }
+
+    @Test
+    public void interruptCancelsEvaluation() throws Exception {
+        MonteCarloUncertainty evaluation = new MonteCarloUncertainty.Builder(SUM)
+                .input(InputDistribution.normal(0, 1))
+                .input(InputDistribution.normal(0, 1))
+                .build();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<MonteCarloUncertainty.Result> future = executor.submit(
+                    () -> evaluation.evaluate(MonteCarloUncertainty.MAX_TRIALS, 5, null));
+            Thread.sleep(50);
+            future.cancel(true);
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void countsNonFiniteOutputsSeparately() throws InterruptedException {
+        MonteCarloUncertainty.Result result = new MonteCarloUncertainty.Builder(
+                MonteCarloUncertainty.Model.of(ColumnConversion.toSignal(CurrentLoopScaleType.ROOT,
+                        new CurrentLoopRange(0, 100, 4, 20))))
+                .input(InputDistribution.rectangular(0, 1))
+                .build()
+                .evaluate(100_000, 3, null);
+
+        assertEquals(100_000, result.getTrialCount());
+        assertEquals(50_000, result.getValidCount(), 1_000);
+        assertTrue(result.getMin() >= 4);
+    }
+}
@@ -0,0 +1,129 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NumberInputTest {
+
+    private final NumberInput input = new NumberInput();
+
+    private double parse(String text) {
+        assertEquals(text, NumberInput.Status.VALID, input.parse(text));
+        return input.getValue();
+    }
+
+    @Test
+    public void classifiesPartialInput() {
+        for (String text : new String[]{"", "  ", " "}) {
+            assertEquals(NumberInput.Status.EMPTY, input.parse(text));
+        }
+        for (String text : new String[]{"-", "+", ".", ",", "-.", "-,", "−", "1e", "1,5E-", " 2e+ "}) {
+            assertEquals(text, NumberInput.Status.INCOMPLETE, input.parse(text));
+            assertTrue(Double.isNaN(input.getValue()));
+        }
+        for (String text : new String[]{"abc", "1.2.3", "1,2.3", "--1", "e5", "-k", "1e5e", "1kk", "12a", "1x",
+                "1e-x", "1 .5", "1, 5", "NaN"}) {
+            assertEquals(text, NumberInput.Status.INVALID, input.parse(text));
+        }
+    }
+
+    @Test
+    public void parsesSeparatorsExponentsAndPrefixes() {
+        assertEquals(12.5, parse("12,5"), 0.0);
+        assertEquals(-0.25, parse(" -.25 "), 0.0);
+        assertEquals(-3.0, parse("−3"), 0.0);
+        assertEquals(1013.25, parse("1 013,25"), 0.0);
+        assertEquals(1.5e-3, parse("1,5E-3"), 0.0);
+        assertEquals(4500.0, parse("4.5k"), 0.0);
+        assertEquals(0.012, parse("12m"), 0.0);
+        assertEquals(250e-6, parse("250µ"), 0.0);
+        assertEquals(250e-6, parse("250u"), 0.0);
+        assertEquals(2.2e6, parse("2,2M"), 0.0);
+        assertEquals(7e-6, parse("7мк"), 0.0);
+        assertEquals(7e-3, parse("7м"), 0.0);
+        assertEquals(1.5e6, parse("1.5e3k"), 0.0);
+        assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(parse("-0,000")));
+    }
+
+    @Test
+    public void rejectsValuesOutsideDoubleRange() {
+        for (String text : new String[]{"1e400", "-1e400", "1e2147483647", "1e308k", "1e-400", "1e-99999999999k",
+                "1" + new String(new char[400]).replace('\0', '0'), "0,1e-323p"}) {
+            assertEquals(text, NumberInput.Status.INVALID, input.parse(text));
+            assertTrue(Double.isNaN(input.getValue()));
+            assertEquals(0, input.getSignificantDigits());
+        }
+        assertEquals(Double.MAX_VALUE, parse("1.7976931348623157e308"), 0.0);
+        assertEquals(Double.MIN_VALUE, parse("4.9e-324"), 0.0);
+        assertEquals(1e-300, parse("1e-288p"), 0.0);
+        assertEquals(0.0, parse("0e99999"), 0.0);
+    }
+
+    @Test
+    public void countsDigits() {
+        parse("0,0120");
+        assertEquals(4, input.getFractionDigits());
+        assertEquals(3, input.getSignificantDigits());
+        assertTrue(input.isPlain());
+        parse("1 200.5e-3k");
+        assertEquals(1, input.getFractionDigits());
+        assertEquals(5, input.getSignificantDigits());
+        assertEquals(0, input.getScaleExponent());
+        assertFalse(input.isPlain());
+        parse("250µ");
+        assertEquals(-6, input.getScaleExponent());
+        parse("0");
+        assertEquals(0, input.getSignificantDigits());
+        input.parse("1,");
+        assertEquals(0, input.getFractionDigits());
+    }
+
+    @Test
+    public void convertsToBigDecimalWithoutRounding() {
+        parse("-12,3400k");
+        assertEquals(0, new BigDecimal("-12340").compareTo(input.toBigDecimal()));
+        parse("0.1");
+        assertEquals(new BigDecimal("0.1"), input.toBigDecimal());
+        parse("123456789012345678901234567890");
+        assertEquals(new BigDecimal("123456789012345678901234567890"), input.toBigDecimal());
+        input.parse("-");
+        try {
+            input.toBigDecimal();
+            fail();
+        } catch (IllegalStateException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void matchesParseDouble() {
+        Random random = new Random(12);
+        for (int i = 0; i < 100_000; i++) {
+            double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(30) - 12);
+            String text;
+            switch (i % 4) {
+                case 0:
+                    text = Double.toString(value);
+                    break;
+                case 1:
+                    text = String.format(Locale.US, "%." + random.nextInt(12) + "f", value);
+                    break;
+                case 2:
+                    text = String.format(Locale.US, "%." + random.nextInt(18) + "e", value);
+                    break;
+                default:
+                    text = Long.toString(random.nextLong() >> random.nextInt(64));
+                    break;
+            }
+            double expected = Double.parseDouble(text);
+            assertEquals(text, Double.doubleToLongBits(expected), Double.doubleToLongBits(parse(text)));
+            assertEquals(text, Double.doubleToLongBits(expected),
+                    Double.doubleToLongBits(parse(text.replace('.', ','))));
+        }
+    }
+}
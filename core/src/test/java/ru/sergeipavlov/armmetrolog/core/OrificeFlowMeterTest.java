@@ -0,0 +1,170 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class OrificeFlowMeterTest {
+
+    // Water at 20 °C in a 100 mm pipe.
+    private static OrificeFlowMeter.Builder water(OrificeFlowMeter.Tapping tapping, double beta) {
+        return new OrificeFlowMeter.Builder()
+                .pipeDiameter(0.1)
+                .boreDiameter(0.1 * beta)
+                .tapping(tapping)
+                .density(998.2)
+                .viscosity(1.002e-3);
+    }
+
+    @Test
+    public void dischargeCoefficientMatchesStandardTable() {
+        // ISO 5167-2, table A.1: corner tappings, beta 0.5, Re_D 1e6.
+        OrificeFlowMeter meter = water(OrificeFlowMeter.Tapping.CORNER, 0.5).build();
+        assertEquals(0.6038, meter.dischargeCoefficient(1e6), 5e-5);
+        // Lower Reynolds numbers raise the coefficient.
+        assertTrue(meter.dischargeCoefficient(1e4) > meter.dischargeCoefficient(1e5));
+    }
+
+    @Test
+    public void tappingsChangeCoefficient() {
+        double corner = water(OrificeFlowMeter.Tapping.CORNER, 0.6).build().dischargeCoefficient(1e6);
+        double flange = water(OrificeFlowMeter.Tapping.FLANGE, 0.6).build().dischargeCoefficient(1e6);
+        double radius = water(OrificeFlowMeter.Tapping.D_AND_HALF_D, 0.6).build().dischargeCoefficient(1e6);
+
+        assertTrue(Math.abs(corner - flange) > 1e-4);
+        assertTrue(Math.abs(corner - radius) > 1e-4);
+        for (double c : new double[]{corner, flange, radius}) {
+            assertEquals(0.605, c, 0.01);
+        }
+    }
+
+    @Test
+    public void massFlowSolvesFlowEquation() {
+        for (OrificeFlowMeter.Tapping tapping : OrificeFlowMeter.Tapping.values()) {
+            for (double beta : new double[]{0.2, 0.5, 0.7}) {
+                OrificeFlowMeter meter = water(tapping, beta).build();
+                for (double dp : new double[]{100, 2500, 25_000, 250_000}) {
+                    double flow = meter.massFlow(dp);
+                    double c = meter.dischargeCoefficient(meter.reynoldsNumber(flow));
+                    double d = 0.1 * beta;
+                    double expected = c / Math.sqrt(1 - Math.pow(beta, 4)) * Math.PI / 4 * d * d
+                            * Math.sqrt(2 * dp * 998.2);
+
+                    assertEquals(tapping + " " + beta + " " + dp, expected, flow, 1e-12 * expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void massFlowNearZeroConverges() {
+        OrificeFlowMeter meter = water(OrificeFlowMeter.Tapping.FLANGE, 0.7).build();
+        assertEquals(0, meter.massFlow(0), 0);
+        double previous = 0;
+        for (double dp = 1e-9; dp < 1e6; dp *= 1.7) {
+            double flow = meter.massFlow(dp);
+            assertTrue(dp + ": " + flow, flow > previous);
+            previous = flow;
+        }
+        assertTrue(Double.isNaN(meter.massFlow(-1)));
+        assertTrue(Double.isNaN(meter.massFlow(Double.NaN)));
+    }
+
+    @Test
+    public void gasExpansibility() {
+        OrificeFlowMeter meter = new OrificeFlowMeter.Builder()
+                .pipeDiameter(0.2)
+                .boreDiameter(0.1)
+                .density(11.8)
+                .viscosity(1.1e-5)
+                .gas(1.4, 1e6)
+                .build();
+
+        // p2/p1 = 0.9: 1 - (0.351 + 0.256 beta^4 + 0.93 beta^8) (1 - 0.9^(1/1.4)).
+        assertEquals(0.973131, meter.expansibility(1e5), 1e-6);
+        OrificeFlowMeter liquid = water(OrificeFlowMeter.Tapping.FLANGE, 0.5).build();
+        assertEquals(1, liquid.expansibility(1e5), 0);
+        assertEquals(meter.massFlow(1e5) / 11.8, meter.volumeFlow(1e5), 1e-15);
+    }
+
+    @Test
+    public void gasPressureRatioIsLimited() {
+        OrificeFlowMeter meter = new OrificeFlowMeter.Builder()
+                .pipeDiameter(0.2)
+                .boreDiameter(0.1)
+                .density(11.8)
+                .viscosity(1.1e-5)
+                .gas(1.4, 1e6)
+                .build();
+
+        assertEquals(2.5e5, meter.getMaximumDifferentialPressure(), 0);
+        assertFalse(Double.isNaN(meter.massFlow(2.5e5)));
+        assertTrue(Double.isNaN(meter.expansibility(2.6e5)));
+        assertTrue(Double.isNaN(meter.massFlow(2.6e5)));
+        // Past the upstream pressure the ratio is negative.
+        assertTrue(Double.isNaN(meter.massFlow(2e6)));
+        assertEquals(Double.POSITIVE_INFINITY,
+                water(OrificeFlowMeter.Tapping.FLANGE, 0.5).build().getMaximumDifferentialPressure(), 0);
+    }
+
+    @Test
+    public void minimumReynoldsDependsOnTapping() {
+        assertEquals(5000, water(OrificeFlowMeter.Tapping.CORNER, 0.5).build().getMinimumReynolds(), 0);
+        assertEquals(16000 * 0.49, water(OrificeFlowMeter.Tapping.D_AND_HALF_D, 0.7).build().getMinimumReynolds(),
+                1e-9);
+        // max(5000, 170 beta^2 D) with D in millimetres: 4250 for D = 100 mm, 21250 for D = 500 mm.
+        assertEquals(Math.max(5000, 170 * 0.25 * 100),
+                water(OrificeFlowMeter.Tapping.FLANGE, 0.5).build().getMinimumReynolds(), 1e-6);
+        OrificeFlowMeter large = water(OrificeFlowMeter.Tapping.FLANGE, 0.5)
+                .pipeDiameter(0.5)
+                .boreDiameter(0.25)
+                .build();
+        assertEquals(170 * 0.25 * 500, large.getMinimumReynolds(), 1e-6);
+    }
+
+    @Test
+    public void rootSignalTable() {
+        OrificeFlowMeter meter = water(OrificeFlowMeter.Tapping.FLANGE, 0.5).build();
+        CurrentLoopRange range = new CurrentLoopRange(0, 25_000, 4, 20);
+        double[] signal = {4, 8, 12, 16, 20};
+        double[] flow = new double[signal.length];
+
+        meter.massFlowFromSignal(CurrentLoopScaleType.ROOT, range, signal, 0, flow, 0, signal.length);
+
+        assertEquals(0, flow[0], 0);
+        // A root transmitter is linear in flow, up to the change of C with the Reynolds number.
+        assertEquals(meter.massFlow(6250), flow[2], 1e-12);
+        assertEquals(flow[4] / 2, flow[2], 0.005 * flow[2]);
+        assertEquals(meter.massFlow(25_000), flow[4], 1e-12);
+    }
+
+    @Test
+    public void arrayFormMatchesScalar() {
+        OrificeFlowMeter meter = water(OrificeFlowMeter.Tapping.CORNER, 0.4).build();
+        double[] values = {0, 10, 1000, 1e5, -5};
+        double[] flow = new double[values.length];
+
+        meter.massFlow(values, flow);
+        meter.massFlow(values, values);
+
+        for (int i = 0; i < flow.length; i++) {
+            assertEquals(flow[i], values[i], 0);
+        }
+        assertEquals(meter.massFlow(1000), flow[2], 1e-12 * flow[2]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDiameterRatio() {
+        water(OrificeFlowMeter.Tapping.FLANGE, 0.8).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresFluid() {
+        new OrificeFlowMeter.Builder().pipeDiameter(0.1).boreDiameter(0.05).build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSmallPipe() {
+        new OrificeFlowMeter.Builder().pipeDiameter(0.04);
+    }
+}
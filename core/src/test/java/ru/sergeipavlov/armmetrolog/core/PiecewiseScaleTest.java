@@ -0,0 +1,164 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.function.DoubleUnaryOperator;
+
+import static org.junit.Assert.*;
+
+public class PiecewiseScaleTest {
+
+    private static final double DELTA = 1e-12;
+    private static final CurrentLoopRange RANGE = new CurrentLoopRange(0, 100, 4, 20);
+
+    private static PiecewiseScale sampled(PiecewiseScale.Interpolation interpolation, int points,
+                                          DoubleUnaryOperator shape) {
+        double[] x = new double[points];
+        double[] y = new double[points];
+        for (int i = 0; i < points; i++) {
+            x[i] = (double) i / (points - 1);
+            y[i] = shape.applyAsDouble(x[i]);
+        }
+        return PiecewiseScale.of(interpolation, x, y);
+    }
+
+    @Test
+    public void twoPointTable_isLinearScale() {
+        for (PiecewiseScale.Interpolation interpolation : PiecewiseScale.Interpolation.values()) {
+            PiecewiseScale scale = PiecewiseScale.of(interpolation, new double[]{0, 1}, new double[]{0, 1});
+            assertEquals(12.0, scale.toSignal(50, RANGE), DELTA);
+            assertEquals(75.0, scale.toPhysical(16, RANGE), DELTA);
+            // Extended along the end tangent beyond the table.
+            assertEquals(3.2, scale.toSignal(-5, RANGE), DELTA);
+            assertEquals(-5.0, scale.toPhysical(3.2, RANGE), DELTA);
+        }
+    }
+
+    @Test
+    public void linear_interpolatesBetweenPoints() {
+        PiecewiseScale scale = PiecewiseScale.of(PiecewiseScale.Interpolation.LINEAR,
+                new double[]{0, 0.5, 1}, new double[]{0, 0.8, 1});
+        assertEquals(4 + 16 * 0.4, scale.toSignal(25, RANGE), DELTA);
+        assertEquals(4 + 16 * 0.9, scale.toSignal(75, RANGE), DELTA);
+        assertEquals(75.0, scale.toPhysical(4 + 16 * 0.9, RANGE), DELTA);
+    }
+
+    @Test
+    public void monotoneCubic_followsSmoothCurveAndPassesThroughPoints() {
+        PiecewiseScale scale = sampled(PiecewiseScale.Interpolation.MONOTONE_CUBIC, 41, x -> x * x);
+        for (int i = 0; i <= 100; i++) {
+            double physical = i;
+            assertEquals(CurrentLoopScaleType.QUADRATIC.toSignal(physical, RANGE),
+                    scale.toSignal(physical, RANGE), 2e-4);
+        }
+        assertEquals(CurrentLoopScaleType.QUADRATIC.toSignal(25, RANGE), scale.toSignal(25, RANGE), DELTA);
+    }
+
+    @Test
+    public void monotoneCubic_doesNotOvershootSteps() {
+        PiecewiseScale scale = PiecewiseScale.of(PiecewiseScale.Interpolation.MONOTONE_CUBIC,
+                new double[]{0, 0.1, 0.2, 0.3, 1}, new double[]{0, 0.01, 0.9, 0.91, 1});
+        double previous = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i <= 1000; i++) {
+            double ratio = scale.forwardRatio(i / 1000.0);
+            assertTrue("@" + i, ratio >= previous);
+            assertTrue("@" + i, ratio >= 0 && ratio <= 1);
+            previous = ratio;
+        }
+    }
+
+    @Test
+    public void inverse_roundTripsForIncreasingAndDecreasingTables() {
+        SplittableRandom random = new SplittableRandom(7);
+        double[] x = new double[200];
+        double[] y = new double[x.length];
+        for (int i = 1; i < x.length; i++) {
+            x[i] = x[i - 1] + 0.01 + random.nextDouble();
+            y[i] = y[i - 1] + 0.001 + random.nextDouble() * random.nextDouble();
+        }
+        double[] descending = new double[y.length];
+        for (int i = 0; i < y.length; i++) {
+            descending[i] = -y[i];
+        }
+        for (PiecewiseScale.Interpolation interpolation : PiecewiseScale.Interpolation.values()) {
+            for (double[] signal : new double[][]{y, descending}) {
+                PiecewiseScale scale = PiecewiseScale.of(interpolation, x, signal);
+                for (int i = 0; i < 2000; i++) {
+                    double ratio = -1 + random.nextDouble() * (x[x.length - 1] + 2);
+                    assertEquals(ratio, scale.inverseRatio(scale.forwardRatio(ratio)), 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void batch_matchesScalarInAnyOrder() {
+        PiecewiseScale scale = sampled(PiecewiseScale.Interpolation.MONOTONE_CUBIC, 1000, x -> Math.sqrt(x + 0.01));
+        SplittableRandom random = new SplittableRandom(11);
+        double[] physical = new double[3000];
+        for (int i = 0; i < physical.length; i++) {
+            // A sorted sweep followed by shuffled values.
+            physical[i] = i < 1000 ? -5 + i * 0.11 : -10 + random.nextDouble() * 120;
+        }
+        double[] signal = new double[physical.length];
+        double[] back = new double[physical.length];
+        scale.toSignal(RANGE, physical, signal);
+        scale.toPhysical(RANGE, signal, back);
+        for (int i = 0; i < physical.length; i++) {
+            assertEquals("@" + i, scale.toSignal(physical[i], RANGE), signal[i], 0);
+            assertEquals("@" + i, scale.toPhysical(signal[i], RANGE), back[i], 0);
+            assertEquals("@" + i, physical[i], back[i], 1e-9);
+        }
+    }
+
+    @Test
+    public void limits_containCharacteristic() {
+        PiecewiseScale scale = PiecewiseScale.of(PiecewiseScale.Interpolation.MONOTONE_CUBIC,
+                new double[]{0, 0.5, 1}, new double[]{1, 0.3, 0});
+        double[] physical = {0, 25, 50, 100};
+        double[] lower = new double[physical.length];
+        double[] upper = new double[physical.length];
+        scale.signalLimits(RANGE, 1.0, physical, 0, lower, 0, upper, 0, physical.length);
+        for (int i = 0; i < physical.length; i++) {
+            double signal = scale.toSignal(physical[i], RANGE);
+            assertTrue(lower[i] < signal && signal < upper[i]);
+            assertEquals(scale.toSignal(physical[i] + 1, RANGE), lower[i], DELTA);
+            assertEquals(scale.toSignal(physical[i] - 1, RANGE), upper[i], DELTA);
+        }
+    }
+
+    @Test
+    public void binaryForm_roundTrips() throws IOException {
+        PiecewiseScale scale = sampled(PiecewiseScale.Interpolation.MONOTONE_CUBIC, 5000, x -> x * x * x + x);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        scale.writeTo(new DataOutputStream(bytes));
+        PiecewiseScale read = PiecewiseScale.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(scale, read);
+        assertEquals(scale.toPhysical(13.7, RANGE), read.toPhysical(13.7, RANGE), 0);
+
+        byte[] corrupted = bytes.toByteArray();
+        corrupted[0] ^= 1;
+        try {
+            PiecewiseScale.readFrom(new DataInputStream(new ByteArrayInputStream(corrupted)));
+            fail();
+        } catch (IOException expected) {
+            // Expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonMonotonicSignal_isRejected() {
+        PiecewiseScale.of(PiecewiseScale.Interpolation.LINEAR, new double[]{0, 0.5, 1}, new double[]{0, 0.6, 0.5});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void repeatedPhysicalPoint_isRejected() {
+        PiecewiseScale.of(PiecewiseScale.Interpolation.LINEAR, new double[]{0, 0.5, 0.5}, new double[]{0, 0.5, 1});
+    }
+}
@@ -0,0 +1,162 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuantityTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void temperature_knownPoints() {
+        Quantity temperature = Quantities.TEMPERATURE;
+        int celsius = temperature.indexOf("celsius");
+        double[] out = new double[temperature.size()];
+        temperature.convertAll(celsius, 100, out);
+        assertEquals(373.15, out[temperature.indexOf("kelvin")], DELTA);
+        assertEquals(100.0, out[celsius], DELTA);
+        assertEquals(212.0, out[temperature.indexOf("fahrenheit")], DELTA);
+        assertEquals(671.67, out[temperature.indexOf("rankine")], DELTA);
+        assertEquals(80.0, out[temperature.indexOf("reaumur")], DELTA);
+        assertEquals(-40.0, temperature.convert(-40, celsius, temperature.indexOf("fahrenheit")), DELTA);
+    }
+
+    @Test
+    public void time_knownPoints() {
+        Quantity time = Quantities.TIME;
+        assertEquals(86_400.0, time.convert(1, time.indexOf("day"), time.indexOf("second")), DELTA);
+        assertEquals(1.0, time.convert(604_800_000, time.indexOf("millisecond"), time.indexOf("week")), DELTA);
+        assertEquals(1000.0, time.convert(1, time.indexOf("millennium"), time.indexOf("year")), DELTA);
+    }
+
+    @Test
+    public void speed_knownPoints() {
+        Quantity speed = Quantities.SPEED;
+        int metrePerSecond = speed.indexOf("metre_per_second");
+        assertEquals(36.0, speed.convert(10, metrePerSecond, speed.indexOf("kilometre_per_hour")), DELTA);
+        assertEquals(1.852, speed.convert(1, speed.indexOf("knot"), speed.indexOf("kilometre_per_hour")), DELTA);
+        assertEquals(88.0, speed.convert(1, speed.indexOf("mile_per_hour"), speed.indexOf("foot_per_minute")), DELTA);
+        assertEquals(0.3048, speed.factor(speed.indexOf("foot_per_second"), metrePerSecond), 0.0);
+        assertEquals(1.0, speed.factor(metrePerSecond, metrePerSecond), 0.0);
+    }
+
+    @Test
+    public void pressure_knownPoints() {
+        Quantity pressure = Quantities.PRESSURE;
+        int pascal = pressure.indexOf("pascal");
+        double[] out = new double[pressure.size()];
+        pressure.convertAll(pressure.indexOf("atmosphere"), 1, out);
+        assertEquals(101_325.0, out[pascal], DELTA);
+        assertEquals(1.01325, out[pressure.indexOf("bar")], DELTA);
+        assertEquals(760.0, out[pressure.indexOf("torr")], DELTA);
+        assertEquals(760.0, out[pressure.indexOf("millimetre_of_mercury")], 2e-4);
+        assertEquals(14.6959488, out[pressure.indexOf("psi")], 1e-7);
+        assertEquals(1.0332275, out[pressure.indexOf("kgf_per_square_centimetre")], 1e-7);
+        assertEquals(0.0, out[pressure.indexOf("kilopascal_gauge")], DELTA);
+        assertEquals(0.0, out[pressure.indexOf("psi_gauge")], DELTA);
+
+        assertEquals(10_000.0, pressure.convert(1, pressure.indexOf("kgf_per_square_centimetre"),
+                pressure.indexOf("millimetre_of_water")), DELTA);
+        assertEquals(249.08891, pressure.convert(1, pressure.indexOf("inch_of_water"), pascal), DELTA);
+        assertEquals(2.01325, pressure.convert(1, pressure.indexOf("bar_gauge"), pressure.indexOf("bar")), DELTA);
+        assertEquals(100.0, pressure.convert(0.201325, pressure.indexOf("megapascal"),
+                pressure.indexOf("kilopascal_gauge")), DELTA);
+    }
+
+    @Test
+    public void pressure_exactGaugeOffset() {
+        Quantity pressure = Quantities.PRESSURE;
+        BigDecimal absolute = pressure.convertExact(new BigDecimal("2.5"), pressure.indexOf("bar_gauge"),
+                pressure.indexOf("kilopascal"), MathContext.DECIMAL128);
+        assertEquals(0, new BigDecimal("351.325").compareTo(absolute));
+    }
+
+    @Test
+    public void convert_arrayMatchesScalar() {
+        for (Quantity quantity : Quantities.all()) {
+            for (int source = 0; source < quantity.size(); source++) {
+                for (int target = 0; target < quantity.size(); target++) {
+                    double[] values = {-12.5, 0, 1, 987.654};
+                    double[] expected = new double[values.length];
+                    for (int i = 0; i < values.length; i++) {
+                        expected[i] = quantity.convert(values[i], source, target);
+                    }
+                    quantity.convert(source, target, values, 0, values.length);
+                    assertArrayEquals(expected, values, 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void convertAll_roundTripsEveryUnit() {
+        for (Quantity quantity : Quantities.all()) {
+            double[] out = new double[quantity.size()];
+            for (int source = 0; source < quantity.size(); source++) {
+                quantity.convertAll(source, 123.456, out);
+                assertEquals(123.456, out[source], 0.0);
+                for (int target = 0; target < quantity.size(); target++) {
+                    double back = quantity.convert(out[target], target, source);
+                    assertEquals(quantity.getUnit(source) + "->" + quantity.getUnit(target), 123.456, back, 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void exact_keepsDigitsDoubleLoses() {
+        Quantity time = Quantities.TIME;
+        BigDecimal value = new BigDecimal("123456789012345678.123456789");
+        BigDecimal seconds = time.convertExact(value, time.indexOf("millennium"), time.indexOf("second"),
+                MathContext.DECIMAL128);
+        assertEquals(new BigDecimal("3893333298293333305301333297.904"), seconds.stripTrailingZeros());
+
+        Quantity temperature = Quantities.TEMPERATURE;
+        BigDecimal celsius = temperature.convertExact(new BigDecimal("98.6"), temperature.indexOf("fahrenheit"),
+                temperature.indexOf("celsius"), MathContext.DECIMAL128);
+        assertEquals(0, new BigDecimal("37").compareTo(celsius));
+        BigDecimal third = temperature.convertExact(BigDecimal.ONE, temperature.indexOf("rankine"),
+                temperature.indexOf("kelvin"), MathContext.DECIMAL128);
+        assertEquals(new BigDecimal("0.5555555555555555555555555555555556"), third);
+    }
+
+    @Test
+    public void convertAllExact_agreesWithDouble() {
+        Random random = new Random(9);
+        for (Quantity quantity : Quantities.all()) {
+            BigDecimal[] exact = new BigDecimal[quantity.size()];
+            double[] approximate = new double[quantity.size()];
+            for (int n = 0; n < 1000; n++) {
+                int source = random.nextInt(quantity.size());
+                double value = (random.nextDouble() - 0.5) * 1e6;
+                quantity.convertAllExact(source, new BigDecimal(value), MathContext.DECIMAL128, exact);
+                quantity.convertAll(source, value, approximate);
+                assertEquals(0, new BigDecimal(value).compareTo(exact[source]));
+                for (int i = 0; i < exact.length; i++) {
+                    double tolerance = 1e-12 * Math.max(1, Math.abs(approximate[i]));
+                    assertEquals(approximate[i], exact[i].doubleValue(), tolerance);
+                }
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void duplicateUnit_rejected() {
+        new Quantity.Builder("test").unit("a", "0", "1").unit("a", "0", "2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compoundUnitOfOtherDimension_rejected() {
+        new Quantity.Builder("test").compoundUnit("a", "m/s").compoundUnit("b", "m/s2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownUnit_rejected() {
+        Quantities.TIME.indexOf("fortnight");
+    }
+}
@@ -0,0 +1,77 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RecalculationPipelineTest {
+
+    private final RecalculationPipeline pipeline = new RecalculationPipeline(Runnable::run, 30);
+
+    @After
+    public void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    public void rapidSubmissions_areCoalescedToLatest() throws InterruptedException {
+        AtomicInteger computations = new AtomicInteger();
+        List<Integer> results = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            pipeline.submit(() -> {
+                computations.incrementAndGet();
+                return value;
+            }, result -> {
+                results.add(result);
+                delivered.countDown();
+            });
+        }
+        assertTrue(delivered.await(2, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(1, computations.get());
+        assertEquals(List.of(9), results);
+    }
+
+    @Test
+    public void staleResult_isDropped() throws InterruptedException {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        List<String> results = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+        pipeline.submit(() -> {
+            slowStarted.countDown();
+            try {
+                releaseSlow.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "stale";
+        }, results::add);
+        assertTrue(slowStarted.await(2, TimeUnit.SECONDS));
+        pipeline.submit(() -> "fresh", result -> {
+            results.add(result);
+            delivered.countDown();
+        });
+        releaseSlow.countDown();
+        assertTrue(delivered.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of("fresh"), results);
+    }
+
+    @Test
+    public void cancel_dropsPendingTask() throws InterruptedException {
+        AtomicInteger delivered = new AtomicInteger();
+        pipeline.submit(() -> 1, result -> delivered.incrementAndGet());
+        pipeline.cancel();
+        Thread.sleep(100);
+        assertEquals(0, delivered.get());
+    }
+}
@@ -0,0 +1,69 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ResistanceThermometerTest {
+
+    @Test
+    public void matchesReferenceTables() {
+        assertEquals(100.0, ResistanceThermometer.PT100.toResistance(0.0), 0.0);
+        assertEquals(138.5055, ResistanceThermometer.PT100.toResistance(100.0), 0.0001);
+        assertEquals(60.2558, ResistanceThermometer.PT100.toResistance(-100.0), 0.0001);
+        assertEquals(18.5201, ResistanceThermometer.PT100.toResistance(-200.0), 0.0001);
+        assertEquals(390.4811, ResistanceThermometer.PT100.toResistance(850.0), 0.0001);
+        assertEquals(139.1, ResistanceThermometer.P100.toResistance(100.0), 0.01);
+        assertEquals(71.4, ResistanceThermometer.CU50.toResistance(100.0), 1e-9);
+        assertEquals(39.35, new ResistanceThermometer(RtdCharacteristic.COPPER_426, 50).toResistance(-50.0), 1e-9);
+    }
+
+    @Test
+    public void inverseRoundTripsOverWholeRange() {
+        for (RtdCharacteristic characteristic : RtdCharacteristic.values()) {
+            ResistanceThermometer thermometer = new ResistanceThermometer(characteristic, 100);
+            for (double temperature = characteristic.getMinTemperature();
+                 temperature <= characteristic.getMaxTemperature(); temperature += 0.25) {
+                double resistance = thermometer.toResistance(temperature);
+                assertEquals(characteristic + " " + temperature, temperature, thermometer.toTemperature(resistance), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void tableMatchesExactInverse() {
+        for (ResistanceThermometer thermometer : new ResistanceThermometer[]{
+                ResistanceThermometer.PT100, ResistanceThermometer.P50, ResistanceThermometer.CU50,
+                new ResistanceThermometer(RtdCharacteristic.COPPER_426, 100)}) {
+            RtdCharacteristic characteristic = thermometer.getCharacteristic();
+            double min = thermometer.toResistance(characteristic.getMinTemperature());
+            double max = thermometer.toResistance(characteristic.getMaxTemperature());
+            int n = 100_001;
+            double[] resistances = new double[n];
+            for (int i = 0; i < n; i++) {
+                resistances[i] = min + (max - min) * i / (n - 1);
+            }
+            double[] temperatures = new double[n];
+            thermometer.toTemperature(resistances, temperatures);
+            double bound = thermometer.getMaxTableError() * 2;
+            assertTrue(thermometer.toString(), bound <= 2e-6);
+            for (int i = 0; i < n; i++) {
+                assertEquals(thermometer + " " + resistances[i],
+                        thermometer.toTemperature(resistances[i]), temperatures[i], Math.max(bound, 1e-12));
+            }
+        }
+    }
+
+    @Test
+    public void rejectsValuesOutOfRange() {
+        assertTrue(Double.isNaN(ResistanceThermometer.PT100.toResistance(851.0)));
+        assertTrue(Double.isNaN(ResistanceThermometer.CU50.toResistance(-181.0)));
+        assertTrue(Double.isNaN(ResistanceThermometer.PT100.toTemperature(10.0)));
+        assertTrue(Double.isNaN(ResistanceThermometer.PT100.toTemperature(Double.NaN)));
+        double[] values = {10.0, 100.0, 400.0};
+        ResistanceThermometer.PT100.toTemperature(values, values);
+        assertTrue(Double.isNaN(values[0]));
+        assertEquals(0.0, values[1], 1e-9);
+        assertTrue(Double.isNaN(values[2]));
+    }
+}
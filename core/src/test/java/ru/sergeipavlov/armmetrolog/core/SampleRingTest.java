@@ -0,0 +1,66 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SampleRingTest {
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(8, new SampleRing(5).capacity());
+        assertEquals(8, new SampleRing(8).capacity());
+        assertEquals(1, new SampleRing(1).capacity());
+    }
+
+    @Test
+    public void drainsInOrderAndDropsWhenFull() {
+        SampleRing ring = new SampleRing(4);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(i < 4, ring.offer(i, i * 0.5));
+        }
+        assertEquals(2, ring.getDroppedCount());
+        assertEquals(4, ring.size());
+
+        long[] times = new long[8];
+        double[] values = new double[8];
+        assertEquals(3, ring.drain(times, values, 1, 3));
+        assertArrayEquals(new long[]{0, 0, 1, 2, 0, 0, 0, 0}, times);
+        assertArrayEquals(new double[]{0, 0, 0.5, 1.0, 0, 0, 0, 0}, values, 0.0);
+
+        assertTrue(ring.offer(10, 5.0));
+        assertEquals(5.0, ring.drainLatest(), 0.0);
+        assertEquals(0, ring.size());
+        assertTrue(Double.isNaN(ring.drainLatest()));
+        assertEquals(0, ring.drain(times, values, 0, 8));
+    }
+
+    @Test
+    public void handsOverAcrossThreadsInOrder() throws InterruptedException {
+        SampleRing ring = new SampleRing(256);
+        int total = 1_000_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                while (!ring.offer(i, i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        long[] times = new long[64];
+        double[] values = new double[64];
+        long expected = 0;
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (expected < total && System.currentTimeMillis() < deadline) {
+            int count = ring.drain(times, values, 0, times.length);
+            for (int i = 0; i < count; i++) {
+                assertEquals(expected, times[i]);
+                assertEquals(expected, values[i], 0.0);
+                expected++;
+            }
+        }
+        producer.join();
+        assertEquals(total, expected);
+    }
+}
@@ -0,0 +1,238 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class ScaleFitterTest {
+
+    private static final CurrentLoopRange RANGE = new CurrentLoopRange(0, 100, 4, 20);
+    private static final double[] PHYSICAL = {0, 10, 25, 40, 50, 60, 75, 90, 100};
+
+    private static double[] measure(CurrentLoopScaleType type, double noise, long seed) {
+        Random random = new Random(seed);
+        double[] signal = new double[PHYSICAL.length];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = type.toSignal(PHYSICAL[i], RANGE) + noise * random.nextGaussian();
+        }
+        return signal;
+    }
+
+    private static ScaleFit bestScaleType(List<ScaleFit> fits) {
+        for (ScaleFit fit : fits) {
+            if (fit.getScaleType() != null) {
+                return fit;
+            }
+        }
+        throw new AssertionError("No scale type in " + fits);
+    }
+
+    @Test
+    public void ranksConfiguredScaleFirst() {
+        ScaleFitter fitter = new ScaleFitter.Builder().build();
+        for (CurrentLoopScaleType type : CurrentLoopScaleType.values()) {
+            // Exact points shifted by 0.05 mA: the polynomials fit as well but cost coefficients.
+            double[] signal = measure(type, 0, 0);
+            for (int i = 0; i < signal.length; i++) {
+                signal[i] += 0.05;
+            }
+
+            ScaleFit best = fitter.fit(RANGE, PHYSICAL, signal).get(0);
+
+            assertEquals(type.name(), type, best.getScaleType());
+            assertEquals(0.3125, best.getMaxAbsDeviation(), 1e-9);
+        }
+    }
+
+    @Test
+    public void findsConfiguredScaleInNoise() {
+        ScaleFitter fitter = new ScaleFitter.Builder().build();
+        for (CurrentLoopScaleType type : CurrentLoopScaleType.values()) {
+            ScaleFit best = bestScaleType(fitter.fit(RANGE, PHYSICAL, measure(type, 0.004, type.ordinal())));
+
+            assertEquals(type.name(), type, best.getScaleType());
+            assertEquals(0.004, best.getStandardError(), 0.003);
+            // Within the measurement noise of 0.025 % of span.
+            assertTrue(best.toString(), best.getMaxAbsDeviation() < 0.1);
+            assertEquals(PHYSICAL.length, best.getDeviations().length);
+        }
+    }
+
+    @Test
+    public void recoversShiftedZeroAndSpan() {
+        double[] signal = new double[PHYSICAL.length];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = 4.08 + 15.9 * PHYSICAL[i] / 100;
+        }
+
+        ScaleFit best = new ScaleFitter.Builder().maxPolynomialDegree(0).build().fit(RANGE, PHYSICAL, signal).get(0);
+
+        assertEquals(CurrentLoopScaleType.LINEAR, best.getScaleType());
+        assertArrayEquals(new double[]{4.08, 15.9}, best.getCoefficients(), 1e-12);
+        assertEquals(0, best.getResidualRms(), 1e-12);
+        assertEquals(4.08, best.predict(0), 1e-12);
+        assertEquals(19.98, best.predict(100), 1e-12);
+        // 0.5 % at zero, 0.125 % at the top.
+        double[] deviations = best.getDeviations();
+        assertEquals(0.5, deviations[0], 1e-12);
+        assertEquals(-0.125, deviations[deviations.length - 1], 1e-12);
+        assertEquals(0.5, best.getMaxAbsDeviation(), 1e-12);
+    }
+
+    @Test
+    public void wrongDirectionIsFlat() {
+        List<ScaleFit> fits = new ScaleFitter.Builder().maxPolynomialDegree(0).build()
+                .fit(RANGE, PHYSICAL, measure(CurrentLoopScaleType.LINEAR, 0, 0));
+
+        for (ScaleFit fit : fits) {
+            if (fit.getScaleType().isDescending()) {
+                assertEquals(0, fit.getCoefficients()[1], 0);
+                assertTrue(fit.getStandardError() > 1);
+            }
+        }
+    }
+
+    @Test
+    public void fitsPolynomialExactly() {
+        double[] signal = new double[PHYSICAL.length];
+        for (int i = 0; i < signal.length; i++) {
+            double x = PHYSICAL[i] / 100;
+            signal[i] = 4 + 3 * x + 20 * x * x - 7 * x * x * x;
+        }
+
+        List<ScaleFit> fits = new ScaleFitter.Builder().build().fit(RANGE, PHYSICAL, signal);
+
+        ScaleFit best = fits.get(0);
+        assertNull(best.getScaleType());
+        assertEquals(3, best.getPolynomialDegree());
+        assertEquals("POLYNOMIAL_3", best.getName());
+        assertArrayEquals(new double[]{4, 3, 20, -7}, best.getCoefficients(), 1e-9);
+        assertNull(best.getDeviations());
+        assertTrue(Double.isNaN(best.getMaxAbsDeviation()));
+        assertEquals(4 + 3 * 0.3 + 20 * 0.09 - 7 * 0.027, best.predict(30), 1e-9);
+    }
+
+    @Test
+    public void leastSquaresMatchesNormalEquations() {
+        // Straight line through four points by hand: x = 0..3, y = 1, 3, 4, 8.
+        double[] a = {1, 1, 1, 1, 0, 1, 2, 3};
+        double[] b = {1, 3, 4, 8};
+        double[] x = new double[2];
+
+        assertTrue(ScaleFitter.leastSquares(a, 4, 2, b, x));
+        assertEquals(0.7, x[0], 1e-12);
+        assertEquals(2.2, x[1], 1e-12);
+    }
+
+    @Test
+    public void degeneratePointsFailAndRankLast() {
+        double[] physical = {50, 50, 50};
+        double[] signal = {12, 12.01, 11.99};
+
+        List<ScaleFit> fits = new ScaleFitter.Builder().build().fit(RANGE, physical, signal);
+
+        ScaleFit last = fits.get(fits.size() - 1);
+        assertTrue(Double.isNaN(last.getStandardError()));
+        assertFalse(ScaleFitter.leastSquares(new double[]{1, 1, 2, 2}, 2, 2, new double[2], new double[2]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSinglePoint() {
+        new ScaleFitter.Builder().build().fit(RANGE, new double[]{1}, new double[]{4});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyPhysicalRange() {
+        new ScaleFitter.Builder().build().fit(new CurrentLoopRange(5, 5, 4, 20), new double[2], new double[2]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsHighDegree() {
+        new ScaleFitter.Builder().maxPolynomialDegree(ScaleFitter.MAX_POLYNOMIAL_DEGREE + 1);
+    }
+
+    @Test
+    public void fitAllKeepsOrderAcrossThreads() throws InterruptedException {
+        CurrentLoopScaleType[] types = CurrentLoopScaleType.values();
+        List<ScaleFitter.Measurements> instruments = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            double[] signal = measure(types[i % types.length], 0, 0);
+            for (int j = 0; j < signal.length; j++) {
+                signal[j] += 0.001 * i;
+            }
+            instruments.add(new ScaleFitter.Measurements(RANGE, PHYSICAL, signal));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<List<ScaleFit>> results = new ScaleFitter.Builder().executor(executor).parallelism(4).build()
+                    .fitAll(instruments);
+
+            assertEquals(instruments.size(), results.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(types[i % types.length], results.get(i).get(0).getScaleType());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fitAllRethrowsFailure() throws InterruptedException {
+        List<ScaleFitter.Measurements> instruments = new ArrayList<>();
+        instruments.add(new ScaleFitter.Measurements(RANGE, PHYSICAL, measure(CurrentLoopScaleType.LINEAR, 0, 0)));
+        instruments.add(new ScaleFitter.Measurements(RANGE, new double[]{1}, new double[]{4}));
+
+        new ScaleFitter.Builder().parallelism(2).build().fitAll(instruments);
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void fitAllStopsWhenInterrupted() throws InterruptedException {
+        List<ScaleFitter.Measurements> instruments = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            instruments.add(new ScaleFitter.Measurements(RANGE, PHYSICAL, measure(CurrentLoopScaleType.ROOT, 0, i)));
+        }
+        Thread.currentThread().interrupt();
+        try {
+            new ScaleFitter.Builder().parallelism(1).build().fitAll(instruments);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void readCsvGroupsPointsByTag() throws IOException, InterruptedException {
+        double[] root = measure(CurrentLoopScaleType.ROOT, 0, 0);
+        double[] quadratic = measure(CurrentLoopScaleType.QUADRATIC, 0, 0);
+        StringBuilder csv = new StringBuilder("Прибор;Значение;Сигнал, мА\n");
+        for (int i = 0; i < PHYSICAL.length; i++) {
+            // Interleaved instruments, decimal commas and a trailing column.
+            csv.append("PT-2;").append(PHYSICAL[i]).append(';').append(root[i]).append('\n');
+            csv.append(" FT-1 \t").append(String.valueOf(PHYSICAL[i]).replace('.', ','))
+                    .append('\t').append(String.valueOf(quadratic[i]).replace('.', ',')).append("\tok\n");
+        }
+        csv.append('\n');
+
+        Map<String, ScaleFitter.Measurements> instruments = ScaleFitter.readCsv(new StringReader(csv.toString()), RANGE);
+
+        assertArrayEquals(new String[]{"PT-2", "FT-1"}, instruments.keySet().toArray(new String[0]));
+        assertEquals(PHYSICAL.length, instruments.get("FT-1").getPointCount());
+        List<List<ScaleFit>> results = new ScaleFitter.Builder().build()
+                .fitAll(new ArrayList<>(instruments.values()));
+        assertEquals(CurrentLoopScaleType.ROOT, results.get(0).get(0).getScaleType());
+        assertEquals(CurrentLoopScaleType.QUADRATIC, results.get(1).get(0).getScaleType());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void readCsvRejectsSinglePointInstrument() throws IOException {
+        ScaleFitter.readCsv(new StringReader("A;0;4\nA;100;20\nB;50;12\n"), RANGE);
+    }
+}
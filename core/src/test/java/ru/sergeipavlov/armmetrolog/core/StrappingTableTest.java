@@ -0,0 +1,161 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+public class StrappingTableTest {
+
+    // Levels in mm, volumes in m³; flat between 20 and 30 mm.
+    private static final StrappingTable TABLE = StrappingTable.of(
+            new double[]{0, 10, 20, 30, 40},
+            new double[]{0, 1, 3, 3, 7});
+
+    @Test
+    public void interpolatesBothWays() {
+        assertEquals(0, TABLE.volume(0), 0);
+        assertEquals(0.5, TABLE.volume(5), 1e-15);
+        assertEquals(2, TABLE.volume(15), 1e-15);
+        assertEquals(7, TABLE.volume(40), 0);
+
+        assertEquals(5, TABLE.level(0.5), 1e-15);
+        assertEquals(35, TABLE.level(5), 1e-15);
+        // The lowest level holding a volume.
+        assertEquals(20, TABLE.level(3), 0);
+        assertEquals(0, TABLE.level(0), 0);
+    }
+
+    @Test
+    public void outsideTableIsNaN() {
+        assertTrue(Double.isNaN(TABLE.volume(-0.1)));
+        assertTrue(Double.isNaN(TABLE.volume(40.1)));
+        assertTrue(Double.isNaN(TABLE.volume(Double.NaN)));
+        assertTrue(Double.isNaN(TABLE.level(7.1)));
+    }
+
+    @Test
+    public void arrayFormMatchesScalar() {
+        double[] levels = new double[401];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = i * 0.1;
+        }
+        double[] shuffled = {33, 1, 40, 41, 12, 12, -1, 20};
+        for (double[] in : new double[][]{levels, shuffled}) {
+            double[] volumes = new double[in.length];
+            TABLE.volume(in, volumes);
+            for (int i = 0; i < in.length; i++) {
+                assertEquals(TABLE.volume(in[i]), volumes[i], 0);
+            }
+            double[] back = volumes.clone();
+            TABLE.level(back, back);
+            for (int i = 0; i < in.length; i++) {
+                assertEquals(TABLE.level(volumes[i]), back[i], 0);
+            }
+        }
+    }
+
+    @Test
+    public void volumeFromSignal() {
+        CurrentLoopRange range = new CurrentLoopRange(0, 40, 4, 20);
+        double[] signal = {4, 8, 12, 20};
+        double[] volume = new double[signal.length];
+
+        TABLE.volumeFromSignal(CurrentLoopScaleType.LINEAR, range, signal, 0, volume, 0, signal.length);
+
+        assertArrayEquals(new double[]{0, 1, 3, 7}, volume, 1e-12);
+    }
+
+    @Test
+    public void criticalZoneReplacesRows() {
+        StrappingTable zone = StrappingTable.of(new double[]{5, 7.5, 12.5}, new double[]{0.5, 0.6, 1.9});
+        StrappingTable merged = TABLE.withCriticalZone(zone);
+
+        assertArrayEquals(new double[]{0, 5, 7.5, 12.5, 20, 30, 40}, merged.getLevels(), 0);
+        assertEquals(0.6, merged.volume(7.5), 0);
+        assertEquals(1.9 + 1.1 / 3, merged.volume(15), 1e-12);
+        // The main table is unchanged.
+        assertEquals(5, TABLE.getRowCount());
+    }
+
+    @Test
+    public void readsCsvWithCriticalZone() throws IOException {
+        String csv = "Уровень, мм;Объём, м3\n"
+                + "0;0\n"
+                + "10;1,0\n"
+                + "20;3\n"
+                + "30;3\n"
+                + "40;7\n"
+                + "\n"
+                + "Критическая зона\n"
+                + "5\t0.5\n"
+                + "7.5\t0.6\n"
+                + "12.5\t1.9\n";
+
+        StrappingTable table = StrappingTable.readCsv(new StringReader(csv));
+
+        assertArrayEquals(new double[]{0, 5, 7.5, 12.5, 20, 30, 40}, table.getLevels(), 0);
+        assertArrayEquals(new double[]{0, 0.5, 0.6, 1.9, 3, 3, 7}, table.getVolumes(), 0);
+    }
+
+    @Test
+    public void readsBlankAndCommaSeparatedCsv() throws IOException {
+        assertEquals(TABLE, StrappingTable.readCsv(new StringReader("0 0\n10  1\n20 3\r\n30 3\n40 7")));
+        assertEquals(TABLE, StrappingTable.readCsv(new StringReader("level,volume\n0,0\n10,1\n20,3\n30,3\n40,7\n")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void csvRejectsIncompleteRow() throws IOException {
+        StrappingTable.readCsv(new StringReader("0;0\n10\n20;3\n"));
+    }
+
+    @Test
+    public void binaryRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TABLE.writeTo(new DataOutputStream(bytes));
+
+        StrappingTable read = StrappingTable.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(TABLE, read);
+    }
+
+    @Test
+    public void mapsBinaryCache() throws IOException {
+        Path file = Files.createTempFile("strapping", ".bin");
+        try {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+                TABLE.writeTo(out);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                assertEquals(TABLE, StrappingTable.map(channel));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void readFromRejectsOtherData() throws IOException {
+        StrappingTable.readFrom(new DataInputStream(new ByteArrayInputStream(new byte[32])));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDecreasingVolume() {
+        StrappingTable.of(new double[]{0, 1, 2}, new double[]{0, 2, 1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRepeatedLevel() {
+        StrappingTable.of(new double[]{0, 1, 1}, new double[]{0, 1, 2});
+    }
+}
@@ -0,0 +1,85 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ThermocoupleTest {
+
+    // Reference table values, mV, at the given °C.
+    private static final Object[][] REFERENCE = {
+            {Thermocouple.B, 250.0, 0.291}, {Thermocouple.B, 1000.0, 4.834}, {Thermocouple.B, 1820.0, 13.820},
+            {Thermocouple.E, -200.0, -8.825}, {Thermocouple.E, 100.0, 6.319}, {Thermocouple.E, 1000.0, 76.373},
+            {Thermocouple.J, -210.0, -8.095}, {Thermocouple.J, 100.0, 5.269}, {Thermocouple.J, 1200.0, 69.553},
+            {Thermocouple.K, -200.0, -5.891}, {Thermocouple.K, 100.0, 4.096}, {Thermocouple.K, 1000.0, 41.276},
+            {Thermocouple.K, 1372.0, 54.886},
+            {Thermocouple.N, -200.0, -3.990}, {Thermocouple.N, 100.0, 2.774}, {Thermocouple.N, 1300.0, 47.513},
+            {Thermocouple.R, -50.0, -0.226}, {Thermocouple.R, 1000.0, 10.506}, {Thermocouple.R, 1500.0, 17.451},
+            {Thermocouple.S, 100.0, 0.646}, {Thermocouple.S, 1000.0, 9.587}, {Thermocouple.S, 1768.0, 18.693},
+            {Thermocouple.T, -200.0, -5.603}, {Thermocouple.T, 100.0, 4.279}, {Thermocouple.T, 400.0, 20.872},
+    };
+
+    @Test
+    public void matchesReferenceTables() {
+        for (Object[] point : REFERENCE) {
+            Thermocouple type = (Thermocouple) point[0];
+            double temperature = (Double) point[1];
+            double emf = (Double) point[2];
+            assertEquals(type + " " + temperature, emf, type.toEmf(temperature), 0.0005);
+            // The inverse polynomials are specified to a few hundredths of a degree.
+            assertEquals(type + " " + emf, temperature, type.toTemperature(emf), 0.2);
+        }
+    }
+
+    @Test
+    public void inverseRoundTripsOverWholeRange() {
+        for (Thermocouple type : Thermocouple.values()) {
+            for (double temperature = type.getMinTemperature(); temperature <= type.getMaxTemperature(); temperature += 0.5) {
+                double emf = type.toEmf(temperature);
+                if (emf < type.getMinEmf() || emf > type.getMaxEmf()) {
+                    continue;
+                }
+                assertEquals(type + " " + temperature, temperature, type.toTemperature(emf), 1e-4);
+            }
+            assertFalse(type.toString(), Double.isNaN(type.toTemperature(type.toEmf(type.getMaxTemperature()))));
+        }
+    }
+
+    @Test
+    public void compensatesColdJunction() {
+        Thermocouple type = Thermocouple.K;
+        double measured = type.toEmf(300.0, 25.0);
+        assertEquals(type.toEmf(300.0) - type.toEmf(25.0), measured, 0.0);
+        assertEquals(300.0, type.toTemperature(measured, 25.0), 1e-4);
+        assertEquals(0.0, type.toEmf(25.0, 25.0), 0.0);
+    }
+
+    @Test
+    public void rejectsValuesOutOfRange() {
+        assertTrue(Double.isNaN(Thermocouple.K.toEmf(1400.0)));
+        assertTrue(Double.isNaN(Thermocouple.T.toEmf(-271.0)));
+        assertTrue(Double.isNaN(Thermocouple.B.toTemperature(0.1)));
+        assertTrue(Double.isNaN(Thermocouple.J.toTemperature(Double.NaN)));
+        assertTrue(Double.isNaN(Thermocouple.K.toTemperature(1.0, 2000.0)));
+    }
+
+    @Test
+    public void arrayOverloadsMatchScalar() {
+        for (Thermocouple type : Thermocouple.values()) {
+            int first = (int) Math.ceil(type.getMinTemperature()) - 5;
+            int last = (int) Math.floor(type.getMaxTemperature()) + 5;
+            double[] temperatures = new double[last - first + 1];
+            for (int i = 0; i < temperatures.length; i++) {
+                temperatures[i] = first + i;
+            }
+            double[] emfs = new double[temperatures.length];
+            type.toEmf(20.0, temperatures, emfs);
+            double[] back = emfs.clone();
+            type.toTemperature(20.0, back, back);
+            for (int i = 0; i < temperatures.length; i++) {
+                assertEquals(Double.doubleToLongBits(type.toEmf(temperatures[i], 20.0)), Double.doubleToLongBits(emfs[i]));
+                assertEquals(Double.doubleToLongBits(type.toTemperature(emfs[i], 20.0)), Double.doubleToLongBits(back[i]));
+            }
+        }
+    }
+}
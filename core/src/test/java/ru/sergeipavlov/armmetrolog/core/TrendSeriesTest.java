@@ -0,0 +1,96 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TrendSeriesTest {
+
+    @Test
+    public void keepsLatestPointsWithinCapacity() {
+        TrendSeries series = new TrendSeries(1000);
+        for (int i = 0; i < 10_000; i++) {
+            series.append(i, i);
+        }
+        series.append(10_000, Double.NaN);
+        assertEquals(1000, series.size());
+        assertEquals(9000.0, series.getFirstTime(), 0.0);
+        assertEquals(9999.0, series.getLastTime(), 0.0);
+
+        double[] times = new double[16];
+        double[] values = new double[16];
+        int count = series.decimate(TrendSeries.Decimation.MIN_MAX, 9997, 9999, 1, times, values);
+        assertEquals(2, count);
+        assertEquals(9996.0, times[0], 0.0);
+        assertEquals(9999.0, times[1], 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTimeGoingBack() {
+        TrendSeries series = new TrendSeries(10);
+        series.append(2, 0);
+        series.append(1, 0);
+    }
+
+    @Test
+    public void minMaxKeepsEverySpike() {
+        int n = 1_000_000;
+        TrendSeries series = new TrendSeries(n);
+        for (int i = 0; i < n; i++) {
+            double value = Math.sin(i * 1e-4);
+            if (i == 123_457) {
+                value = 50;
+            } else if (i == 876_543) {
+                value = -50;
+            }
+            series.append(i * 0.001, value);
+        }
+        int columns = 800;
+        double[] times = new double[2 * columns + 4];
+        double[] values = new double[2 * columns + 4];
+        int count = series.decimate(TrendSeries.Decimation.MIN_MAX, 0, n * 0.001, columns, times, values);
+        assertTrue(count <= 2 * columns);
+        double max = Double.NEGATIVE_INFINITY;
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, values[i]);
+            min = Math.min(min, values[i]);
+            if (i > 0) {
+                assertTrue(times[i] >= times[i - 1]);
+            }
+        }
+        assertEquals(50.0, max, 0.0);
+        assertEquals(-50.0, min, 0.0);
+    }
+
+    @Test
+    public void lttbKeepsEndsAndShape() {
+        TrendSeries series = new TrendSeries(100_000);
+        for (int i = 0; i < 100_000; i++) {
+            series.append(i, i < 50_000 ? i : 100_000 - i);
+        }
+        double[] times = new double[204];
+        double[] values = new double[204];
+        int count = series.decimate(TrendSeries.Decimation.LTTB, 0, 99_999, 100, times, values);
+        assertEquals(202, count);
+        assertEquals(0.0, times[0], 0.0);
+        assertEquals(99_999.0, times[count - 1], 0.0);
+        double peak = 0;
+        for (int i = 0; i < count; i++) {
+            peak = Math.max(peak, values[i]);
+        }
+        assertEquals(50_000.0, peak, 600);
+    }
+
+    @Test
+    public void lttbReturnsShortSeriesUnchanged() {
+        double[] x = {0, 1, 2};
+        double[] y = {5, 6, 7};
+        double[] outX = new double[3];
+        double[] outY = new double[3];
+        assertEquals(3, TrendDecimator.lttb(x, y, 0, 3, 10, outX, outY));
+        assertArrayEquals(y, outY, 0.0);
+        assertEquals(2, TrendDecimator.lttb(x, y, 0, 3, 2, outX, outY));
+        assertEquals(7.0, outY[1], 0.0);
+    }
+}
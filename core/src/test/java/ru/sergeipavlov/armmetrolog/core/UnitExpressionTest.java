@@ -0,0 +1,82 @@
+package ru.sergeipavlov.armmetrolog.core;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class UnitExpressionTest {
+
+    private static final double DELTA = 1e-12;
+
+    @Test
+    public void prefixesAndCompounds() {
+        assertEquals(1 / 3.6, UnitExpression.parse("km/h").getFactor(), DELTA);
+        assertEquals(0.001, UnitExpression.parse("mm").getFactor(), 0);
+        assertEquals(60, UnitExpression.parse("min").getFactor(), 0);
+        assertEquals(1e-6, UnitExpression.parse("µm").getFactor(), 0);
+        assertEquals(1e-6, UnitExpression.parse("um").getFactor(), 0);
+        assertEquals(10, UnitExpression.parse("dam").getFactor(), 0);
+        assertEquals(1852 / 3600.0, UnitExpression.parse("kn").getFactor(), DELTA);
+        assertEquals(0.00508, UnitExpression.parse("ft/min").getFactor(), DELTA);
+        assertEquals(0.44704, UnitExpression.parse("mi/h").getFactor(), DELTA);
+    }
+
+    @Test
+    public void exponentsAndDerivedUnits() {
+        UnitExpression pressure = UnitExpression.parse("kgf/cm^2");
+        assertEquals(98_066.5, pressure.getFactor(), 1e-9);
+        assertEquals("m^-1 kg s^-2", pressure.getDimension());
+        assertTrue(pressure.isCommensurable(UnitExpression.parse("bar")));
+        assertEquals(UnitExpression.parse("kgf/cm2"), UnitExpression.parse("kgf/cm²"));
+        assertEquals(UnitExpression.parse("m/s2"), UnitExpression.parse("m·s^-2"));
+        assertEquals(1000, UnitExpression.parse("kg/L").getFactor(), 1e-12);
+        assertEquals(1.0 / 60, UnitExpression.parse("1/min").getFactor(), DELTA);
+        assertEquals("s^-1", UnitExpression.parse("1/min").getDimension());
+        assertEquals("1", UnitExpression.parse("m/km").getDimension());
+    }
+
+    @Test
+    public void symbolsWithDigits() {
+        assertEquals(9.80665, UnitExpression.parse("mmH2O").getFactor(), DELTA);
+        assertEquals(249.08891, UnitExpression.parse("inH2O").getFactor(), 1e-10);
+        assertEquals(UnitExpression.parse("kgf/m2"), UnitExpression.parse("mmH2O"));
+        assertEquals(UnitExpression.parse("mmH2O/s"), UnitExpression.parse("mmH2O*s^-1"));
+        assertEquals(101_325 / 760.0, UnitExpression.parse("Torr").getFactor(), 1e-12);
+    }
+
+    @Test
+    public void exactFraction() {
+        UnitExpression knot = UnitExpression.parse("kn");
+        assertEquals(0, new BigDecimal("1852").multiply(knot.getDenominator())
+                .compareTo(new BigDecimal("3600").multiply(knot.getNumerator())));
+    }
+
+    @Test
+    public void factorBetweenUnits() {
+        assertEquals(3.6, UnitExpression.parse("m/s").factorTo(UnitExpression.parse("km/h")), DELTA);
+        assertEquals(145.03773773, UnitExpression.parse("MPa").factorTo(UnitExpression.parse("lbf/in2")),
+                1e-8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void incommensurableFactor_rejected() {
+        UnitExpression.parse("m/s").factorTo(UnitExpression.parse("m/s2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownSymbol_rejected() {
+        UnitExpression.parse("furlong/fortnight");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPrefixableUnit_rejected() {
+        UnitExpression.parse("kmin");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void danglingOperator_rejected() {
+        UnitExpression.parse("m/");
+    }
+}